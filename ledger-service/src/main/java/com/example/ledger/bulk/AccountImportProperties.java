@@ -0,0 +1,11 @@
+package com.example.ledger.bulk;
+
+import lombok.Data;
+
+@Data
+public class AccountImportProperties {
+    // accounts per transaction of a streaming import, one progress line is reported per commit
+    private int commitSize = 5000;
+    // rows per JDBC batch; on PostgreSQL add reWriteBatchedInserts=true to the JDBC url
+    private int batchSize = 500;
+}
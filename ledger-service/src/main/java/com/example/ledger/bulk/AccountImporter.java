@@ -0,0 +1,312 @@
+package com.example.ledger.bulk;
+
+import com.example.ledger.chain.LedgerChain;
+import com.example.ledger.fx.FxRateTable;
+import com.example.ledger.model.Account;
+import com.example.ledger.model.LedgerEntry;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Creates accounts in bulk without going through JPA: ids are reserved from {@code accounts_seq}
+ * and {@code ledger_entries_seq} in one query per chunk, and accounts and their opening-balance
+ * CREDIT entries (transfer id {@code opening-<accountId>}) are inserted with JDBC batches.
+ *
+ * Streaming imports read one line at a time and commit every {@code commitSize} accounts, so
+ * memory stays flat however large the file is. Committed chunks stay committed when a later
+ * line is invalid; the progress reported per chunk says which lines became which accounts.
+ *
+ * Imported accounts are not put into the account cache, and their opening entries are not
+ * published to the ledger feed or counted in daily activity, they are not transfers.
+ */
+@Component
+@Slf4j
+public class AccountImporter {
+
+    static final String OPENING_BALANCE_PREFIX = "opening-";
+    // allocationSize of both sequences: a sequence value v reserves the ids (v - 50, v]
+    static final int ID_BLOCK_SIZE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate writeTransaction;
+    private final AccountImportProperties properties;
+    private final ObjectMapper objectMapper;
+    private final FxRateTable fxRateTable;
+    private final Counter imported;
+    private volatile Boolean postgres;
+
+    public AccountImporter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                           AccountImportProperties properties, ObjectMapper objectMapper, FxRateTable fxRateTable,
+                           MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.fxRateTable = fxRateTable;
+        this.imported = Counter.builder("ledger.accounts.imported").register(meterRegistry);
+    }
+
+    /**
+     * Creates one account per opening balance in a single transaction, returned in the same order.
+     */
+    public List<Account> createAccounts(List<Opening> openings) {
+        final var validated = openings.stream().map(this::validate).toList();
+        final var accounts = writeTransaction.execute(status -> insert(validated));
+        imported.increment(openings.size());
+        return accounts;
+    }
+
+    /**
+     * Imports one account per non-blank line. CSV lines hold the opening balance in the first
+     * column and may start with a header line, a header column named {@code currency} gives each
+     * account's currency; NDJSON lines are {@code {"initialBalance": 100, "currency": "EUR"}}.
+     * Accounts without a currency get {@code ledger.fx.default-currency}. Stops at the first
+     * invalid line, the returned summary says where.
+     */
+    public ImportSummary importAccounts(BufferedReader reader, Format format, Consumer<ImportedChunk> progress)
+            throws IOException {
+        final var commitSize = properties.getCommitSize();
+        final var chunk = new ArrayList<Opening>(commitSize);
+        long lineNumber = 0;
+        long firstLine = 0;
+        long lastLine = 0;
+        long total = 0;
+        boolean headerAllowed = format == Format.CSV;
+        int currencyColumn = -1;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            final Opening opening;
+            try {
+                final var parsed = parse(format, line, currencyColumn);
+                headerAllowed = false;
+                opening = validate(parsed);
+            } catch (IllegalArgumentException e) {
+                if (headerAllowed) {
+                    // a first CSV line that isn't a number is the header
+                    headerAllowed = false;
+                    currencyColumn = columnIndex(line, "currency");
+                    continue;
+                }
+                return new ImportSummary(lineNumber, total, "Line " + lineNumber + ": " + e.getMessage());
+            }
+
+            if (chunk.isEmpty()) {
+                firstLine = lineNumber;
+            }
+            chunk.add(opening);
+            lastLine = lineNumber;
+            if (chunk.size() == commitSize) {
+                total += commit(chunk, firstLine, lastLine, total, progress);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            total += commit(chunk, firstLine, lastLine, total, progress);
+        }
+        return new ImportSummary(lineNumber, total, null);
+    }
+
+    private int commit(List<Opening> chunk, long firstLine, long lastLine, long total,
+                       Consumer<ImportedChunk> progress) {
+        final var accounts = writeTransaction.execute(status -> insert(chunk));
+        final var count = chunk.size();
+        chunk.clear();
+        imported.increment(count);
+        log.info("Imported accounts from lines {}-{}, {} so far", firstLine, lastLine, total + count);
+        progress.accept(new ImportedChunk(firstLine, lastLine, IdRange.of(accounts), total + count));
+        return count;
+    }
+
+    private List<Account> insert(List<Opening> openings) {
+        final var accountIds = reserveIds("accounts_seq", openings.size());
+        final var entryIds = reserveIds("ledger_entries_seq", openings.size());
+        final var createdAt = OffsetDateTime.now();
+
+        final var accounts = new ArrayList<Account>(openings.size());
+        final var entries = new ArrayList<LedgerEntry>(openings.size());
+        for (int i = 0; i < openings.size(); i++) {
+            final var opening = openings.get(i);
+            final var account = Account.builder()
+                    .id(accountIds[i])
+                    .balance(opening.balance())
+                    .currency(opening.currency())
+                    .version(0L)
+                    .build();
+            final var entry = LedgerEntry.builder()
+                    .id(entryIds[i])
+                    .transferId(OPENING_BALANCE_PREFIX + accountIds[i])
+                    .accountId(accountIds[i])
+                    .amount(opening.balance())
+                    .type(LedgerEntry.EntryType.CREDIT)
+                    .createdAt(createdAt)
+                    .build();
+            // the opening entry is the first link of the account's chain
+            LedgerChain.append(account, entry);
+            accounts.add(account);
+            entries.add(entry);
+        }
+
+        jdbcTemplate.batchUpdate("INSERT INTO accounts (id, balance, currency, version, chain_length, chain_head) "
+                        + "VALUES (?, ?, ?, ?, ?, ?)",
+                accounts, properties.getBatchSize(), (statement, account) -> {
+                    statement.setLong(1, account.getId());
+                    statement.setBigDecimal(2, account.getBalance());
+                    statement.setString(3, account.getCurrency());
+                    statement.setLong(4, account.getVersion());
+                    statement.setLong(5, account.getChainLength());
+                    statement.setBytes(6, account.getChainHead());
+                });
+        jdbcTemplate.batchUpdate("INSERT INTO ledger_entries (id, transfer_id, account_id, amount, type, created_at, "
+                        + "chain_sequence, chain_hash) VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+                entries, properties.getBatchSize(), (statement, entry) -> {
+                    statement.setLong(1, entry.getId());
+                    statement.setString(2, entry.getTransferId());
+                    statement.setLong(3, entry.getAccountId());
+                    statement.setBigDecimal(4, entry.getAmount());
+                    statement.setString(5, entry.getType().name());
+                    statement.setObject(6, entry.getCreatedAt());
+                    statement.setLong(7, entry.getChainSequence());
+                    statement.setBytes(8, entry.getChainHash());
+                });
+        return accounts;
+    }
+
+    /**
+     * Reserves ids the same way Hibernate's pooled optimizer does, so JPA inserts and imports
+     * can share the sequence. Values below one block are skipped, Hibernate's first block
+     * starts at 1 and covers them.
+     */
+    long[] reserveIds(String sequence, int count) {
+        final var ids = new long[count];
+        var filled = 0;
+        while (filled < count) {
+            final var blocks = (count - filled + ID_BLOCK_SIZE - 1) / ID_BLOCK_SIZE;
+            final var sql = isPostgres()
+                    ? "SELECT nextval('" + sequence + "') FROM generate_series(1, " + blocks + ")"
+                    : "SELECT NEXT VALUE FOR " + sequence + " FROM SYSTEM_RANGE(1, " + blocks + ")";
+            final var values = jdbcTemplate.queryForList(sql, Long.class);
+            values.sort(null);
+            for (final var value : values) {
+                if (value < ID_BLOCK_SIZE) {
+                    continue;
+                }
+                for (long id = value - ID_BLOCK_SIZE + 1; id <= value && filled < count; id++) {
+                    ids[filled++] = id;
+                }
+            }
+        }
+        return ids;
+    }
+
+    private Opening parse(Format format, String line, int currencyColumn) {
+        if (format == Format.CSV) {
+            final var fields = line.split(",", -1);
+            final var field = fields[0].trim().replace("\"", "");
+            final var currency = currencyColumn >= 0 && currencyColumn < fields.length
+                    ? fields[currencyColumn].trim().replace("\"", "")
+                    : "";
+            try {
+                return new Opening(new BigDecimal(field), currency.isEmpty() ? null : currency);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("initialBalance is not a number: " + field);
+            }
+        }
+        try {
+            final var json = objectMapper.readTree(line);
+            final var balance = json.path("initialBalance");
+            final var currency = json.path("currency").isTextual() ? json.path("currency").asText() : null;
+            if (balance.isNumber()) {
+                return new Opening(balance.decimalValue(), currency);
+            }
+            if (balance.isTextual()) {
+                return new Opening(new BigDecimal(balance.asText()), currency);
+            }
+            throw new IllegalArgumentException("initialBalance is missing");
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid JSON: " + e.getOriginalMessage());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("initialBalance is not a number");
+        }
+    }
+
+    // same rules as POST /accounts, the currency resolved to the one stored
+    private Opening validate(Opening opening) {
+        if (opening.balance().signum() <= 0) {
+            throw new IllegalArgumentException("initialBalance must be positive");
+        }
+        return new Opening(opening.balance(), fxRateTable.accountCurrency(opening.currency()));
+    }
+
+    private static int columnIndex(String header, String name) {
+        final var columns = header.split(",", -1);
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i].trim().replace("\"", "").equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            final var product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            postgres = "PostgreSQL".equals(product);
+        }
+        return postgres;
+    }
+
+    public enum Format {
+        CSV, NDJSON
+    }
+
+    // accounts created from lines firstLine..lastLine, in line order over the id ranges
+    public record ImportedChunk(long firstLine, long lastLine, List<IdRange> accountIds, long imported) {
+    }
+
+    // currency null: ledger.fx.default-currency
+    public record Opening(BigDecimal balance, String currency) {
+    }
+
+    public record ImportSummary(long lines, long imported, String error) {
+    }
+
+    public record IdRange(long first, long last) {
+
+        // consecutive ids collapse into one range, usually a whole chunk
+        static List<IdRange> of(List<Account> accounts) {
+            final var ranges = new ArrayList<IdRange>();
+            long first = accounts.get(0).getId();
+            long last = first;
+            for (final var account : accounts.subList(1, accounts.size())) {
+                if (account.getId() != last + 1) {
+                    ranges.add(new IdRange(first, last));
+                    first = account.getId();
+                }
+                last = account.getId();
+            }
+            ranges.add(new IdRange(first, last));
+            return ranges;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.ledger.cache;
+
+import com.example.ledger.model.Account;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded in-process cache of committed account snapshots for {@code GET /accounts/{id}}.
+ *
+ * Writers put the new snapshot after their transaction commits instead of invalidating, and a
+ * snapshot only replaces an older {@link Account#getVersion() version}, so a reader that loaded
+ * the row before a concurrent commit can't overwrite the newer value with its stale one.
+ *
+ * Entries live in a fixed-size, 4-way set-associative table: reads are lock-free, puts take a
+ * striped lock on their set and evict the set's oldest entry when it is full. An entry is also
+ * dropped after {@code expireAfter}, which bounds how stale a balance can be when it was changed
+ * outside this process, or when a snapshot was evicted while a slower reader was still loading.
+ */
+public class AccountCache {
+
+    private static final int WAYS = 4;
+    private static final int LOCK_STRIPES = 64;
+
+    private final boolean enabled;
+    private final long expireAfterNanos;
+    private final int setMask;
+    private final AtomicReferenceArray<Snapshot> slots;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public AccountCache(AccountCacheProperties properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.isEnabled();
+        this.expireAfterNanos = properties.getExpireAfter().toNanos();
+        final int sets = Integer.highestOneBit(Math.max(1, (properties.getMaxSize() + WAYS - 1) / WAYS - 1)) << 1;
+        this.setMask = sets - 1;
+        this.slots = new AtomicReferenceArray<>(enabled ? sets * WAYS : 0);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+
+        this.hits = Counter.builder("ledger.account.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("ledger.account.cache.requests").tag("result", "miss").register(meterRegistry);
+        this.evictions = Counter.builder("ledger.account.cache.evictions").register(meterRegistry);
+    }
+
+    /**
+     * Returns a copy of the cached account, or empty if it isn't cached or has expired.
+     */
+    public Optional<Account> get(long accountId) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        final int base = baseSlot(accountId);
+        final long now = System.nanoTime();
+        for (int i = 0; i < WAYS; i++) {
+            final var snapshot = slots.get(base + i);
+            if (snapshot != null && snapshot.id == accountId && now - snapshot.cachedAt < expireAfterNanos) {
+                hits.increment();
+                return Optional.of(snapshot.toAccount());
+            }
+        }
+        misses.increment();
+        return Optional.empty();
+    }
+
+    /**
+     * Caches the account as loaded from the database, unless a newer version is already cached.
+     */
+    public void put(Account account) {
+        if (!enabled || account.getId() == null || account.getVersion() == null) {
+            return;
+        }
+        final var snapshot = new Snapshot(account.getId(), account.getBalance(), account.getCurrency(),
+                account.getVersion(), System.nanoTime());
+        final int base = baseSlot(snapshot.id);
+        synchronized (locks[(base / WAYS) & (LOCK_STRIPES - 1)]) {
+            int free = -1;
+            int oldest = -1;
+            long oldestCachedAt = 0;
+            for (int i = 0; i < WAYS; i++) {
+                final var current = slots.get(base + i);
+                if (current == null) {
+                    free = free < 0 ? base + i : free;
+                } else if (current.id == snapshot.id) {
+                    if (current.version <= snapshot.version) {
+                        slots.set(base + i, snapshot);
+                    }
+                    return;
+                } else if (oldest < 0 || current.cachedAt - oldestCachedAt < 0) {
+                    oldest = base + i;
+                    oldestCachedAt = current.cachedAt;
+                }
+            }
+            if (free < 0) {
+                evictions.increment();
+            }
+            slots.set(free >= 0 ? free : oldest, snapshot);
+        }
+    }
+
+    /**
+     * Puts the accounts once the current transaction commits, or immediately when there is no
+     * transaction. Versions are read at that point, after Hibernate has incremented them on flush.
+     */
+    public void putAfterCommit(Collection<Account> accounts) {
+        if (!enabled) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            accounts.forEach(this::put);
+            return;
+        }
+        final List<Account> changed = List.copyOf(accounts);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    changed.forEach(AccountCache.this::put);
+                } else if (status == STATUS_UNKNOWN) {
+                    // the committed version is unknown, make the next read go to the database
+                    changed.forEach(account -> invalidate(account.getId()));
+                }
+            }
+        });
+    }
+
+    public void invalidate(long accountId) {
+        if (!enabled) {
+            return;
+        }
+        final int base = baseSlot(accountId);
+        synchronized (locks[(base / WAYS) & (LOCK_STRIPES - 1)]) {
+            for (int i = 0; i < WAYS; i++) {
+                final var current = slots.get(base + i);
+                if (current != null && current.id == accountId) {
+                    slots.set(base + i, null);
+                }
+            }
+        }
+    }
+
+    private int baseSlot(long accountId) {
+        return (int) (mix(accountId) & setMask) * WAYS;
+    }
+
+    private static long mix(long key) {
+        key = (key ^ (key >>> 33)) * 0xff51afd7ed558ccdL;
+        key = (key ^ (key >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return key ^ (key >>> 33);
+    }
+
+    private record Snapshot(long id, BigDecimal balance, String currency, long version, long cachedAt) {
+        Account toAccount() {
+            return Account.builder().id(id).balance(balance).currency(currency).version(version).build();
+        }
+    }
+}
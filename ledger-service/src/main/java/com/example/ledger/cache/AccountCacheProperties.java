@@ -0,0 +1,13 @@
+package com.example.ledger.cache;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+@Data
+public class AccountCacheProperties {
+    private boolean enabled = true;
+    private int maxSize = 100_000;
+    // upper bound on staleness for writes this process doesn't see (other instances, manual SQL)
+    private Duration expireAfter = Duration.ofSeconds(30);
+}
@@ -0,0 +1,13 @@
+package com.example.ledger.chain;
+
+import lombok.Data;
+
+@Data
+public class ChainProperties {
+    // scheduled checkpoints, POST /ledger/checkpoints works either way
+    private boolean checkpointEnabled = true;
+    // accounts per keyset page when checkpointing, leaves per page when verifying
+    private int pageSize = 1000;
+    // threads rehashing entry ranges during verification
+    private int verifyParallelism = 4;
+}
@@ -0,0 +1,248 @@
+package com.example.ledger.chain;
+
+import com.example.ledger.model.LedgerCheckpoint;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Checks ledger entries against their hash chains and checkpoints.
+ *
+ * Verifying a checkpoint only rehashes the entries added since the checkpoint before it, one
+ * range per leaf, so verifying each checkpoint as it is taken covers the whole ledger once.
+ * Leaf pages are verified in parallel on read-only transactions while the calling thread
+ * rebuilds the Merkle root; at most two pages per thread are in flight.
+ *
+ * Ranges are read through the (account_id, created_at) index, there is no index on the chain
+ * sequence, so an account's range costs a scan of that account's entries. Entries moved to the
+ * columnar archive are no longer in the table, ranges that reach into archived months report
+ * them as missing.
+ */
+@Component
+@Slf4j
+public class ChainVerifier {
+
+    static final int MAX_FAILURES = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readTransaction;
+    private final CheckpointService checkpointService;
+    private final ChainProperties properties;
+    private final ExecutorService workers;
+
+    public ChainVerifier(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                         CheckpointService checkpointService, ChainProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.checkpointService = checkpointService;
+        this.properties = properties;
+        final var threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(properties.getVerifyParallelism(), runnable -> {
+            final var thread = new Thread(runnable, "ledger-chain-verify-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * Empty when the checkpoint doesn't exist.
+     */
+    public Optional<VerificationReport> verifyCheckpoint(long checkpointId) {
+        final var found = checkpointService.findCheckpoint(checkpointId);
+        if (found.isEmpty()) {
+            return Optional.empty();
+        }
+        final var checkpoint = found.get();
+        final var failures = new Failures();
+        final var entries = new AtomicLong();
+
+        final var expectedPrevious = checkpointService.findPrevious(checkpointId)
+                .map(LedgerCheckpoint::getRoot)
+                .orElse(LedgerChain.GENESIS);
+        if (!Arrays.equals(expectedPrevious, checkpoint.getPreviousRoot())) {
+            failures.add("Checkpoint " + checkpointId + " does not follow the checkpoint before it");
+        }
+
+        final var merkleRoot = new MerkleRoot();
+        final var inFlight = new Semaphore(properties.getVerifyParallelism() * 2);
+        final var pending = new ArrayList<Future<?>>();
+        try {
+            long afterAccountId = 0;
+            List<Leaf> page;
+            while (!(page = findLeaves(checkpointId, afterAccountId)).isEmpty()) {
+                page.forEach(leaf -> merkleRoot.add(leaf.accountId(), leaf.chainSequence(), leaf.chainHash()));
+                inFlight.acquire();
+                final var leaves = page;
+                pending.add(workers.submit(() -> {
+                    try {
+                        readTransaction.executeWithoutResult(status -> leaves.forEach(leaf ->
+                                entries.addAndGet(verifyRange(leaf.accountId(), leaf.previousSequence(),
+                                        leaf.previousHash(), leaf.chainSequence(), leaf.chainHash(), failures))));
+                    } finally {
+                        inFlight.release();
+                    }
+                }));
+                afterAccountId = page.get(page.size() - 1).accountId();
+            }
+            for (final var future : pending) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.forEach(future -> future.cancel(true));
+            throw new IllegalStateException("Interrupted while verifying checkpoint " + checkpointId, e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to verify checkpoint " + checkpointId, e.getCause());
+        }
+
+        if (merkleRoot.getLeafCount() != checkpoint.getLeafCount()
+                || !Arrays.equals(merkleRoot.root(), checkpoint.getMerkleRoot())) {
+            failures.add("Checkpoint " + checkpointId + " leaves do not match its Merkle root");
+        }
+        if (!Arrays.equals(MerkleRoot.checkpointRoot(checkpoint.getPreviousRoot(), checkpoint.getMerkleRoot(),
+                checkpoint.getLeafCount()), checkpoint.getRoot())) {
+            failures.add("Checkpoint " + checkpointId + " root does not match its contents");
+        }
+
+        final var report = failures.report(checkpointId, null, merkleRoot.getLeafCount(), entries.get());
+        if (!report.valid()) {
+            log.warn("Checkpoint {} failed verification: {}", checkpointId, report.failures());
+        }
+        return Optional.of(report);
+    }
+
+    /**
+     * Rehashes the account's whole chain and checks it against the account's head and, if the
+     * account has been checkpointed, against its latest checkpointed head. Empty when the
+     * account doesn't exist.
+     */
+    public Optional<VerificationReport> verifyAccount(long accountId) {
+        return Optional.ofNullable(readTransaction.execute(status -> {
+            final var heads = jdbcTemplate.query(
+                    "SELECT a.chain_length, a.chain_head, h.chain_sequence, h.chain_hash "
+                            + "FROM accounts a LEFT JOIN ledger_chain_heads h ON h.account_id = a.id WHERE a.id = ?",
+                    (rs, rowNum) -> new Leaf(accountId, rs.getLong(3), rs.getBytes(4), rs.getLong(1), rs.getBytes(2)),
+                    accountId);
+            if (heads.isEmpty()) {
+                return null;
+            }
+            final var head = heads.get(0);
+            final var failures = new Failures();
+            long entries = 0;
+            if (head.chainSequence() < head.previousSequence()) {
+                failures.add("Account " + accountId + ": chain is shorter than at checkpoint");
+            } else if (head.chainHash() != null) {
+                // genesis to the checkpointed head, then on to the current head
+                entries += verifyRange(accountId, 0, null, head.previousSequence(), head.previousHash(), failures);
+                entries += verifyRange(accountId, head.previousSequence(), head.previousHash(),
+                        head.chainSequence(), head.chainHash(), failures);
+            }
+            return failures.report(null, accountId, 1, entries);
+        }));
+    }
+
+    /**
+     * Rehashes the entries after {@code fromSequence} up to {@code toSequence}, which must
+     * end at {@code toHash}. Stops at the account's first failure, the ones after it follow.
+     */
+    private long verifyRange(long accountId, long fromSequence, byte[] fromHash, long toSequence, byte[] toHash,
+                             Failures failures) {
+        if (toSequence <= fromSequence) {
+            return 0;
+        }
+        return jdbcTemplate.query(connection -> {
+            final var statement = connection.prepareStatement(
+                    "SELECT chain_sequence, transfer_id, type, amount, created_at, chain_hash FROM ledger_entries "
+                            + "WHERE account_id = ? AND chain_sequence > ? AND chain_sequence <= ? "
+                            + "ORDER BY chain_sequence");
+            statement.setLong(1, accountId);
+            statement.setLong(2, fromSequence);
+            statement.setLong(3, toSequence);
+            statement.setFetchSize(1000);
+            return statement;
+        }, rs -> {
+            var previous = fromHash == null ? LedgerChain.GENESIS : fromHash;
+            var expected = fromSequence + 1;
+            long verified = 0;
+            while (rs.next()) {
+                final var sequence = rs.getLong(1);
+                if (sequence != expected) {
+                    failures.add("Account " + accountId + ": entry " + expected + " is missing");
+                    return verified;
+                }
+                final var hash = LedgerChain.hash(previous, accountId, sequence, rs.getString(2), rs.getString(3),
+                        rs.getBigDecimal(4), rs.getObject(5, OffsetDateTime.class));
+                if (!Arrays.equals(hash, rs.getBytes(6))) {
+                    failures.add("Account " + accountId + ": entry " + sequence + " does not match its hash");
+                    return verified;
+                }
+                previous = hash;
+                expected++;
+                verified++;
+            }
+            if (expected <= toSequence) {
+                failures.add("Account " + accountId + ": entry " + expected + " is missing");
+            } else if (!Arrays.equals(previous, toHash)) {
+                failures.add("Account " + accountId + ": entry " + toSequence + " does not match the chain head");
+            }
+            return verified;
+        });
+    }
+
+    private List<Leaf> findLeaves(long checkpointId, long afterAccountId) {
+        return readTransaction.execute(status -> jdbcTemplate.query(
+                "SELECT account_id, previous_sequence, previous_hash, chain_sequence, chain_hash "
+                        + "FROM ledger_checkpoint_leaves WHERE checkpoint_id = ? AND account_id > ? "
+                        + "ORDER BY account_id LIMIT ?",
+                (rs, rowNum) -> new Leaf(rs.getLong(1), rs.getLong(2), rs.getBytes(3), rs.getLong(4), rs.getBytes(5)),
+                checkpointId, afterAccountId, properties.getPageSize()));
+    }
+
+    private record Leaf(long accountId, long previousSequence, byte[] previousHash,
+                        long chainSequence, byte[] chainHash) {
+    }
+
+    // shared by the worker threads, keeps the first MAX_FAILURES
+    private static class Failures {
+        private final List<String> messages = new ArrayList<>();
+        private long count;
+
+        synchronized void add(String message) {
+            if (messages.size() < MAX_FAILURES) {
+                messages.add(message);
+            }
+            count++;
+        }
+
+        synchronized VerificationReport report(Long checkpointId, Long accountId, long accounts, long entries) {
+            return new VerificationReport(checkpointId, accountId, count == 0, accounts, entries, count,
+                    List.copyOf(messages));
+        }
+    }
+
+    public record VerificationReport(Long checkpointId, Long accountId, boolean valid, long accounts,
+                                     long entries, long failureCount, List<String> failures) {
+    }
+}
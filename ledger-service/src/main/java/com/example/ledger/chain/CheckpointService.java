@@ -0,0 +1,191 @@
+package com.example.ledger.chain;
+
+import com.example.ledger.model.LedgerCheckpoint;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Takes Merkle checkpoints of the account hash chains. A checkpoint only has a leaf for each
+ * account whose chain grew since the previous checkpoint, found by a keyset scan of accounts
+ * against {@code ledger_chain_heads}, so its cost follows the accounts touched rather than the
+ * size of the ledger. Leaves and heads are written in JDBC batches in the checkpoint's transaction.
+ *
+ * Two instances checkpointing at once conflict on the unique previous root or on a chain head;
+ * the loser rolls back and picks the changes up on its next run.
+ */
+@Component
+@Slf4j
+public class CheckpointService {
+
+    private static final String CHECKPOINT_COLUMNS =
+            "SELECT id, created_at, leaf_count, previous_root, merkle_root, root FROM ledger_checkpoints ";
+    private static final RowMapper<LedgerCheckpoint> CHECKPOINT_MAPPER = (rs, rowNum) -> LedgerCheckpoint.builder()
+            .id(rs.getLong(1))
+            .createdAt(rs.getObject(2, OffsetDateTime.class))
+            .leafCount(rs.getLong(3))
+            .previousRoot(rs.getBytes(4))
+            .merkleRoot(rs.getBytes(5))
+            .root(rs.getBytes(6))
+            .build();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate writeTransaction;
+    private final TransactionTemplate readTransaction;
+    private final ChainProperties properties;
+
+    public CheckpointService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                             ChainProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.properties = properties;
+    }
+
+    @Scheduled(fixedDelayString = "${ledger.chain.checkpoint-interval:PT10M}",
+               initialDelayString = "${ledger.chain.checkpoint-interval:PT10M}")
+    public void scheduledCheckpoint() {
+        if (!properties.isCheckpointEnabled()) {
+            return;
+        }
+        try {
+            createCheckpoint();
+        } catch (DataIntegrityViolationException e) {
+            log.info("Another instance took a checkpoint concurrently, retrying on the next run");
+        } catch (Exception e) {
+            log.error("Ledger checkpoint failed", e);
+        }
+    }
+
+    /**
+     * Empty when no account chain has grown since the last checkpoint.
+     */
+    public Optional<LedgerCheckpoint> createCheckpoint() {
+        final var created = writeTransaction.execute(status -> {
+            var page = findChangedHeads(0L);
+            if (page.isEmpty()) {
+                return null;
+            }
+            final var previousRoot = queryCheckpoint("ORDER BY id DESC LIMIT 1").map(LedgerCheckpoint::getRoot).orElse(LedgerChain.GENESIS);
+            final var checkpoint = LedgerCheckpoint.builder()
+                    .createdAt(OffsetDateTime.now())
+                    .previousRoot(previousRoot)
+                    .build();
+            final var keyHolder = new GeneratedKeyHolder();
+            jdbcTemplate.update(connection -> {
+                final var statement = connection.prepareStatement(
+                        "INSERT INTO ledger_checkpoints (created_at, leaf_count, previous_root) VALUES (?, 0, ?)",
+                        new String[] {"id"});
+                statement.setObject(1, checkpoint.getCreatedAt());
+                statement.setBytes(2, previousRoot);
+                return statement;
+            }, keyHolder);
+            checkpoint.setId(keyHolder.getKey().longValue());
+
+            final var merkleRoot = new MerkleRoot();
+            while (!page.isEmpty()) {
+                writeLeaves(checkpoint.getId(), page);
+                page.forEach(head -> merkleRoot.add(head.accountId(), head.chainSequence(), head.chainHash()));
+                page = findChangedHeads(page.get(page.size() - 1).accountId());
+            }
+
+            checkpoint.setLeafCount(merkleRoot.getLeafCount());
+            checkpoint.setMerkleRoot(merkleRoot.root());
+            checkpoint.setRoot(MerkleRoot.checkpointRoot(previousRoot, checkpoint.getMerkleRoot(), checkpoint.getLeafCount()));
+            jdbcTemplate.update("UPDATE ledger_checkpoints SET leaf_count = ?, merkle_root = ?, root = ? WHERE id = ?",
+                    checkpoint.getLeafCount(), checkpoint.getMerkleRoot(), checkpoint.getRoot(), checkpoint.getId());
+            return checkpoint;
+        });
+        if (created != null) {
+            log.info("Ledger checkpoint {} covers {} accounts", created.getId(), created.getLeafCount());
+        }
+        return Optional.ofNullable(created);
+    }
+
+    public Optional<LedgerCheckpoint> findCheckpoint(long id) {
+        return readTransaction.execute(status -> queryCheckpoint("WHERE id = ?", id));
+    }
+
+    public Optional<LedgerCheckpoint> findLatest() {
+        return readTransaction.execute(status -> queryCheckpoint("ORDER BY id DESC LIMIT 1"));
+    }
+
+    // the checkpoint the given one follows, empty for the first
+    public Optional<LedgerCheckpoint> findPrevious(long id) {
+        return readTransaction.execute(status -> queryCheckpoint("WHERE id < ? ORDER BY id DESC LIMIT 1", id));
+    }
+
+    private Optional<LedgerCheckpoint> queryCheckpoint(String condition, Object... args) {
+        return jdbcTemplate.query(CHECKPOINT_COLUMNS + condition, CHECKPOINT_MAPPER, args).stream().findFirst();
+    }
+
+    private List<ChangedHead> findChangedHeads(long afterAccountId) {
+        return jdbcTemplate.query(
+                "SELECT a.id, a.chain_length, a.chain_head, h.chain_sequence, h.chain_hash "
+                        + "FROM accounts a LEFT JOIN ledger_chain_heads h ON h.account_id = a.id "
+                        + "WHERE a.id > ? AND a.chain_length > COALESCE(h.chain_sequence, 0) "
+                        + "ORDER BY a.id LIMIT ?",
+                (rs, rowNum) -> new ChangedHead(rs.getLong(1), rs.getLong(2), rs.getBytes(3),
+                        rs.getLong(4), rs.getBytes(5)),
+                afterAccountId, properties.getPageSize());
+    }
+
+    private void writeLeaves(long checkpointId, List<ChangedHead> page) {
+        jdbcTemplate.batchUpdate("INSERT INTO ledger_checkpoint_leaves "
+                        + "(checkpoint_id, account_id, previous_sequence, previous_hash, chain_sequence, chain_hash) "
+                        + "VALUES (?, ?, ?, ?, ?, ?)",
+                page, properties.getPageSize(), (statement, head) -> {
+                    statement.setLong(1, checkpointId);
+                    statement.setLong(2, head.accountId());
+                    statement.setLong(3, head.previousSequence());
+                    statement.setBytes(4, head.previousHash());
+                    statement.setLong(5, head.chainSequence());
+                    statement.setBytes(6, head.chainHash());
+                });
+
+        final var moved = page.stream().filter(head -> head.previousHash() != null).toList();
+        final var counts = jdbcTemplate.batchUpdate("UPDATE ledger_chain_heads "
+                        + "SET chain_sequence = ?, chain_hash = ?, checkpoint_id = ? "
+                        + "WHERE account_id = ? AND chain_sequence = ?",
+                moved, properties.getPageSize(), (statement, head) -> {
+                    statement.setLong(1, head.chainSequence());
+                    statement.setBytes(2, head.chainHash());
+                    statement.setLong(3, checkpointId);
+                    statement.setLong(4, head.accountId());
+                    statement.setLong(5, head.previousSequence());
+                });
+        for (final var batch : counts) {
+            for (final var count : batch) {
+                if (count == 0) {
+                    throw new DataIntegrityViolationException("A chain head was checkpointed concurrently");
+                }
+            }
+        }
+
+        final var added = page.stream().filter(head -> head.previousHash() == null).toList();
+        jdbcTemplate.batchUpdate("INSERT INTO ledger_chain_heads (account_id, chain_sequence, chain_hash, checkpoint_id) "
+                        + "VALUES (?, ?, ?, ?)",
+                added, properties.getPageSize(), (statement, head) -> {
+                    statement.setLong(1, head.accountId());
+                    statement.setLong(2, head.chainSequence());
+                    statement.setBytes(3, head.chainHash());
+                    statement.setLong(4, checkpointId);
+                });
+    }
+
+    // an account's current chain head and the one in the latest checkpoint (0 and null if none)
+    private record ChangedHead(long accountId, long chainSequence, byte[] chainHash,
+                               long previousSequence, byte[] previousHash) {
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.ledger.chain;
+
+import com.example.ledger.model.Account;
+import com.example.ledger.model.LedgerEntry;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Per-account hash chain over ledger entries. Each entry's {@code chainHash} is SHA-256 of the
+ * previous entry's hash and the entry's own content, so changing, removing or inserting an entry
+ * breaks every hash after it. The account row holds the chain head and length; entries are only
+ * appended while that row is locked, so each account's chain is strictly sequential.
+ *
+ * <pre>
+ * chainHash = SHA-256(previousHash[32] | accountId[8] | chainSequence[8]
+ *                     | len[4] transferId | len[4] type | len[4] amount.stripTrailingZeros().toPlainString()
+ *                     | createdAt epoch micros[8])
+ * </pre>
+ * Integers are big-endian, strings UTF-8, and the first entry of a chain follows 32 zero bytes.
+ */
+public final class LedgerChain {
+
+    public static final int HASH_LENGTH = 32;
+    // Hibernate's default scale for the amount column
+    static final int AMOUNT_SCALE = 2;
+
+    static final byte[] GENESIS = new byte[HASH_LENGTH];
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(LedgerChain::newDigest);
+
+    private LedgerChain() {
+    }
+
+    /**
+     * Makes the entry the account's next chain link. The account row must be locked or new.
+     */
+    public static void append(Account account, LedgerEntry entry) {
+        final long sequence = (account.getChainLength() == null ? 0 : account.getChainLength()) + 1;
+        final var previous = account.getChainHead() == null ? GENESIS : account.getChainHead();
+        // hash what will be read back: amounts are stored with scale 2, timestamps in microseconds
+        entry.setAmount(entry.getAmount().setScale(AMOUNT_SCALE, RoundingMode.HALF_UP));
+        entry.setCreatedAt(entry.getCreatedAt().truncatedTo(ChronoUnit.MICROS));
+        entry.setChainSequence(sequence);
+        entry.setChainHash(hash(previous, account.getId(), sequence, entry.getTransferId(), entry.getType().name(),
+                entry.getAmount(), entry.getCreatedAt()));
+        account.setChainLength(sequence);
+        account.setChainHead(entry.getChainHash());
+    }
+
+    public static byte[] hash(byte[] previous, long accountId, long sequence, String transferId, String type,
+                              BigDecimal amount, OffsetDateTime createdAt) {
+        final var transferIdBytes = transferId.getBytes(StandardCharsets.UTF_8);
+        final var typeBytes = type.getBytes(StandardCharsets.UTF_8);
+        final var amountBytes = amount.stripTrailingZeros().toPlainString().getBytes(StandardCharsets.US_ASCII);
+        final var content = ByteBuffer.allocate(HASH_LENGTH + 8 + 8 + 12 + 8
+                        + transferIdBytes.length + typeBytes.length + amountBytes.length)
+                .put(previous)
+                .putLong(accountId)
+                .putLong(sequence)
+                .putInt(transferIdBytes.length).put(transferIdBytes)
+                .putInt(typeBytes.length).put(typeBytes)
+                .putInt(amountBytes.length).put(amountBytes)
+                .putLong(epochMicros(createdAt));
+        return sha256(content.array());
+    }
+
+    private static long epochMicros(OffsetDateTime createdAt) {
+        final var instant = createdAt.toInstant();
+        return instant.getEpochSecond() * 1_000_000L + instant.getNano() / 1_000;
+    }
+
+    static byte[] sha256(byte[]... parts) {
+        final var digest = SHA_256.get();
+        for (final var part : parts) {
+            digest.update(part);
+        }
+        return digest.digest();
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
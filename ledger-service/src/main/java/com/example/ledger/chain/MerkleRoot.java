@@ -0,0 +1,60 @@
+package com.example.ledger.chain;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming Merkle tree root in the RFC 6962 shape: leaves are hashed with a 0x00 prefix and
+ * inner nodes with 0x01, and a tree of n leaves splits at the largest power of two below n.
+ * Holds one pending subtree root per level, so memory is logarithmic in the number of leaves.
+ * A checkpoint's leaves are its accounts' chain heads in account id order.
+ */
+public class MerkleRoot {
+
+    private static final byte[] LEAF = {0x00};
+    private static final byte[] NODE = {0x01};
+
+    // levels.get(h) is a complete subtree of 2^h leaves waiting for its right sibling, or null
+    private final List<byte[]> levels = new ArrayList<>();
+    private long leafCount;
+
+    public void add(long accountId, long chainSequence, byte[] chainHash) {
+        var node = LedgerChain.sha256(LEAF, ByteBuffer.allocate(16).putLong(accountId).putLong(chainSequence).array(),
+                chainHash);
+        var height = 0;
+        while (height < levels.size() && levels.get(height) != null) {
+            node = LedgerChain.sha256(NODE, levels.get(height), node);
+            levels.set(height, null);
+            height++;
+        }
+        if (height == levels.size()) {
+            levels.add(node);
+        } else {
+            levels.set(height, node);
+        }
+        leafCount++;
+    }
+
+    public long getLeafCount() {
+        return leafCount;
+    }
+
+    public byte[] root() {
+        byte[] root = null;
+        // smaller subtrees are to the right of larger ones
+        for (final var node : levels) {
+            if (node != null) {
+                root = root == null ? node : LedgerChain.sha256(NODE, node, root);
+            }
+        }
+        return root != null ? root : LedgerChain.sha256();
+    }
+
+    /**
+     * A checkpoint's root commits to its Merkle root and to every checkpoint before it.
+     */
+    public static byte[] checkpointRoot(byte[] previousRoot, byte[] merkleRoot, long leafCount) {
+        return LedgerChain.sha256(previousRoot, merkleRoot, ByteBuffer.allocate(8).putLong(leafCount).array());
+    }
+}
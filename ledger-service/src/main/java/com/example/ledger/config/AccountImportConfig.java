@@ -0,0 +1,16 @@
+package com.example.ledger.config;
+
+import com.example.ledger.bulk.AccountImportProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class AccountImportConfig {
+
+    @Bean
+    @ConfigurationProperties("ledger.account-import")
+    public AccountImportProperties accountImportProperties() {
+        return new AccountImportProperties();
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.ledger.config;
+
+import com.example.ledger.cache.AccountCache;
+import com.example.ledger.cache.AccountCacheProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class CacheConfig {
+
+    @Bean
+    @ConfigurationProperties("ledger.account-cache")
+    public AccountCacheProperties accountCacheProperties() {
+        return new AccountCacheProperties();
+    }
+
+    @Bean
+    public AccountCache accountCache(AccountCacheProperties properties, MeterRegistry meterRegistry) {
+        return new AccountCache(properties, meterRegistry);
+    }
+}
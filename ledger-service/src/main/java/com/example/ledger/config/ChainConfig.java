@@ -0,0 +1,16 @@
+package com.example.ledger.config;
+
+import com.example.ledger.chain.ChainProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ChainConfig {
+
+    @Bean
+    @ConfigurationProperties("ledger.chain")
+    public ChainProperties chainProperties() {
+        return new ChainProperties();
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.ledger.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Two isolated Hikari pools: "transfer" for the locking write path and "read" for
+ * lookups. Read-only transactions are routed to the read pool so polling never
+ * queues behind PESSIMISTIC_WRITE lock holders.
+ */
+@Configuration
+public class DataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.transfer.hikari")
+    public HikariDataSource transferDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.read.hikari")
+    public HikariDataSource readDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("transferDataSource") HikariDataSource transferDataSource,
+                                 @Qualifier("readDataSource") HikariDataSource readDataSource,
+                                 @Value("${spring.datasource.transfer.max-waiting-threads:20}") int transferMaxWaiting,
+                                 @Value("${spring.datasource.read.max-waiting-threads:20}") int readMaxWaiting) {
+        final var transfer = new PoolAdmissionDataSource(transferDataSource, transferMaxWaiting);
+        final var routing = new ReadWriteRoutingDataSource();
+        routing.setTargetDataSources(Map.of(
+                Pool.TRANSFER, transfer,
+                Pool.READ, new PoolAdmissionDataSource(readDataSource, readMaxWaiting)));
+        // the fallback goes through admission as well, no path reaches the raw pool
+        routing.setDefaultTargetDataSource(transfer);
+        routing.afterPropertiesSet();
+        // lazy proxy so the routing decision is made after the transaction's read-only flag is set
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    enum Pool {
+        TRANSFER, READ
+    }
+
+    static class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+        @Override
+        protected Object determineCurrentLookupKey() {
+            return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? Pool.READ : Pool.TRANSFER;
+        }
+    }
+}
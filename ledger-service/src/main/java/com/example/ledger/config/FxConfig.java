@@ -0,0 +1,37 @@
+package com.example.ledger.config;
+
+import com.example.ledger.fx.FileFxRateProvider;
+import com.example.ledger.fx.FxProperties;
+import com.example.ledger.fx.FxRateProvider;
+import com.example.ledger.fx.FxRateTable;
+import com.example.ledger.fx.StubFxRateProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+@Configuration
+public class FxConfig {
+
+    @Bean
+    @ConfigurationProperties("ledger.fx")
+    public FxProperties fxProperties() {
+        return new FxProperties();
+    }
+
+    @Bean
+    public FxRateProvider fxRateProvider(FxProperties fxProperties) {
+        if (fxProperties.getRateFile() != null && !fxProperties.getRateFile().isBlank()) {
+            return new FileFxRateProvider(Path.of(fxProperties.getRateFile()));
+        }
+        return new StubFxRateProvider(fxProperties.getRates());
+    }
+
+    @Bean
+    public FxRateTable fxRateTable(FxProperties fxProperties, FxRateProvider fxRateProvider,
+                                   MeterRegistry meterRegistry) {
+        return new FxRateTable(fxProperties, fxRateProvider, meterRegistry);
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.ledger.config;
+
+import com.example.ledger.limiter.AdaptiveConcurrencyLimiter;
+import com.example.ledger.limiter.ConcurrencyLimitProperties;
+import com.example.ledger.service.LimitProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class LimiterConfig {
+
+    @Bean
+    @ConfigurationProperties("ledger.concurrency-limit")
+    public ConcurrencyLimitProperties concurrencyLimitProperties() {
+        return new ConcurrencyLimitProperties();
+    }
+
+    @Bean
+    @ConfigurationProperties("ledger.limits")
+    public LimitProperties limitProperties() {
+        return new LimitProperties();
+    }
+
+    @Bean
+    public AdaptiveConcurrencyLimiter ledgerConcurrencyLimiter(ConcurrencyLimitProperties properties,
+                                                                 MeterRegistry meterRegistry) {
+        return new AdaptiveConcurrencyLimiter("ledger-transfers", properties, meterRegistry);
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.ledger.config;
+
+import com.zaxxer.hikari.SQLExceptionOverride;
+
+import java.sql.SQLException;
+
+/**
+ * Keeps connections in the pool after a row lock timeout. H2 reports lock timeouts as
+ * {@link java.sql.SQLTimeoutException}, which Hikari otherwise treats as a broken connection and
+ * evicts, so the rollback that follows fails and every timeout costs a reconnect.
+ * Configured as {@code exception-override-class-name} on the transfer pool.
+ */
+public class LockTimeoutExceptionOverride implements SQLExceptionOverride {
+
+    // H2 LOCK_TIMEOUT_1
+    private static final int H2_LOCK_TIMEOUT = 50200;
+    // PostgreSQL lock_not_available (lock_timeout or NOWAIT)
+    private static final String POSTGRES_LOCK_NOT_AVAILABLE = "55P03";
+
+    // Override below is SQLExceptionOverride.Override, hence the qualified annotation
+    @java.lang.Override
+    public Override adjudicate(SQLException e) {
+        if (e.getErrorCode() == H2_LOCK_TIMEOUT || POSTGRES_LOCK_NOT_AVAILABLE.equals(e.getSQLState())) {
+            return Override.DO_NOT_EVICT;
+        }
+        return Override.CONTINUE_EVICT;
+    }
+}
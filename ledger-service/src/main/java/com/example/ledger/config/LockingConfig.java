@@ -0,0 +1,39 @@
+package com.example.ledger.config;
+
+import com.example.ledger.lock.AccountLocker;
+import com.example.ledger.lock.LockContentionEndpoint;
+import com.example.ledger.lock.LockContentionTracker;
+import com.example.ledger.lock.LockingProperties;
+import com.example.ledger.repository.AccountRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@Configuration
+public class LockingConfig {
+
+    @Bean
+    @ConfigurationProperties("ledger.locking")
+    public LockingProperties lockingProperties() {
+        return new LockingProperties();
+    }
+
+    @Bean
+    public LockContentionTracker lockContentionTracker(LockingProperties properties) {
+        return new LockContentionTracker(properties);
+    }
+
+    @Bean
+    public AccountLocker accountLocker(AccountRepository accountRepository, JdbcTemplate jdbcTemplate,
+                                       LockingProperties properties, LockContentionTracker tracker,
+                                       MeterRegistry meterRegistry) {
+        return new AccountLocker(accountRepository, jdbcTemplate, properties, tracker, meterRegistry);
+    }
+
+    @Bean
+    public LockContentionEndpoint lockContentionEndpoint(LockContentionTracker tracker, LockingProperties properties) {
+        return new LockContentionEndpoint(tracker, properties);
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.ledger.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+
+/**
+ * Rejects a connection request straight away when too many threads are already
+ * queued on the pool, instead of letting it wait out the full connection-timeout.
+ */
+public class PoolAdmissionDataSource extends DelegatingDataSource {
+
+    private final HikariDataSource pool;
+    private final int maxWaitingThreads;
+
+    public PoolAdmissionDataSource(HikariDataSource pool, int maxWaitingThreads) {
+        super(pool);
+        this.pool = pool;
+        this.maxWaitingThreads = maxWaitingThreads;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        checkAdmission();
+        return super.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        checkAdmission();
+        return super.getConnection(username, password);
+    }
+
+    private void checkAdmission() throws SQLTransientConnectionException {
+        // the pool MXBean is only available once the pool has started
+        final var mxBean = pool.getHikariPoolMXBean();
+        if (mxBean != null && mxBean.getThreadsAwaitingConnection() >= maxWaitingThreads) {
+            throw new PoolSaturatedException(pool.getPoolName());
+        }
+    }
+
+    public static boolean isSaturated(Throwable e) {
+        for (var cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLTransientConnectionException) {
+                // covers both our fast rejection and Hikari's own connection-timeout
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static class PoolSaturatedException extends SQLTransientConnectionException {
+        public PoolSaturatedException(String poolName) {
+            super("Connection pool " + poolName + " is saturated");
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.ledger.controller;
+
+import com.example.ledger.service.AccountBalanceService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@code POST /accounts/balances}: balances of up to 10000 accounts in one call, written out as
+ * each chunk is read:
+ * <pre>
+ * {"accounts":[{"id":1,"balance":100.00,"currency":"USD","version":3},...],"notFound":[42]}
+ * </pre>
+ * With {@code sinceVersion} (account id to the version the caller already has) accounts still
+ * at that version are left out. Accounts come in no particular order.
+ */
+@RestController
+@RequestMapping("/accounts")
+@Validated
+@AllArgsConstructor
+public class AccountBalanceController {
+
+    private final AccountBalanceService accountBalanceService;
+    private final ObjectMapper objectMapper;
+
+    @PostMapping(path = "/balances", produces = MediaType.APPLICATION_JSON_VALUE)
+    public void getBalances(@Valid @RequestBody BalancesRequest request, HttpServletResponse response)
+            throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        try (var json = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            json.writeStartObject();
+            json.writeArrayFieldStart("accounts");
+            final var notFound = accountBalanceService.findBalances(request.getAccountIds(),
+                    request.getSinceVersion() != null ? request.getSinceVersion() : Map.of(),
+                    balances -> {
+                        try {
+                            for (final var balance : balances) {
+                                json.writeStartObject();
+                                json.writeNumberField("id", balance.id());
+                                json.writeNumberField("balance", balance.balance());
+                                json.writeStringField("currency", balance.currency());
+                                json.writeNumberField("version", balance.version());
+                                json.writeEndObject();
+                            }
+                            json.flush();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException("Client went away during balance lookup", e);
+                        }
+                    });
+            json.writeEndArray();
+            json.writeArrayFieldStart("notFound");
+            for (final var id : notFound) {
+                json.writeNumber(id);
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BalancesRequest {
+        @NotNull
+        @Size(min = 1, max = 10000, message = "A lookup needs between 1 and 10000 account ids")
+        private List<@NotNull Long> accountIds;
+
+        // account id -> version the caller already has
+        private Map<Long, Long> sinceVersion;
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.ledger.controller;
+
+import com.example.ledger.bulk.AccountImporter;
+import com.example.ledger.model.Account;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Bulk account creation for onboarding. {@code POST /accounts/batch} creates up to 1000
+ * accounts in one transaction; {@code POST /accounts/import} streams a CSV or NDJSON file of
+ * any size and answers with one NDJSON progress line per committed chunk, then a summary line.
+ */
+@RestController
+@RequestMapping("/accounts")
+@Validated
+@Slf4j
+@AllArgsConstructor
+public class AccountImportController {
+
+    static final String TEXT_CSV = "text/csv";
+
+    private final AccountImporter accountImporter;
+    private final ObjectMapper objectMapper;
+
+    @PostMapping("/batch")
+    public ResponseEntity<BatchCreateAccountsResponse> createAccounts(
+            @Valid @RequestBody BatchCreateAccountsRequest request) {
+        final var openings = request.getAccounts().stream()
+                .map(account -> new AccountImporter.Opening(account.getInitialBalance(), account.getCurrency()))
+                .toList();
+        return ResponseEntity.ok(new BatchCreateAccountsResponse(accountImporter.createAccounts(openings)));
+    }
+
+    /**
+     * The response is written while the upload is still being read, clients must consume it
+     * as they go (curl does). Lines that were committed before an error stay imported.
+     */
+    @PostMapping(path = "/import", consumes = {TEXT_CSV, MediaType.APPLICATION_NDJSON_VALUE},
+                 produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void importAccounts(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        final var format = MediaType.parseMediaType(request.getContentType()).isCompatibleWith(MediaType.APPLICATION_NDJSON)
+                ? AccountImporter.Format.NDJSON
+                : AccountImporter.Format.CSV;
+        final var charset = request.getCharacterEncoding() != null
+                ? request.getCharacterEncoding()
+                : StandardCharsets.UTF_8.name();
+
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        final var output = response.getOutputStream();
+        // accounts imported and last line committed, for the summary if the import fails
+        final var progress = new long[2];
+        AccountImporter.ImportSummary summary;
+        try (var reader = new BufferedReader(new InputStreamReader(request.getInputStream(), charset))) {
+            summary = accountImporter.importAccounts(reader, format, chunk -> {
+                progress[0] = chunk.imported();
+                progress[1] = chunk.lastLine();
+                writeLine(output, chunk);
+            });
+            if (summary.error() != null) {
+                log.warn("Account import stopped after {} accounts: {}", summary.imported(), summary.error());
+            }
+        } catch (Exception e) {
+            // the status line is already sent, the summary carries the failure
+            log.error("Account import failed after {} accounts", progress[0], e);
+            summary = new AccountImporter.ImportSummary(progress[1], progress[0], "Import failed: " + e.getMessage());
+        }
+        writeLine(output, summary);
+    }
+
+    // a currency without FX rates in POST /accounts/batch
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleInvalidRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    private void writeLine(OutputStream output, Object line) {
+        try {
+            output.write(objectMapper.writeValueAsBytes(line));
+            output.write('\n');
+            output.flush();
+        } catch (IOException e) {
+            throw new IllegalStateException("Client went away during account import", e);
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BatchCreateAccountsRequest {
+        @NotNull
+        @Size(min = 1, max = 1000, message = "A batch needs between 1 and 1000 accounts")
+        private List<LedgerController.@Valid CreateAccountRequest> accounts;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BatchCreateAccountsResponse {
+        private List<Account> accounts;
+    }
+}
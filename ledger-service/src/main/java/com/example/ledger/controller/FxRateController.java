@@ -0,0 +1,44 @@
+package com.example.ledger.controller;
+
+import com.example.ledger.fx.FxRateTable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * {@code GET /fx/rates}: the rate table version cross-currency transfers are converted at right
+ * now, as units of each currency per unit of the base currency.
+ */
+@RestController
+@RequestMapping("/fx")
+@AllArgsConstructor
+public class FxRateController {
+
+    private final FxRateTable fxRateTable;
+
+    @GetMapping("/rates")
+    public ResponseEntity<FxRatesResponse> getRates() {
+        final var rates = fxRateTable.current();
+        return ResponseEntity.ok(new FxRatesResponse(rates.getVersion(), rates.getLoadedAt(),
+                rates.getBaseCurrency(), new TreeMap<>(rates.getRates())));
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FxRatesResponse {
+        private long version;
+        private Instant loadedAt;
+        private String baseCurrency;
+        private Map<String, BigDecimal> rates;
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.ledger.controller;
+
+import com.example.ledger.chain.ChainVerifier;
+import com.example.ledger.chain.CheckpointService;
+import com.example.ledger.model.LedgerCheckpoint;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.OffsetDateTime;
+import java.util.HexFormat;
+
+/**
+ * Merkle checkpoints of the ledger hash chains and their verification. Roots are hex encoded,
+ * publishing {@code root} somewhere outside the database makes later tampering detectable.
+ */
+@RestController
+@AllArgsConstructor
+public class LedgerChainController {
+
+    private final CheckpointService checkpointService;
+    private final ChainVerifier chainVerifier;
+
+    // 204 when no chain has grown since the last checkpoint
+    @PostMapping("/ledger/checkpoints")
+    public ResponseEntity<CheckpointResponse> createCheckpoint() {
+        try {
+            return checkpointService.createCheckpoint()
+                    .map(checkpoint -> ResponseEntity.ok(CheckpointResponse.of(checkpoint)))
+                    .orElseGet(() -> ResponseEntity.noContent().build());
+        } catch (DataIntegrityViolationException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    @GetMapping("/ledger/checkpoints/latest")
+    public ResponseEntity<CheckpointResponse> getLatestCheckpoint() {
+        return checkpointService.findLatest()
+                .map(checkpoint -> ResponseEntity.ok(CheckpointResponse.of(checkpoint)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/ledger/checkpoints/{id}")
+    public ResponseEntity<CheckpointResponse> getCheckpoint(@PathVariable Long id) {
+        return checkpointService.findCheckpoint(id)
+                .map(checkpoint -> ResponseEntity.ok(CheckpointResponse.of(checkpoint)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/ledger/checkpoints/{id}/verify")
+    public ResponseEntity<ChainVerifier.VerificationReport> verifyCheckpoint(@PathVariable Long id) {
+        return ResponseEntity.of(chainVerifier.verifyCheckpoint(id));
+    }
+
+    @GetMapping("/accounts/{id}/chain/verify")
+    public ResponseEntity<ChainVerifier.VerificationReport> verifyAccount(@PathVariable Long id) {
+        return ResponseEntity.of(chainVerifier.verifyAccount(id));
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CheckpointResponse {
+        private Long id;
+        private OffsetDateTime createdAt;
+        private long leafCount;
+        private String previousRoot;
+        private String merkleRoot;
+        private String root;
+
+        static CheckpointResponse of(LedgerCheckpoint checkpoint) {
+            final var hex = HexFormat.of();
+            return new CheckpointResponse(checkpoint.getId(), checkpoint.getCreatedAt(), checkpoint.getLeafCount(),
+                    hex.formatHex(checkpoint.getPreviousRoot()), hex.formatHex(checkpoint.getMerkleRoot()),
+                    hex.formatHex(checkpoint.getRoot()));
+        }
+    }
+}
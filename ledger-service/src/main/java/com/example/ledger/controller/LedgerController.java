@@ -1,18 +1,38 @@
 package com.example.ledger.controller;
 
+import com.example.ledger.config.PoolAdmissionDataSource;
+import com.example.ledger.limiter.AdaptiveConcurrencyLimiter;
 import com.example.ledger.model.Account;
+import com.example.ledger.model.AccountDailyActivity;
+import com.example.ledger.model.LedgerEntry;
 import com.example.ledger.service.LedgerService;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping
@@ -21,42 +41,251 @@ import java.math.BigDecimal;
 @AllArgsConstructor
 public class LedgerController {
 
+    private static final String ACCOUNT_BUSY = "Account busy, retry later";
+    private static final String DEADLINE_EXCEEDED = "Deadline exceeded, not applied";
+    private static final String APPLIED = "Transfer completed successfully";
+
+    // the caller's remaining budget in milliseconds, sent by transfer-service
+    static final String TIMEOUT_HEADER = "X-Request-Timeout";
+
     private final LedgerService ledgerService;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
 
     @PostMapping("/accounts")
     public ResponseEntity<Account> createAccount(@Valid @RequestBody CreateAccountRequest request) {
-        final var account = ledgerService.createAccount(request.getInitialBalance());
+        final var account = ledgerService.createAccount(request.getInitialBalance(), request.getCurrency());
         return ResponseEntity.ok(account);
     }
 
+    /**
+     * The ETag is the account version, so pollers sending {@code If-None-Match} get a 304 without
+     * a body until the balance changes.
+     */
     @GetMapping("/accounts/{id}")
-    public ResponseEntity<Account> getAccount(@PathVariable Long id) {
+    public ResponseEntity<Account> getAccount(@PathVariable Long id, WebRequest webRequest) {
         final var account = ledgerService.getAccount(id);
-        return account.map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+        if (account.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        final var version = account.get().getVersion();
+        if (version == null) {
+            return ResponseEntity.ok(account.get());
+        }
+        final var etag = "\"" + version + "\"";
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(account.get());
+    }
+
+    @GetMapping("/accounts/{id}/activity")
+    public ResponseEntity<AccountDailyActivity> getAccountActivity(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        // days are UTC, same as the aggregates
+        final var day = date != null ? date : LocalDate.now(ZoneOffset.UTC);
+        return ResponseEntity.ok(ledgerService.getDailyActivity(id, day));
     }
 
     @PostMapping("/ledger/transfer")
-    public ResponseEntity<TransferResponse> applyTransfer(@Valid @RequestBody TransferRequest request) {
+    public ResponseEntity<TransferResponse> applyTransfer(
+            @Valid @RequestBody TransferRequest request,
+            @RequestHeader(value = TIMEOUT_HEADER, required = false) Long timeoutMillis) {
+        return executeTransfer(request.getTransferId(), deadline(timeoutMillis), () -> ledgerService.applyTransfer(
+                request.getTransferId(),
+                request.getFromAccountId(),
+                request.getToAccountId(),
+                request.getAmount()
+        ));
+    }
+
+    @PostMapping("/ledger/transfer/multi-leg")
+    public ResponseEntity<TransferResponse> applyMultiLegTransfer(
+            @Valid @RequestBody MultiLegTransferRequest request,
+            @RequestHeader(value = TIMEOUT_HEADER, required = false) Long timeoutMillis) {
+        final var legs = request.getLegs().stream()
+                .map(leg -> new LedgerService.TransferLeg(leg.getAccountId(), leg.getType(), leg.getAmount()))
+                .toList();
+        return executeTransfer(request.getTransferId(), deadline(timeoutMillis),
+                () -> ledgerService.applyMultiLegTransfer(request.getTransferId(), legs));
+    }
+
+    /**
+     * Applies up to 500 single transfers sent together by transfer-service's batcher. Every item
+     * runs in its own transaction and gets its own result, so one failing transfer doesn't affect
+     * the others. Items not started before the caller's deadline are answered as not applied.
+     * An item whose account lock was not granted in time is answered as retriable.
+     */
+    @PostMapping("/ledger/transfers/batch")
+    public ResponseEntity<BatchTransferResponse> applyTransferBatch(
+            @Valid @RequestBody BatchTransferRequest request,
+            @RequestHeader(value = TIMEOUT_HEADER, required = false) Long timeoutMillis) {
+        final var deadline = deadline(timeoutMillis);
+        final var permit = concurrencyLimiter.tryAcquire();
+        if (permit == null) {
+            log.warn("Batch of {} transfers rejected, concurrency limit {} reached",
+                    request.getTransfers().size(), (int) concurrencyLimiter.getLimit());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(concurrencyLimiter.retryAfterSeconds()))
+                    .build();
+        }
+
+        boolean dropped = false;
+        final var results = new ArrayList<BatchItemResult>(request.getTransfers().size());
         try {
-            boolean success = ledgerService.applyTransfer(
-                    request.getTransferId(),
-                    request.getFromAccountId(),
-                    request.getToAccountId(),
-                    request.getAmount()
-            );
-            return ResponseEntity.ok(new TransferResponse(success, "Transfer completed successfully"));
+            for (final var transfer : request.getTransfers()) {
+                if (isExpired(deadline)) {
+                    results.add(new BatchItemResult(transfer.getTransferId(), false, DEADLINE_EXCEEDED, false));
+                    continue;
+                }
+                try {
+                    final var success = ledgerService.applyTransfer(
+                            transfer.getTransferId(),
+                            transfer.getFromAccountId(),
+                            transfer.getToAccountId(),
+                            transfer.getAmount()
+                    );
+                    results.add(new BatchItemResult(transfer.getTransferId(), success, APPLIED, false));
+                } catch (IllegalArgumentException | IllegalStateException e) {
+                    log.warn("Transfer {} failed: {}", transfer.getTransferId(), e.getMessage());
+                    results.add(new BatchItemResult(transfer.getTransferId(), false, e.getMessage(), false));
+                } catch (PessimisticLockingFailureException e) {
+                    // lock timeout or NOWAIT on a hot account, the rest of the batch can still go through;
+                    // rolled back, so the caller can send it again like a 503 on a single transfer
+                    results.add(new BatchItemResult(transfer.getTransferId(), false, ACCOUNT_BUSY, true));
+                } catch (DataIntegrityViolationException e) {
+                    if (!isApplied(transfer.getTransferId())) {
+                        throw e;
+                    }
+                    // the same transfer sent again while the first copy was being applied
+                    results.add(new BatchItemResult(transfer.getTransferId(), true, APPLIED, false));
+                }
+            }
+            return ResponseEntity.ok(new BatchTransferResponse(results));
+        } catch (Exception e) {
+            // infrastructure failure, items already applied stay applied and are idempotent on retry
+            dropped = true;
+            if (PoolAdmissionDataSource.isSaturated(e)) {
+                log.warn("Batch rejected after {} transfers, connection pool saturated", results.size());
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "1")
+                        .build();
+            }
+            log.error("Unexpected error during transfer batch", e);
+            return ResponseEntity.internalServerError().build();
+        } finally {
+            if (dropped) {
+                permit.dropped();
+            } else {
+                permit.success();
+            }
+        }
+    }
+
+    /**
+     * Whether a transfer was applied, for callers that lost the response to a transfer call.
+     * A transfer that is not applied yet may still be in flight.
+     */
+    @GetMapping("/ledger/transfers/{transferId}")
+    public ResponseEntity<TransferStatus> getTransferStatus(@PathVariable String transferId) {
+        final var appliedAt = ledgerService.getAppliedTransfers(List.of(transferId)).get(transferId);
+        return ResponseEntity.ok(new TransferStatus(transferId, appliedAt != null, appliedAt));
+    }
+
+    // same as GET /ledger/transfers/{transferId} for up to 500 transfers, results in request order
+    @PostMapping("/ledger/transfers/status")
+    public ResponseEntity<TransferStatusResponse> getTransferStatuses(@Valid @RequestBody TransferStatusRequest request) {
+        final var applied = ledgerService.getAppliedTransfers(request.getTransferIds());
+        final var statuses = request.getTransferIds().stream()
+                .map(transferId -> new TransferStatus(transferId, applied.containsKey(transferId), applied.get(transferId)))
+                .toList();
+        return ResponseEntity.ok(new TransferStatusResponse(statuses));
+    }
+
+    private ResponseEntity<TransferResponse> executeTransfer(String transferId, Long deadline,
+                                                             Supplier<Boolean> transfer) {
+        if (isExpired(deadline)) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(new TransferResponse(false, DEADLINE_EXCEEDED));
+        }
+        final var permit = concurrencyLimiter.tryAcquire();
+        if (permit == null) {
+            log.warn("Transfer {} rejected, concurrency limit {} reached",
+                    transferId, (int) concurrencyLimiter.getLimit());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(concurrencyLimiter.retryAfterSeconds()))
+                    .body(new TransferResponse(false, "Too many concurrent transfers, retry later"));
+        }
+
+        boolean dropped = false;
+        try {
+            boolean success = transfer.get();
+            return ResponseEntity.ok(new TransferResponse(success, APPLIED));
         } catch (IllegalArgumentException | IllegalStateException e) {
             log.warn("Transfer failed: {}", e.getMessage());
             return ResponseEntity.badRequest()
                     .body(new TransferResponse(false, e.getMessage()));
+        } catch (PessimisticLockingFailureException e) {
+            // nothing was applied, the caller can retry the same transferId
+            dropped = true;
+            log.warn("Transfer {} rejected, account lock not granted in time", transferId);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(new TransferResponse(false, ACCOUNT_BUSY));
+        } catch (DataIntegrityViolationException e) {
+            // a retried or hedged copy of this transfer committed first
+            if (isApplied(transferId)) {
+                return ResponseEntity.ok(new TransferResponse(true, APPLIED));
+            }
+            dropped = true;
+            log.error("Unexpected error during transfer", e);
+            return ResponseEntity.internalServerError()
+                    .body(new TransferResponse(false, "Internal server error"));
         } catch (Exception e) {
+            dropped = true;
+            if (PoolAdmissionDataSource.isSaturated(e)) {
+                log.warn("Transfer {} rejected, connection pool saturated", transferId);
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "1")
+                        .body(new TransferResponse(false, "Service busy, retry later"));
+            }
             log.error("Unexpected error during transfer", e);
             return ResponseEntity.internalServerError()
                     .body(new TransferResponse(false, "Internal server error"));
+        } finally {
+            if (dropped) {
+                permit.dropped();
+            } else {
+                permit.success();
+            }
         }
     }
 
+    private boolean isApplied(String transferId) {
+        return ledgerService.getAppliedTransfers(List.of(transferId)).containsKey(transferId);
+    }
+
+    // System.nanoTime() by which the caller stops waiting, null when it sent no timeout
+    private static Long deadline(Long timeoutMillis) {
+        return timeoutMillis != null ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis) : null;
+    }
+
+    private static boolean isExpired(Long deadline) {
+        return deadline != null && System.nanoTime() - deadline >= 0;
+    }
+
+    // e.g. a currency without FX rates on POST /accounts
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleInvalidRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
     // instead of using actuators we can utilize the custome one
     @GetMapping("/health")
     public ResponseEntity<String> health() {
@@ -69,6 +298,10 @@ public class LedgerController {
         @Positive
         private BigDecimal initialBalance;
 
+        // ISO 4217, ledger.fx.default-currency when missing
+        @Size(min = 3, max = 3)
+        private String currency;
+
         public BigDecimal getInitialBalance() {
             return initialBalance;
         }
@@ -117,6 +350,85 @@ public class LedgerController {
         public void setAmount(BigDecimal amount) { this.amount = amount; }
     }
 
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class MultiLegTransferRequest {
+        @NotNull
+        private String transferId;
+
+        @NotNull
+        @Size(min = 2, max = 50, message = "A transfer needs between 2 and 50 legs")
+        private List<@Valid LegRequest> legs;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class LegRequest {
+        @NotNull
+        private Long accountId;
+
+        @NotNull
+        private LedgerEntry.EntryType type;
+
+        @NotNull
+        @Positive
+        private BigDecimal amount;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BatchTransferRequest {
+        @NotNull
+        @Size(min = 1, max = 500, message = "A batch needs between 1 and 500 transfers")
+        private List<@Valid TransferRequest> transfers;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BatchTransferResponse {
+        private List<BatchItemResult> results;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BatchItemResult {
+        private String transferId;
+        private boolean success;
+        private String message;
+        // not applied, and the same transfer may succeed if sent again
+        private boolean retriable;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class TransferStatusRequest {
+        @NotNull
+        @Size(min = 1, max = 500, message = "A status query needs between 1 and 500 transfer ids")
+        private List<@NotNull String> transferIds;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class TransferStatusResponse {
+        private List<TransferStatus> statuses;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class TransferStatus {
+        private String transferId;
+        private boolean applied;
+        private OffsetDateTime appliedAt;
+    }
+
     public static class TransferResponse {
         private boolean success;
         private String message;
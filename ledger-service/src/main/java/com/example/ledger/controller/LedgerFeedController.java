@@ -0,0 +1,70 @@
+package com.example.ledger.controller;
+
+import com.example.ledger.feed.FeedTruncatedException;
+import com.example.ledger.feed.LedgerFeed;
+import com.example.ledger.feed.LedgerFeedPage;
+import com.example.ledger.feed.LedgerFeedSubscriptions;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.AllArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Map;
+
+/**
+ * Change feed of committed ledger entries. Consumers keep their own offset and pass it
+ * back as {@code after}; the {@code epoch} changes when the sequence restarts, and events of
+ * an earlier epoch cannot be read any more (see {@link LedgerFeed}).
+ */
+@RestController
+@RequestMapping("/ledger/feed")
+@Validated
+@AllArgsConstructor
+public class LedgerFeedController {
+
+    private final LedgerFeed ledgerFeed;
+    private final LedgerFeedSubscriptions subscriptions;
+
+    @GetMapping
+    public ResponseEntity<LedgerFeedPage> read(@RequestParam(defaultValue = "0") @PositiveOrZero long after,
+                                               @RequestParam(defaultValue = "100") @Min(1) @Max(1000) int limit) {
+        return ResponseEntity.ok(ledgerFeed.read(after, limit));
+    }
+
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestParam(required = false) @PositiveOrZero Long after,
+                             @RequestParam(required = false) Long epoch,
+                             @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        // a reconnecting EventSource resumes from Last-Event-ID, "<epoch>:<seq>"
+        if (lastEventId != null) {
+            final var separator = lastEventId.indexOf(':');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Last-Event-ID must be <epoch>:<seq>");
+            }
+            epoch = Long.parseLong(lastEventId.substring(0, separator));
+            after = Long.parseLong(lastEventId.substring(separator + 1));
+        }
+        final long from = after != null ? after : ledgerFeed.getWatermark();
+        return subscriptions.subscribe(epoch != null ? epoch : ledgerFeed.getEpoch(), from);
+    }
+
+    // a malformed Last-Event-ID
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleInvalidRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    @ExceptionHandler(FeedTruncatedException.class)
+    public ResponseEntity<Map<String, Object>> truncated(FeedTruncatedException e) {
+        return ResponseEntity.status(HttpStatus.GONE)
+                .body(Map.of("epoch", ledgerFeed.getEpoch(),
+                        "oldestAvailable", e.getOldestAvailable(),
+                        "message", e.getMessage()));
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.ledger.controller;
+
+import com.example.ledger.service.StatementService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.AllArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+
+/**
+ * {@code GET /accounts/{id}/statement}: the account's ledger entries as a JSON array, written
+ * out row by row as they are read rather than collected first. A failure part way through
+ * leaves the array unterminated.
+ */
+@RestController
+@RequestMapping("/accounts")
+@AllArgsConstructor
+public class StatementController {
+
+    private final StatementService statementService;
+    private final ObjectMapper objectMapper;
+
+    @GetMapping(path = "/{id}/statement", produces = MediaType.APPLICATION_JSON_VALUE)
+    public void getStatement(
+            @PathVariable Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            HttpServletResponse response) throws IOException {
+        // checked before anything is written, the response can't be turned into a 400 later
+        if (to.isBefore(from)) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        try (var json = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            json.writeStartArray();
+            statementService.streamStatement(id, from, to, entry -> {
+                try {
+                    entry.writeTo(json);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Client went away during statement export", e);
+                }
+            });
+            json.writeEndArray();
+        }
+    }
+}
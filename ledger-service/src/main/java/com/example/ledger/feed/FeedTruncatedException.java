@@ -0,0 +1,15 @@
+package com.example.ledger.feed;
+
+public class FeedTruncatedException extends RuntimeException {
+
+    private final long oldestAvailable;
+
+    public FeedTruncatedException(long after, long oldestAvailable) {
+        super("Events after " + after + " are no longer retained, oldest available is " + oldestAvailable);
+        this.oldestAvailable = oldestAvailable;
+    }
+
+    public long getOldestAvailable() {
+        return oldestAvailable;
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.ledger.feed;
+
+import com.example.ledger.model.LedgerEntry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Append-only, in-memory log of committed ledger entries.
+ *
+ * Sequence numbers are reserved in beforeCommit, while the transaction still holds its
+ * account row locks, so two transfers touching the same account are sequenced in commit
+ * order. Entries only become visible in afterCompletion, and readers never see past the
+ * watermark - the highest sequence below which every reservation has committed or rolled
+ * back - so a consumer offset can never skip an event that commits late. Rolled back
+ * reservations leave a hole in the sequence.
+ *
+ * The log is bounded; consumers that fall further behind than the retained window get a
+ * {@link FeedTruncatedException}. It is also only held in memory: nothing is replayed from
+ * {@code ledger_entries} on startup, so events not yet read when the process stops are lost.
+ * Sequences restart with each process, which consumers detect through {@link #getEpoch()};
+ * after a new epoch or a truncation they rebuild their state from the REST API (account
+ * balances, statements) and continue from the current watermark.
+ */
+@Component
+@Slf4j
+public class LedgerFeed {
+
+    private final long epoch = System.currentTimeMillis();
+    private final LedgerFeedEvent[] ring;
+    private final int mask;
+    private final TreeMap<Long, Reservation> pending = new TreeMap<>();
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+    private long nextSeq = 1;
+    private long watermark = 0;
+    private long highestWritten = 0;
+
+    public LedgerFeed(@Value("${ledger.feed.capacity:65536}") int capacity) {
+        final int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.ring = new LedgerFeedEvent[size];
+        this.mask = size - 1;
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public synchronized long getWatermark() {
+        return watermark;
+    }
+
+    /**
+     * Publishes the entries once the current transaction commits, or immediately when
+     * there is no transaction.
+     */
+    public void publishAfterCommit(List<LedgerEntry> entries) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            complete(reserve(entries.size()), entries);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private Reservation reservation;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                reservation = reserve(entries.size());
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (reservation == null) {
+                    return;
+                }
+                if (status == STATUS_COMMITTED) {
+                    complete(reservation, entries);
+                } else {
+                    if (status == STATUS_UNKNOWN) {
+                        log.warn("Commit outcome unknown, feed sequences {}..{} left empty",
+                                reservation.baseSeq, reservation.baseSeq + reservation.count - 1);
+                    }
+                    complete(reservation, null);
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns up to {@code limit} events with a sequence greater than {@code after}.
+     */
+    public synchronized LedgerFeedPage read(long after, int limit) {
+        final long oldest = oldestAvailable();
+        if (after + 1 < oldest) {
+            throw new FeedTruncatedException(after, oldest);
+        }
+        final var events = new ArrayList<LedgerFeedEvent>(Math.min(limit, 256));
+        long seq = after;
+        while (seq < watermark && events.size() < limit) {
+            seq++;
+            final var event = ring[(int) (seq & mask)];
+            if (event != null && event.getSeq() == seq) {
+                events.add(event);
+            }
+        }
+        // nextAfter also moves past rolled back holes so consumers don't rescan them
+        return new LedgerFeedPage(epoch, events, seq, watermark);
+    }
+
+    /**
+     * Registers a callback run (on the publishing thread) whenever the watermark advances.
+     */
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    private synchronized Reservation reserve(int count) {
+        final var reservation = new Reservation(nextSeq, count);
+        nextSeq += count;
+        pending.put(reservation.baseSeq, reservation);
+        return reservation;
+    }
+
+    private void complete(Reservation reservation, List<LedgerEntry> entries) {
+        final boolean advanced;
+        synchronized (this) {
+            if (entries != null) {
+                for (int i = 0; i < entries.size(); i++) {
+                    final long seq = reservation.baseSeq + i;
+                    ring[(int) (seq & mask)] = LedgerFeedEvent.of(seq, entries.get(i));
+                    highestWritten = Math.max(highestWritten, seq);
+                }
+            }
+            reservation.done = true;
+
+            final long before = watermark;
+            while (!pending.isEmpty() && pending.firstEntry().getValue().done) {
+                final var first = pending.pollFirstEntry().getValue();
+                watermark = first.baseSeq + first.count - 1;
+            }
+            advanced = watermark > before;
+        }
+        if (advanced) {
+            listeners.forEach(Runnable::run);
+        }
+    }
+
+    private long oldestAvailable() {
+        return Math.max(1, highestWritten - ring.length + 1);
+    }
+
+    private static class Reservation {
+        private final long baseSeq;
+        private final int count;
+        private boolean done;
+
+        private Reservation(long baseSeq, int count) {
+            this.baseSeq = baseSeq;
+            this.count = count;
+        }
+    }
+}
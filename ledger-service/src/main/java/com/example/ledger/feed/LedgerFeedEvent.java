@@ -0,0 +1,24 @@
+package com.example.ledger.feed;
+
+import com.example.ledger.model.LedgerEntry;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+@Getter
+@AllArgsConstructor
+public class LedgerFeedEvent {
+    private final long seq;
+    private final String transferId;
+    private final Long accountId;
+    private final BigDecimal amount;
+    private final LedgerEntry.EntryType type;
+    private final OffsetDateTime createdAt;
+
+    static LedgerFeedEvent of(long seq, LedgerEntry entry) {
+        return new LedgerFeedEvent(seq, entry.getTransferId(), entry.getAccountId(),
+                entry.getAmount(), entry.getType(), entry.getCreatedAt());
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.ledger.feed;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class LedgerFeedPage {
+    private final long epoch;
+    private final List<LedgerFeedEvent> events;
+    // offset to pass as "after" on the next request
+    private final long nextAfter;
+    private final long watermark;
+}
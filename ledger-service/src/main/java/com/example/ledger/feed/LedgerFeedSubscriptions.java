@@ -0,0 +1,230 @@
+package com.example.ledger.feed;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes feed events to SSE subscribers. A single dispatcher thread reads the feed and queues
+ * events in each subscriber's buffer of {@code subscriberBuffer} events without ever writing to
+ * a socket; each subscriber's buffer is drained by a sender thread of its own while it has
+ * events, so a slow or stalled client only holds up itself. A subscriber whose buffer
+ * overflows is sent an {@code overflow} event and disconnected; it reconnects with
+ * {@code Last-Event-ID} and resumes from the feed. The committing transaction threads never
+ * block on consumers either.
+ *
+ * Event ids are {@code <epoch>:<seq>}, so a client reconnecting after a restart is recognised:
+ * the events it was still missing are gone with the previous process, and instead of resuming it
+ * is sent a {@code resync} event telling it to rebuild from the REST API. That event's id is the
+ * current position, so a reconnecting EventSource then resumes from there.
+ */
+@Component
+@Slf4j
+public class LedgerFeedSubscriptions {
+
+    private static final int SEND_BATCH = 500;
+
+    private final LedgerFeed feed;
+    private final long timeoutMillis;
+    private final int subscriberBuffer;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean dispatchScheduled = new AtomicBoolean();
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+        final var thread = new Thread(runnable, "ledger-feed-sse");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // at most one task per subscriber, so at most one thread each
+    private final ExecutorService senders;
+
+    public LedgerFeedSubscriptions(LedgerFeed feed, @Value("${ledger.feed.sse-timeout:30m}") Duration timeout,
+                                   @Value("${ledger.feed.subscriber-buffer:1000}") int subscriberBuffer) {
+        this.feed = feed;
+        this.timeoutMillis = timeout.toMillis();
+        this.subscriberBuffer = subscriberBuffer;
+        final var senderCount = new AtomicInteger();
+        this.senders = Executors.newCachedThreadPool(runnable -> {
+            final var thread = new Thread(runnable, "ledger-feed-sse-sender-" + senderCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        feed.addListener(this::scheduleDispatch);
+    }
+
+    /**
+     * Streams the events after {@code after} of {@code epoch}; a subscriber from an earlier epoch
+     * only gets a {@code resync} event.
+     */
+    public SseEmitter subscribe(long epoch, long after) {
+        final var emitter = new SseEmitter(timeoutMillis);
+        subscribe(emitter, epoch, after);
+        return emitter;
+    }
+
+    void subscribe(SseEmitter emitter, long epoch, long after) {
+        if (epoch != feed.getEpoch()) {
+            resync(emitter, epoch);
+            return;
+        }
+        final var subscriber = new Subscriber(emitter, after, subscriberBuffer);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        scheduleDispatch();
+    }
+
+    static String eventId(long epoch, long seq) {
+        return epoch + ":" + seq;
+    }
+
+    private void resync(SseEmitter emitter, long staleEpoch) {
+        final long watermark = feed.getWatermark();
+        try {
+            emitter.send(SseEmitter.event()
+                    .id(eventId(feed.getEpoch(), watermark))
+                    .name("resync")
+                    .data(Map.of("epoch", feed.getEpoch(),
+                            "watermark", watermark,
+                            "message", "Events of epoch " + staleEpoch + " were lost when the ledger restarted, "
+                                    + "rebuild from the REST API and continue from this event")));
+            emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            emitter.completeWithError(e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.close(null));
+        senders.shutdown();
+    }
+
+    private void scheduleDispatch() {
+        if (dispatchScheduled.compareAndSet(false, true)) {
+            dispatcher.execute(() -> {
+                dispatchScheduled.set(false);
+                subscribers.forEach(this::dispatch);
+            });
+        }
+    }
+
+    // moves the subscriber's next events from the feed to its buffer, never blocks
+    private void dispatch(Subscriber subscriber) {
+        try {
+            while (true) {
+                final var page = feed.read(subscriber.lastSeq, Math.min(SEND_BATCH, subscriberBuffer));
+                for (final var event : page.getEvents()) {
+                    final var sse = SseEmitter.event()
+                            .id(eventId(feed.getEpoch(), event.getSeq()))
+                            .name("ledger-entry")
+                            .data(event);
+                    if (!subscriber.buffer.offer(sse)) {
+                        log.debug("Dropping feed subscriber more than {} events behind", subscriberBuffer);
+                        subscriber.close(SseEmitter.event()
+                                .name("overflow")
+                                .data(Map.of("message", "More than " + subscriberBuffer
+                                        + " events behind, reconnect with Last-Event-ID")));
+                        return;
+                    }
+                }
+                subscriber.wake();
+                if (page.getNextAfter() == subscriber.lastSeq) {
+                    return;
+                }
+                subscriber.lastSeq = page.getNextAfter();
+            }
+        } catch (FeedTruncatedException e) {
+            // the id moves a reconnecting client on to the oldest retained event, once it rebuilt
+            subscriber.close(SseEmitter.event()
+                    .id(eventId(feed.getEpoch(), e.getOldestAvailable() - 1))
+                    .name("truncated")
+                    .data(Map.of("epoch", feed.getEpoch(),
+                            "oldestAvailable", e.getOldestAvailable(),
+                            "message", "Events up to " + (e.getOldestAvailable() - 1) + " are no longer retained, "
+                                    + "rebuild from the REST API and continue from this event")));
+        }
+    }
+
+    private class Subscriber {
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> buffer;
+        private final AtomicBoolean sending = new AtomicBoolean();
+        // once closed the buffer is dropped, lastEvent is sent and the emitter completed
+        private volatile boolean closed;
+        private volatile SseEmitter.SseEventBuilder lastEvent;
+        // where the next feed read starts, only touched by the dispatcher thread
+        private long lastSeq;
+
+        private Subscriber(SseEmitter emitter, long lastSeq, int bufferSize) {
+            this.emitter = emitter;
+            this.lastSeq = lastSeq;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        void close(SseEmitter.SseEventBuilder last) {
+            subscribers.remove(this);
+            lastEvent = last;
+            closed = true;
+            buffer.clear();
+            wake();
+        }
+
+        void wake() {
+            if (sending.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this::drain);
+                } catch (RuntimeException e) {
+                    // shutting down
+                    sending.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                while (true) {
+                    if (closed) {
+                        final var last = lastEvent;
+                        if (last != null) {
+                            emitter.send(last);
+                        }
+                        emitter.complete();
+                        return;
+                    }
+                    final var event = buffer.poll();
+                    if (event == null) {
+                        sending.set(false);
+                        // an event queued after the poll but before the flag was cleared
+                        if ((buffer.isEmpty() && !closed) || !sending.compareAndSet(false, true)) {
+                            return;
+                        }
+                        continue;
+                    }
+                    emitter.send(event);
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Dropping feed subscriber: {}", e.getMessage());
+                subscribers.remove(this);
+                closed = true;
+                buffer.clear();
+                emitter.completeWithError(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.ledger.fx;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Accounts created before accounts had a currency get {@code ledger.fx.default-currency}, the
+ * currency the deployment ran in. A no-op once every row has one.
+ */
+@Component
+@Slf4j
+@AllArgsConstructor
+public class AccountCurrencyBackfill {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final FxProperties properties;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        final var updated = jdbcTemplate.update("UPDATE accounts SET currency = ? WHERE currency IS NULL",
+                properties.getDefaultCurrency());
+        if (updated > 0) {
+            log.info("Set currency {} on {} accounts created without one", properties.getDefaultCurrency(), updated);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.ledger.fx;
+
+import lombok.AllArgsConstructor;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Reads rates from a local file, one {@code CODE=rate} per line:
+ * <pre>
+ * # units per 1 USD
+ * EUR=0.92
+ * JPY=151.37
+ * </pre>
+ */
+@AllArgsConstructor
+public class FileFxRateProvider implements FxRateProvider {
+
+    private final Path file;
+
+    @Override
+    public Map<String, BigDecimal> loadRates() throws IOException {
+        final var properties = new Properties();
+        try (var reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        final var rates = new HashMap<String, BigDecimal>();
+        for (final var code : properties.stringPropertyNames()) {
+            final var value = properties.getProperty(code).trim();
+            try {
+                rates.put(code.trim(), new BigDecimal(value));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Rate of " + code + " in " + file + " is not a number: " + value);
+            }
+        }
+        return rates;
+    }
+}
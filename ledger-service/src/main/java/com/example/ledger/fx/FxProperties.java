@@ -0,0 +1,17 @@
+package com.example.ledger.fx;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+public class FxProperties {
+    // currency of accounts created without one, and the currency rates are quoted against
+    private String defaultCurrency = "USD";
+    // units of each currency per one unit of defaultCurrency, used when rateFile is not set
+    private Map<String, BigDecimal> rates = new LinkedHashMap<>();
+    // CODE=rate lines in java.util.Properties format, re-read every refresh-interval
+    private String rateFile;
+}
@@ -0,0 +1,14 @@
+package com.example.ledger.fx;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Source of FX rates for {@link FxRateTable}: currency code to units of that currency per one
+ * unit of {@code ledger.fx.default-currency}.
+ */
+public interface FxRateProvider {
+
+    Map<String, BigDecimal> loadRates() throws IOException;
+}
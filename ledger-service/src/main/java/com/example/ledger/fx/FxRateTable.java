@@ -0,0 +1,87 @@
+package com.example.ledger.fx;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * The current {@link FxRates}, held in a volatile field: readers never lock, a refresh builds a
+ * complete new snapshot and swaps it in with a single write. The version only moves when the
+ * provider's rates changed. A refresh that fails keeps the previous snapshot; if the very first
+ * load fails only the default currency is known, and cross-currency transfers are rejected
+ * until a refresh succeeds.
+ */
+@Slf4j
+public class FxRateTable {
+
+    private final FxProperties properties;
+    private final FxRateProvider provider;
+    private final Counter refreshFailures;
+    private volatile FxRates current;
+
+    public FxRateTable(FxProperties properties, FxRateProvider provider, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.provider = provider;
+        this.refreshFailures = Counter.builder("ledger.fx.refresh.failures").register(meterRegistry);
+        this.current = FxRates.of(0, Instant.now(), defaultCurrency(), Map.of());
+        Gauge.builder("ledger.fx.rates.version", this, table -> table.current().getVersion())
+                .register(meterRegistry);
+        refresh();
+    }
+
+    public FxRates current() {
+        return current;
+    }
+
+    public String defaultCurrency() {
+        return properties.getDefaultCurrency();
+    }
+
+    /**
+     * The currency of a new account: {@code defaultCurrency} when none was given, otherwise one
+     * the rate table knows, so the account can take part in cross-currency transfers.
+     */
+    public String accountCurrency(String currency) {
+        if (currency == null) {
+            return defaultCurrency();
+        }
+        final var code = currency.toUpperCase();
+        if (!current.supports(code)) {
+            throw new IllegalArgumentException("Unsupported currency: " + currency);
+        }
+        return code;
+    }
+
+    @Scheduled(fixedDelayString = "${ledger.fx.refresh-interval:PT1M}",
+               initialDelayString = "${ledger.fx.refresh-interval:PT1M}")
+    public void scheduledRefresh() {
+        refresh();
+    }
+
+    /**
+     * Loads the provider's rates and swaps them in when they differ from the current ones.
+     * Returns whether a new version was installed.
+     */
+    public synchronized boolean refresh() {
+        final FxRates next;
+        try {
+            next = FxRates.of(current.getVersion() + 1, Instant.now(), defaultCurrency(), provider.loadRates());
+        } catch (IOException | RuntimeException e) {
+            refreshFailures.increment();
+            log.warn("FX rate refresh failed, keeping version {}: {}", current.getVersion(), e.getMessage());
+            return false;
+        }
+        if (next.getRates().equals(current.getRates())) {
+            return false;
+        }
+        current = next;
+        log.info("FX rates version {} loaded, {} currencies", next.getVersion(), next.getRates().size());
+        return true;
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.ledger.fx;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * One immutable version of the rate table. Every cross rate is worked out when the snapshot is
+ * built, so a conversion is two map lookups, an array read and one multiplication, with no
+ * division and no locking. {@link FxRateTable} swaps whole snapshots, a transfer that read one
+ * keeps converting at it however often the table is refreshed.
+ */
+public final class FxRates {
+
+    // scale of stored rates, at least 7 significant digits even between IDR and KWD
+    public static final int RATE_SCALE = 12;
+    // amounts are stored with scale 2 (LedgerChain), currencies with 3 decimals are rounded to it
+    private static final int MAX_AMOUNT_SCALE = 2;
+
+    private final long version;
+    private final Instant loadedAt;
+    private final String baseCurrency;
+    private final Map<String, BigDecimal> rates;
+    private final Map<String, Integer> indexes;
+    // crossRates[from * size + to]: units of `to` per unit of `from`
+    private final BigDecimal[] crossRates;
+    private final int[] scales;
+
+    private FxRates(long version, Instant loadedAt, String baseCurrency, Map<String, BigDecimal> rates) {
+        this.version = version;
+        this.loadedAt = loadedAt;
+        this.baseCurrency = baseCurrency;
+        this.rates = rates;
+        this.indexes = new HashMap<>();
+        final var codes = rates.keySet().toArray(String[]::new);
+        final var size = codes.length;
+        this.crossRates = new BigDecimal[size * size];
+        this.scales = new int[size];
+        for (int from = 0; from < size; from++) {
+            indexes.put(codes[from], from);
+            final var digits = Currency.getInstance(codes[from]).getDefaultFractionDigits();
+            scales[from] = digits < 0 ? MAX_AMOUNT_SCALE : Math.min(digits, MAX_AMOUNT_SCALE);
+            for (int to = 0; to < size; to++) {
+                crossRates[from * size + to] = from == to
+                        ? BigDecimal.ONE
+                        : rates.get(codes[to]).divide(rates.get(codes[from]), RATE_SCALE, RoundingMode.HALF_EVEN);
+            }
+        }
+    }
+
+    /**
+     * Validates the rates (ISO 4217 codes, positive) and builds the cross rates. The base
+     * currency is always included at 1.
+     */
+    public static FxRates of(long version, Instant loadedAt, String baseCurrency, Map<String, BigDecimal> rates) {
+        validateCode(baseCurrency);
+        final var normalized = new TreeMap<String, BigDecimal>();
+        normalized.put(baseCurrency, BigDecimal.ONE);
+        for (final var rate : rates.entrySet()) {
+            final var code = rate.getKey().toUpperCase();
+            validateCode(code);
+            if (rate.getValue() == null || rate.getValue().signum() <= 0) {
+                throw new IllegalArgumentException("Rate of " + code + " must be positive");
+            }
+            if (code.equals(baseCurrency) && rate.getValue().compareTo(BigDecimal.ONE) != 0) {
+                throw new IllegalArgumentException("Rate of the base currency " + code + " must be 1");
+            }
+            // 150 rather than 1.5E+2, the same value however it was written
+            final var value = rate.getValue().stripTrailingZeros();
+            normalized.put(code, value.scale() < 0 ? value.setScale(0) : value);
+        }
+        return new FxRates(version, loadedAt, baseCurrency, Map.copyOf(normalized));
+    }
+
+    /**
+     * {@code amount} of {@code from} in {@code to}, rounded half-even to the minor unit of
+     * {@code to}.
+     */
+    public Conversion convert(BigDecimal amount, String from, String to) {
+        final var toIndex = index(to);
+        final var rate = crossRates[index(from) * scales.length + toIndex];
+        return new Conversion(amount.multiply(rate).setScale(scales[toIndex], RoundingMode.HALF_EVEN), rate, version);
+    }
+
+    public boolean supports(String currency) {
+        return indexes.containsKey(currency);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Instant getLoadedAt() {
+        return loadedAt;
+    }
+
+    public String getBaseCurrency() {
+        return baseCurrency;
+    }
+
+    // units of each currency per unit of the base currency, as loaded
+    public Map<String, BigDecimal> getRates() {
+        return rates;
+    }
+
+    private int index(String currency) {
+        final var index = indexes.get(currency);
+        if (index == null) {
+            throw new IllegalArgumentException("No FX rate for " + currency);
+        }
+        return index;
+    }
+
+    static void validateCode(String code) {
+        try {
+            Currency.getInstance(code);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new IllegalArgumentException("Not an ISO 4217 currency code: " + code);
+        }
+    }
+
+    // the converted amount and the rate and table version it was converted at
+    public record Conversion(BigDecimal amount, BigDecimal rate, long version) {
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.ledger.fx;
+
+import lombok.AllArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+// the fixed ledger.fx.rates from configuration
+@AllArgsConstructor
+public class StubFxRateProvider implements FxRateProvider {
+
+    private final Map<String, BigDecimal> rates;
+
+    @Override
+    public Map<String, BigDecimal> loadRates() {
+        return rates;
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.ledger.lock;
+
+import com.example.ledger.model.Account;
+import com.example.ledger.repository.AccountRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Takes the PESSIMISTIC_WRITE row locks for a transfer. Rows are locked one statement at a time
+ * in ascending id order, so every transaction acquires its locks in the same global order and
+ * two transfers can never deadlock on accounts, whatever order the database returns rows in.
+ *
+ * Each acquisition is timed and fed to the {@link LockContentionTracker}. With mode TIMEOUT or
+ * NOWAIT a lock that isn't granted in time throws a {@link PessimisticLockingFailureException}
+ * instead of holding the connection, which callers report as a retriable error.
+ */
+@Slf4j
+public class AccountLocker {
+
+    private final AccountRepository accountRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final LockingProperties properties;
+    private final LockContentionTracker tracker;
+    private final Timer acquisitionTime;
+    private final Counter failures;
+
+    // resolved on first use, null when the database needs no statement for the configured mode
+    private volatile String lockTimeoutSql;
+    private volatile boolean lockTimeoutResolved;
+
+    public AccountLocker(AccountRepository accountRepository, JdbcTemplate jdbcTemplate,
+                         LockingProperties properties, LockContentionTracker tracker, MeterRegistry meterRegistry) {
+        this.accountRepository = accountRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        this.tracker = tracker;
+        this.acquisitionTime = Timer.builder("ledger.lock.acquisition")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.failures = Counter.builder("ledger.lock.failures")
+                .tag("mode", properties.getMode().name())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Locks the accounts in id order within the current transaction and returns the ones that
+     * exist, in id order. Must be called inside a transaction.
+     */
+    public List<Account> lockInOrder(Collection<Long> accountIds) {
+        applyLockTimeout();
+        final var locked = new ArrayList<Account>(accountIds.size());
+        for (final var accountId : new TreeSet<>(accountIds)) {
+            final var started = System.nanoTime();
+            try {
+                final var account = properties.getMode() == LockingProperties.Mode.NOWAIT
+                        ? accountRepository.findByIdForUpdateNoWait(accountId)
+                        : accountRepository.findByIdForUpdate(accountId);
+                record(accountId, System.nanoTime() - started, false);
+                account.ifPresent(locked::add);
+            } catch (PessimisticLockingFailureException e) {
+                record(accountId, System.nanoTime() - started, true);
+                failures.increment();
+                log.warn("Could not lock account {} ({}): {}", accountId, properties.getMode(), e.getMessage());
+                throw e;
+            }
+        }
+        return locked;
+    }
+
+    private void record(long accountId, long waitNanos, boolean failed) {
+        acquisitionTime.record(waitNanos, TimeUnit.NANOSECONDS);
+        tracker.record(accountId, waitNanos, failed);
+    }
+
+    private void applyLockTimeout() {
+        if (!lockTimeoutResolved) {
+            lockTimeoutSql = resolveLockTimeoutSql();
+            lockTimeoutResolved = true;
+        }
+        if (lockTimeoutSql != null) {
+            jdbcTemplate.execute(lockTimeoutSql);
+        }
+    }
+
+    private String resolveLockTimeoutSql() {
+        if (properties.getMode() == LockingProperties.Mode.WAIT) {
+            return null;
+        }
+        final var timeoutMillis = properties.getMode() == LockingProperties.Mode.NOWAIT
+                ? 0
+                : properties.getTimeout().toMillis();
+        final var database = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        if ("PostgreSQL".equals(database)) {
+            // transaction-scoped; NOWAIT is rendered by the query itself (lock_timeout 0 would mean no limit)
+            return timeoutMillis == 0 ? null : "SET LOCAL lock_timeout = '" + timeoutMillis + "ms'";
+        }
+        if ("H2".equals(database)) {
+            // session-scoped but set by every locking transaction; 0 would mean the default, so NOWAIT is 1 ms
+            return "SET LOCK_TIMEOUT " + Math.max(1, timeoutMillis);
+        }
+        log.warn("Lock mode {} is not supported on {}, row locks will wait for the database default",
+                properties.getMode(), database);
+        return null;
+    }
+}
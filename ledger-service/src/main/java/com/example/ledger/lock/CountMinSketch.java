@@ -0,0 +1,49 @@
+package com.example.ledger.lock;
+
+import java.util.Arrays;
+
+/**
+ * Count-min sketch over long keys. Estimates never undercount; they overcount by at most
+ * {@code e / width} of the total added, with probability {@code 1 - e^-depth}. Not thread-safe.
+ */
+class CountMinSketch {
+
+    private final int depth;
+    private final int mask;
+    private final long[][] counts;
+
+    CountMinSketch(int width, int depth) {
+        this.depth = depth;
+        final int size = Integer.highestOneBit(Math.max(2, width - 1)) << 1;
+        this.mask = size - 1;
+        this.counts = new long[depth][size];
+    }
+
+    void add(long key, long amount) {
+        for (int row = 0; row < depth; row++) {
+            counts[row][index(key, row)] += amount;
+        }
+    }
+
+    long estimate(long key) {
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counts[row][index(key, row)]);
+        }
+        return min;
+    }
+
+    void clear() {
+        for (final var row : counts) {
+            Arrays.fill(row, 0);
+        }
+    }
+
+    private int index(long key, int row) {
+        // a different seed per row gives independent hash functions
+        long h = key + 0x9e3779b97f4a7c15L * (row + 1);
+        h = (h ^ (h >>> 33)) * 0xff51afd7ed558ccdL;
+        h = (h ^ (h >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return (int) (h ^ (h >>> 33)) & mask;
+    }
+}
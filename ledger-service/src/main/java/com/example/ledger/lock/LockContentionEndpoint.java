@@ -0,0 +1,38 @@
+package com.example.ledger.lock;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@code GET /actuator/lockcontention}: the accounts whose row locks were slowest to acquire
+ * over the last one to two windows, with lock totals for the same period.
+ */
+@Endpoint(id = "lockcontention")
+public class LockContentionEndpoint {
+
+    private final LockContentionTracker tracker;
+    private final LockingProperties properties;
+
+    public LockContentionEndpoint(LockContentionTracker tracker, LockingProperties properties) {
+        this.tracker = tracker;
+        this.properties = properties;
+    }
+
+    @ReadOperation
+    public Map<String, Object> contention() {
+        final var snapshot = tracker.snapshot();
+        final var result = new LinkedHashMap<String, Object>();
+        result.put("mode", properties.getMode());
+        result.put("timeoutMillis", properties.getTimeout().toMillis());
+        result.put("windowSeconds", properties.getWindow().toSeconds());
+        result.put("contentionThresholdMillis", properties.getContentionThreshold().toMillis());
+        result.put("acquisitions", snapshot.acquisitions());
+        result.put("contended", snapshot.contended());
+        result.put("failures", snapshot.failures());
+        result.put("topAccounts", snapshot.topAccounts());
+        return result;
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.ledger.lock;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Rolling ranking of the accounts whose row locks took longest to acquire.
+ *
+ * Contended acquisitions are added to count-min sketches (wait time and count) for the current
+ * window; at the end of a window it becomes the previous one and a fresh window starts, so the
+ * ranking always covers between one and two windows. A candidate set of the top K accounts is
+ * maintained as samples arrive: an account not in the set replaces the weakest candidate once
+ * its estimated wait is larger. Memory is fixed regardless of how many accounts exist.
+ */
+public class LockContentionTracker {
+
+    private final int topK;
+    private final long windowNanos;
+    private final long thresholdNanos;
+
+    private CountMinSketch currentWait;
+    private CountMinSketch currentCount;
+    private CountMinSketch previousWait;
+    private CountMinSketch previousCount;
+    private final Set<Long> candidates = new HashSet<>();
+    private long windowStart = System.nanoTime();
+
+    // acquisitions, contended, failures; for the current and the previous window
+    private long[] currentTotals = new long[3];
+    private long[] previousTotals = new long[3];
+
+    public LockContentionTracker(LockingProperties properties) {
+        this.topK = properties.getTopK();
+        this.windowNanos = properties.getWindow().toNanos();
+        this.thresholdNanos = properties.getContentionThreshold().toNanos();
+        final int width = properties.getSketchWidth();
+        final int depth = properties.getSketchDepth();
+        this.currentWait = new CountMinSketch(width, depth);
+        this.currentCount = new CountMinSketch(width, depth);
+        this.previousWait = new CountMinSketch(width, depth);
+        this.previousCount = new CountMinSketch(width, depth);
+    }
+
+    /**
+     * Records one row lock acquisition; {@code failed} means it timed out or hit NOWAIT, in which
+     * case {@code waitNanos} is how long it waited before giving up.
+     */
+    public synchronized void record(long accountId, long waitNanos, boolean failed) {
+        rotateIfDue(System.nanoTime());
+        currentTotals[0]++;
+        if (failed) {
+            currentTotals[2]++;
+        }
+        if (waitNanos < thresholdNanos && !failed) {
+            return;
+        }
+        currentTotals[1]++;
+        currentWait.add(accountId, waitNanos / 1_000);
+        currentCount.add(accountId, 1);
+
+        if (candidates.contains(accountId) || candidates.size() < topK) {
+            candidates.add(accountId);
+            return;
+        }
+        final var estimate = waitMicros(accountId);
+        Long weakest = null;
+        long weakestEstimate = Long.MAX_VALUE;
+        for (final var candidate : candidates) {
+            final var candidateEstimate = waitMicros(candidate);
+            if (candidateEstimate < weakestEstimate) {
+                weakest = candidate;
+                weakestEstimate = candidateEstimate;
+            }
+        }
+        if (estimate > weakestEstimate) {
+            candidates.remove(weakest);
+            candidates.add(accountId);
+        }
+    }
+
+    public synchronized Snapshot snapshot() {
+        rotateIfDue(System.nanoTime());
+        final var top = new ArrayList<HotAccount>(candidates.size());
+        for (final var accountId : candidates) {
+            final var waitMicros = waitMicros(accountId);
+            if (waitMicros > 0 || contendedCount(accountId) > 0) {
+                top.add(new HotAccount(accountId, waitMicros / 1_000.0, contendedCount(accountId)));
+            }
+        }
+        top.sort(Comparator.comparingDouble(HotAccount::waitMillis).reversed());
+        return new Snapshot(currentTotals[0] + previousTotals[0], currentTotals[1] + previousTotals[1],
+                currentTotals[2] + previousTotals[2], top);
+    }
+
+    private long waitMicros(long accountId) {
+        return currentWait.estimate(accountId) + previousWait.estimate(accountId);
+    }
+
+    private long contendedCount(long accountId) {
+        return currentCount.estimate(accountId) + previousCount.estimate(accountId);
+    }
+
+    private void rotateIfDue(long now) {
+        if (now - windowStart < windowNanos) {
+            return;
+        }
+        // skipped a whole window without traffic: nothing recent is left to report
+        final var idleForTwoWindows = now - windowStart >= 2 * windowNanos;
+        final var recycledWait = previousWait;
+        final var recycledCount = previousCount;
+        recycledWait.clear();
+        recycledCount.clear();
+        if (idleForTwoWindows) {
+            currentWait.clear();
+            currentCount.clear();
+            candidates.clear();
+        }
+        previousWait = currentWait;
+        previousCount = currentCount;
+        currentWait = recycledWait;
+        currentCount = recycledCount;
+        previousTotals = idleForTwoWindows ? new long[3] : currentTotals;
+        currentTotals = new long[3];
+        windowStart = now;
+        candidates.removeIf(accountId -> waitMicros(accountId) == 0 && contendedCount(accountId) == 0);
+    }
+
+    public record Snapshot(long acquisitions, long contended, long failures, List<HotAccount> topAccounts) {
+    }
+
+    public record HotAccount(long accountId, double waitMillis, long contendedAcquisitions) {
+    }
+}
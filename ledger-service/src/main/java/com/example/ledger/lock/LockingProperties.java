@@ -0,0 +1,28 @@
+package com.example.ledger.lock;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+@Data
+public class LockingProperties {
+
+    public enum Mode {
+        // block until the row lock is granted (database default)
+        WAIT,
+        // give up after timeout
+        TIMEOUT,
+        // fail at once if another transaction holds the row
+        NOWAIT
+    }
+
+    private Mode mode = Mode.TIMEOUT;
+    private Duration timeout = Duration.ofSeconds(2);
+    // acquisitions slower than this count as contended and feed the hot-account ranking
+    private Duration contentionThreshold = Duration.ofMillis(1);
+    private int topK = 20;
+    // the ranking covers the current and the previous window
+    private Duration window = Duration.ofMinutes(1);
+    private int sketchWidth = 2048;
+    private int sketchDepth = 4;
+}
@@ -0,0 +1,162 @@
+package com.example.ledger.logging;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.ThrowableProxyUtil;
+import ch.qos.logback.core.encoder.EncoderBase;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+
+/**
+ * Writes each event as one line of JSON:
+ * <pre>
+ * {"timestamp":"2025-01-15T10:30:00.123Z","level":"INFO","logger":"...","thread":"...","message":"...","requestId":"..."}
+ * </pre>
+ * MDC entries become top-level fields, a throwable goes into {@code "exception"}. Characters are
+ * escaped and UTF-8 encoded straight into a per-thread byte buffer, so the only allocation per
+ * event is the array handed to the appender. Behind the {@code AsyncAppender} that is a single
+ * thread.
+ */
+public class JsonLogEncoder extends EncoderBase<ILoggingEvent> {
+
+    private static final int INITIAL_CAPACITY = 512;
+    // a buffer grown by a huge stack trace is dropped rather than kept for the life of the thread
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+    private static final DateTimeFormatter SECONDS = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.")
+            .withZone(ZoneOffset.UTC);
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private final ThreadLocal<Line> lines = ThreadLocal.withInitial(Line::new);
+
+    @Override
+    public byte[] headerBytes() {
+        return null;
+    }
+
+    @Override
+    public byte[] encode(ILoggingEvent event) {
+        final var line = lines.get();
+        line.length = 0;
+        line.raw("{\"timestamp\":\"");
+        line.timestamp(event.getTimeStamp());
+        line.raw("\",\"level\":\"");
+        line.raw(event.getLevel().levelStr);
+        line.field("logger", event.getLoggerName());
+        line.field("thread", event.getThreadName());
+        line.field("message", event.getFormattedMessage());
+        for (final var entry : event.getMDCPropertyMap().entrySet()) {
+            line.field(entry.getKey(), entry.getValue());
+        }
+        if (event.getThrowableProxy() != null) {
+            line.field("exception", ThrowableProxyUtil.asString(event.getThrowableProxy()));
+        }
+        line.raw("\"}\n");
+
+        final var bytes = Arrays.copyOf(line.bytes, line.length);
+        if (line.bytes.length > MAX_RETAINED_CAPACITY) {
+            line.bytes = new byte[INITIAL_CAPACITY];
+        }
+        return bytes;
+    }
+
+    @Override
+    public byte[] footerBytes() {
+        return null;
+    }
+
+    private static final class Line {
+
+        private byte[] bytes = new byte[INITIAL_CAPACITY];
+        private int length;
+        // formatting the date once per second instead of once per event
+        private long second = Long.MIN_VALUE;
+        private byte[] secondPrefix;
+
+        // closes the previous string value and writes "name":"value (still open)
+        void field(String name, String value) {
+            raw("\",\"");
+            escaped(name);
+            raw("\":\"");
+            escaped(value != null ? value : "");
+        }
+
+        void timestamp(long millis) {
+            final var epochSecond = Math.floorDiv(millis, 1000);
+            if (epochSecond != second) {
+                second = epochSecond;
+                secondPrefix = SECONDS.format(Instant.ofEpochSecond(epochSecond)).getBytes(StandardCharsets.US_ASCII);
+            }
+            ensure(secondPrefix.length + 4);
+            System.arraycopy(secondPrefix, 0, bytes, length, secondPrefix.length);
+            length += secondPrefix.length;
+            final var milli = (int) Math.floorMod(millis, 1000);
+            bytes[length++] = (byte) ('0' + milli / 100);
+            bytes[length++] = (byte) ('0' + milli / 10 % 10);
+            bytes[length++] = (byte) ('0' + milli % 10);
+            bytes[length++] = 'Z';
+        }
+
+        // ASCII without escaping
+        void raw(String value) {
+            ensure(value.length());
+            for (int i = 0; i < value.length(); i++) {
+                bytes[length++] = (byte) value.charAt(i);
+            }
+        }
+
+        void escaped(String value) {
+            // worst case: every char a six byte \\u escape
+            ensure(value.length() * 6);
+            for (int i = 0; i < value.length(); i++) {
+                final var c = value.charAt(i);
+                if (c == '"' || c == '\\') {
+                    bytes[length++] = '\\';
+                    bytes[length++] = (byte) c;
+                } else if (c == '\n') {
+                    bytes[length++] = '\\';
+                    bytes[length++] = 'n';
+                } else if (c == '\r') {
+                    bytes[length++] = '\\';
+                    bytes[length++] = 'r';
+                } else if (c == '\t') {
+                    bytes[length++] = '\\';
+                    bytes[length++] = 't';
+                } else if (c < 0x20) {
+                    bytes[length++] = '\\';
+                    bytes[length++] = 'u';
+                    bytes[length++] = '0';
+                    bytes[length++] = '0';
+                    bytes[length++] = HEX[c >> 4];
+                    bytes[length++] = HEX[c & 0xF];
+                } else if (c < 0x80) {
+                    bytes[length++] = (byte) c;
+                } else if (c < 0x800) {
+                    bytes[length++] = (byte) (0xC0 | c >> 6);
+                    bytes[length++] = (byte) (0x80 | c & 0x3F);
+                } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    final var codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    bytes[length++] = (byte) (0xF0 | codePoint >> 18);
+                    bytes[length++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                    bytes[length++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                    bytes[length++] = (byte) (0x80 | codePoint & 0x3F);
+                } else if (Character.isSurrogate(c)) {
+                    bytes[length++] = '?';
+                } else {
+                    bytes[length++] = (byte) (0xE0 | c >> 12);
+                    bytes[length++] = (byte) (0x80 | c >> 6 & 0x3F);
+                    bytes[length++] = (byte) (0x80 | c & 0x3F);
+                }
+            }
+        }
+
+        private void ensure(int extra) {
+            if (length + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.ledger.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
 import java.math.BigDecimal;
@@ -12,13 +13,28 @@ import java.math.BigDecimal;
 @AllArgsConstructor
 @Builder
 public class Account {
+    // pooled sequence so bulk imports can reserve ids ahead of their JDBC batches (AccountImporter)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "accounts_seq")
+    @SequenceGenerator(name = "accounts_seq", sequenceName = "accounts_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
     private BigDecimal balance;
 
+    // ISO 4217, the currency of the balance and of the account's entries. Set on older rows at
+    // startup (AccountCurrencyBackfill)
+    @Column(length = 3)
+    private String currency;
+
     @Version
     private Long version;
+
+    // head of the account's ledger entry hash chain (LedgerChain), null before the first entry
+    @JsonIgnore
+    private Long chainLength;
+
+    @JsonIgnore
+    @Column(length = 32)
+    private byte[] chainHead;
 }
@@ -0,0 +1,29 @@
+package com.example.ledger.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Latest checkpointed chain head per account, so a checkpoint only visits accounts whose
+ * chain has grown since.
+ */
+@Entity
+@Table(name = "ledger_chain_heads")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LedgerChainHead {
+    @Id
+    private Long accountId;
+
+    @Column(nullable = false)
+    private long chainSequence;
+
+    @Column(nullable = false, length = 32)
+    private byte[] chainHash;
+
+    @Column(nullable = false)
+    private Long checkpointId;
+}
@@ -0,0 +1,39 @@
+package com.example.ledger.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.OffsetDateTime;
+
+/**
+ * Merkle checkpoint over the account chain heads that moved since the previous checkpoint.
+ * {@code root} commits to this checkpoint's Merkle root and, through {@code previousRoot},
+ * to every checkpoint before it. The unique previous root keeps the checkpoints a single line.
+ */
+@Entity
+@Table(name = "ledger_checkpoints")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LedgerCheckpoint {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private OffsetDateTime createdAt;
+
+    @Column(nullable = false)
+    private long leafCount;
+
+    @Column(nullable = false, unique = true, length = 32)
+    private byte[] previousRoot;
+
+    // set once all leaves are written, in the same transaction
+    @Column(length = 32)
+    private byte[] merkleRoot;
+
+    @Column(length = 32)
+    private byte[] root;
+}
@@ -0,0 +1,42 @@
+package com.example.ledger.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * One account's chain head in a checkpoint, with the head it had at the checkpoint before.
+ * Verifying the checkpoint rehashes the entries after {@code previousSequence} up to
+ * {@code chainSequence}, starting from {@code previousHash}.
+ */
+@Entity
+@Table(name = "ledger_checkpoint_leaves",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"checkpointId", "accountId"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LedgerCheckpointLeaf {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long checkpointId;
+
+    @Column(nullable = false)
+    private Long accountId;
+
+    // 0 and null when the account was not in any earlier checkpoint
+    @Column(nullable = false)
+    private long previousSequence;
+
+    @Column(length = 32)
+    private byte[] previousHash;
+
+    @Column(nullable = false)
+    private long chainSequence;
+
+    @Column(nullable = false, length = 32)
+    private byte[] chainHash;
+}
@@ -1,5 +1,6 @@
 package com.example.ledger.model;
 
+import com.example.ledger.fx.FxRates;
 import jakarta.persistence.*;
 import lombok.*;
 import java.math.BigDecimal;
@@ -7,15 +8,18 @@ import java.time.OffsetDateTime;
 
 @Entity
 @Table(name = "ledger_entries", 
-       uniqueConstraints = @UniqueConstraint(columnNames = {"transferId", "accountId", "type"}))
+       uniqueConstraints = @UniqueConstraint(columnNames = {"transferId", "accountId", "type"}),
+       indexes = @Index(name = "idx_ledger_entries_account_created", columnList = "accountId, createdAt"))
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class LedgerEntry {
+    // pooled sequence so multi-leg transfers can insert their entries as one JDBC batch
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ledger_entries_seq")
+    @SequenceGenerator(name = "ledger_entries_seq", sequenceName = "ledger_entries_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -35,6 +39,22 @@ public class LedgerEntry {
     @Builder.Default
     private OffsetDateTime createdAt = OffsetDateTime.now();
 
+    // position and hash in the account's chain (LedgerChain), null for entries written before it.
+    // Not indexed, an extra index costs more on the transfer path than hashing (LedgerChainBenchmark)
+    @Column(updatable = false)
+    private Long chainSequence;
+
+    @Column(updatable = false, length = 32)
+    private byte[] chainHash;
+
+    // cross-currency transfers only: units of the credited currency per unit of the debited one,
+    // and the FxRates version it was taken from; the same on both entries
+    @Column(updatable = false, precision = 24, scale = FxRates.RATE_SCALE)
+    private BigDecimal fxRate;
+
+    @Column(updatable = false)
+    private Long fxRateVersion;
+
     public enum EntryType {
         DEBIT, CREDIT
     }
@@ -0,0 +1,36 @@
+package com.example.ledger.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.OffsetDateTime;
+
+/**
+ * One row per applied transfer id, written in the same transaction as its ledger entries. The
+ * table is never partitioned or archived, so its primary key keeps transfer ids unique for
+ * good once ledger_entries can only enforce uniqueness within a month.
+ */
+@Entity
+@Table(name = "ledger_transfer_claims")
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerTransferClaim implements Persistable<String> {
+    @Id
+    private String transferId;
+
+    @Column(nullable = false)
+    private OffsetDateTime createdAt;
+
+    @Override
+    public String getId() {
+        return transferId;
+    }
+
+    // always inserted, never merged, so a second claim fails on the primary key
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
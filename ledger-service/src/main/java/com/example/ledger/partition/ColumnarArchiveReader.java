@@ -0,0 +1,103 @@
+package com.example.ledger.partition;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads files written by {@link ColumnarArchiveWriter}. Row groups whose cluster key range
+ * doesn't contain the requested key are skipped without being decompressed.
+ */
+public class ColumnarArchiveReader implements Closeable {
+
+    private final DataInputStream in;
+    private final List<String> columns = new ArrayList<>();
+    private final List<ColumnType> types = new ArrayList<>();
+
+    public ColumnarArchiveReader(Path file) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16));
+        if (in.readInt() != ColumnarArchiveWriter.MAGIC) {
+            in.close();
+            throw new IOException("Not a columnar archive: " + file);
+        }
+        final int columnCount = in.readInt();
+        for (int i = 0; i < columnCount; i++) {
+            columns.add(in.readUTF());
+            types.add(ColumnType.values()[in.readByte()]);
+        }
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    /**
+     * Streams every row of the groups that may contain {@code clusterKey}; rows are passed
+     * in file order and the consumer still has to filter on the key itself.
+     */
+    public void scan(long clusterKey, Consumer<Object[]> consumer) throws IOException {
+        while (in.readByte() == 1) {
+            final int rows = in.readInt();
+            final long minKey = in.readLong();
+            final long maxKey = in.readLong();
+            final int length = in.readInt();
+            if (clusterKey < minKey || clusterKey > maxKey) {
+                in.skipNBytes(length);
+                continue;
+            }
+            final var payload = in.readNBytes(length);
+            readGroup(payload, rows).forEach(consumer);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private List<Object[]> readGroup(byte[] payload, int rows) throws IOException {
+        final var result = new ArrayList<Object[]>(rows);
+        for (int row = 0; row < rows; row++) {
+            result.add(new Object[columns.size()]);
+        }
+        try (var columnIn = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(payload)))) {
+            for (int column = 0; column < columns.size(); column++) {
+                final var nulls = columnIn.readNBytes((rows + 7) / 8);
+                for (int row = 0; row < rows; row++) {
+                    if ((nulls[row >> 3] & (1 << (row & 7))) == 0) {
+                        result.get(row)[column] = readValue(columnIn, types.get(column));
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private static Object readValue(DataInputStream in, ColumnType type) throws IOException {
+        return switch (type) {
+            case LONG -> in.readLong();
+            case DECIMAL -> new BigDecimal(in.readUTF());
+            case TIMESTAMP -> {
+                final long micros = in.readLong();
+                yield OffsetDateTime.ofInstant(
+                        Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000L), Math.floorMod(micros, 1_000_000L) * 1_000L),
+                        ZoneOffset.UTC);
+            }
+            case BOOLEAN -> in.readBoolean();
+            case BYTES -> in.readNBytes(in.readInt());
+            case STRING -> in.readUTF();
+        };
+    }
+}
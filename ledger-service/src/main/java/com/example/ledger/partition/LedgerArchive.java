@@ -0,0 +1,96 @@
+package com.example.ledger.partition;
+
+import com.example.ledger.model.LedgerEntry;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.function.Consumer;
+
+/**
+ * Location of archived monthly partitions: {@code <archive-dir>/<table>/<yyyyMM>.lca}.
+ */
+@Component
+public class LedgerArchive {
+
+    static final String LEDGER_ENTRIES = "ledger_entries";
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final Path archiveDir;
+
+    public LedgerArchive(PartitioningProperties properties) {
+        this.archiveDir = Path.of(properties.getArchiveDir());
+    }
+
+    public Path fileFor(String table, YearMonth month) {
+        return archiveDir.resolve(table).resolve(MONTH.format(month) + ".lca");
+    }
+
+    /**
+     * Hands the account's archived entries with {@code from <= createdAt < to} to
+     * {@code handler}, one month after the other, in (createdAt, id) order, which is how each
+     * file is sorted within an account. Only one row group of one file is held at a time.
+     * Returns where the archived months read end, {@code from} when there were none; live
+     * partitions only hold later months.
+     */
+    public OffsetDateTime forEachEntry(Long accountId, OffsetDateTime from, OffsetDateTime to,
+                                       Consumer<LedgerEntry> handler) {
+        var archivedUntil = from;
+        final var last = YearMonth.from(to.withOffsetSameInstant(ZoneOffset.UTC).minusNanos(1));
+        for (var month = YearMonth.from(from.withOffsetSameInstant(ZoneOffset.UTC)); !month.isAfter(last); month = month.plusMonths(1)) {
+            final var file = fileFor(LEDGER_ENTRIES, month);
+            if (Files.exists(file)) {
+                readEntries(file, accountId, from, to, handler);
+                archivedUntil = month.plusMonths(1).atDay(1).atStartOfDay().atOffset(ZoneOffset.UTC);
+            }
+        }
+        return archivedUntil;
+    }
+
+    private static void readEntries(Path file, Long accountId, OffsetDateTime from, OffsetDateTime to,
+                                    Consumer<LedgerEntry> handler) {
+        try (var reader = new ColumnarArchiveReader(file)) {
+            final var columns = reader.getColumns();
+            final int id = columns.indexOf("id");
+            final int transferId = columns.indexOf("transfer_id");
+            final int account = columns.indexOf("account_id");
+            final int amount = columns.indexOf("amount");
+            final int type = columns.indexOf("type");
+            final int createdAt = columns.indexOf("created_at");
+            // absent from archives written before ledger entries were hash-chained
+            final int chainSequence = columns.indexOf("chain_sequence");
+            final int chainHash = columns.indexOf("chain_hash");
+            // absent from archives written before cross-currency transfers
+            final int fxRate = columns.indexOf("fx_rate");
+            final int fxRateVersion = columns.indexOf("fx_rate_version");
+
+            reader.scan(accountId, row -> {
+                final var timestamp = (OffsetDateTime) row[createdAt];
+                if (!accountId.equals(row[account]) || timestamp.isBefore(from) || !timestamp.isBefore(to)) {
+                    return;
+                }
+                handler.accept(LedgerEntry.builder()
+                        .id((Long) row[id])
+                        .transferId((String) row[transferId])
+                        .accountId(accountId)
+                        .amount((BigDecimal) row[amount])
+                        .type(LedgerEntry.EntryType.valueOf((String) row[type]))
+                        .createdAt(timestamp)
+                        .chainSequence(chainSequence < 0 ? null : (Long) row[chainSequence])
+                        .chainHash(chainHash < 0 ? null : (byte[]) row[chainHash])
+                        .fxRate(fxRate < 0 ? null : (BigDecimal) row[fxRate])
+                        .fxRateVersion(fxRateVersion < 0 ? null : (Long) row[fxRateVersion])
+                        .build());
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read archive " + file, e);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.example.ledger.partition;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps monthly range partitions in place on PostgreSQL: creates the current and upcoming
+ * months ahead of time, and moves months past the retention window into the columnar
+ * archive before detaching and dropping them.
+ *
+ * Does nothing unless enabled, running on PostgreSQL, and the table has been converted with
+ * the matching script under db/partitioning.
+ *
+ * transfer-service keeps its own copy for transfer_records, which also archives the
+ * transfer legs hanging off each month. The services share no build (each image is built from
+ * its own module directory), so the two copies and their ColumnarArchiveWriter are kept in
+ * step by hand.
+ */
+@Component
+@Slf4j
+public class PartitionManager {
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("_p(\\d{4})(\\d{2})$");
+    private static final List<ManagedTable> TABLES = List.of(
+            new ManagedTable(LedgerArchive.LEDGER_ENTRIES, "account_id", "account_id, created_at, id"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate writeTransaction;
+    private final TransactionTemplate readTransaction;
+    private final PartitioningProperties properties;
+    private final LedgerArchive ledgerArchive;
+
+    public PartitionManager(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                            PartitioningProperties properties, LedgerArchive ledgerArchive) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.properties = properties;
+        this.ledgerArchive = ledgerArchive;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintain();
+    }
+
+    @Scheduled(cron = "${ledger.partitioning.cron:0 15 2 * * *}", zone = "UTC")
+    public void maintain() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        if (!isPostgres()) {
+            log.warn("Partition maintenance is only supported on PostgreSQL, skipping");
+            return;
+        }
+        for (final var table : TABLES) {
+            try {
+                if (!isPartitioned(table.name())) {
+                    log.warn("Table {} is not partitioned, run db/partitioning/{}.sql first", table.name(), table.name());
+                    continue;
+                }
+                createUpcomingPartitions(table);
+                archiveExpiredPartitions(table);
+            } catch (Exception e) {
+                log.error("Partition maintenance failed for {}", table.name(), e);
+            }
+        }
+    }
+
+    private void createUpcomingPartitions(ManagedTable table) {
+        final var current = YearMonth.now(ZoneOffset.UTC);
+        for (int i = 0; i <= properties.getMonthsAhead(); i++) {
+            final var month = current.plusMonths(i);
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partitionName(table, month)
+                    + " PARTITION OF " + table.name()
+                    + " FOR VALUES FROM ('" + monthStart(month) + "') TO ('" + monthStart(month.plusMonths(1)) + "')");
+        }
+    }
+
+    private void archiveExpiredPartitions(ManagedTable table) throws IOException {
+        final var cutoff = YearMonth.now(ZoneOffset.UTC).minusMonths(properties.getRetentionMonths());
+        for (final var partition : listPartitions(table)) {
+            final var matcher = PARTITION_NAME.matcher(partition);
+            if (!matcher.find()) {
+                continue;
+            }
+            final var month = YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+            if (month.isBefore(cutoff)) {
+                archivePartition(table, partition, month);
+            }
+        }
+    }
+
+    private void archivePartition(ManagedTable table, String partition, YearMonth month) throws IOException {
+        final var file = ledgerArchive.fileFor(table.name(), month);
+        final Long expected = jdbcTemplate.queryForObject("SELECT count(*) FROM " + partition, Long.class);
+
+        if (!Files.exists(file)) {
+            Files.createDirectories(file.getParent());
+            final var tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            final long written = export(table, partition, tmp);
+            if (expected == null || written != expected) {
+                Files.deleteIfExists(tmp);
+                throw new IllegalStateException("Archived " + written + " rows of " + partition + ", expected " + expected);
+            }
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Archived {} rows of {} to {}", written, partition, file);
+        }
+
+        writeTransaction.executeWithoutResult(status -> {
+            jdbcTemplate.execute("ALTER TABLE " + table.name() + " DETACH PARTITION " + partition);
+            jdbcTemplate.execute("DROP TABLE " + partition);
+        });
+        log.info("Dropped archived partition {}", partition);
+    }
+
+    private long export(ManagedTable table, String partition, Path file) {
+        final Long written = readTransaction.execute(status -> jdbcTemplate.query(connection -> {
+            final var statement = connection.prepareStatement(
+                    "SELECT * FROM " + partition + " ORDER BY " + table.orderBy(),
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            // stream instead of loading the whole month
+            statement.setFetchSize(1000);
+            return statement;
+        }, resultSet -> {
+            try {
+                return writeArchive(table, resultSet, file);
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to write archive " + file, e);
+            }
+        }));
+        return written == null ? 0 : written;
+    }
+
+    private long writeArchive(ManagedTable table, ResultSet resultSet, Path file) throws SQLException, IOException {
+        final var metaData = resultSet.getMetaData();
+        final var columns = new ArrayList<String>();
+        final var jdbcTypes = new ArrayList<Integer>();
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            columns.add(metaData.getColumnName(i));
+            jdbcTypes.add(metaData.getColumnType(i));
+        }
+
+        try (var writer = new ColumnarArchiveWriter(file, columns, jdbcTypes, table.clusterKey(),
+                properties.getArchiveGroupSize())) {
+            while (resultSet.next()) {
+                final var row = new Object[columns.size()];
+                for (int i = 0; i < row.length; i++) {
+                    final var type = ColumnType.fromJdbcType(jdbcTypes.get(i));
+                    row[i] = type == ColumnType.TIMESTAMP
+                            ? resultSet.getObject(i + 1, OffsetDateTime.class)
+                            : resultSet.getObject(i + 1);
+                }
+                writer.write(row);
+            }
+            return writer.getTotalRows();
+        }
+    }
+
+    private boolean isPostgres() {
+        final var product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        return "PostgreSQL".equals(product);
+    }
+
+    private boolean isPartitioned(String table) {
+        final Integer count = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM pg_partitioned_table pt JOIN pg_class c ON c.oid = pt.partrelid WHERE c.relname = ?",
+                Integer.class, table);
+        return count != null && count > 0;
+    }
+
+    private List<String> listPartitions(ManagedTable table) {
+        return jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i "
+                        + "JOIN pg_class c ON c.oid = i.inhrelid "
+                        + "JOIN pg_class p ON p.oid = i.inhparent "
+                        + "WHERE p.relname = ? ORDER BY c.relname",
+                String.class, table.name());
+    }
+
+    private static String partitionName(ManagedTable table, YearMonth month) {
+        return String.format("%s_p%04d%02d", table.name(), month.getYear(), month.getMonthValue());
+    }
+
+    private static String monthStart(YearMonth month) {
+        return month.atDay(1).atStartOfDay().atOffset(ZoneOffset.UTC).toString();
+    }
+
+    private record ManagedTable(String name, String clusterKey, String orderBy) {
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.ledger.repository;
+
+import com.example.ledger.model.AccountDailyActivity;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+public interface AccountDailyActivityRepository extends JpaRepository<AccountDailyActivity, Long> {
+
+    Optional<AccountDailyActivity> findByAccountIdAndActivityDate(Long accountId, LocalDate activityDate);
+}
@@ -4,15 +4,23 @@ import com.example.ledger.model.Account;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import jakarta.persistence.LockModeType;
-import java.util.List;
+import jakarta.persistence.QueryHint;
 import java.util.Optional;
 
 public interface AccountRepository extends JpaRepository<Account, Long> {
 
+    // one row per statement so AccountLocker controls the lock order and can time each row
     @Lock(LockModeType.PESSIMISTIC_WRITE)
-    @Query("SELECT a FROM Account a WHERE a.id IN :ids ORDER BY a.id")
-    List<Account> findByIdsForUpdate(@Param("ids") List<Long> ids);
+    @Query("SELECT a FROM Account a WHERE a.id = :id")
+    Optional<Account> findByIdForUpdate(@Param("id") Long id);
+
+    // rendered as FOR UPDATE NOWAIT where the dialect supports it
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "0"))
+    @Query("SELECT a FROM Account a WHERE a.id = :id")
+    Optional<Account> findByIdForUpdateNoWait(@Param("id") Long id);
 }
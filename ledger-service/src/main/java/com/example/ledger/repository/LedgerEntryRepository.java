@@ -5,10 +5,23 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long> {
 
     boolean existsByTransferId(String transferId);
+
+    // served by the (transferId, accountId, type) unique index, one row per applied transfer
+    @Query("SELECT e.transferId AS transferId, MIN(e.createdAt) AS appliedAt FROM LedgerEntry e " +
+           "WHERE e.transferId IN :transferIds GROUP BY e.transferId")
+    List<AppliedTransfer> findAppliedTransfers(@Param("transferIds") Collection<String> transferIds);
+
+    interface AppliedTransfer {
+        String getTransferId();
+
+        OffsetDateTime getAppliedAt();
+    }
 }
@@ -0,0 +1,7 @@
+package com.example.ledger.repository;
+
+import com.example.ledger.model.LedgerTransferClaim;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface LedgerTransferClaimRepository extends JpaRepository<LedgerTransferClaim, String> {
+}
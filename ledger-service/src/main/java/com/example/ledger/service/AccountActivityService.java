@@ -0,0 +1,83 @@
+package com.example.ledger.service;
+
+import com.example.ledger.model.AccountDailyActivity;
+import com.example.ledger.repository.AccountDailyActivityRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps per-account daily debit/credit totals up to date as part of the transfer transaction.
+ * Callers must already hold the account row locks, which is what makes the
+ * read-modify-write of the aggregate row safe without further locking. Totals are in the
+ * account's own currency: debits as debited, credits as credited after any conversion.
+ */
+@Service
+@Slf4j
+public class AccountActivityService {
+
+    private final AccountDailyActivityRepository activityRepository;
+    private final Map<String, BigDecimal> dailyDebitLimits = new HashMap<>();
+
+    public AccountActivityService(AccountDailyActivityRepository activityRepository, LimitProperties limitProperties) {
+        this.activityRepository = activityRepository;
+        limitProperties.getDailyDebitLimit()
+                .forEach((currency, limit) -> dailyDebitLimits.put(currency.toUpperCase(), limit));
+    }
+
+    /**
+     * Rejects the debit if it would take the account over the daily limit configured for its
+     * currency. The amount and the day's total are both in that currency, so a single limit
+     * never has to be compared across currencies. No-op when the currency has no limit.
+     */
+    public void checkDailyDebitLimit(Long accountId, String currency, BigDecimal amount) {
+        final var dailyDebitLimit = currency == null ? null : dailyDebitLimits.get(currency);
+        if (dailyDebitLimit == null) {
+            return;
+        }
+        final var debitedToday = activityRepository.findByAccountIdAndActivityDate(accountId, today())
+                .map(AccountDailyActivity::getDebitTotal)
+                .orElse(BigDecimal.ZERO);
+        if (debitedToday.add(amount).compareTo(dailyDebitLimit) > 0) {
+            throw new IllegalStateException("Daily debit limit exceeded for account " + accountId);
+        }
+    }
+
+    public void recordDebit(Long accountId, BigDecimal amount) {
+        final var activity = findOrCreate(accountId, today());
+        activity.setDebitTotal(activity.getDebitTotal().add(amount));
+        activity.setDebitCount(activity.getDebitCount() + 1);
+        activityRepository.save(activity);
+    }
+
+    public void recordCredit(Long accountId, BigDecimal amount) {
+        final var activity = findOrCreate(accountId, today());
+        activity.setCreditTotal(activity.getCreditTotal().add(amount));
+        activity.setCreditCount(activity.getCreditCount() + 1);
+        activityRepository.save(activity);
+    }
+
+    /**
+     * Returns the day's aggregate, or an all-zero one if the account had no activity.
+     */
+    public AccountDailyActivity getActivity(Long accountId, LocalDate date) {
+        return findOrCreate(accountId, date);
+    }
+
+    private AccountDailyActivity findOrCreate(Long accountId, LocalDate date) {
+        return activityRepository.findByAccountIdAndActivityDate(accountId, date)
+                .orElseGet(() -> AccountDailyActivity.builder()
+                        .accountId(accountId)
+                        .activityDate(date)
+                        .build());
+    }
+
+    static LocalDate today() {
+        return LocalDate.now(ZoneOffset.UTC);
+    }
+}
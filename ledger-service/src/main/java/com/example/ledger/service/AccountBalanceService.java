@@ -0,0 +1,93 @@
+package com.example.ledger.service;
+
+import com.example.ledger.cache.AccountCache;
+import com.example.ledger.model.Account;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Balances of many accounts at once, for dashboards that poll thousands of accounts. Cached
+ * snapshots are used as they are, the rest is read with one {@code IN} query per
+ * {@link #CHUNK_SIZE} ids on the read pool and cached for the next poll.
+ */
+@Service
+public class AccountBalanceService {
+
+    static final int CHUNK_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readTransaction;
+    private final AccountCache accountCache;
+
+    public AccountBalanceService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                 AccountCache accountCache) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.accountCache = accountCache;
+    }
+
+    /**
+     * Hands the balances to {@code consumer} a chunk at a time, cached ones first, and returns
+     * the ids that don't exist. Accounts whose version is the one in {@code knownVersions} are
+     * left out, so a poller only receives what changed since its last poll.
+     */
+    public List<Long> findBalances(List<Long> accountIds, Map<Long, Long> knownVersions,
+                                   Consumer<List<AccountBalance>> consumer) {
+        final var cached = new ArrayList<AccountBalance>();
+        final var misses = new ArrayList<Long>();
+        for (final var id : new LinkedHashSet<>(accountIds)) {
+            accountCache.get(id).ifPresentOrElse(
+                    account -> cached.add(new AccountBalance(account.getId(), account.getBalance(),
+                            account.getCurrency(), account.getVersion())),
+                    () -> misses.add(id));
+        }
+        emit(cached, knownVersions, consumer);
+
+        final var notFound = new ArrayList<Long>();
+        for (int from = 0; from < misses.size(); from += CHUNK_SIZE) {
+            final var chunk = misses.subList(from, Math.min(from + CHUNK_SIZE, misses.size()));
+            final var loaded = readTransaction.execute(status -> load(chunk));
+            final var found = new HashSet<Long>();
+            for (final var balance : loaded) {
+                found.add(balance.id());
+                accountCache.put(Account.builder().id(balance.id()).balance(balance.balance()).currency(balance.currency())
+                        .version(balance.version()).build());
+            }
+            chunk.stream().filter(id -> !found.contains(id)).forEach(notFound::add);
+            emit(loaded, knownVersions, consumer);
+        }
+        return notFound;
+    }
+
+    private List<AccountBalance> load(List<Long> ids) {
+        final var placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        return jdbcTemplate.query("SELECT id, balance, currency, version FROM accounts WHERE id IN (" + placeholders + ")",
+                (rs, rowNum) -> new AccountBalance(rs.getLong(1), rs.getBigDecimal(2), rs.getString(3), rs.getLong(4)),
+                ids.toArray());
+    }
+
+    private static void emit(List<AccountBalance> balances, Map<Long, Long> knownVersions,
+                             Consumer<List<AccountBalance>> consumer) {
+        final var changed = knownVersions.isEmpty()
+                ? balances
+                : balances.stream().filter(balance -> !Long.valueOf(balance.version()).equals(knownVersions.get(balance.id()))).toList();
+        if (!changed.isEmpty()) {
+            consumer.accept(changed);
+        }
+    }
+
+    public record AccountBalance(long id, BigDecimal balance, String currency, long version) {
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.ledger.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Account ids used to come from an identity column, before {@code POST /accounts/import} needed
+ * to reserve them in blocks. An existing PostgreSQL database may have no {@code accounts_seq}, or
+ * one that starts below the accounts already there; this creates the sequence, drops the old
+ * identity default and moves the sequence past the highest account id before any account is
+ * created. Same approach as {@link LedgerEntrySequenceBackfill}, and likewise a no-op on H2.
+ */
+@Component
+@Slf4j
+public class AccountSequenceBackfill {
+
+    private static final String CREATE_SEQUENCE_SQL = "CREATE SEQUENCE IF NOT EXISTS accounts_seq INCREMENT BY 50";
+
+    private static final String DROP_IDENTITY_SQL = "ALTER TABLE accounts ALTER COLUMN id DROP IDENTITY IF EXISTS";
+
+    // ids max_id + 2 .. max_id + 51 for the pooled optimizer's first block of 50
+    private static final String ADVANCE_SEQUENCE_SQL = "SELECT setval('accounts_seq', accounts.max_id + 51, false) "
+            + "FROM (SELECT max(id) AS max_id FROM accounts) accounts, accounts_seq seq "
+            + "WHERE accounts.max_id >= seq.last_value";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // the EntityManagerFactory has created or updated the accounts table
+    public AccountSequenceBackfill(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // before the web server starts creating accounts
+    @PostConstruct
+    public void backfill() {
+        final var database = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equals(database)) {
+            return;
+        }
+        jdbcTemplate.execute(CREATE_SEQUENCE_SQL);
+        jdbcTemplate.execute(DROP_IDENTITY_SQL);
+        final var advanced = jdbcTemplate.queryForList(ADVANCE_SEQUENCE_SQL, Long.class);
+        if (!advanced.isEmpty()) {
+            log.info("Moved accounts_seq past the existing accounts, next block starts at {}", advanced.get(0) - 49);
+        }
+    }
+}
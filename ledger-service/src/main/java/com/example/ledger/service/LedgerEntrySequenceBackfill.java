@@ -0,0 +1,47 @@
+package com.example.ledger.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Ledger entry ids used to come from an identity column. On a database that has those rows,
+ * {@code ddl-auto: update} creates {@code ledger_entries_seq} starting at 1, so its first ids
+ * would collide with them; this moves the sequence past the highest id before any entry is
+ * written. A no-op once the sequence is ahead, and on the in-memory H2 database, which starts
+ * empty.
+ */
+@Component
+@Slf4j
+public class LedgerEntrySequenceBackfill {
+
+    // ids max_id + 2 .. max_id + 51 for the pooled optimizer's first block of 50
+    private static final String ADVANCE_SEQUENCE_SQL = "SELECT setval('ledger_entries_seq', entries.max_id + 51, false) "
+            + "FROM (SELECT max(id) AS max_id FROM ledger_entries) entries, ledger_entries_seq seq "
+            + "WHERE entries.max_id >= seq.last_value";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // the EntityManagerFactory has created or updated the schema, sequence included
+    public LedgerEntrySequenceBackfill(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // before the web server starts taking transfers
+    @PostConstruct
+    public void backfill() {
+        final var database = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equals(database)) {
+            return;
+        }
+        final var advanced = jdbcTemplate.queryForList(ADVANCE_SEQUENCE_SQL, Long.class);
+        if (!advanced.isEmpty()) {
+            log.info("Moved ledger_entries_seq past the existing ledger entries, next block starts at {}",
+                    advanced.get(0) - 49);
+        }
+    }
+}
@@ -1,17 +1,36 @@
 package com.example.ledger.service;
 
+import com.example.ledger.cache.AccountCache;
+import com.example.ledger.chain.LedgerChain;
+import com.example.ledger.feed.LedgerFeed;
+import com.example.ledger.fx.FxRateTable;
+import com.example.ledger.lock.AccountLocker;
 import com.example.ledger.model.Account;
+import com.example.ledger.model.AccountDailyActivity;
 import com.example.ledger.model.LedgerEntry;
+import com.example.ledger.model.LedgerTransferClaim;
 import com.example.ledger.repository.AccountRepository;
 import com.example.ledger.repository.LedgerEntryRepository;
+import com.example.ledger.repository.LedgerTransferClaimRepository;
 import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
@@ -20,23 +39,45 @@ public class LedgerService {
 
     private final AccountRepository accountRepository;
     private final LedgerEntryRepository ledgerEntryRepository;
+    private final LedgerFeed ledgerFeed;
+    private final AccountActivityService accountActivityService;
+    private final AccountCache accountCache;
+    private final AccountLocker accountLocker;
+    private final FxRateTable fxRateTable;
+    private final LedgerTransferClaimRepository ledgerTransferClaimRepository;
 
-    public Account createAccount(BigDecimal initialBalance) {
+    // currency null: ledger.fx.default-currency
+    public Account createAccount(BigDecimal initialBalance, String currency) {
         Account account = Account.builder()
                 .balance(initialBalance)
+                .currency(fxRateTable.accountCurrency(currency))
                 .build();
-        return accountRepository.save(account);
+        final var saved = accountRepository.save(account);
+        accountCache.put(saved);
+        return saved;
     }
 
+    // not @Transactional: a cache hit needs no transaction, findById runs its own read-only one
     public Optional<Account> getAccount(Long id) {
-        log.info("Fetching account: {}", id);
-        return accountRepository.findById(id);
+        final var cached = accountCache.get(id);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        log.debug("Fetching account: {}", id);
+        final var account = accountRepository.findById(id);
+        account.ifPresent(accountCache::put);
+        return account;
     }
 
+    /**
+     * Moves {@code amount}, in the currency of {@code fromAccountId}. When the accounts' currencies
+     * differ the credit is converted at the current FX rate snapshot, and both entries record the
+     * rate and its version.
+     */
     @Transactional
     public boolean applyTransfer(String transferId, Long fromAccountId, Long toAccountId, BigDecimal amount) {
 
-        // if ledger entries exist for this transferId, return success
+        // if ledger entries exist for this transferId, return success without taking any lock
         if (ledgerEntryRepository.existsByTransferId(transferId)) {
             return true;
         }
@@ -46,14 +87,18 @@ public class LedgerService {
             throw new IllegalArgumentException("Transfer amount must be positive");
         }
 
-        // Lock accounts in order to prevent deadlocks
-        final var accountIds = List.of(fromAccountId, toAccountId);
-        final var accounts = accountRepository.findByIdsForUpdate(accountIds);
+        // Lock accounts in id order to prevent deadlocks
+        final var accounts = accountLocker.lockInOrder(List.of(fromAccountId, toAccountId));
         
         if (accounts.size() != 2) {
             throw new IllegalArgumentException("One or both accounts not found");
         }
 
+        // a concurrent apply of the same transfer held these locks until it committed
+        if (claimTransfer(transferId)) {
+            return true;
+        }
+
         final var fromAccount = accounts.stream()
                 .filter(a -> a.getId().equals(fromAccountId))
                 .findFirst()
@@ -69,12 +114,21 @@ public class LedgerService {
             throw new IllegalStateException("Insufficient funds in account " + fromAccountId);
         }
 
+        // Optional daily debit limit, based on the incrementally maintained aggregates
+        accountActivityService.checkDailyDebitLimit(fromAccountId, fromAccount.getCurrency(), amount);
+
+        // one snapshot read, so both legs are booked at the same rate however often it is refreshed
+        final var conversion = Objects.equals(fromAccount.getCurrency(), toAccount.getCurrency())
+                ? null
+                : fxRateTable.current().convert(amount, fromAccount.getCurrency(), toAccount.getCurrency());
+        final var credited = conversion != null ? conversion.amount() : amount;
+        if (credited.signum() <= 0) {
+            throw new IllegalArgumentException("Transfer amount rounds to zero in " + toAccount.getCurrency());
+        }
+
         // Update balances
         fromAccount.setBalance(fromAccount.getBalance().subtract(amount));
-        toAccount.setBalance(toAccount.getBalance().add(amount));
-
-        accountRepository.save(fromAccount);
-        accountRepository.save(toAccount);
+        toAccount.setBalance(toAccount.getBalance().add(credited));
 
         // Create ledger entries (one DEBIT, one CREDIT)
         final var debitEntry = LedgerEntry.builder()
@@ -87,13 +141,198 @@ public class LedgerService {
         final var creditEntry = LedgerEntry.builder()
                 .transferId(transferId)
                 .accountId(toAccountId)
-                .amount(amount)
+                .amount(credited)
                 .type(LedgerEntry.EntryType.CREDIT)
                 .build();
 
+        if (conversion != null) {
+            for (final var entry : List.of(debitEntry, creditEntry)) {
+                entry.setFxRate(conversion.rate());
+                entry.setFxRateVersion(conversion.version());
+            }
+        }
+
+        // Chain each entry to its account's previous one, safe because both rows are locked
+        LedgerChain.append(fromAccount, debitEntry);
+        LedgerChain.append(toAccount, creditEntry);
+
+        accountRepository.save(fromAccount);
+        accountRepository.save(toAccount);
         ledgerEntryRepository.save(debitEntry);
         ledgerEntryRepository.save(creditEntry);
 
+        // Daily aggregates are safe to update here because both account rows are locked
+        accountActivityService.recordDebit(fromAccountId, amount);
+        accountActivityService.recordCredit(toAccountId, credited);
+
+        // visible to feed consumers only once this transaction commits
+        ledgerFeed.publishAfterCommit(List.of(debitEntry, creditEntry));
+        accountCache.putAfterCommit(accounts);
+
         return true;
     }
+
+    @Transactional
+    public boolean applyMultiLegTransfer(String transferId, List<TransferLeg> legs) {
+
+        // same idempotency rule as applyTransfer
+        if (ledgerEntryRepository.existsByTransferId(transferId)) {
+            return true;
+        }
+
+        validateLegs(legs);
+
+        // Lock every account in id order to prevent deadlocks
+        final var accountIds = legs.stream()
+                .map(TransferLeg::getAccountId)
+                .toList();
+        final var accounts = accountLocker.lockInOrder(accountIds);
+
+        if (accounts.size() != accountIds.size()) {
+            throw new IllegalArgumentException("One or more accounts not found");
+        }
+
+        if (claimTransfer(transferId)) {
+            return true;
+        }
+
+        // debits and credits must balance, which only means something within one currency
+        if (accounts.stream().map(Account::getCurrency).distinct().count() > 1) {
+            throw new IllegalArgumentException("All accounts of a multi-leg transfer must be in one currency");
+        }
+
+        final var accountsById = accounts.stream()
+                .collect(Collectors.toMap(Account::getId, Function.identity()));
+
+        // Check every debit before touching any balance
+        for (final var leg : legs) {
+            if (leg.getType() == LedgerEntry.EntryType.DEBIT) {
+final var account = accountsById.get(leg.getAccountId());
+                if (account.getBalance().compareTo(leg.getAmount()) < 0) {
+                    throw new IllegalStateException("Insufficient funds in account " + leg.getAccountId());
+                }
+                accountActivityService.checkDailyDebitLimit(leg.getAccountId(), account.getCurrency(), leg.getAmount());
+            }
+        }
+
+        final var entries = legs.stream()
+                .map(leg -> {
+                    final var account = accountsById.get(leg.getAccountId());
+                    account.setBalance(leg.getType() == LedgerEntry.EntryType.DEBIT
+                            ? account.getBalance().subtract(leg.getAmount())
+                            : account.getBalance().add(leg.getAmount()));
+                    final var entry = LedgerEntry.builder()
+                            .transferId(transferId)
+                            .accountId(leg.getAccountId())
+                            .amount(leg.getAmount())
+                            .type(leg.getType())
+                            .build();
+                    LedgerChain.append(account, entry);
+                    return entry;
+                })
+                .toList();
+
+        // flushed as JDBC batches on commit
+        accountRepository.saveAll(accounts);
+        ledgerEntryRepository.saveAll(entries);
+
+        for (final var leg : legs) {
+            if (leg.getType() == LedgerEntry.EntryType.DEBIT) {
+                accountActivityService.recordDebit(leg.getAccountId(), leg.getAmount());
+            } else {
+                accountActivityService.recordCredit(leg.getAccountId(), leg.getAmount());
+            }
+        }
+
+        ledgerFeed.publishAfterCommit(entries);
+        accountCache.putAfterCommit(accounts);
+
+        return true;
+    }
+
+    /**
+     * Re-checks, under the account locks, whether the transfer was applied since the unlocked
+     * check, and otherwise claims its id. The claim row is inserted on commit; its primary key
+     * fails the transaction if the id was applied anyway, e.g. by a request naming other
+     * accounts, and it still answers once the entries have been archived.
+     */
+    private boolean claimTransfer(String transferId) {
+        if (ledgerTransferClaimRepository.existsById(transferId)
+                || ledgerEntryRepository.existsByTransferId(transferId)) {
+            return true;
+        }
+        ledgerTransferClaimRepository.save(new LedgerTransferClaim(transferId, OffsetDateTime.now()));
+        return false;
+    }
+
+    private static void validateLegs(List<TransferLeg> legs) {
+        if (legs == null || legs.size() < 2) {
+            throw new IllegalArgumentException("A transfer needs at least two legs");
+        }
+
+        var debits = BigDecimal.ZERO;
+        var credits = BigDecimal.ZERO;
+        final var accountIds = new HashSet<Long>();
+        for (final var leg : legs) {
+            if (leg.getAccountId() == null || leg.getType() == null || leg.getAmount() == null) {
+                throw new IllegalArgumentException("Each leg needs an account, a type and an amount");
+            }
+            if (leg.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+                throw new IllegalArgumentException("Leg amounts must be positive");
+            }
+            // one entry per account keeps the (transferId, accountId, type) constraint satisfiable
+            if (!accountIds.add(leg.getAccountId())) {
+                throw new IllegalArgumentException("Account " + leg.getAccountId() + " appears in more than one leg");
+            }
+            if (leg.getType() == LedgerEntry.EntryType.DEBIT) {
+                debits = debits.add(leg.getAmount());
+            } else {
+                credits = credits.add(leg.getAmount());
+            }
+        }
+
+        if (debits.signum() == 0 || credits.signum() == 0) {
+            throw new IllegalArgumentException("A transfer needs at least one debit and one credit leg");
+        }
+        if (debits.compareTo(credits) != 0) {
+            throw new IllegalArgumentException("Debits (" + debits + ") and credits (" + credits + ") do not balance");
+        }
+    }
+
+    /**
+     * When each of the given transfers was applied; transfers the ledger has not applied are
+     * missing from the map. A transfer is applied exactly when its entries exist, so callers that
+     * lost the response to a transfer call can find out what happened. Entries of archived months
+     * are gone from the table, so those transfers are found by their claim instead, which is
+     * written in the same transaction and kept for good.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, OffsetDateTime> getAppliedTransfers(Collection<String> transferIds) {
+        final var applied = new HashMap<String, OffsetDateTime>();
+        ledgerEntryRepository.findAppliedTransfers(transferIds)
+                .forEach(transfer -> applied.put(transfer.getTransferId(), transfer.getAppliedAt()));
+        final var notFound = transferIds.stream()
+                .filter(transferId -> !applied.containsKey(transferId))
+                .distinct()
+                .toList();
+        if (!notFound.isEmpty()) {
+            ledgerTransferClaimRepository.findAllById(notFound)
+                    .forEach(claim -> applied.put(claim.getTransferId(), claim.getCreatedAt()));
+        }
+        return applied;
+    }
+
+    @Transactional(readOnly = true)
+    public AccountDailyActivity getDailyActivity(Long accountId, LocalDate date) {
+        return accountActivityService.getActivity(accountId, date);
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class TransferLeg {
+        private Long accountId;
+        private LedgerEntry.EntryType type;
+        private BigDecimal amount;
+    }
 }
@@ -0,0 +1,14 @@
+package com.example.ledger.service;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+public class LimitProperties {
+    // max total debits per account per UTC day by ISO 4217 code, in the account's own currency
+    // (USD: 10000, JPY: 1500000); accounts in a currency without an entry have no limit
+    private Map<String, BigDecimal> dailyDebitLimit = new LinkedHashMap<>();
+}
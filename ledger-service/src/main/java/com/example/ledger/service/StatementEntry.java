@@ -0,0 +1,110 @@
+package com.example.ledger.service;
+
+import com.example.ledger.model.LedgerEntry;
+import com.fasterxml.jackson.core.JsonGenerator;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * One statement line, refilled for every row of a {@link StatementService#streamStatement}
+ * call instead of building a {@link LedgerEntry} per row. Only valid until the handler
+ * returns. Written as the same JSON object Jackson makes of a {@link LedgerEntry}.
+ */
+@Getter
+public class StatementEntry {
+
+    // column order of StatementService's query
+    static final String COLUMNS = "id, transfer_id, amount, type, created_at, chain_sequence, chain_hash, "
+            + "fx_rate, fx_rate_version";
+
+    private final long accountId;
+    private long id;
+    private String transferId;
+    private BigDecimal amount;
+    private LedgerEntry.EntryType type;
+    private OffsetDateTime createdAt;
+    // null when the entry predates hash chaining, chainSequence is then meaningless
+    private byte[] chainHash;
+    private long chainSequence;
+    // null for single-currency transfers, fxRateVersion is then meaningless
+    private BigDecimal fxRate;
+    private long fxRateVersion;
+    // createdAt is formatted into these rather than into a new String per row
+    @Getter(AccessLevel.NONE)
+    private final StringBuilder timestamp = new StringBuilder(40);
+    @Getter(AccessLevel.NONE)
+    private char[] timestampChars = new char[40];
+
+    StatementEntry(long accountId) {
+        this.accountId = accountId;
+    }
+
+    void read(ResultSet rs) throws SQLException {
+        id = rs.getLong(1);
+        transferId = rs.getString(2);
+        amount = rs.getBigDecimal(3);
+        type = LedgerEntry.EntryType.valueOf(rs.getString(4));
+        createdAt = rs.getObject(5, OffsetDateTime.class);
+        chainSequence = rs.getLong(6);
+        chainHash = rs.getBytes(7);
+        fxRate = rs.getBigDecimal(8);
+        fxRateVersion = rs.getLong(9);
+    }
+
+    void read(LedgerEntry entry) {
+        id = entry.getId();
+        transferId = entry.getTransferId();
+        amount = entry.getAmount();
+        type = entry.getType();
+        createdAt = entry.getCreatedAt();
+        chainHash = entry.getChainHash();
+        chainSequence = chainHash == null ? 0 : entry.getChainSequence();
+        fxRate = entry.getFxRate();
+        fxRateVersion = fxRate == null ? 0 : entry.getFxRateVersion();
+    }
+
+    public void writeTo(JsonGenerator json) throws IOException {
+        json.writeStartObject();
+        json.writeNumberField("id", id);
+        json.writeStringField("transferId", transferId);
+        json.writeNumberField("accountId", accountId);
+        json.writeNumberField("amount", amount);
+        json.writeStringField("type", type.name());
+        json.writeFieldName("createdAt");
+        timestamp.setLength(0);
+        DateTimeFormatter.ISO_OFFSET_DATE_TIME.formatTo(createdAt, timestamp);
+        if (timestampChars.length < timestamp.length()) {
+            timestampChars = new char[timestamp.length()];
+        }
+        timestamp.getChars(0, timestamp.length(), timestampChars, 0);
+        json.writeString(timestampChars, 0, timestamp.length());
+        json.writeFieldName("chainSequence");
+        if (chainHash == null) {
+            json.writeNull();
+        } else {
+            json.writeNumber(chainSequence);
+        }
+        json.writeFieldName("chainHash");
+        if (chainHash == null) {
+            json.writeNull();
+        } else {
+            json.writeBinary(chainHash);
+        }
+        json.writeFieldName("fxRate");
+        if (fxRate == null) {
+            json.writeNull();
+            json.writeNullField("fxRateVersion");
+        } else {
+            json.writeNumber(fxRate);
+            json.writeNumberField("fxRateVersion", fxRateVersion);
+        }
+        json.writeEndObject();
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.ledger.service;
+
+import com.example.ledger.partition.LedgerArchive;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.function.Consumer;
+
+/**
+ * Account statements over live and archived partitions. Months that were archived are
+ * read from the columnar files, everything else from ledger_entries.
+ *
+ * Neither is loaded as a list. Archived months are read one after the other, one row group at
+ * a time; live entries are not loaded as JPA entities but read from a forward-only cursor
+ * {@link #FETCH_SIZE} rows at a time on a read-only transaction. Every row is handed on in one
+ * reused {@link StatementEntry}, so nothing is kept per row and a year-long statement takes no
+ * more heap than a day. The read connection is held until the last row has been handled.
+ */
+@Service
+public class StatementService {
+
+    static final int FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readTransaction;
+    private final LedgerArchive ledgerArchive;
+
+    public StatementService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                            LedgerArchive ledgerArchive) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.ledgerArchive = ledgerArchive;
+    }
+
+    /**
+     * Hands the account's entries from {@code from} to {@code to} (whole UTC days, end date
+     * inclusive) to {@code handler} ordered by creation time, then id.
+     */
+    public void streamStatement(Long accountId, LocalDate from, LocalDate to, Consumer<StatementEntry> handler) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Statement end date is before start date");
+        }
+        final var start = from.atStartOfDay().atOffset(ZoneOffset.UTC);
+        final var end = to.plusDays(1).atStartOfDay().atOffset(ZoneOffset.UTC);
+
+        final var entry = new StatementEntry(accountId);
+        // archived months precede live ones; the live query starts where they end, so a month that
+        // is archived but whose partition is not dropped yet is not read twice
+        final var liveFrom = ledgerArchive.forEachEntry(accountId, start, end, archived -> {
+            entry.read(archived);
+            handler.accept(entry);
+        });
+        if (!liveFrom.isBefore(end)) {
+            return;
+        }
+        readTransaction.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+            final var statement = connection.prepareStatement(
+                    "SELECT " + StatementEntry.COLUMNS + " FROM ledger_entries "
+                            + "WHERE account_id = ? AND created_at >= ? AND created_at < ? ORDER BY created_at, id",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setLong(1, accountId);
+            statement.setObject(2, liveFrom);
+            statement.setObject(3, end);
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        }, rs -> {
+            while (rs.next()) {
+                entry.read(rs);
+                handler.accept(entry);
+            }
+            return null;
+        }));
+    }
+}
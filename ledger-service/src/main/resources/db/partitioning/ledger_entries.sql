@@ -0,0 +1,61 @@
+-- One-time conversion of ledger_entries into a table range-partitioned by month on created_at
+-- (PostgreSQL 13+). Run with both services stopped; afterwards PartitionManager creates the
+-- upcoming months and archives old ones when ledger.partitioning.enabled=true.
+--
+-- Partitioned tables can only enforce uniqueness on keys that include the partition key, so
+-- the primary key becomes (id, created_at) and the (transfer_id, account_id, type) constraint
+-- has to include created_at as well. With microsecond timestamps that stops almost nothing, so
+-- transfer ids are kept unique by ledger_transfer_claims instead: a plain table, never
+-- partitioned or archived, whose primary key is the transfer id. applyTransfer inserts the
+-- claim in the same transaction as the entries, after re-checking for the transfer under the
+-- account row locks.
+
+BEGIN;
+
+ALTER TABLE ledger_entries RENAME TO ledger_entries_legacy;
+
+-- ids come from Hibernate's pooled ledger_entries_seq (blocks of 50); move it past the existing rows
+CREATE SEQUENCE IF NOT EXISTS ledger_entries_seq INCREMENT BY 50;
+SELECT setval('ledger_entries_seq', COALESCE((SELECT max(id) FROM ledger_entries_legacy), 0) + 51, false);
+
+CREATE TABLE ledger_entries (LIKE ledger_entries_legacy INCLUDING DEFAULTS INCLUDING CONSTRAINTS)
+    PARTITION BY RANGE (created_at);
+ALTER TABLE ledger_entries ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE ledger_entries ADD PRIMARY KEY (id, created_at);
+ALTER TABLE ledger_entries ADD CONSTRAINT uk_ledger_entries_transfer
+    UNIQUE (transfer_id, account_id, type, created_at);
+CREATE INDEX idx_ledger_entries_account_created ON ledger_entries (account_id, created_at);
+
+-- one partition per month that has data, plus the current month
+DO $$
+DECLARE
+    month_start date;
+    last_month date;
+BEGIN
+    SELECT date_trunc('month', COALESCE(min(created_at), now()) AT TIME ZONE 'UTC')::date,
+           date_trunc('month', GREATEST(COALESCE(max(created_at), now()), now()) AT TIME ZONE 'UTC')::date
+      INTO month_start, last_month
+      FROM ledger_entries_legacy;
+    WHILE month_start <= last_month LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF ledger_entries FOR VALUES FROM (%L) TO (%L)',
+                       'ledger_entries_p' || to_char(month_start, 'YYYYMM'),
+                       month_start::timestamp AT TIME ZONE 'UTC',
+                       (month_start + interval '1 month')::timestamp AT TIME ZONE 'UTC');
+        month_start := month_start + interval '1 month';
+    END LOOP;
+END $$;
+
+INSERT INTO ledger_entries SELECT * FROM ledger_entries_legacy;
+
+CREATE TABLE IF NOT EXISTS ledger_transfer_claims (
+    transfer_id varchar(255) PRIMARY KEY,
+    created_at timestamp(6) with time zone NOT NULL
+);
+INSERT INTO ledger_transfer_claims (transfer_id, created_at)
+SELECT transfer_id, min(created_at) FROM ledger_entries_legacy GROUP BY transfer_id
+ON CONFLICT (transfer_id) DO NOTHING;
+
+COMMIT;
+
+-- After verifying the row counts match:
+-- DROP TABLE ledger_entries_legacy;
@@ -0,0 +1,114 @@
+package com.example.ledger.bulk;
+
+import com.example.ledger.fx.FxProperties;
+import com.example.ledger.fx.FxRateTable;
+import com.example.ledger.fx.StubFxRateProvider;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountImporterTest {
+
+    private JdbcTemplate jdbcTemplate;
+
+    private AccountImporter importer;
+
+    @BeforeEach
+    void setUp() {
+        final var dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        // what Hibernate creates for Account and LedgerEntry
+        jdbcTemplate.execute("CREATE SEQUENCE accounts_seq START WITH 1 INCREMENT BY 50");
+        jdbcTemplate.execute("CREATE SEQUENCE ledger_entries_seq START WITH 1 INCREMENT BY 50");
+        jdbcTemplate.execute("CREATE TABLE accounts (id bigint PRIMARY KEY, balance numeric(38, 2) NOT NULL, currency varchar(3), "
+                + "version bigint, "
+                + "chain_length bigint, chain_head varbinary(32))");
+        jdbcTemplate.execute("CREATE TABLE ledger_entries (id bigint PRIMARY KEY, transfer_id varchar(255) NOT NULL, "
+                + "account_id bigint NOT NULL, amount numeric(38, 2) NOT NULL, type varchar(255) NOT NULL, "
+                + "created_at timestamp(6) with time zone NOT NULL, "
+                + "chain_sequence bigint, chain_hash varbinary(32), UNIQUE (transfer_id, account_id, type))");
+
+        final var properties = new AccountImportProperties();
+        properties.setCommitSize(2);
+        final var fxRateTable = new FxRateTable(new FxProperties(),
+                new StubFxRateProvider(Map.of("EUR", new BigDecimal("0.92"))), new SimpleMeterRegistry());
+        importer = new AccountImporter(jdbcTemplate, new DataSourceTransactionManager(dataSource), properties,
+                new ObjectMapper(), fxRateTable, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void importsCsvInChunksWithOpeningBalanceEntries() throws Exception {
+        // Given
+        final var csv = "initialBalance,reference,currency\n100.00,m-1,eur\n\n250.50,m-2,\n\"75\",m-3,\"EUR\"\n";
+        final var chunks = new ArrayList<AccountImporter.ImportedChunk>();
+
+        // When
+        final var summary = importer.importAccounts(new BufferedReader(new StringReader(csv)),
+                AccountImporter.Format.CSV, chunks::add);
+
+        // Then
+        assertNull(summary.error());
+        assertEquals(3, summary.imported());
+        assertEquals(2, chunks.size());
+        // the first sequence value is below a block and skipped, the next one reserves 2..51
+        assertEquals(new AccountImporter.ImportedChunk(2, 4, List.of(new AccountImporter.IdRange(2, 3)), 2),
+                chunks.get(0));
+        assertEquals(new AccountImporter.ImportedChunk(5, 5, List.of(new AccountImporter.IdRange(52, 52)), 3),
+                chunks.get(1));
+        assertEquals(new BigDecimal("250.50"),
+                jdbcTemplate.queryForObject("SELECT balance FROM accounts WHERE id = 3", BigDecimal.class));
+        assertEquals(List.of("EUR", "USD", "EUR"),
+                jdbcTemplate.queryForList("SELECT currency FROM accounts ORDER BY id", String.class));
+        assertEquals(new BigDecimal("75.00"), jdbcTemplate.queryForObject(
+                "SELECT amount FROM ledger_entries WHERE transfer_id = 'opening-52' AND type = 'CREDIT'",
+                BigDecimal.class));
+    }
+
+    @Test
+    void stopsAtInvalidLineKeepingCommittedChunks() throws Exception {
+        // Given
+        final var ndjson = "{\"initialBalance\": 10}\n{\"initialBalance\": \"20.5\", \"currency\": \"EUR\"}\n"
+                + "{\"initialBalance\": 5, \"currency\": \"XAU\"}\n";
+
+        // When
+        final var summary = importer.importAccounts(new BufferedReader(new StringReader(ndjson)),
+                AccountImporter.Format.NDJSON, chunk -> { });
+
+        // Then
+        assertEquals(2, summary.imported());
+        assertEquals("Line 3: Unsupported currency: XAU", summary.error());
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT count(*) FROM ledger_entries", Integer.class));
+    }
+
+    @Test
+    void createAccountsReturnsAccountsInRequestOrder() {
+        // When
+        final var accounts = importer.createAccounts(List.of(opening("1.00"), opening("2.00"), opening("3.00")));
+
+        // Then
+        assertEquals(List.of(2L, 3L, 4L), accounts.stream().map(a -> a.getId()).toList());
+        assertEquals(new BigDecimal("3.00"), accounts.get(2).getBalance());
+        assertEquals(0L, accounts.get(0).getVersion());
+        assertEquals("USD", accounts.get(1).getCurrency());
+        assertThrows(IllegalArgumentException.class, () -> importer.createAccounts(List.of(opening("0"))));
+    }
+
+    private static AccountImporter.Opening opening(String balance) {
+        return new AccountImporter.Opening(new BigDecimal(balance), null);
+    }
+}
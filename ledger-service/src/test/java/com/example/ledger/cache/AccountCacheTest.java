@@ -0,0 +1,77 @@
+package com.example.ledger.cache;
+
+import com.example.ledger.model.Account;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountCacheTest {
+
+    @Test
+    void keepsNewerVersionWhenStaleSnapshotArrivesLate() {
+        // Given
+        final var cache = new AccountCache(new AccountCacheProperties(), new SimpleMeterRegistry());
+        cache.put(account(1L, "900.00", 6L));
+
+        // When a reader that loaded the row before the commit puts its copy
+        cache.put(account(1L, "1000.00", 5L));
+
+        // Then
+        final var cached = cache.get(1L).orElseThrow();
+        assertEquals(new BigDecimal("900.00"), cached.getBalance());
+        assertEquals(6L, cached.getVersion());
+    }
+
+    @Test
+    void returnsCopiesSoCallersCannotChangeTheCachedSnapshot() {
+        // Given
+        final var cache = new AccountCache(new AccountCacheProperties(), new SimpleMeterRegistry());
+        cache.put(account(1L, "100.00", 1L));
+
+        // When
+        cache.get(1L).orElseThrow().setBalance(BigDecimal.ZERO);
+
+        // Then
+        assertEquals(new BigDecimal("100.00"), cache.get(1L).orElseThrow().getBalance());
+    }
+
+    @Test
+    void staysWithinMaxSize() {
+        // Given
+        final var properties = new AccountCacheProperties();
+        properties.setMaxSize(64);
+        final var registry = new SimpleMeterRegistry();
+        final var cache = new AccountCache(properties, registry);
+
+        // When
+        LongStream.rangeClosed(1, 1_000).forEach(id -> cache.put(account(id, "1.00", 0L)));
+
+        // Then
+        final var cached = LongStream.rangeClosed(1, 1_000).filter(id -> cache.get(id).isPresent()).count();
+        assertTrue(cached <= 64 * 2, "cached " + cached);
+        assertTrue(registry.counter("ledger.account.cache.evictions").count() > 0);
+    }
+
+    @Test
+    void expiresEntries() {
+        // Given
+        final var properties = new AccountCacheProperties();
+        properties.setExpireAfter(Duration.ZERO);
+        final var cache = new AccountCache(properties, new SimpleMeterRegistry());
+
+        // When
+        cache.put(account(1L, "100.00", 1L));
+
+        // Then
+        assertTrue(cache.get(1L).isEmpty());
+    }
+
+    private static Account account(long id, String balance, long version) {
+        return Account.builder().id(id).balance(new BigDecimal(balance)).version(version).build();
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.ledger.chain;
+
+import com.example.ledger.model.Account;
+import com.example.ledger.model.LedgerEntry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChainVerifierTest {
+
+    private JdbcTemplate jdbcTemplate;
+
+    private CheckpointService checkpointService;
+
+    private ChainVerifier chainVerifier;
+
+    private final Map<Long, Account> accounts = new HashMap<>();
+    private long nextEntryId = 1;
+
+    @BeforeEach
+    void setUp() {
+        final var dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        // what Hibernate creates for the chain columns and checkpoint entities
+        jdbcTemplate.execute("CREATE TABLE accounts (id bigint PRIMARY KEY, balance numeric(38, 2) NOT NULL, "
+                + "version bigint, chain_length bigint, chain_head varbinary(32))");
+        jdbcTemplate.execute("CREATE TABLE ledger_entries (id bigint PRIMARY KEY, transfer_id varchar(255) NOT NULL, "
+                + "account_id bigint NOT NULL, amount numeric(38, 2) NOT NULL, type varchar(255) NOT NULL, "
+                + "created_at timestamp(6) with time zone NOT NULL, chain_sequence bigint, chain_hash varbinary(32))");
+        jdbcTemplate.execute("CREATE TABLE ledger_checkpoints (id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                + "created_at timestamp(6) with time zone NOT NULL, leaf_count bigint NOT NULL, "
+                + "previous_root varbinary(32) NOT NULL UNIQUE, merkle_root varbinary(32), root varbinary(32))");
+        jdbcTemplate.execute("CREATE TABLE ledger_checkpoint_leaves (id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                + "checkpoint_id bigint NOT NULL, account_id bigint NOT NULL, previous_sequence bigint NOT NULL, "
+                + "previous_hash varbinary(32), chain_sequence bigint NOT NULL, chain_hash varbinary(32) NOT NULL, "
+                + "UNIQUE (checkpoint_id, account_id))");
+        jdbcTemplate.execute("CREATE TABLE ledger_chain_heads (account_id bigint PRIMARY KEY, chain_sequence bigint NOT NULL, "
+                + "chain_hash varbinary(32) NOT NULL, checkpoint_id bigint NOT NULL)");
+
+        final var properties = new ChainProperties();
+        properties.setPageSize(2);
+        properties.setVerifyParallelism(2);
+        final var transactionManager = new DataSourceTransactionManager(dataSource);
+        checkpointService = new CheckpointService(jdbcTemplate, transactionManager, properties);
+        chainVerifier = new ChainVerifier(jdbcTemplate, transactionManager, checkpointService, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        chainVerifier.shutdown();
+    }
+
+    @Test
+    void checkpointsOnlyCoverAccountsThatMoved() {
+        // Given
+        for (long id = 1; id <= 5; id++) {
+            appendEntry(id, "opening-" + id, "100.00");
+        }
+        final var first = checkpointService.createCheckpoint().orElseThrow();
+        appendEntry(2L, "t-1", "25.00");
+        appendEntry(4L, "t-1", "25.00");
+        appendEntry(4L, "t-2", "5.50");
+
+        // When
+        final var second = checkpointService.createCheckpoint().orElseThrow();
+
+        // Then
+        assertEquals(5, first.getLeafCount());
+        assertEquals(2, second.getLeafCount());
+        assertArrayEquals(first.getRoot(), second.getPreviousRoot());
+        assertTrue(checkpointService.createCheckpoint().isEmpty());
+        assertArrayEquals(second.getRoot(), checkpointService.findLatest().orElseThrow().getRoot());
+
+        final var report = chainVerifier.verifyCheckpoint(second.getId()).orElseThrow();
+        assertTrue(report.valid(), report.failures().toString());
+        assertEquals(2, report.accounts());
+        // only the entries added since the first checkpoint are rehashed
+        assertEquals(3, report.entries());
+        assertTrue(chainVerifier.verifyCheckpoint(first.getId()).orElseThrow().valid());
+        assertTrue(chainVerifier.verifyCheckpoint(99L).isEmpty());
+    }
+
+    @Test
+    void detectsChangedAndRemovedEntries() {
+        // Given
+        for (long id = 1; id <= 3; id++) {
+            appendEntry(id, "opening-" + id, "100.00");
+            appendEntry(id, "t-" + id, "10.00");
+        }
+        final var checkpoint = checkpointService.createCheckpoint().orElseThrow();
+
+        // When
+        jdbcTemplate.update("UPDATE ledger_entries SET amount = 1000 WHERE account_id = 1 AND chain_sequence = 1");
+        jdbcTemplate.update("DELETE FROM ledger_entries WHERE account_id = 3 AND chain_sequence = 2");
+
+        // Then
+        final var report = chainVerifier.verifyCheckpoint(checkpoint.getId()).orElseThrow();
+        assertFalse(report.valid());
+        assertEquals(List.of("Account 1: entry 1 does not match its hash", "Account 3: entry 2 is missing"),
+                report.failures().stream().sorted().toList());
+
+        final var account = chainVerifier.verifyAccount(1L).orElseThrow();
+        assertFalse(account.valid());
+        assertTrue(chainVerifier.verifyAccount(2L).orElseThrow().valid());
+        assertTrue(chainVerifier.verifyAccount(42L).isEmpty());
+    }
+
+    @Test
+    void detectsRewrittenCheckpoint() {
+        // Given
+        appendEntry(1L, "opening-1", "100.00");
+        final var checkpoint = checkpointService.createCheckpoint().orElseThrow();
+
+        // When
+        jdbcTemplate.update("UPDATE ledger_checkpoint_leaves SET chain_sequence = 2 WHERE checkpoint_id = ?",
+                checkpoint.getId());
+
+        // Then
+        final var report = chainVerifier.verifyCheckpoint(checkpoint.getId()).orElseThrow();
+        assertFalse(report.valid());
+        assertTrue(report.failures().contains("Checkpoint " + checkpoint.getId() + " leaves do not match its Merkle root"));
+    }
+
+    private void appendEntry(long accountId, String transferId, String amount) {
+        final var account = accounts.computeIfAbsent(accountId, id -> {
+            jdbcTemplate.update("INSERT INTO accounts (id, balance, version) VALUES (?, 0, 0)", id);
+            return Account.builder().id(id).balance(BigDecimal.ZERO).build();
+        });
+        final var entry = LedgerEntry.builder()
+                .id(nextEntryId++)
+                .transferId(transferId)
+                .accountId(accountId)
+                .amount(new BigDecimal(amount))
+                .type(LedgerEntry.EntryType.CREDIT)
+                .createdAt(OffsetDateTime.now())
+                .build();
+        LedgerChain.append(account, entry);
+        jdbcTemplate.update("INSERT INTO ledger_entries (id, transfer_id, account_id, amount, type, created_at, "
+                        + "chain_sequence, chain_hash) VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+                entry.getId(), entry.getTransferId(), accountId, entry.getAmount(), entry.getType().name(),
+                entry.getCreatedAt(), entry.getChainSequence(), entry.getChainHash());
+        jdbcTemplate.update("UPDATE accounts SET chain_length = ?, chain_head = ? WHERE id = ?",
+                account.getChainLength(), account.getChainHead(), accountId);
+    }
+}
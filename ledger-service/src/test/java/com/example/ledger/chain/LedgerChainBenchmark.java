@@ -0,0 +1,207 @@
+package com.example.ledger.chain;
+
+import com.example.ledger.model.Account;
+import com.example.ledger.model.LedgerEntry;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Measures what hash chaining adds to the transfer path: {@link LedgerChain#append} on its own,
+ * single-threaded and under concurrency, then the writes applyTransfer makes per transfer (two
+ * account updates, two entry inserts, one commit) without and with the chain columns, and with
+ * an extra (account_id, chain_sequence) index that the schema deliberately leaves out. Runs against a file-based H2 database in a temp directory
+ * unless {@code --url} points elsewhere:
+ * <pre>
+ * mvn -o -q test-compile org.codehaus.mojo:exec-maven-plugin:3.6.4:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.example.ledger.chain.LedgerChainBenchmark \
+ *     -Dexec.args="--transfers=100000 --accounts=10000 --threads=8"
+ * </pre>
+ */
+public class LedgerChainBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        final var options = new HashMap<String, String>();
+        for (final var arg : args) {
+            final var separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        final var transfers = Integer.parseInt(options.getOrDefault("transfers", "50000"));
+        final var accounts = Integer.parseInt(options.getOrDefault("accounts", "10000"));
+        final var threads = Integer.parseInt(options.getOrDefault("threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        var url = options.get("url");
+        if (url == null) {
+            final var dir = Files.createTempDirectory("ledger-chain-benchmark");
+            url = "jdbc:h2:file:" + dir.resolve("bench") + ";DB_CLOSE_ON_EXIT=FALSE";
+        }
+
+        System.out.printf("LedgerChain.append, %d entries per thread%n", transfers * 2);
+        appends(1, transfers * 2);
+        appends(threads, transfers * 2);
+
+        System.out.printf("%nper-transfer writes, %d transfers over %d accounts, one commit each, %s%n",
+                transfers, accounts, url);
+        try (var connection = DriverManager.getConnection(url,
+                options.getOrDefault("user", "sa"), options.getOrDefault("password", ""))) {
+            final var binary = connection.getMetaData().getDatabaseProductName().equals("PostgreSQL")
+                    ? "bytea" : "varbinary(32)";
+            // untimed, so the first measured run doesn't pay for JIT compilation of the driver
+            transfers(connection, binary, false, false, Math.min(transfers, 20_000), accounts);
+            // alternating, best of each, so file growth and checkpoints don't favour any of them
+            final var best = new double[3];
+            for (int round = 0; round < 3; round++) {
+                for (int variant = 0; variant < best.length; variant++) {
+                    best[variant] = Math.max(best[variant],
+                            transfers(connection, binary, variant > 0, variant > 1, transfers, accounts));
+                }
+            }
+            System.out.printf("  %-24s %,10.0f transfers/s%n", "unchained", best[0]);
+            System.out.printf("  %-24s %,10.0f transfers/s  (%+.1f%%)%n", "chained", best[1],
+                    (best[1] / best[0] - 1) * 100);
+            System.out.printf("  %-24s %,10.0f transfers/s  (%+.1f%%)%n", "chained + sequence index", best[2],
+                    (best[2] / best[0] - 1) * 100);
+        }
+    }
+
+    private static void appends(int threads, int perThread) throws InterruptedException {
+        // untimed rounds so the digest runs JIT-compiled
+        runAppends(threads, perThread);
+        runAppends(threads, perThread);
+        final var nanos = runAppends(threads, perThread);
+        System.out.printf("  %2d thread(s) %,12.0f entries/s  %,6.0f ns/entry per thread%n", threads,
+                (double) threads * perThread / nanos * 1e9, (double) nanos / perThread);
+    }
+
+    private static long runAppends(int threads, int perThread) throws InterruptedException {
+        final var start = new CountDownLatch(1);
+        final var done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            final long accountId = t + 1;
+            new Thread(() -> {
+                try {
+                    start.await();
+                    final var account = Account.builder().id(accountId).build();
+                    final var createdAt = OffsetDateTime.now();
+                    for (int i = 0; i < perThread; i++) {
+                        LedgerChain.append(account, entry(accountId, "bench-" + i, createdAt));
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        final var begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        return System.nanoTime() - begin;
+    }
+
+    // transfers per second
+    private static double transfers(Connection connection, String binary, boolean chained, boolean sequenceIndex,
+                                    int transfers, int accountCount) throws SQLException {
+        try (var statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS bench_entries");
+            statement.execute("DROP TABLE IF EXISTS bench_accounts");
+            statement.execute("CREATE TABLE bench_accounts (id bigint PRIMARY KEY, balance numeric(38, 2) NOT NULL, "
+                    + "version bigint, chain_length bigint, chain_head " + binary + ")");
+            statement.execute("CREATE TABLE bench_entries (id bigint PRIMARY KEY, transfer_id varchar(255) NOT NULL, "
+                    + "account_id bigint NOT NULL, amount numeric(38, 2) NOT NULL, type varchar(255) NOT NULL, "
+                    + "created_at timestamp(6) with time zone NOT NULL, chain_sequence bigint, chain_hash " + binary
+                    + ", UNIQUE (transfer_id, account_id, type))");
+            statement.execute("CREATE INDEX idx_bench_entries_account_created ON bench_entries (account_id, created_at)");
+            if (sequenceIndex) {
+                statement.execute("CREATE INDEX idx_bench_entries_account_chain ON bench_entries (account_id, chain_sequence)");
+            }
+            statement.execute("INSERT INTO bench_accounts (id, balance, version) "
+                    + "SELECT x, 1000000, 0 FROM SYSTEM_RANGE(1, " + accountCount + ")");
+        }
+        final var accounts = new Account[accountCount + 1];
+        for (int i = 1; i <= accountCount; i++) {
+            accounts[i] = Account.builder().id((long) i).balance(new BigDecimal(1_000_000)).version(0L).build();
+        }
+
+        connection.setAutoCommit(false);
+        final var begin = System.nanoTime();
+        try (var updateAccount = connection.prepareStatement(chained
+                     ? "UPDATE bench_accounts SET balance = ?, version = ?, chain_length = ?, chain_head = ? WHERE id = ?"
+                     : "UPDATE bench_accounts SET balance = ?, version = ? WHERE id = ?");
+             var insertEntry = connection.prepareStatement(chained
+                     ? "INSERT INTO bench_entries (id, transfer_id, account_id, amount, type, created_at, chain_sequence, "
+                             + "chain_hash) VALUES (?, ?, ?, ?, ?, ?, ?, ?)"
+                     : "INSERT INTO bench_entries (id, transfer_id, account_id, amount, type, created_at) "
+                             + "VALUES (?, ?, ?, ?, ?, ?)")) {
+            final var amount = new BigDecimal("1.25");
+            for (int i = 0; i < transfers; i++) {
+                final var from = accounts[1 + (int) ((i * 7919L) % accountCount)];
+                final var to = accounts[1 + (int) ((i * 7919L + 1) % accountCount)];
+                final var transferId = "bench-" + i;
+                final var createdAt = OffsetDateTime.now();
+                final var debit = entry(from.getId(), transferId, createdAt);
+                final var credit = entry(to.getId(), transferId, createdAt);
+                debit.setType(LedgerEntry.EntryType.DEBIT);
+                debit.setAmount(amount);
+                credit.setAmount(amount);
+                if (chained) {
+                    LedgerChain.append(from, debit);
+                    LedgerChain.append(to, credit);
+                }
+                from.setBalance(from.getBalance().subtract(amount));
+                to.setBalance(to.getBalance().add(amount));
+
+                for (final var account : new Account[]{from, to}) {
+                    account.setVersion(account.getVersion() + 1);
+                    updateAccount.setBigDecimal(1, account.getBalance());
+                    updateAccount.setLong(2, account.getVersion());
+                    if (chained) {
+                        updateAccount.setLong(3, account.getChainLength());
+                        updateAccount.setBytes(4, account.getChainHead());
+                        updateAccount.setLong(5, account.getId());
+                    } else {
+                        updateAccount.setLong(3, account.getId());
+                    }
+                    updateAccount.executeUpdate();
+                }
+                long id = i * 2L;
+                for (final var entry : new LedgerEntry[]{debit, credit}) {
+                    insertEntry.setLong(1, ++id);
+                    insertEntry.setString(2, entry.getTransferId());
+                    insertEntry.setLong(3, entry.getAccountId());
+                    insertEntry.setBigDecimal(4, entry.getAmount());
+                    insertEntry.setString(5, entry.getType().name());
+                    insertEntry.setObject(6, entry.getCreatedAt());
+                    if (chained) {
+                        insertEntry.setLong(7, entry.getChainSequence());
+                        insertEntry.setBytes(8, entry.getChainHash());
+                    }
+                    insertEntry.executeUpdate();
+                }
+                connection.commit();
+            }
+        }
+        final var nanos = System.nanoTime() - begin;
+        connection.setAutoCommit(true);
+        return transfers / (nanos / 1e9);
+    }
+
+    private static LedgerEntry entry(long accountId, String transferId, OffsetDateTime createdAt) {
+        return LedgerEntry.builder()
+                .transferId(transferId)
+                .accountId(accountId)
+                .amount(new BigDecimal("12.34"))
+                .type(LedgerEntry.EntryType.CREDIT)
+                .createdAt(createdAt)
+                .build();
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.ledger.chain;
+
+import com.example.ledger.model.Account;
+import com.example.ledger.model.LedgerEntry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LedgerChainTest {
+
+    private static final OffsetDateTime CREATED_AT = OffsetDateTime.of(2025, 1, 15, 10, 30, 0, 123_456_789, ZoneOffset.UTC);
+
+    @Test
+    void appendLinksEntriesToTheAccountHead() {
+        // Given
+        final var account = Account.builder().id(7L).balance(new BigDecimal("100.00")).build();
+        final var first = entry("t-1", "10.5", LedgerEntry.EntryType.CREDIT);
+        final var second = entry("t-2", "3", LedgerEntry.EntryType.DEBIT);
+
+        // When
+        LedgerChain.append(account, first);
+        LedgerChain.append(account, second);
+
+        // Then
+        assertEquals(1L, first.getChainSequence());
+        assertEquals(2L, second.getChainSequence());
+        assertEquals(2L, account.getChainLength());
+        assertArrayEquals(second.getChainHash(), account.getChainHead());
+        // normalized to what the database returns
+        assertEquals(new BigDecimal("10.50"), first.getAmount());
+        assertEquals(123_456_000, first.getCreatedAt().getNano());
+        assertArrayEquals(first.getChainHash(), LedgerChain.hash(LedgerChain.GENESIS, 7L, 1L, "t-1", "CREDIT",
+                new BigDecimal("10.5000"), first.getCreatedAt().withOffsetSameInstant(ZoneOffset.ofHours(2))));
+        assertArrayEquals(second.getChainHash(), LedgerChain.hash(first.getChainHash(), 7L, 2L, "t-2", "DEBIT",
+                new BigDecimal("3"), second.getCreatedAt()));
+    }
+
+    @Test
+    void hashCoversEveryField() {
+        // Given
+        final var hash = LedgerChain.hash(LedgerChain.GENESIS, 1L, 1L, "t-1", "CREDIT", BigDecimal.TEN, CREATED_AT);
+
+        // Then
+        assertEquals(LedgerChain.HASH_LENGTH, hash.length);
+        assertFalse(Arrays.equals(hash, LedgerChain.hash(hash, 1L, 1L, "t-1", "CREDIT", BigDecimal.TEN, CREATED_AT)));
+        assertFalse(Arrays.equals(hash, LedgerChain.hash(LedgerChain.GENESIS, 2L, 1L, "t-1", "CREDIT", BigDecimal.TEN, CREATED_AT)));
+        assertFalse(Arrays.equals(hash, LedgerChain.hash(LedgerChain.GENESIS, 1L, 2L, "t-1", "CREDIT", BigDecimal.TEN, CREATED_AT)));
+        assertFalse(Arrays.equals(hash, LedgerChain.hash(LedgerChain.GENESIS, 1L, 1L, "t-2", "CREDIT", BigDecimal.TEN, CREATED_AT)));
+        assertFalse(Arrays.equals(hash, LedgerChain.hash(LedgerChain.GENESIS, 1L, 1L, "t-1", "DEBIT", BigDecimal.TEN, CREATED_AT)));
+        assertFalse(Arrays.equals(hash, LedgerChain.hash(LedgerChain.GENESIS, 1L, 1L, "t-1", "CREDIT", BigDecimal.ONE, CREATED_AT)));
+        assertFalse(Arrays.equals(hash, LedgerChain.hash(LedgerChain.GENESIS, 1L, 1L, "t-1", "CREDIT", BigDecimal.TEN,
+                CREATED_AT.plusNanos(1_000))));
+    }
+
+    @Test
+    void streamingMerkleRootMatchesRecursiveDefinition() {
+        for (int n = 0; n <= 17; n++) {
+            // Given
+            final var merkleRoot = new MerkleRoot();
+            final var leaves = new ArrayList<byte[]>();
+            for (long i = 1; i <= n; i++) {
+                final var hash = LedgerChain.sha256(ByteBuffer.allocate(8).putLong(i).array());
+                merkleRoot.add(i, i * 3, hash);
+                leaves.add(LedgerChain.sha256(new byte[]{0x00},
+                        ByteBuffer.allocate(16).putLong(i).putLong(i * 3).array(), hash));
+            }
+
+            // Then
+            assertEquals(n, merkleRoot.getLeafCount());
+            assertArrayEquals(n == 0 ? LedgerChain.sha256() : treeHash(leaves), merkleRoot.root(), "leaves: " + n);
+        }
+    }
+
+    // RFC 6962: the left subtree holds the largest power of two smaller than n
+    private static byte[] treeHash(List<byte[]> leaves) {
+        if (leaves.size() == 1) {
+            return leaves.get(0);
+        }
+        final var split = Integer.highestOneBit(leaves.size() - 1);
+        return LedgerChain.sha256(new byte[]{0x01}, treeHash(leaves.subList(0, split)),
+                treeHash(leaves.subList(split, leaves.size())));
+    }
+
+    private static LedgerEntry entry(String transferId, String amount, LedgerEntry.EntryType type) {
+        return LedgerEntry.builder()
+                .transferId(transferId)
+                .accountId(7L)
+                .amount(new BigDecimal(amount))
+                .type(type)
+                .createdAt(CREATED_AT)
+                .build();
+    }
+}
@@ -1,19 +1,35 @@
 package com.example.ledger.controller;
 
+import com.example.ledger.limiter.AdaptiveConcurrencyLimiter;
+import com.example.ledger.limiter.ConcurrencyLimitProperties;
 import com.example.ledger.model.Account;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import com.example.ledger.service.LedgerService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -22,6 +38,10 @@ class LedgerControllerTest {
     @Mock
     private LedgerService ledgerService;
 
+    @Spy
+    private AdaptiveConcurrencyLimiter concurrencyLimiter =
+            new AdaptiveConcurrencyLimiter("test", new ConcurrencyLimitProperties(), new SimpleMeterRegistry());
+
     @InjectMocks
     private LedgerController ledgerController;
 
@@ -32,7 +52,7 @@ class LedgerControllerTest {
         account.setId(1L);
         account.setBalance(new BigDecimal("1000.00"));
         
-        when(ledgerService.createAccount(any(BigDecimal.class))).thenReturn(account);
+        when(ledgerService.createAccount(any(BigDecimal.class), isNull())).thenReturn(account);
 
         // When
         LedgerController.CreateAccountRequest request = new LedgerController.CreateAccountRequest();
@@ -55,7 +75,7 @@ class LedgerControllerTest {
         when(ledgerService.getAccount(1L)).thenReturn(Optional.of(account));
 
         // When
-        final var response = ledgerController.getAccount(1L);
+        final var response = ledgerController.getAccount(1L, webRequest(null));
 
         // Then
         assertNotNull(response);
@@ -63,13 +83,51 @@ class LedgerControllerTest {
         assertEquals(account, response.getBody());
     }
 
+    @Test
+    void getAccountNotModifiedWhenVersionMatches() {
+        // Given
+        final var account = new Account();
+        account.setId(1L);
+        account.setBalance(new BigDecimal("1000.00"));
+        account.setVersion(3L);
+
+        when(ledgerService.getAccount(1L)).thenReturn(Optional.of(account));
+
+        // When
+        final var unchanged = ledgerController.getAccount(1L, webRequest("\"3\""));
+        final var changed = ledgerController.getAccount(1L, webRequest("\"2\""));
+
+        // Then
+        assertEquals(304, unchanged.getStatusCode().value());
+        assertNull(unchanged.getBody());
+        assertEquals(200, changed.getStatusCode().value());
+        assertEquals("\"3\"", changed.getHeaders().getETag());
+        assertEquals(account, changed.getBody());
+    }
+
+    @Test
+    void applyTransferReturnsRetriableErrorWhenAccountLockNotGranted() {
+        // Given
+        when(ledgerService.applyTransfer(any(), anyLong(), anyLong(), any(BigDecimal.class)))
+                .thenThrow(new CannotAcquireLockException("lock timeout"));
+
+        // When
+        final var response = ledgerController.applyTransfer(
+                new LedgerController.TransferRequest("t-1", 1L, 2L, new BigDecimal("10.00")), null);
+
+        // Then
+        assertEquals(503, response.getStatusCode().value());
+        assertEquals("1", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertFalse(response.getBody().isSuccess());
+    }
+
     @Test
     void getAccountNotFound() {
         // Given
         when(ledgerService.getAccount(999L)).thenReturn(Optional.empty());
 
         // When
-        var response = ledgerController.getAccount(999L);
+        var response = ledgerController.getAccount(999L, webRequest(null));
 
         // Then
         assertNotNull(response);
@@ -89,7 +147,7 @@ class LedgerControllerTest {
         request.setToAccountId(2L);
         request.setAmount(new BigDecimal("100.00"));
         
-        var response = ledgerController.applyTransfer(request);
+        var response = ledgerController.applyTransfer(request, null);
 
         // Then
         assertNotNull(response);
@@ -111,7 +169,7 @@ class LedgerControllerTest {
         request.setToAccountId(2L);
         request.setAmount(new BigDecimal("100.00"));
         
-        var response = ledgerController.applyTransfer(request);
+        var response = ledgerController.applyTransfer(request, null);
 
         // Then
         assertNotNull(response);
@@ -119,4 +177,133 @@ class LedgerControllerTest {
         assertFalse(response.getBody().isSuccess());
         assertEquals("Insufficient funds", response.getBody().getMessage());
     }
+
+    @Test
+    void applyTransferRejectedWhenConcurrencyLimitReached() {
+        // Given
+        final var properties = new ConcurrencyLimitProperties();
+        properties.setInitialLimit(1);
+        properties.setMinLimit(1);
+        final var limiter = new AdaptiveConcurrencyLimiter("test", properties, new SimpleMeterRegistry());
+        final var controller = new LedgerController(ledgerService, limiter);
+        final var held = limiter.tryAcquire();
+
+        // When
+        LedgerController.TransferRequest request = new LedgerController.TransferRequest(
+                "transfer-123", 1L, 2L, new BigDecimal("100.00"));
+        var response = controller.applyTransfer(request, null);
+
+        // Then
+        assertEquals(429, response.getStatusCode().value());
+        assertNotNull(response.getHeaders().getFirst("Retry-After"));
+        assertFalse(response.getBody().isSuccess());
+
+        held.success();
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void applyTransferBatchReturnsResultPerItem() {
+        // Given
+        when(ledgerService.applyTransfer("t-1", 1L, 2L, new BigDecimal("10.00"))).thenReturn(true);
+        when(ledgerService.applyTransfer("t-2", 1L, 2L, new BigDecimal("5000.00")))
+                .thenThrow(new IllegalStateException("Insufficient funds in account 1"));
+        final var request = new LedgerController.BatchTransferRequest(List.of(
+                new LedgerController.TransferRequest("t-1", 1L, 2L, new BigDecimal("10.00")),
+                new LedgerController.TransferRequest("t-2", 1L, 2L, new BigDecimal("5000.00"))));
+
+        // When
+        final var response = ledgerController.applyTransferBatch(request, null);
+
+        // Then
+        assertEquals(200, response.getStatusCode().value());
+        final var results = response.getBody().getResults();
+        assertEquals(2, results.size());
+        assertTrue(results.get(0).isSuccess());
+        assertEquals("t-2", results.get(1).getTransferId());
+        assertFalse(results.get(1).isSuccess());
+        assertEquals("Insufficient funds in account 1", results.get(1).getMessage());
+    }
+
+    @Test
+    void applyTransferBatchAnswersItemsWhoseLockWasNotGrantedAsRetriable() {
+        // Given
+        when(ledgerService.applyTransfer("t-1", 1L, 2L, new BigDecimal("10.00")))
+                .thenThrow(new CannotAcquireLockException("lock timeout"));
+        when(ledgerService.applyTransfer("t-2", 3L, 4L, new BigDecimal("10.00"))).thenReturn(true);
+        final var request = new LedgerController.BatchTransferRequest(List.of(
+                new LedgerController.TransferRequest("t-1", 1L, 2L, new BigDecimal("10.00")),
+                new LedgerController.TransferRequest("t-2", 3L, 4L, new BigDecimal("10.00"))));
+
+        // When
+        final var response = ledgerController.applyTransferBatch(request, null);
+
+        // Then
+        final var results = response.getBody().getResults();
+        assertFalse(results.get(0).isSuccess());
+        assertTrue(results.get(0).isRetriable());
+        assertTrue(results.get(1).isSuccess());
+        assertFalse(results.get(1).isRetriable());
+    }
+
+    @Test
+    void applyTransferTreatsDuplicateOfConcurrentCopyAsApplied() {
+        // Given - a hedged copy of t-1 committed between the idempotency check and this insert
+        when(ledgerService.applyTransfer(any(), anyLong(), anyLong(), any(BigDecimal.class)))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"));
+        when(ledgerService.getAppliedTransfers(List.of("t-1"))).thenReturn(Map.of("t-1", OffsetDateTime.now()));
+
+        // When
+        final var response = ledgerController.applyTransfer(
+                new LedgerController.TransferRequest("t-1", 1L, 2L, new BigDecimal("10.00")), 5000L);
+
+        // Then
+        assertEquals(200, response.getStatusCode().value());
+        assertTrue(response.getBody().isSuccess());
+    }
+
+    @Test
+    void applyTransferBatchLeavesItemsPastTheDeadlineUnapplied() {
+        // Given
+        final var request = new LedgerController.BatchTransferRequest(List.of(
+                new LedgerController.TransferRequest("t-1", 1L, 2L, new BigDecimal("10.00"))));
+
+        // When
+        final var response = ledgerController.applyTransferBatch(request, 0L);
+
+        // Then
+        assertEquals(200, response.getStatusCode().value());
+        final var result = response.getBody().getResults().get(0);
+        assertFalse(result.isSuccess());
+        assertEquals("Deadline exceeded, not applied", result.getMessage());
+        verify(ledgerService, never()).applyTransfer(any(), anyLong(), anyLong(), any(BigDecimal.class));
+    }
+
+    @Test
+    void getTransferStatusesReportsAppliedAndUnknownTransfersInRequestOrder() {
+        // Given
+        final var appliedAt = OffsetDateTime.parse("2024-03-01T10:15:30Z");
+        when(ledgerService.getAppliedTransfers(List.of("t-2", "t-1"))).thenReturn(Map.of("t-1", appliedAt));
+
+        // When
+        final var response = ledgerController.getTransferStatuses(
+                new LedgerController.TransferStatusRequest(List.of("t-2", "t-1")));
+
+        // Then
+        assertEquals(200, response.getStatusCode().value());
+        final var statuses = response.getBody().getStatuses();
+        assertEquals("t-2", statuses.get(0).getTransferId());
+        assertFalse(statuses.get(0).isApplied());
+        assertNull(statuses.get(0).getAppliedAt());
+        assertTrue(statuses.get(1).isApplied());
+        assertEquals(appliedAt, statuses.get(1).getAppliedAt());
+    }
+
+    private static ServletWebRequest webRequest(String ifNoneMatch) {
+        final var request = new MockHttpServletRequest("GET", "/accounts/1");
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return new ServletWebRequest(request, new MockHttpServletResponse());
+    }
 }
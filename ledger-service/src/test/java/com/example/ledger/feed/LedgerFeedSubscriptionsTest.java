@@ -0,0 +1,134 @@
+package com.example.ledger.feed;
+
+import com.example.ledger.model.LedgerEntry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LedgerFeedSubscriptionsTest {
+
+    private final LedgerFeed ledgerFeed = new LedgerFeed(64);
+
+    private final LedgerFeedSubscriptions subscriptions = new LedgerFeedSubscriptions(ledgerFeed, Duration.ofMinutes(1), 8);
+
+    @AfterEach
+    void tearDown() {
+        subscriptions.shutdown();
+    }
+
+    @Test
+    void stalledSubscriberOverflowsWithoutHoldingUpTheOthers() throws Exception {
+        // Given - one client that never gets past its first event
+        final var release = new CountDownLatch(1);
+        final var stalled = new RecordingEmitter(release);
+        final var healthy = new RecordingEmitter(null);
+        subscriptions.subscribe(stalled, ledgerFeed.getEpoch(), 0);
+        subscriptions.subscribe(healthy, ledgerFeed.getEpoch(), 0);
+
+        // When - more events than the stalled client's buffer holds
+        publish(6);
+        await(() -> healthy.names.size() == 6);
+        publish(6);
+
+        // Then
+        await(() -> healthy.names.size() == 12);
+        assertFalse(healthy.completed);
+        release.countDown();
+        await(() -> stalled.completed);
+        assertEquals("overflow", stalled.names.get(stalled.names.size() - 1));
+        assertTrue(stalled.names.size() < 12);
+    }
+
+    @Test
+    void eventIdsCarryTheEpoch() throws Exception {
+        // Given
+        final var subscriber = new RecordingEmitter(null);
+        subscriptions.subscribe(subscriber, ledgerFeed.getEpoch(), 0);
+
+        // When
+        publish(2);
+
+        // Then
+        await(() -> subscriber.ids.size() == 2);
+        assertEquals(List.of(ledgerFeed.getEpoch() + ":1", ledgerFeed.getEpoch() + ":2"), subscriber.ids);
+    }
+
+    @Test
+    void subscriberFromAnEarlierEpochIsToldToResync() throws Exception {
+        // Given - a client that last saw event 5000 before the ledger restarted
+        publish(3);
+        final var subscriber = new RecordingEmitter(null);
+
+        // When
+        subscriptions.subscribe(subscriber, ledgerFeed.getEpoch() - 1, 5000);
+
+        // Then - no events, and an id that resumes from the current position of the new epoch
+        await(() -> subscriber.completed);
+        assertEquals(List.of("resync"), subscriber.names);
+        assertEquals(List.of(ledgerFeed.getEpoch() + ":3"), subscriber.ids);
+    }
+
+    private void publish(int count) {
+        ledgerFeed.publishAfterCommit(IntStream.range(0, count)
+                .mapToObj(i -> LedgerEntry.builder()
+                        .transferId("t" + i)
+                        .accountId(1L)
+                        .amount(new BigDecimal("10.00"))
+                        .type(LedgerEntry.EntryType.CREDIT)
+                        .build())
+                .toList());
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        final var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "timed out");
+            Thread.sleep(10);
+        }
+    }
+
+    // records event names; with a latch, the first send blocks until it is released
+    private static class RecordingEmitter extends SseEmitter {
+        private final List<String> names = new CopyOnWriteArrayList<>();
+        private final List<String> ids = new CopyOnWriteArrayList<>();
+        private final CountDownLatch release;
+        private volatile boolean completed;
+
+        RecordingEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            final var event = builder.build().iterator().next().getData().toString();
+            names.add(event.substring(event.indexOf("event:") + 6, event.indexOf('\n', event.indexOf("event:"))));
+            if (event.startsWith("id:")) {
+                ids.add(event.substring(3, event.indexOf('\n')));
+            }
+            if (release != null) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.ledger.feed;
+
+import com.example.ledger.model.LedgerEntry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LedgerFeedTest {
+
+    private final LedgerFeed ledgerFeed = new LedgerFeed(8);
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void publishesWithoutTransactionImmediately() {
+        // When
+        ledgerFeed.publishAfterCommit(List.of(entry("t1", LedgerEntry.EntryType.DEBIT),
+                entry("t1", LedgerEntry.EntryType.CREDIT)));
+
+        // Then
+        final var page = ledgerFeed.read(0, 10);
+        assertEquals(2, page.getEvents().size());
+        assertEquals(1, page.getEvents().get(0).getSeq());
+        assertEquals(2, page.getNextAfter());
+        assertTrue(ledgerFeed.read(2, 10).getEvents().isEmpty());
+    }
+
+    @Test
+    void holdsBackEventsUntilEarlierReservationsComplete() {
+        // Given - two transactions reserve sequences in order, the second commits first
+        final var first = registerTransaction("t1");
+        final var second = registerTransaction("t2");
+        first.beforeCommit(false);
+        second.beforeCommit(false);
+
+        // When
+        second.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+
+        // Then - nothing visible yet, t1 might still commit before t2's sequences
+        assertTrue(ledgerFeed.read(0, 10).getEvents().isEmpty());
+
+        first.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        final var events = ledgerFeed.read(0, 10).getEvents();
+        assertEquals(2, events.size());
+        assertEquals("t1", events.get(0).getTransferId());
+        assertEquals("t2", events.get(1).getTransferId());
+    }
+
+    @Test
+    void rolledBackReservationLeavesHole() {
+        // Given
+        final var rolledBack = registerTransaction("t1");
+        final var committed = registerTransaction("t2");
+        rolledBack.beforeCommit(false);
+        committed.beforeCommit(false);
+
+        // When
+        rolledBack.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        committed.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+
+        // Then
+        final var page = ledgerFeed.read(0, 10);
+        assertEquals(1, page.getEvents().size());
+        assertEquals(2, page.getEvents().get(0).getSeq());
+        assertEquals(2, page.getNextAfter());
+    }
+
+    @Test
+    void rejectsOffsetsOlderThanRetainedWindow() {
+        // Given - capacity 8
+        for (int i = 0; i < 10; i++) {
+            ledgerFeed.publishAfterCommit(List.of(entry("t" + i, LedgerEntry.EntryType.DEBIT)));
+        }
+
+        // When & Then
+        assertThrows(FeedTruncatedException.class, () -> ledgerFeed.read(0, 10));
+        assertEquals(8, ledgerFeed.read(2, 10).getEvents().size());
+    }
+
+    private TransactionSynchronization registerTransaction(String transferId) {
+        TransactionSynchronizationManager.initSynchronization();
+        ledgerFeed.publishAfterCommit(List.of(entry(transferId, LedgerEntry.EntryType.DEBIT)));
+        final var synchronization = TransactionSynchronizationManager.getSynchronizations().get(0);
+        TransactionSynchronizationManager.clearSynchronization();
+        return synchronization;
+    }
+
+    private static LedgerEntry entry(String transferId, LedgerEntry.EntryType type) {
+        return LedgerEntry.builder()
+                .transferId(transferId)
+                .accountId(1L)
+                .amount(new BigDecimal("10.00"))
+                .type(type)
+                .build();
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.ledger.fx;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Cost of converting one transfer amount: {@link FxRates#convert} with its precomputed cross
+ * rates, against dividing the two base rates on every conversion, over random currency pairs.
+ * <pre>
+ * mvn -o -q test-compile org.codehaus.mojo:exec-maven-plugin:3.6.4:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.example.ledger.fx.FxConversionBenchmark -Dexec.args="--conversions=5000000"
+ * </pre>
+ */
+public class FxConversionBenchmark {
+
+    private static final String[] CODES = {"USD", "EUR", "GBP", "JPY", "CHF", "CAD", "AUD", "SEK", "NOK", "IDR"};
+
+    // keeps the JIT from dropping the conversions
+    private static long sink;
+
+    public static void main(String[] args) {
+        final var options = new HashMap<String, String>();
+        for (final var arg : args) {
+            final var separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        final var conversions = Integer.parseInt(options.getOrDefault("conversions", "5000000"));
+
+        final var perUsd = new HashMap<String, BigDecimal>();
+        final var random = ThreadLocalRandom.current();
+        for (final var code : CODES) {
+            perUsd.put(code, code.equals("USD") ? BigDecimal.ONE
+                    : BigDecimal.valueOf(random.nextDouble(0.5, 16000)).setScale(6, RoundingMode.HALF_EVEN));
+        }
+        final var rates = FxRates.of(1, Instant.now(), "USD", perUsd);
+
+        final var pairs = new int[1024][2];
+        final var amounts = new BigDecimal[1024];
+        for (int i = 0; i < pairs.length; i++) {
+            pairs[i][0] = random.nextInt(CODES.length);
+            pairs[i][1] = random.nextInt(CODES.length);
+            amounts[i] = BigDecimal.valueOf(random.nextLong(1, 10_000_000), 2);
+        }
+
+        System.out.printf("%,d conversions over %d currencies%n", conversions, CODES.length);
+        // untimed rounds so both run JIT-compiled
+        for (int round = 0; round < 3; round++) {
+            precomputed(rates, pairs, amounts, conversions);
+            dividing(perUsd, pairs, amounts, conversions);
+        }
+        final var precomputed = precomputed(rates, pairs, amounts, conversions);
+        final var dividing = dividing(perUsd, pairs, amounts, conversions);
+        System.out.printf("  %-28s %6.0f ns/conversion%n", "FxRates.convert", (double) precomputed / conversions);
+        System.out.printf("  %-28s %6.0f ns/conversion%n", "divide per conversion", (double) dividing / conversions);
+    }
+
+    private static long precomputed(FxRates rates, int[][] pairs, BigDecimal[] amounts, int conversions) {
+        final var begin = System.nanoTime();
+        for (int i = 0; i < conversions; i++) {
+            final var pair = pairs[i & 1023];
+            sink += rates.convert(amounts[i & 1023], CODES[pair[0]], CODES[pair[1]]).amount().unscaledValue().longValue();
+        }
+        return System.nanoTime() - begin;
+    }
+
+    private static long dividing(Map<String, BigDecimal> perUsd, int[][] pairs, BigDecimal[] amounts, int conversions) {
+        final var begin = System.nanoTime();
+        for (int i = 0; i < conversions; i++) {
+            final var pair = pairs[i & 1023];
+            final var rate = perUsd.get(CODES[pair[1]])
+                    .divide(perUsd.get(CODES[pair[0]]), FxRates.RATE_SCALE, RoundingMode.HALF_EVEN);
+            sink += amounts[i & 1023].multiply(rate).setScale(2, RoundingMode.HALF_EVEN).unscaledValue().longValue();
+        }
+        return System.nanoTime() - begin;
+    }
+}
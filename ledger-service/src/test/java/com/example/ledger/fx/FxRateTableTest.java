@@ -0,0 +1,86 @@
+package com.example.ledger.fx;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FxRateTableTest {
+
+    @Test
+    void convertsAtCrossRatesRoundedToTheMinorUnit() {
+        // Given - per 1 USD
+        final var rates = FxRates.of(1, Instant.now(), "USD",
+                Map.of("EUR", new BigDecimal("0.92"), "JPY", new BigDecimal("151.37")));
+
+        // When
+        final var eurToJpy = rates.convert(new BigDecimal("10.00"), "EUR", "JPY");
+        final var jpyToUsd = rates.convert(new BigDecimal("1000"), "JPY", "USD");
+        final var same = rates.convert(new BigDecimal("10.00"), "EUR", "EUR");
+
+        // Then - 151.37 / 0.92 = 164.532608695652..., yen have no minor unit
+        assertEquals(new BigDecimal("164.532608695652"), eurToJpy.rate());
+        assertEquals(new BigDecimal("1645"), eurToJpy.amount());
+        assertEquals(new BigDecimal("6.61"), jpyToUsd.amount());
+        assertEquals(new BigDecimal("10.00"), same.amount());
+        assertEquals(1, eurToJpy.version());
+        assertThrows(IllegalArgumentException.class, () -> rates.convert(BigDecimal.ONE, "USD", "GBP"));
+        assertThrows(IllegalArgumentException.class, () -> FxRates.of(1, Instant.now(), "USD",
+                Map.of("EUR", BigDecimal.ZERO)));
+    }
+
+    @Test
+    void refreshSwapsInNewVersionsOnlyAndKeepsTheLastGoodOne() {
+        // Given
+        final var source = new HashMap<String, BigDecimal>(Map.of("EUR", new BigDecimal("0.92")));
+        final var failing = new boolean[1];
+        final var meterRegistry = new SimpleMeterRegistry();
+        final var table = new FxRateTable(new FxProperties(), () -> {
+            if (failing[0]) {
+                throw new IOException("rate feed unreachable");
+            }
+            return Map.copyOf(source);
+        }, meterRegistry);
+        final var first = table.current();
+
+        // When
+        final var unchanged = table.refresh();
+        source.put("EUR", new BigDecimal("0.9300"));
+        final var changed = table.refresh();
+        failing[0] = true;
+        final var failed = table.refresh();
+
+        // Then - a transfer holding the old snapshot still converts at the old rate
+        assertFalse(unchanged);
+        assertTrue(changed);
+        assertFalse(failed);
+        assertEquals(1, first.getVersion());
+        assertEquals(2, table.current().getVersion());
+        assertEquals(new BigDecimal("92.00"), first.convert(new BigDecimal("100"), "USD", "EUR").amount());
+        assertEquals(new BigDecimal("93.00"), table.current().convert(new BigDecimal("100"), "USD", "EUR").amount());
+        assertEquals(1.0, meterRegistry.counter("ledger.fx.refresh.failures").count());
+        assertEquals("EUR", table.accountCurrency("eur"));
+        assertThrows(IllegalArgumentException.class, () -> table.accountCurrency("GBP"));
+    }
+
+    @Test
+    void readsRatesFromFile(@TempDir Path dir) throws IOException {
+        // Given
+        final var file = Files.writeString(dir.resolve("rates.properties"), "# per 1 USD\nEUR = 0.92\nGBP=0.79\n");
+
+        // When
+        final var rates = new FileFxRateProvider(file).loadRates();
+
+        // Then
+        assertEquals(Map.of("EUR", new BigDecimal("0.92"), "GBP", new BigDecimal("0.79")), rates);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.ledger.lock;
+
+import com.example.ledger.model.Account;
+import com.example.ledger.repository.AccountRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AccountLockerTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void locksAccountsOneAtATimeInAscendingIdOrder() {
+        // Given
+        final var properties = new LockingProperties();
+        properties.setMode(LockingProperties.Mode.WAIT);
+        final var locker = new AccountLocker(accountRepository, jdbcTemplate, properties,
+                new LockContentionTracker(properties), new SimpleMeterRegistry());
+        when(accountRepository.findByIdForUpdate(3L)).thenReturn(Optional.of(account(3L)));
+        when(accountRepository.findByIdForUpdate(7L)).thenReturn(Optional.of(account(7L)));
+        when(accountRepository.findByIdForUpdate(9L)).thenReturn(Optional.empty());
+
+        // When
+        final var locked = locker.lockInOrder(List.of(9L, 7L, 3L, 7L));
+
+        // Then
+        final var order = inOrder(accountRepository);
+        order.verify(accountRepository).findByIdForUpdate(3L);
+        order.verify(accountRepository).findByIdForUpdate(7L);
+        order.verify(accountRepository).findByIdForUpdate(9L);
+        assertEquals(List.of(3L, 7L), locked.stream().map(Account::getId).toList());
+        // WAIT needs no lock timeout statement
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void recordsFailedAcquisitionAndRethrows() {
+        // Given
+        final var properties = new LockingProperties();
+        properties.setMode(LockingProperties.Mode.NOWAIT);
+        final var tracker = new LockContentionTracker(properties);
+        final var locker = new AccountLocker(accountRepository, jdbcTemplate, properties, tracker,
+                new SimpleMeterRegistry());
+        when(accountRepository.findByIdForUpdateNoWait(1L)).thenReturn(Optional.of(account(1L)));
+        when(accountRepository.findByIdForUpdateNoWait(2L)).thenThrow(new CannotAcquireLockException("locked"));
+
+        // When & Then
+        assertThrows(CannotAcquireLockException.class, () -> locker.lockInOrder(List.of(1L, 2L)));
+        final var snapshot = tracker.snapshot();
+        assertEquals(2, snapshot.acquisitions());
+        assertEquals(1, snapshot.failures());
+        // a failed acquisition always counts as contended, however quickly it failed
+        assertTrue(snapshot.topAccounts().stream()
+                .anyMatch(account -> account.accountId() == 2L && account.contendedAcquisitions() == 1));
+    }
+
+    private static Account account(long id) {
+        return Account.builder().id(id).balance(BigDecimal.TEN).version(0L).build();
+    }
+}
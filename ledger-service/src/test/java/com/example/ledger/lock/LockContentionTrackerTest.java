@@ -0,0 +1,58 @@
+package com.example.ledger.lock;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LockContentionTrackerTest {
+
+    @Test
+    void ranksAccountsByTotalWaitAndKeepsOnlyTopK() {
+        // Given
+        final var properties = new LockingProperties();
+        properties.setTopK(3);
+        final var tracker = new LockContentionTracker(properties);
+
+        // When: one hot account, a few warm ones and many accounts that waited once
+        for (int i = 0; i < 50; i++) {
+            tracker.record(42L, TimeUnit.MILLISECONDS.toNanos(20), false);
+        }
+        for (long accountId = 1; accountId <= 5; accountId++) {
+            for (int i = 0; i < 10; i++) {
+                tracker.record(accountId, TimeUnit.MILLISECONDS.toNanos(accountId * 2), false);
+            }
+        }
+        for (long accountId = 1_000; accountId < 2_000; accountId++) {
+            tracker.record(accountId, TimeUnit.MILLISECONDS.toNanos(2), false);
+        }
+
+        // Then
+        final var top = tracker.snapshot().topAccounts();
+        assertEquals(3, top.size());
+        assertEquals(42L, top.get(0).accountId());
+        assertEquals(1_000.0, top.get(0).waitMillis(), 1.0);
+        assertEquals(50, top.get(0).contendedAcquisitions());
+        assertEquals(5L, top.get(1).accountId());
+        assertEquals(4L, top.get(2).accountId());
+    }
+
+    @Test
+    void ignoresAcquisitionsBelowTheContentionThreshold() {
+        // Given
+        final var properties = new LockingProperties();
+        properties.setContentionThreshold(Duration.ofMillis(1));
+        final var tracker = new LockContentionTracker(properties);
+
+        // When
+        tracker.record(1L, TimeUnit.MICROSECONDS.toNanos(200), false);
+
+        // Then
+        final var snapshot = tracker.snapshot();
+        assertEquals(1, snapshot.acquisitions());
+        assertEquals(0, snapshot.contended());
+        assertTrue(snapshot.topAccounts().isEmpty());
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.ledger.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonLogEncoderTest {
+
+    private final JsonLogEncoder encoder = new JsonLogEncoder();
+
+    private final LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+
+    @Test
+    void writesOneJsonObjectPerLine() throws Exception {
+        // Given
+        final var event = new LoggingEvent("test", context.getLogger("com.example.ledger.Test"), Level.WARN,
+                "Transfer {} failed: \"{}\"", new IllegalStateException("boom"),
+                new Object[]{"t-1", "line\nbreak\ttab \u0001 é € 𝄞"});
+        event.setTimeStamp(1_736_937_000_123L);
+        event.setThreadName("http-nio-8081-exec-1");
+        event.setMDCPropertyMap(Map.of("requestId", "r-42"));
+
+        // When
+        final var line = new String(encoder.encode(event), StandardCharsets.UTF_8);
+
+        // Then
+        assertTrue(line.endsWith("}\n"));
+        assertEquals(1, line.split("\n").length);
+        final var json = new ObjectMapper().readTree(line);
+        assertEquals("2025-01-15T10:30:00.123Z", json.get("timestamp").asText());
+        assertEquals("WARN", json.get("level").asText());
+        assertEquals("com.example.ledger.Test", json.get("logger").asText());
+        assertEquals("http-nio-8081-exec-1", json.get("thread").asText());
+        assertEquals("Transfer t-1 failed: \"line\nbreak\ttab \u0001 é € 𝄞\"", json.get("message").asText());
+        assertEquals("r-42", json.get("requestId").asText());
+        assertTrue(json.get("exception").asText().startsWith("java.lang.IllegalStateException: boom"));
+    }
+
+    @Test
+    void reusesTheBufferAcrossEvents() throws Exception {
+        // Given
+        final var large = new LoggingEvent("test", context.getLogger("a"), Level.INFO, "x".repeat(100_000), null, null);
+        final var small = new LoggingEvent("test", context.getLogger("b"), Level.INFO, "short", null, null);
+
+        // When
+        encoder.encode(large);
+        final var json = new ObjectMapper().readTree(encoder.encode(small));
+
+        // Then
+        assertEquals("short", json.get("message").asText());
+        assertEquals("b", json.get("logger").asText());
+    }
+}
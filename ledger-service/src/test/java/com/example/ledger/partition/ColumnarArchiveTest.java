@@ -0,0 +1,53 @@
+package com.example.ledger.partition;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.sql.Types;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarArchiveTest {
+
+    private static final List<String> COLUMNS = List.of("id", "account_id", "amount", "type", "created_at");
+    private static final List<Integer> TYPES = List.of(Types.BIGINT, Types.BIGINT, Types.NUMERIC, Types.VARCHAR,
+            Types.TIMESTAMP_WITH_TIMEZONE);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void roundTripsRowsAndSkipsGroupsOutsideKeyRange() throws Exception {
+        // Given - rows sorted by account, 4 rows per group
+        final var file = tempDir.resolve("202501.lca");
+        final var createdAt = OffsetDateTime.of(2025, 1, 15, 10, 30, 0, 123_456_000, ZoneOffset.UTC);
+        try (var writer = new ColumnarArchiveWriter(file, COLUMNS, TYPES, "account_id", 4)) {
+            for (long i = 1; i <= 10; i++) {
+                writer.write(new Object[]{i, (i + 1) / 2, new BigDecimal("10.50"), i % 2 == 0 ? "CREDIT" : null, createdAt});
+            }
+            assertEquals(10, writer.getTotalRows());
+        }
+
+        // When
+        final var rows = new ArrayList<Object[]>();
+        try (var reader = new ColumnarArchiveReader(file)) {
+            assertEquals(COLUMNS, reader.getColumns());
+            reader.scan(3L, rows::add);
+        }
+
+        // Then - only the group holding accounts 3..4 (ids 5..8) is decoded
+        assertEquals(4, rows.size());
+        assertEquals(5L, rows.get(0)[0]);
+        assertEquals(3L, rows.get(0)[1]);
+        assertEquals(new BigDecimal("10.50"), rows.get(0)[2]);
+        assertNull(rows.get(0)[3]);
+        assertEquals("CREDIT", rows.get(1)[3]);
+        assertEquals(createdAt, rows.get(0)[4]);
+    }
+}
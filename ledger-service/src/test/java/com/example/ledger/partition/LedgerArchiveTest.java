@@ -0,0 +1,63 @@
+package com.example.ledger.partition;
+
+import com.example.ledger.model.LedgerEntry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Types;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LedgerArchiveTest {
+
+    private static final List<String> COLUMNS = List.of("id", "transfer_id", "account_id", "amount", "type",
+            "created_at", "chain_sequence", "chain_hash", "fx_rate", "fx_rate_version");
+    private static final List<Integer> TYPES = List.of(Types.BIGINT, Types.VARCHAR, Types.BIGINT, Types.NUMERIC,
+            Types.VARCHAR, Types.TIMESTAMP_WITH_TIMEZONE, Types.BIGINT, Types.VARBINARY, Types.NUMERIC, Types.BIGINT);
+    private static final OffsetDateTime DAY = OffsetDateTime.of(2025, 1, 15, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void readsArchivedEntriesWithTheirChainAndFxColumns() throws Exception {
+        // Given - an archived month with a same-currency and a converted entry on account 7
+        final var properties = new PartitioningProperties();
+        properties.setArchiveDir(tempDir.toString());
+        final var archive = new LedgerArchive(properties);
+        final var file = archive.fileFor(LedgerArchive.LEDGER_ENTRIES, YearMonth.of(2025, 1));
+        Files.createDirectories(file.getParent());
+        try (var writer = new ColumnarArchiveWriter(file, COLUMNS, TYPES, "account_id", 4)) {
+            writer.write(new Object[]{1L, "t-1", 7L, new BigDecimal("10.00"), "DEBIT", DAY.plusHours(1),
+                    1L, new byte[]{1, 2}, null, null});
+            writer.write(new Object[]{2L, "t-2", 7L, new BigDecimal("92.00"), "CREDIT", DAY.plusHours(2),
+                    2L, new byte[]{3, 4}, new BigDecimal("0.920000000000"), 3L});
+            writer.write(new Object[]{3L, "t-2", 8L, new BigDecimal("100.00"), "DEBIT", DAY.plusHours(2),
+                    1L, new byte[]{5, 6}, new BigDecimal("0.920000000000"), 3L});
+        }
+
+        // When
+        final var entries = new ArrayList<LedgerEntry>();
+        final var archivedUntil = archive.forEachEntry(7L, DAY, DAY.plusDays(1), entries::add);
+
+        // Then
+        assertEquals(OffsetDateTime.of(2025, 2, 1, 0, 0, 0, 0, ZoneOffset.UTC), archivedUntil);
+        assertEquals(2, entries.size());
+        assertNull(entries.get(0).getFxRate());
+        assertNull(entries.get(0).getFxRateVersion());
+        assertArrayEquals(new byte[]{1, 2}, entries.get(0).getChainHash());
+        final var converted = entries.get(1);
+        assertEquals("t-2", converted.getTransferId());
+        assertEquals(new BigDecimal("0.920000000000"), converted.getFxRate());
+        assertEquals(3L, converted.getFxRateVersion());
+        assertEquals(2L, converted.getChainSequence());
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.ledger.service;
+
+import com.example.ledger.model.AccountDailyActivity;
+import com.example.ledger.repository.AccountDailyActivityRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AccountActivityServiceTest {
+
+    @Mock
+    private AccountDailyActivityRepository activityRepository;
+
+    @Test
+    void recordDebitCreatesFirstAggregateOfTheDay() {
+        // Given
+        final var service = new AccountActivityService(activityRepository, new LimitProperties());
+        when(activityRepository.findByAccountIdAndActivityDate(1L, AccountActivityService.today()))
+                .thenReturn(Optional.empty());
+
+        // When
+        service.recordDebit(1L, new BigDecimal("100.00"));
+
+        // Then
+        final var captor = ArgumentCaptor.forClass(AccountDailyActivity.class);
+        verify(activityRepository).save(captor.capture());
+        assertEquals(new BigDecimal("100.00"), captor.getValue().getDebitTotal());
+        assertEquals(1, captor.getValue().getDebitCount());
+        assertEquals(0, captor.getValue().getCreditCount());
+    }
+
+    @Test
+    void checkDailyDebitLimitRejectsWhenExceeded() {
+        // Given
+        final var service = new AccountActivityService(activityRepository, limits(Map.of("USD", "500.00")));
+        givenDebitedToday(1L, "450.00");
+
+        // When & Then
+        assertDoesNotThrow(() -> service.checkDailyDebitLimit(1L, "USD", new BigDecimal("50.00")));
+        assertThrows(IllegalStateException.class, () ->
+                service.checkDailyDebitLimit(1L, "USD", new BigDecimal("50.01")));
+    }
+
+    @Test
+    void checkDailyDebitLimitAppliesTheLimitOfTheAccountCurrency() {
+        // Given - 450 USD and 45,000 JPY debited today, both under a limit in their own currency
+        final var service = new AccountActivityService(activityRepository,
+                limits(Map.of("usd", "500.00", "JPY", "75000")));
+        givenDebitedToday(1L, "450.00");
+        givenDebitedToday(2L, "45000");
+
+        // When & Then
+        assertThrows(IllegalStateException.class, () ->
+                service.checkDailyDebitLimit(1L, "USD", new BigDecimal("100.00")));
+        assertDoesNotThrow(() -> service.checkDailyDebitLimit(2L, "JPY", new BigDecimal("15000")));
+        assertThrows(IllegalStateException.class, () ->
+                service.checkDailyDebitLimit(2L, "JPY", new BigDecimal("30001")));
+    }
+
+    @Test
+    void checkDailyDebitLimitSkippedWhenNotConfigured() {
+        // Given
+        final var service = new AccountActivityService(activityRepository, limits(Map.of("USD", "500.00")));
+
+        // When
+        service.checkDailyDebitLimit(1L, "EUR", new BigDecimal("1000000.00"));
+
+        // Then
+        verify(activityRepository, never()).findByAccountIdAndActivityDate(any(), any());
+    }
+
+    private static LimitProperties limits(Map<String, String> dailyDebitLimit) {
+        final var properties = new LimitProperties();
+        dailyDebitLimit.forEach((currency, limit) ->
+                properties.getDailyDebitLimit().put(currency, new BigDecimal(limit)));
+        return properties;
+    }
+
+    private void givenDebitedToday(Long accountId, String debitTotal) {
+        final var activity = AccountDailyActivity.builder()
+                .accountId(accountId)
+                .activityDate(AccountActivityService.today())
+                .debitTotal(new BigDecimal(debitTotal))
+                .build();
+        when(activityRepository.findByAccountIdAndActivityDate(accountId, AccountActivityService.today()))
+                .thenReturn(Optional.of(activity));
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.ledger.service;
+
+import com.example.ledger.cache.AccountCache;
+import com.example.ledger.cache.AccountCacheProperties;
+import com.example.ledger.model.Account;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountBalanceServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+
+    private AccountCache accountCache;
+
+    private AccountBalanceService accountBalanceService;
+
+    @BeforeEach
+    void setUp() {
+        final var dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE accounts (id bigint PRIMARY KEY, balance numeric(38, 2) NOT NULL, currency varchar(3), version bigint)");
+        jdbcTemplate.update("INSERT INTO accounts (id, balance, currency, version) SELECT x, x * 10, 'EUR', x % 3 FROM SYSTEM_RANGE(1, 2500)");
+
+        accountCache = new AccountCache(new AccountCacheProperties(), new SimpleMeterRegistry());
+        accountBalanceService = new AccountBalanceService(jdbcTemplate, new DataSourceTransactionManager(dataSource),
+                accountCache);
+    }
+
+    @Test
+    void readsMissesInChunksAndPrefersCachedSnapshots() {
+        // Given - cached at a newer version than the row
+        accountCache.put(Account.builder().id(7L).balance(new BigDecimal("1.00")).currency("EUR").version(9L).build());
+        final var ids = new ArrayList<>(LongStream.rangeClosed(1, 2500).boxed().toList());
+        ids.add(7L);
+        ids.add(9999L);
+        final var chunks = new ArrayList<List<AccountBalanceService.AccountBalance>>();
+
+        // When
+        final var notFound = accountBalanceService.findBalances(ids, Map.of(), chunks::add);
+
+        // Then - the cached account, then three IN queries
+        assertEquals(List.of(9999L), notFound);
+        assertEquals(List.of(1, 1000, 1000, 499), chunks.stream().map(List::size).toList());
+        assertEquals(new AccountBalanceService.AccountBalance(7L, new BigDecimal("1.00"), "EUR", 9L), chunks.get(0).get(0));
+        assertEquals(new BigDecimal("25000.00"), accountCache.get(2500L).orElseThrow().getBalance());
+    }
+
+    @Test
+    void leavesOutAccountsAtTheKnownVersion() {
+        // Given
+        final var chunks = new ArrayList<List<AccountBalanceService.AccountBalance>>();
+
+        // When
+        final var notFound = accountBalanceService.findBalances(List.of(1L, 2L, 3L), Map.of(1L, 1L, 2L, 0L), chunks::add);
+
+        // Then
+        assertTrue(notFound.isEmpty());
+        assertEquals(List.of(List.of(
+                new AccountBalanceService.AccountBalance(2L, new BigDecimal("20.00"), "EUR", 2L),
+                new AccountBalanceService.AccountBalance(3L, new BigDecimal("30.00"), "EUR", 0L))), chunks);
+    }
+}
@@ -1,22 +1,44 @@
 package com.example.ledger.service;
 
+import com.example.ledger.cache.AccountCache;
+import com.example.ledger.cache.AccountCacheProperties;
+import com.example.ledger.feed.LedgerFeed;
+import com.example.ledger.fx.FxProperties;
+import com.example.ledger.fx.FxRateTable;
+import com.example.ledger.fx.StubFxRateProvider;
+import com.example.ledger.lock.AccountLocker;
 import com.example.ledger.model.Account;
 import com.example.ledger.model.LedgerEntry;
+import com.example.ledger.model.LedgerTransferClaim;
 import com.example.ledger.repository.AccountRepository;
 import com.example.ledger.repository.LedgerEntryRepository;
+import com.example.ledger.repository.LedgerTransferClaimRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,6 +50,26 @@ class LedgerServiceTest {
     @Mock
     private LedgerEntryRepository ledgerEntryRepository;
 
+    @Mock
+    private LedgerTransferClaimRepository ledgerTransferClaimRepository;
+
+    @Mock
+    private LedgerFeed ledgerFeed;
+
+    @Mock
+    private AccountActivityService accountActivityService;
+
+    @Mock
+    private AccountLocker accountLocker;
+
+    @Spy
+    private AccountCache accountCache = new AccountCache(new AccountCacheProperties(), new SimpleMeterRegistry());
+
+    @Spy
+    private FxRateTable fxRateTable = new FxRateTable(new FxProperties(),
+            new StubFxRateProvider(Map.of("EUR", new BigDecimal("0.92"), "JPY", new BigDecimal("151.37"))),
+            new SimpleMeterRegistry());
+
     @InjectMocks
     private LedgerService ledgerService;
 
@@ -54,12 +96,13 @@ class LedgerServiceTest {
         when(accountRepository.save(any(Account.class))).thenReturn(fromAccount);
 
         // When
-        final var result = ledgerService.createAccount(initialBalance);
+        final var result = ledgerService.createAccount(initialBalance, null);
 
         // Then
         assertNotNull(result);
         assertEquals(initialBalance, result.getBalance());
-        verify(accountRepository).save(any(Account.class));
+        verify(accountRepository).save(argThat(account -> "USD".equals(account.getCurrency())));
+        assertThrows(IllegalArgumentException.class, () -> ledgerService.createAccount(initialBalance, "XAU"));
     }
 
     @Test
@@ -89,6 +132,27 @@ class LedgerServiceTest {
         assertTrue(result.isEmpty());
     }
 
+    @Test
+    void getAccount_ShouldServeRepeatedReadsFromCacheUntilATransferChangesIt() {
+        // Given
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(fromAccount));
+        when(ledgerEntryRepository.existsByTransferId("transfer-123")).thenReturn(false);
+        givenLockableAccounts(fromAccount, toAccount);
+
+        // When
+        ledgerService.getAccount(1L);
+        final var cached = ledgerService.getAccount(1L);
+        fromAccount.setVersion(2L);
+        ledgerService.applyTransfer("transfer-123", 1L, 2L, new BigDecimal("100.00"));
+        final var afterTransfer = ledgerService.getAccount(1L);
+
+        // Then
+        verify(accountRepository, times(1)).findById(1L);
+        assertEquals(new BigDecimal("1000.00"), cached.get().getBalance());
+        assertEquals(new BigDecimal("900.00"), afterTransfer.get().getBalance());
+        assertEquals(2L, afterTransfer.get().getVersion());
+    }
+
     @Test
     void applyTransfer_ShouldProcessTransferSuccessfully() {
         // Given
@@ -96,7 +160,7 @@ class LedgerServiceTest {
         final var amount = new BigDecimal("100.00");
         
         when(ledgerEntryRepository.existsByTransferId(transferId)).thenReturn(false);
-        when(accountRepository.findByIdsForUpdate(List.of(1L, 2L))).thenReturn(List.of(fromAccount, toAccount));
+        givenLockableAccounts(fromAccount, toAccount);
         when(accountRepository.save(any(Account.class))).thenReturn(fromAccount, toAccount);
         when(ledgerEntryRepository.save(any(LedgerEntry.class))).thenReturn(new LedgerEntry());
 
@@ -106,7 +170,36 @@ class LedgerServiceTest {
         // Then
         assertTrue(result);
         verify(ledgerEntryRepository, times(2)).save(any(LedgerEntry.class));
+        verify(ledgerTransferClaimRepository).save(argThat(claim -> transferId.equals(claim.getTransferId())));
         verify(accountRepository, times(2)).save(any(Account.class));
+        verify(ledgerFeed).publishAfterCommit(anyList());
+        verify(accountActivityService).recordDebit(1L, amount);
+        verify(accountActivityService).recordCredit(2L, amount);
+    }
+
+    @Test
+    void applyTransfer_ShouldCreditConvertedAmountAndRecordTheRateOnBothEntries() {
+        // Given
+        fromAccount.setCurrency("USD");
+        toAccount.setCurrency("EUR");
+        when(ledgerEntryRepository.existsByTransferId("fx-123")).thenReturn(false);
+        givenLockableAccounts(fromAccount, toAccount);
+        final var entries = ArgumentCaptor.forClass(LedgerEntry.class);
+
+        // When
+        ledgerService.applyTransfer("fx-123", 1L, 2L, new BigDecimal("100.00"));
+
+        // Then
+        verify(ledgerEntryRepository, times(2)).save(entries.capture());
+        assertEquals(new BigDecimal("900.00"), fromAccount.getBalance());
+        assertEquals(new BigDecimal("592.00"), toAccount.getBalance());
+        assertEquals(List.of(new BigDecimal("100.00"), new BigDecimal("92.00")),
+                entries.getAllValues().stream().map(LedgerEntry::getAmount).toList());
+        for (final var entry : entries.getAllValues()) {
+            assertEquals(0, new BigDecimal("0.92").compareTo(entry.getFxRate()));
+            assertEquals(fxRateTable.current().getVersion(), entry.getFxRateVersion());
+        }
+        verify(accountActivityService).recordCredit(2L, new BigDecimal("92.00"));
     }
 
     @Test
@@ -123,6 +216,23 @@ class LedgerServiceTest {
         verify(accountRepository, never()).findById(any());
     }
 
+    @Test
+    void applyTransfer_ShouldReturnTrueWhenAConcurrentApplyCommittedWhileWaitingForTheLocks() {
+        // Given - no entries before locking, the other request's entries once the locks are held
+        final var transferId = "transfer-123";
+        when(ledgerEntryRepository.existsByTransferId(transferId)).thenReturn(false, true);
+        givenLockableAccounts(fromAccount, toAccount);
+
+        // When
+        final var result = ledgerService.applyTransfer(transferId, 1L, 2L, new BigDecimal("100.00"));
+
+        // Then
+        assertTrue(result);
+        assertEquals(new BigDecimal("1000.00"), fromAccount.getBalance());
+        verify(ledgerEntryRepository, never()).save(any(LedgerEntry.class));
+        verify(ledgerTransferClaimRepository, never()).save(any(LedgerTransferClaim.class));
+    }
+
     @Test
     void applyTransferExceptionInsufficientFunds() {
         // Given
@@ -132,7 +242,7 @@ class LedgerServiceTest {
         final var amount = new BigDecimal("2000.00");
         
         when(ledgerEntryRepository.existsByTransferId(transferId)).thenReturn(false);
-        when(accountRepository.findByIdsForUpdate(List.of(1L, 2L))).thenReturn(List.of(fromAccount, toAccount));
+        givenLockableAccounts(fromAccount, toAccount);
 
         // When & Then
         assertThrows(IllegalStateException.class, () ->
@@ -149,4 +259,136 @@ class LedgerServiceTest {
         assertThrows(IllegalArgumentException.class, () -> 
             ledgerService.applyTransfer(transferId, 1L, 2L, amount));
     }
+
+    @Test
+    void applyMultiLegTransfer_ShouldLockAllAccountsAndWriteEntriesInOneBatch() {
+        // Given
+        final var transferId = "split-123";
+        final var feeAccount = Account.builder().id(3L).balance(BigDecimal.ZERO).build();
+        final var legs = List.of(
+                new LedgerService.TransferLeg(3L, LedgerEntry.EntryType.CREDIT, new BigDecimal("10.00")),
+                new LedgerService.TransferLeg(1L, LedgerEntry.EntryType.DEBIT, new BigDecimal("100.00")),
+                new LedgerService.TransferLeg(2L, LedgerEntry.EntryType.CREDIT, new BigDecimal("90.00")));
+
+        when(ledgerEntryRepository.existsByTransferId(transferId)).thenReturn(false);
+        givenLockableAccounts(fromAccount, toAccount, feeAccount);
+
+        // When
+        final var result = ledgerService.applyMultiLegTransfer(transferId, legs);
+
+        // Then
+        assertTrue(result);
+        assertEquals(new BigDecimal("900.00"), fromAccount.getBalance());
+        assertEquals(new BigDecimal("590.00"), toAccount.getBalance());
+        assertEquals(new BigDecimal("10.00"), feeAccount.getBalance());
+        verify(ledgerEntryRepository).saveAll(argThat(entries -> ((List<?>) entries).size() == 3));
+        verify(ledgerEntryRepository, never()).save(any(LedgerEntry.class));
+        verify(accountActivityService).recordDebit(1L, new BigDecimal("100.00"));
+        verify(accountActivityService).recordCredit(3L, new BigDecimal("10.00"));
+        verify(ledgerFeed).publishAfterCommit(anyList());
+    }
+
+    @Test
+    void applyMultiLegTransferExceptionUnbalancedLegs() {
+        // Given
+        final var legs = List.of(
+                new LedgerService.TransferLeg(1L, LedgerEntry.EntryType.DEBIT, new BigDecimal("100.00")),
+                new LedgerService.TransferLeg(2L, LedgerEntry.EntryType.CREDIT, new BigDecimal("90.00")));
+        when(ledgerEntryRepository.existsByTransferId("split-123")).thenReturn(false);
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () ->
+                ledgerService.applyMultiLegTransfer("split-123", legs));
+        verify(accountLocker, never()).lockInOrder(anyCollection());
+    }
+
+    @Test
+    void applyMultiLegTransferExceptionInsufficientFundsLeavesBalancesUntouched() {
+        // Given
+        final var legs = List.of(
+                new LedgerService.TransferLeg(2L, LedgerEntry.EntryType.CREDIT, new BigDecimal("2000.00")),
+                new LedgerService.TransferLeg(1L, LedgerEntry.EntryType.DEBIT, new BigDecimal("2000.00")));
+        when(ledgerEntryRepository.existsByTransferId("split-123")).thenReturn(false);
+        givenLockableAccounts(fromAccount, toAccount);
+
+        // When & Then
+        assertThrows(IllegalStateException.class, () ->
+                ledgerService.applyMultiLegTransfer("split-123", legs));
+        assertEquals(new BigDecimal("500.00"), toAccount.getBalance());
+        verify(ledgerEntryRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void applyMultiLegTransferExceptionMixedCurrencies() {
+        // Given
+        toAccount.setCurrency("EUR");
+        final var legs = List.of(
+                new LedgerService.TransferLeg(1L, LedgerEntry.EntryType.DEBIT, new BigDecimal("100.00")),
+                new LedgerService.TransferLeg(2L, LedgerEntry.EntryType.CREDIT, new BigDecimal("100.00")));
+        when(ledgerEntryRepository.existsByTransferId("split-123")).thenReturn(false);
+        givenLockableAccounts(fromAccount, toAccount);
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () ->
+                ledgerService.applyMultiLegTransfer("split-123", legs));
+        assertEquals(new BigDecimal("1000.00"), fromAccount.getBalance());
+    }
+
+    @Test
+    void getAppliedTransfers_ShouldFindTransfersOfArchivedMonthsByTheirClaim() {
+        // Given - t-archived's month was archived, so only its claim is left
+        final var liveAt = OffsetDateTime.parse("2025-03-02T10:00:00Z");
+        final var archivedAt = OffsetDateTime.parse("2025-01-15T09:30:00Z");
+        when(ledgerEntryRepository.findAppliedTransfers(List.of("t-live", "t-archived", "t-unknown")))
+                .thenReturn(List.of(appliedTransfer("t-live", liveAt)));
+        when(ledgerTransferClaimRepository.findAllById(List.of("t-archived", "t-unknown")))
+                .thenReturn(List.of(new LedgerTransferClaim("t-archived", archivedAt)));
+
+        // When
+        final var applied = ledgerService.getAppliedTransfers(List.of("t-live", "t-archived", "t-unknown"));
+
+        // Then
+        assertEquals(Map.of("t-live", liveAt, "t-archived", archivedAt), applied);
+    }
+
+    @Test
+    void getAppliedTransfers_ShouldNotReadClaimsWhenAllEntriesAreFound() {
+        // Given
+        final var appliedAt = OffsetDateTime.parse("2025-03-02T10:00:00Z");
+        when(ledgerEntryRepository.findAppliedTransfers(List.of("t-live")))
+                .thenReturn(List.of(appliedTransfer("t-live", appliedAt)));
+
+        // When
+        final var applied = ledgerService.getAppliedTransfers(List.of("t-live"));
+
+        // Then
+        assertEquals(Map.of("t-live", appliedAt), applied);
+        verifyNoInteractions(ledgerTransferClaimRepository);
+    }
+
+    private static LedgerEntryRepository.AppliedTransfer appliedTransfer(String transferId, OffsetDateTime appliedAt) {
+        return new LedgerEntryRepository.AppliedTransfer() {
+            @Override
+            public String getTransferId() {
+                return transferId;
+            }
+
+            @Override
+            public OffsetDateTime getAppliedAt() {
+                return appliedAt;
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenLockableAccounts(Account... accounts) {
+        final var byId = Arrays.stream(accounts).collect(Collectors.toMap(Account::getId, Function.identity()));
+        when(accountLocker.lockInOrder(anyCollection())).thenAnswer(invocation ->
+                ((Collection<Long>) invocation.getArgument(0)).stream()
+                        .distinct()
+                        .sorted()
+                        .map(byId::get)
+                        .filter(Objects::nonNull)
+                        .toList());
+    }
 }
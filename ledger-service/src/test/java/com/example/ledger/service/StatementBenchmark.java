@@ -0,0 +1,152 @@
+package com.example.ledger.service;
+
+import com.example.ledger.LedgerApplication;
+import com.example.ledger.model.LedgerEntry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.springframework.boot.SpringApplication;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Heap allocated per statement row: the entity path statements used to take (a JPQL query for
+ * managed {@link LedgerEntry} entities on a read-only transaction, serialized by Jackson as a
+ * list) against {@link StatementService#streamStatement} writing each row straight to the
+ * output. Starts the ledger application without a web server on an in-memory H2 database:
+ * <pre>
+ * mvn -o -q test-compile org.codehaus.mojo:exec-maven-plugin:3.6.4:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.example.ledger.service.StatementBenchmark -Dexec.args="--rows=200000"
+ * </pre>
+ */
+public class StatementBenchmark {
+
+    private static final long ACCOUNT_ID = 1;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2024, 1, 1);
+
+    public static void main(String[] args) throws Exception {
+        final var options = new HashMap<String, String>();
+        for (final var arg : args) {
+            final var separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        final var rows = Integer.parseInt(options.getOrDefault("rows", "100000"));
+
+        try (var context = SpringApplication.run(LedgerApplication.class,
+                "--spring.main.web-application-type=none",
+                "--spring.datasource.url=jdbc:h2:mem:statement-benchmark;DB_CLOSE_DELAY=-1",
+                "--logging.level.root=WARN")) {
+            final var jdbcTemplate = context.getBean(JdbcTemplate.class);
+            final var entityManager = context.getBean(EntityManager.class);
+            final var objectMapper = context.getBean(ObjectMapper.class);
+            final var statementService = context.getBean(StatementService.class);
+            final var readTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+            readTransaction.setReadOnly(true);
+
+            insert(jdbcTemplate, rows);
+            final var days = (int) Math.ceil(rows / 1000.0);
+            final var to = FIRST_DAY.plusDays(days - 1);
+            System.out.printf("statement of %,d entries over %d days%n", rows, days);
+
+            final Runnable entities = () -> readTransaction.executeWithoutResult(status -> {
+                final var entries = entityManager.createQuery("SELECT e FROM LedgerEntry e WHERE e.accountId = :accountId "
+                                + "AND e.createdAt >= :from AND e.createdAt < :to ORDER BY e.createdAt, e.id", LedgerEntry.class)
+                        .setParameter("accountId", ACCOUNT_ID)
+                        .setParameter("from", FIRST_DAY.atStartOfDay().atOffset(ZoneOffset.UTC))
+                        .setParameter("to", to.plusDays(1).atStartOfDay().atOffset(ZoneOffset.UTC))
+                        .getResultList();
+                try {
+                    objectMapper.writeValue(OutputStream.nullOutputStream(), entries);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            final Runnable streamed = () -> {
+                try (var json = objectMapper.getFactory().createGenerator(OutputStream.nullOutputStream())) {
+                    json.writeStartArray();
+                    statementService.streamStatement(ACCOUNT_ID, FIRST_DAY, to, entry -> {
+                        try {
+                            entry.writeTo(json);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                    json.writeEndArray();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            };
+
+            // untimed rounds so both run JIT-compiled, then alternating, best of each
+            for (int round = 0; round < 3; round++) {
+                entities.run();
+                streamed.run();
+            }
+            final var best = new long[][]{{Long.MAX_VALUE, Long.MAX_VALUE}, {Long.MAX_VALUE, Long.MAX_VALUE}};
+            for (int round = 0; round < 5; round++) {
+                measure(entities, best[0]);
+                measure(streamed, best[1]);
+            }
+            print("JPA entities + Jackson", best[0], rows);
+            print("streamed from JDBC", best[1], rows);
+        }
+    }
+
+    private static void insert(JdbcTemplate jdbcTemplate, int rows) {
+        final var random = ThreadLocalRandom.current();
+        final var batch = new ArrayList<Object[]>();
+        for (long id = 1; id <= rows; id++) {
+            final var hash = new byte[32];
+            random.nextBytes(hash);
+            // a thousand entries a day, every tenth one cross-currency
+            final var createdAt = FIRST_DAY.atStartOfDay().atOffset(ZoneOffset.UTC)
+                    .plusDays((id - 1) / 1000).plusSeconds((id - 1) % 1000 * 60);
+            batch.add(new Object[]{id, "transfer-" + id, ACCOUNT_ID,
+                    BigDecimal.valueOf(random.nextLong(1, 1_000_000), 2), id % 2 == 0 ? "CREDIT" : "DEBIT",
+                    createdAt, id, hash,
+                    id % 10 == 0 ? new BigDecimal("18.250000000000") : null, id % 10 == 0 ? 1L : null});
+            if (batch.size() == 1000) {
+                insertBatch(jdbcTemplate, batch);
+            }
+        }
+        insertBatch(jdbcTemplate, batch);
+    }
+
+    private static void insertBatch(JdbcTemplate jdbcTemplate, ArrayList<Object[]> batch) {
+        jdbcTemplate.batchUpdate("INSERT INTO ledger_entries (id, transfer_id, account_id, amount, type, created_at, "
+                + "chain_sequence, chain_hash, fx_rate, fx_rate_version) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", batch);
+        batch.clear();
+    }
+
+    // keeps the lowest allocation and time seen for a variant: {bytes, nanos}
+    private static void measure(Runnable variant, long[] best) {
+        final var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final var threadId = Thread.currentThread().getId();
+        final var allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        final var start = System.nanoTime();
+        variant.run();
+        final var nanos = System.nanoTime() - start;
+        final var allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        best[0] = Math.min(best[0], allocated);
+        best[1] = Math.min(best[1], nanos);
+    }
+
+    private static void print(String name, long[] best, int rows) {
+        System.out.printf("  %-24s %,8d bytes/row  %,10.0f rows/s%n", name, best[0] / rows, rows / (best[1] / 1e9));
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.ledger.service;
+
+import com.example.ledger.model.LedgerEntry;
+import com.example.ledger.partition.LedgerArchive;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StatementServiceTest {
+
+    private static final OffsetDateTime FEBRUARY = OffsetDateTime.of(2024, 2, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    private static final OffsetDateTime DAY = OffsetDateTime.of(2024, 3, 5, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    // configured like Spring Boot's, which serialized LedgerEntry before statements were streamed
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private JdbcTemplate jdbcTemplate;
+
+    private LedgerArchive ledgerArchive;
+
+    private StatementService statementService;
+
+    @BeforeEach
+    void setUp() {
+        final var dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE ledger_entries (id bigint PRIMARY KEY, transfer_id varchar(255) NOT NULL, "
+                + "account_id bigint NOT NULL, amount numeric(38, 2) NOT NULL, type varchar(10) NOT NULL, "
+                + "created_at timestamp(6) with time zone NOT NULL, chain_sequence bigint, chain_hash varbinary(32), "
+                + "fx_rate numeric(24, 12), fx_rate_version bigint)");
+
+        ledgerArchive = mock(LedgerArchive.class);
+        statementService = new StatementService(jdbcTemplate, new DataSourceTransactionManager(dataSource),
+                ledgerArchive);
+    }
+
+    @Test
+    void writesArchivedMonthsThenLiveEntriesAsTheEntityJson() throws Exception {
+        // Given - February archived but its partition not dropped yet, one entry on another
+        // account, one a day late
+        final var archived = entry(1L, 7L, FEBRUARY.plusHours(2), new byte[]{4, 5}, null);
+        final var live = List.of(
+                archived,
+                entry(2L, 7L, DAY.plusHours(1), null, null),
+                entry(3L, 7L, DAY.plusHours(3), new byte[]{1, 2, 3}, new BigDecimal("1.250000000000")),
+                entry(4L, 8L, DAY.plusHours(2), null, null),
+                entry(5L, 7L, DAY.plusDays(1), null, null));
+        for (final var entry : live) {
+            jdbcTemplate.update("INSERT INTO ledger_entries VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                    entry.getId(), entry.getTransferId(), entry.getAccountId(), entry.getAmount(),
+                    entry.getType().name(), entry.getCreatedAt(), entry.getChainSequence(), entry.getChainHash(),
+                    entry.getFxRate(), entry.getFxRateVersion());
+        }
+        when(ledgerArchive.forEachEntry(eq(7L), any(), any(), any())).thenAnswer(invocation -> {
+            invocation.<Consumer<LedgerEntry>>getArgument(3).accept(archived);
+            return FEBRUARY.plusMonths(1);
+        });
+
+        // When
+        final var out = new ByteArrayOutputStream();
+        try (var json = objectMapper.getFactory().createGenerator(out)) {
+            json.writeStartArray();
+            statementService.streamStatement(7L, LocalDate.of(2024, 2, 1), LocalDate.of(2024, 3, 5), entry -> {
+                try {
+                    entry.writeTo(json);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            json.writeEndArray();
+        }
+
+        // Then
+        final var expected = List.of(archived, live.get(1), live.get(2));
+        assertEquals(objectMapper.readTree(objectMapper.writeValueAsString(expected)), objectMapper.readTree(out.toByteArray()));
+    }
+
+    @Test
+    void rejectsAnEndDateBeforeTheStartDate() {
+        // When / Then
+        assertThrows(IllegalArgumentException.class, () -> statementService.streamStatement(7L,
+                LocalDate.of(2024, 3, 5), LocalDate.of(2024, 3, 4), entry -> fail("nothing to stream")));
+    }
+
+    private static LedgerEntry entry(Long id, Long accountId, OffsetDateTime createdAt, byte[] chainHash, BigDecimal fxRate) {
+        return LedgerEntry.builder()
+                .id(id)
+                .transferId("transfer-" + id)
+                .accountId(accountId)
+                .amount(new BigDecimal("10.50"))
+                .type(id % 2 == 0 ? LedgerEntry.EntryType.CREDIT : LedgerEntry.EntryType.DEBIT)
+                .createdAt(createdAt)
+                .chainSequence(chainHash == null ? null : id)
+                .chainHash(chainHash)
+                .fxRate(fxRate)
+                .fxRateVersion(fxRate == null ? null : 3L)
+                .build();
+    }
+}
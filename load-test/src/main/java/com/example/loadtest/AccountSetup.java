@@ -0,0 +1,62 @@
+package com.example.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Creates the accounts used by synthetic runs through {@code POST /accounts} on the ledger.
+ */
+public class AccountSetup {
+
+    private static final int PARALLELISM = 16;
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final LoadTestOptions options;
+
+    public AccountSetup(HttpClient httpClient, ObjectMapper objectMapper, LoadTestOptions options) {
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.options = options;
+    }
+
+    public long[] createAccounts(int count) throws IOException {
+        final var ids = new long[count];
+        final var body = "{\"initialBalance\":" + options.getInitialBalance() + "}";
+        for (int start = 0; start < count; start += PARALLELISM) {
+            final var futures = new ArrayList<CompletableFuture<HttpResponse<String>>>();
+            for (int i = start; i < Math.min(count, start + PARALLELISM); i++) {
+                final var request = HttpRequest.newBuilder(URI.create(options.getLedgerUrl() + "/accounts"))
+                        .timeout(options.getTimeout())
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body))
+                        .build();
+                futures.add(httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                final var response = futures.get(i).join();
+                if (response.statusCode() != 200) {
+                    throw new IOException("Creating account failed with HTTP " + response.statusCode()
+                            + ": " + response.body());
+                }
+                ids[start + i] = objectMapper.readTree(response.body()).get("id").asLong();
+            }
+        }
+        return ids;
+    }
+
+    public static long[] range(int count) {
+        final var ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = i + 1;
+        }
+        return ids;
+    }
+}
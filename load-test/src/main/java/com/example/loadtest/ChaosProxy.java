@@ -0,0 +1,154 @@
+package com.example.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * HTTP proxy in front of the ledger that transfer-service is pointed at. Each request may be
+ * delayed, answered 503 without being forwarded (the ledger never saw it), or forwarded and then
+ * answered 502 (the ledger applied it, the caller cannot tell). A ledger that is down is answered
+ * 503, as a load balancer would.
+ */
+public class ChaosProxy implements AutoCloseable {
+
+    // set by HttpClient itself, may not be copied
+    private static final Set<String> RESTRICTED_HEADERS = Set.of("connection", "content-length", "expect", "host", "upgrade");
+
+    private final SoakOptions options;
+    private final URI target;
+    private final HttpClient httpClient;
+    private final Map<String, LongAdder> counts = new ConcurrentHashMap<>();
+    private volatile boolean faultsEnabled = true;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public ChaosProxy(SoakOptions options, URI target, HttpClient httpClient) {
+        this.options = options;
+        this.target = target;
+        this.httpClient = httpClient;
+    }
+
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", options.getProxyPort()), 0);
+        executor = Executors.newCachedThreadPool(runnable -> {
+            final var thread = new Thread(runnable, "chaos-proxy");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    // off once the load stops, so the drain measures recovery rather than more faults
+    public void setFaultsEnabled(boolean faultsEnabled) {
+        this.faultsEnabled = faultsEnabled;
+    }
+
+    void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            final var body = exchange.getRequestBody().readAllBytes();
+            final var random = ThreadLocalRandom.current();
+            final var faults = faultsEnabled;
+
+            if (faults && random.nextDouble() < options.getLatencyRate()) {
+                count("delayed");
+                try {
+                    Thread.sleep(options.getLatency().toMillis());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            if (faults && random.nextDouble() < options.getErrorRate()) {
+                count("rejected");
+                respond(exchange, 503, "Injected fault, not forwarded");
+                return;
+            }
+
+            final HttpResponse<byte[]> response;
+            try {
+                response = httpClient.send(forward(exchange, body), HttpResponse.BodyHandlers.ofByteArray());
+            } catch (IOException e) {
+                count("unavailable");
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                respond(exchange, 503, "Ledger unavailable: " + e.getClass().getSimpleName());
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            count("forwarded");
+
+            if (faults && random.nextDouble() < options.getLostResponseRate()) {
+                count("lost");
+                respond(exchange, 502, "Injected fault, response lost");
+                return;
+            }
+            response.headers().firstValue("Content-Type")
+                    .ifPresent(value -> exchange.getResponseHeaders().set("Content-Type", value));
+            response.headers().firstValue("Retry-After")
+                    .ifPresent(value -> exchange.getResponseHeaders().set("Retry-After", value));
+            final var responseBody = response.body();
+            exchange.sendResponseHeaders(response.statusCode(), responseBody.length == 0 ? -1 : responseBody.length);
+            exchange.getResponseBody().write(responseBody);
+        }
+    }
+
+    private HttpRequest forward(HttpExchange exchange, byte[] body) {
+        final var builder = HttpRequest.newBuilder(target.resolve(exchange.getRequestURI().toString()))
+                .timeout(Duration.ofSeconds(30))
+                .method(exchange.getRequestMethod(), body.length == 0
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofByteArray(body));
+        exchange.getRequestHeaders().forEach((name, values) -> {
+            if (!RESTRICTED_HEADERS.contains(name.toLowerCase())) {
+                values.forEach(value -> builder.header(name, value));
+            }
+        });
+        return builder.build();
+    }
+
+    private static void respond(HttpExchange exchange, int status, String message) throws IOException {
+        final var bytes = message.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private void count(String outcome) {
+        counts.computeIfAbsent(outcome, o -> new LongAdder()).increment();
+    }
+
+    // forwarded, delayed, rejected, lost and unavailable requests so far
+    public Map<String, Long> getCounts() {
+        final var snapshot = new TreeMap<String, Long>();
+        counts.forEach((outcome, count) -> snapshot.put(outcome, count.sum()));
+        return snapshot;
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,402 @@
+package com.example.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Value;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Follows every {@code POST /transfers} of a soak run and, once the load has stopped, checks what
+ * the services ended up with:
+ * <ul>
+ *   <li>no idempotency key created more than one transfer;</li>
+ *   <li>every transfer settles within the drain timeout: COMPLETED and applied by the ledger, or
+ *   FAILED and not applied. PENDING and ambiguous records are left to transfer-service's recovery;</li>
+ *   <li>money is conserved: the accounts hold what they started with in total, and each holds
+ *   exactly its opening balance plus the transfers the ledger applied, once each;</li>
+ *   <li>every account's hash chain verifies.</li>
+ * </ul>
+ * Requests whose outcome the client never learned (timeouts, 5xx, a killed service) are first
+ * resent with the same key, as a client would, so their transfer is found or created.
+ */
+public class ConsistencyChecker implements OpenLoopRunner.ResponseListener {
+
+    private static final int PARALLELISM = 16;
+    // POST /ledger/transfers/status takes at most this many ids
+    private static final int STATUS_BATCH = 500;
+    private static final int RESUBMIT_ROUNDS = 30;
+    private static final int EXAMPLES = 3;
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final LoadTestOptions options;
+    private final long[] accountIds;
+    private final PrintStream out;
+    private final Map<String, Submitted> submitted = new ConcurrentHashMap<>();
+
+    public ConsistencyChecker(HttpClient httpClient, ObjectMapper objectMapper, LoadTestOptions options,
+                              long[] accountIds, PrintStream out) {
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.options = options;
+        this.accountIds = accountIds;
+        this.out = out;
+    }
+
+    @Override
+    public void onResponse(LoadRequest request, HttpResponse<String> response, Throwable failure) {
+        if (request.getIdempotencyKey() == null) {
+            return;
+        }
+        if (response != null && response.statusCode() / 100 == 2) {
+            record(request, transferId(response.body()), false);
+        } else {
+            // a 4xx was turned away before anything was stored, anything else may have created a transfer
+            record(request, null, response == null || response.statusCode() >= 500);
+        }
+    }
+
+    void record(LoadRequest request, String transferId, boolean outcomeUnknown) {
+        final var entry = submitted.computeIfAbsent(request.getIdempotencyKey(), key -> new Submitted(request));
+        if (transferId != null) {
+            entry.transferIds.add(transferId);
+        }
+        if (outcomeUnknown) {
+            entry.outcomeUnknown = true;
+        }
+    }
+
+    private String transferId(String body) {
+        try {
+            return objectMapper.readTree(body).path("transferId").asText(null);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    public Result verify(Duration drainTimeout) throws IOException, InterruptedException {
+        final var counts = new LinkedHashMap<String, Long>();
+        final var violations = new ArrayList<String>();
+        counts.put("keys", (long) submitted.size());
+
+        final var unresolved = resubmitUnknown(counts);
+        if (unresolved > 0) {
+            violations.add(unresolved + " requests with an unknown outcome could not be resent, their transfers are not checked");
+        }
+
+        final var duplicateKeys = submitted.entrySet().stream()
+                .filter(entry -> entry.getValue().transferIds.size() > 1)
+                .map(Map.Entry::getKey)
+                .toList();
+        counts.put("duplicateKeys", (long) duplicateKeys.size());
+        if (!duplicateKeys.isEmpty()) {
+            violations.add(duplicateKeys.size() + " idempotency keys created more than one transfer, e.g. "
+                    + examples(duplicateKeys));
+        }
+
+        final var applied = drain(drainTimeout, counts, violations);
+
+        final var expected = expectedBalances(applied);
+        final var actual = balances();
+        var expectedTotal = BigDecimal.ZERO;
+        var actualTotal = BigDecimal.ZERO;
+        final var mismatched = new ArrayList<String>();
+        for (final var accountId : accountIds) {
+            final var balance = actual.get(accountId);
+            expectedTotal = expectedTotal.add(expected.get(accountId));
+            actualTotal = actualTotal.add(balance != null ? balance : BigDecimal.ZERO);
+            if (balance == null || balance.compareTo(expected.get(accountId)) != 0) {
+                mismatched.add("account " + accountId + " has " + balance + ", expected " + expected.get(accountId));
+            }
+        }
+        counts.put("accountsMismatched", (long) mismatched.size());
+        if (actualTotal.compareTo(expectedTotal) != 0) {
+            violations.add("accounts hold " + actualTotal + " in total, " + expectedTotal + " went in: money was "
+                    + (actualTotal.compareTo(expectedTotal) > 0 ? "created" : "destroyed"));
+        }
+        if (!mismatched.isEmpty()) {
+            violations.add(mismatched.size() + " accounts differ from their opening balance plus applied transfers, e.g. "
+                    + examples(mismatched));
+        }
+
+        final var brokenChains = brokenChains();
+        counts.put("chainsInvalid", (long) brokenChains.size());
+        if (!brokenChains.isEmpty()) {
+            violations.add(brokenChains.size() + " account hash chains do not verify, e.g. accounts " + examples(brokenChains));
+        }
+        return new Result(counts, violations);
+    }
+
+    // resends each request that may or may not have created a transfer until the service answers
+    private long resubmitUnknown(Map<String, Long> counts) throws InterruptedException {
+        var pending = submitted.values().stream()
+                .filter(entry -> entry.outcomeUnknown && entry.transferIds.isEmpty())
+                .toList();
+        counts.put("resubmitted", (long) pending.size());
+        if (!pending.isEmpty()) {
+            out.printf("resending %d requests with an unknown outcome%n", pending.size());
+        }
+        for (int round = 0; round < RESUBMIT_ROUNDS && !pending.isEmpty(); round++) {
+            if (round > 0) {
+                Thread.sleep(1000);
+            }
+            final var requests = pending.stream()
+                    .map(entry -> HttpRequest.newBuilder(URI.create(Endpoint.TRANSFERS.url(options)))
+                            .timeout(options.getTimeout())
+                            .header("Content-Type", "application/json")
+                            .header("Idempotency-Key", entry.request.getIdempotencyKey())
+                            .POST(HttpRequest.BodyPublishers.ofString(entry.request.getBody()))
+                            .build())
+                    .toList();
+            final var responses = sendAll(requests);
+            final var retry = new ArrayList<Submitted>();
+            for (int i = 0; i < pending.size(); i++) {
+                final var response = responses.get(i);
+                if (response == null || response.statusCode() >= 500 || response.statusCode() == 429) {
+                    retry.add(pending.get(i));
+                } else if (response.statusCode() / 100 == 2) {
+                    final var transferId = transferId(response.body());
+                    if (transferId != null) {
+                        pending.get(i).transferIds.add(transferId);
+                    }
+                }
+            }
+            pending = retry;
+        }
+        counts.put("unresolved", (long) pending.size());
+        return pending.size();
+    }
+
+    /**
+     * Polls transfer-service and the ledger until every transfer is settled or the timeout passes,
+     * returns the ids the ledger applied.
+     */
+    private Set<String> drain(Duration timeout, Map<String, Long> counts, List<String> violations)
+            throws IOException, InterruptedException {
+        final var statuses = new HashMap<String, String>();
+        final var applied = new HashSet<String>();
+        final var started = System.nanoTime();
+        final var deadline = started + timeout.toNanos();
+
+        List<String> unsettled = submitted.values().stream()
+                .flatMap(entry -> entry.transferIds.stream())
+                .toList();
+        counts.put("transfers", (long) unsettled.size());
+        while (true) {
+            final var responses = sendAll(unsettled.stream()
+                    .map(transferId -> HttpRequest.newBuilder(URI.create(options.getTransferUrl() + "/transfers/" + transferId))
+                            .timeout(options.getTimeout())
+                            .GET()
+                            .build())
+                    .toList());
+            for (int i = 0; i < unsettled.size(); i++) {
+                final var response = responses.get(i);
+                if (response == null) {
+                    statuses.remove(unsettled.get(i));
+                } else {
+                    statuses.put(unsettled.get(i), response.statusCode() == 404
+                            ? "MISSING"
+                            : objectMapper.readTree(response.body()).path("status").asText());
+                }
+            }
+            applied.addAll(appliedByLedger(unsettled));
+
+            unsettled = unsettled.stream()
+                    .filter(transferId -> !settled(statuses.get(transferId), applied.contains(transferId)))
+                    .toList();
+            if (unsettled.isEmpty() || System.nanoTime() > deadline) {
+                break;
+            }
+            out.printf("draining, %d transfers not settled yet%n", unsettled.size());
+            Thread.sleep(2000);
+        }
+        counts.put("drainMillis", Duration.ofNanos(System.nanoTime() - started).toMillis());
+
+        final var byOutcome = new LinkedHashMap<String, List<String>>();
+        for (final var transferId : statuses.keySet()) {
+            final var status = statuses.get(transferId);
+            final var isApplied = applied.contains(transferId);
+            final String outcome;
+            if (settled(status, isApplied)) {
+                outcome = status.toLowerCase();
+            } else if ("COMPLETED".equals(status)) {
+                outcome = "completedNotApplied";
+            } else if ("FAILED".equals(status)) {
+                outcome = "failedButApplied";
+            } else {
+                outcome = status.toLowerCase();
+            }
+            byOutcome.computeIfAbsent(outcome, o -> new ArrayList<>()).add(transferId);
+        }
+        for (final var outcome : List.of("completed", "failed", "pending", "completedNotApplied", "failedButApplied", "missing")) {
+            counts.put(outcome, (long) byOutcome.getOrDefault(outcome, List.of()).size());
+        }
+        final var unreachable = unsettled.stream().filter(transferId -> !statuses.containsKey(transferId)).toList();
+
+        addViolation(violations, byOutcome.get("pending"), "transfers still PENDING after " + timeout.toSeconds() + "s");
+        addViolation(violations, byOutcome.get("completedNotApplied"), "transfers COMPLETED but not applied by the ledger");
+        addViolation(violations, byOutcome.get("failedButApplied"), "transfers FAILED but applied by the ledger");
+        addViolation(violations, byOutcome.get("missing"), "transfers returned to a client are unknown to transfer-service");
+        addViolation(violations, unreachable, "transfers could not be looked up");
+        return applied;
+    }
+
+    private static boolean settled(String status, boolean applied) {
+        return "COMPLETED".equals(status) && applied || "FAILED".equals(status) && !applied;
+    }
+
+    private Set<String> appliedByLedger(List<String> transferIds) throws IOException, InterruptedException {
+        final var applied = new HashSet<String>();
+        for (int start = 0; start < transferIds.size(); start += STATUS_BATCH) {
+            final var body = objectMapper.createObjectNode();
+            transferIds.subList(start, Math.min(transferIds.size(), start + STATUS_BATCH))
+                    .forEach(body.putArray("transferIds")::add);
+            final var response = post(options.getLedgerUrl() + "/ledger/transfers/status", body.toString());
+            for (final var status : response.path("statuses")) {
+                if (status.path("applied").asBoolean()) {
+                    applied.add(status.path("transferId").asText());
+                }
+            }
+        }
+        return applied;
+    }
+
+    /**
+     * Opening balance plus every applied transfer, each counted once per transfer id, by account.
+     */
+    Map<Long, BigDecimal> expectedBalances(Set<String> applied) throws IOException {
+        final var balances = new HashMap<Long, BigDecimal>();
+        for (final var accountId : accountIds) {
+            balances.put(accountId, BigDecimal.valueOf(options.getInitialBalance()));
+        }
+        for (final var entry : submitted.values()) {
+            final var appliedCount = entry.transferIds.stream().filter(applied::contains).count();
+            if (appliedCount == 0) {
+                continue;
+            }
+            final var body = objectMapper.readTree(entry.request.getBody());
+            final var amount = body.path("amount").decimalValue().multiply(BigDecimal.valueOf(appliedCount));
+            balances.merge(body.path("fromAccountId").asLong(), amount.negate(), BigDecimal::add);
+            balances.merge(body.path("toAccountId").asLong(), amount, BigDecimal::add);
+        }
+        return balances;
+    }
+
+    private Map<Long, BigDecimal> balances() throws IOException, InterruptedException {
+        final var body = objectMapper.createObjectNode();
+        final var ids = body.putArray("accountIds");
+        for (final var accountId : accountIds) {
+            ids.add(accountId);
+        }
+        final var balances = new HashMap<Long, BigDecimal>();
+        for (final var account : post(options.getLedgerUrl() + "/accounts/balances", body.toString()).path("accounts")) {
+            balances.put(account.path("id").asLong(), account.path("balance").decimalValue());
+        }
+        return balances;
+    }
+
+    private List<String> brokenChains() throws InterruptedException {
+        final var responses = sendAll(Arrays.stream(accountIds)
+                .mapToObj(accountId -> HttpRequest.newBuilder(URI.create(options.getLedgerUrl() + "/accounts/" + accountId + "/chain/verify"))
+                        .timeout(Duration.ofMinutes(1))
+                        .GET()
+                        .build())
+                .toList());
+        final var broken = new ArrayList<String>();
+        for (int i = 0; i < accountIds.length; i++) {
+            final var response = responses.get(i);
+            if (response == null || response.statusCode() != 200 || !readTree(response.body()).path("valid").asBoolean()) {
+                broken.add(Long.toString(accountIds[i]));
+            }
+        }
+        return broken;
+    }
+
+    private JsonNode post(String url, String body) throws IOException, InterruptedException {
+        final var request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofMinutes(1))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        final var response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IOException(url + " failed with HTTP " + response.statusCode() + ": " + response.body());
+        }
+        return objectMapper.readTree(response.body());
+    }
+
+    // PARALLELISM requests at a time, results in request order, null where the request failed
+    private List<HttpResponse<String>> sendAll(List<HttpRequest> requests) throws InterruptedException {
+        final var responses = new ArrayList<HttpResponse<String>>(requests.size());
+        for (int start = 0; start < requests.size(); start += PARALLELISM) {
+            final var futures = requests.subList(start, Math.min(requests.size(), start + PARALLELISM)).stream()
+                    .map(request -> httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                            .exceptionally(failure -> null))
+                    .toList();
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+            futures.forEach(future -> responses.add(future.join()));
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+        return responses;
+    }
+
+    private JsonNode readTree(String body) {
+        try {
+            return objectMapper.readTree(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void addViolation(List<String> violations, List<String> ids, String message) {
+        if (ids != null && !ids.isEmpty()) {
+            violations.add(ids.size() + " " + message + ", e.g. " + examples(ids));
+        }
+    }
+
+    private static String examples(List<String> items) {
+        return String.join(", ", items.subList(0, Math.min(EXAMPLES, items.size())));
+    }
+
+    private static class Submitted {
+        private final LoadRequest request;
+        private final Set<String> transferIds = ConcurrentHashMap.newKeySet();
+        // a send failed in a way that may have created the transfer without telling us
+        private volatile boolean outcomeUnknown;
+
+        Submitted(LoadRequest request) {
+            this.request = request;
+        }
+    }
+
+    @Value
+    public static class Result {
+        Map<String, Long> counts;
+        List<String> violations;
+
+        public boolean passed() {
+            return violations.isEmpty();
+        }
+    }
+}
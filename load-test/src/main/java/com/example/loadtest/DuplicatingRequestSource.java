@@ -0,0 +1,42 @@
+package com.example.loadtest;
+
+import java.util.SplittableRandom;
+
+/**
+ * Resends a share of recent requests with their original idempotency key and body, the way a
+ * client retries after a lost response. Each must come back as the transfer the first send
+ * created, never as a second one.
+ */
+public class DuplicatingRequestSource implements RequestSource {
+
+    // how far back a duplicate may reach
+    private static final int WINDOW = 1000;
+
+    private final RequestSource delegate;
+    private final double duplicateRate;
+    private final SplittableRandom random;
+    private final LoadRequest[] recent = new LoadRequest[WINDOW];
+    private long sent;
+    private long duplicates;
+
+    public DuplicatingRequestSource(RequestSource delegate, double duplicateRate, long seed) {
+        this.delegate = delegate;
+        this.duplicateRate = duplicateRate;
+        this.random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public LoadRequest next(long sequence) {
+        if (sent > 0 && random.nextDouble() < duplicateRate) {
+            duplicates++;
+            return recent[random.nextInt((int) Math.min(sent, WINDOW))];
+        }
+        final var request = delegate.next(sequence);
+        recent[(int) (sent++ % WINDOW)] = request;
+        return request;
+    }
+
+    public long getDuplicates() {
+        return duplicates;
+    }
+}
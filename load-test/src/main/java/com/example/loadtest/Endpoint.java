@@ -0,0 +1,30 @@
+package com.example.loadtest;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Arrays;
+
+@Getter
+@AllArgsConstructor
+public enum Endpoint {
+    TRANSFERS("transfers", "/transfers", false),
+    BATCH("batch", "/transfers/batch", false),
+    LEDGER("ledger", "/ledger/transfer", true);
+
+    private final String name;
+    private final String path;
+    private final boolean ledger;
+
+    public String url(LoadTestOptions options) {
+        return (ledger ? options.getLedgerUrl() : options.getTransferUrl()) + path;
+    }
+
+    public static Endpoint fromName(String name) {
+        return Arrays.stream(values())
+                .filter(endpoint -> endpoint.name.equalsIgnoreCase(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown endpoint " + name
+                        + ", expected transfers, batch or ledger"));
+    }
+}
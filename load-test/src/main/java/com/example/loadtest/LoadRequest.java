@@ -0,0 +1,13 @@
+package com.example.loadtest;
+
+import lombok.Value;
+
+/**
+ * One HTTP request to send. {@code idempotencyKey} is only used by {@code POST /transfers}.
+ */
+@Value
+public class LoadRequest {
+    Endpoint endpoint;
+    String body;
+    String idempotencyKey;
+}
@@ -0,0 +1,127 @@
+package com.example.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+
+/**
+ * Open-loop load generator for {@code POST /transfers}, {@code /transfers/batch} and
+ * {@code /ledger/transfer}. Run {@code java -jar load-test.jar --help} for the options.
+ * {@code java -jar load-test.jar soak ...} runs a {@link SoakTest} instead.
+ *
+ * <p>Exit codes: 0 success, 1 run failed, 2 regression against {@code --baseline}, 3 a soak run
+ * found an inconsistency, 64 bad usage.
+ */
+public class LoadTestApplication {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("soak")) {
+            soak(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length == 1 && (args[0].equals("--help") || args[0].equals("-h"))) {
+            System.out.println(LoadTestOptions.USAGE);
+            return;
+        }
+
+        final LoadTestOptions options;
+        try {
+            options = LoadTestOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(LoadTestOptions.USAGE);
+            System.exit(64);
+            return;
+        }
+
+        try {
+            System.exit(run(options));
+        } catch (IOException e) {
+            System.err.println("Load test failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static void soak(String[] args) throws Exception {
+        if (args.length == 1 && (args[0].equals("--help") || args[0].equals("-h"))) {
+            System.out.println(SoakOptions.USAGE);
+            return;
+        }
+
+        final SoakOptions options;
+        try {
+            options = SoakOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(SoakOptions.USAGE);
+            System.exit(64);
+            return;
+        }
+
+        try {
+            System.exit(new SoakTest(options, System.out).run());
+        } catch (IOException e) {
+            System.err.println("Soak test failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    static int run(LoadTestOptions options) throws IOException, InterruptedException {
+        final var objectMapper = new ObjectMapper();
+        final var httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(options.getTimeout())
+                .build();
+        // keeps idempotency keys and transfer ids unique across runs against the same services
+        final var runId = Long.toString(System.currentTimeMillis(), 36);
+
+        final RequestSource source;
+        if (options.getFile() != null) {
+            final var replay = new NdjsonRequestSource(objectMapper, Path.of(options.getFile()),
+                    options.getEndpoint(), runId);
+            System.out.printf("replaying %d requests from %s%n", replay.size(), options.getFile());
+            source = replay;
+        } else {
+            final long[] accountIds;
+            if (options.getAccounts() > 0) {
+                System.out.printf("creating %d accounts%n", options.getAccounts());
+                accountIds = new AccountSetup(httpClient, objectMapper, options).createAccounts(options.getAccounts());
+            } else {
+                accountIds = AccountSetup.range(options.getAccountRange());
+            }
+            final var synthetic = new SyntheticRequestSource(objectMapper, options, accountIds, runId);
+            final var hot = Math.max(1, accountIds.length / 100);
+            System.out.printf("synthetic %s requests over %d accounts, top %d account(s) send %.1f%% of them%n",
+                    options.getEndpoint().getName(), accountIds.length, hot, synthetic.hotShare(hot) * 100);
+            source = synthetic;
+        }
+
+        System.out.printf("%.1f req/s for %ds after %ds warmup%n", options.getRate(),
+                options.getDuration().toSeconds(), options.getWarmup().toSeconds());
+        final var startedAt = Instant.now();
+        final var result = new OpenLoopRunner(httpClient, options, System.out).run(source);
+
+        final var report = new LoadTestReport(objectMapper);
+        report.print(result, System.out);
+        final var summary = report.toJson(options, result, startedAt);
+        if (options.getOutput() != null && !options.getOutput().isBlank()) {
+            report.write(summary, result, Path.of(options.getOutput()));
+            System.out.println("summary written to " + options.getOutput());
+        }
+
+        if (options.getBaseline() != null) {
+            final var baseline = objectMapper.readTree(Path.of(options.getBaseline()).toFile());
+            final var regressions = report.compare(baseline, summary, options.getMaxRegression(), System.out);
+            if (!regressions.isEmpty()) {
+                System.out.println();
+                regressions.forEach(regression -> System.out.println("REGRESSION: " + regression));
+                return 2;
+            }
+        }
+        return 0;
+    }
+}
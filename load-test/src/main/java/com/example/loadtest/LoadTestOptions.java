@@ -0,0 +1,140 @@
+package com.example.loadtest;
+
+import lombok.Data;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Command line options, given as {@code --name=value}. Defaults drive 50 req/s of synthetic
+ * transfers against a local transfer-service for 30 seconds.
+ */
+@Data
+public class LoadTestOptions {
+
+    static final String USAGE = """
+            usage: java -jar load-test.jar [--option=value ...]
+
+              --endpoint=transfers|batch|ledger   target endpoint for synthetic requests (transfers)
+              --file=requests.ndjson               replay this NDJSON file instead of synthesizing requests
+              --rate=50                            requests per second, open loop
+              --duration=30s                       measured duration
+              --warmup=5s                          run before measuring, results discarded
+              --max-in-flight=1000                 requests beyond this are counted as client-overload
+              --timeout=10s                        per-request timeout
+              --transfer-url=http://localhost:8080
+              --ledger-url=http://localhost:8081
+              --accounts=100                       accounts created before the run (0 = use ids 1..account-range)
+              --account-range=100                  account ids to use when --accounts=0
+              --initial-balance=1000000
+              --zipf-exponent=1.0                  skew of source accounts, 0 = uniform
+              --batch-size=10                      transfers per /transfers/batch request
+              --min-amount=1 --max-amount=100
+              --seed=42
+              --report-interval=5s                 progress line interval, 0 = off
+              --output=load-test-summary.json      JSON summary for comparing runs
+              --baseline=previous-summary.json     compare with an earlier summary
+              --max-regression=0.10                allowed relative p50/p99/p99.9 increase vs baseline
+            """;
+
+    private Endpoint endpoint = Endpoint.TRANSFERS;
+    private String file;
+    private double rate = 50;
+    private Duration duration = Duration.ofSeconds(30);
+    private Duration warmup = Duration.ofSeconds(5);
+    private int maxInFlight = 1000;
+    private Duration timeout = Duration.ofSeconds(10);
+    private String transferUrl = "http://localhost:8080";
+    private String ledgerUrl = "http://localhost:8081";
+    private int accounts = 100;
+    private int accountRange = 100;
+    private long initialBalance = 1_000_000;
+    private double zipfExponent = 1.0;
+    private int batchSize = 10;
+    private long minAmount = 1;
+    private long maxAmount = 100;
+    private long seed = 42;
+    private Duration reportInterval = Duration.ofSeconds(5);
+    private String output = "load-test-summary.json";
+    private String baseline;
+    private double maxRegression = 0.10;
+
+    public static LoadTestOptions parse(String[] args) {
+        final var options = new LoadTestOptions();
+        for (final var arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            final var name = arg.substring(2, arg.indexOf('='));
+            final var value = arg.substring(arg.indexOf('=') + 1);
+            switch (name) {
+                case "endpoint" -> options.endpoint = Endpoint.fromName(value);
+                case "file" -> options.file = value;
+                case "rate" -> options.rate = Double.parseDouble(value);
+                case "duration" -> options.duration = parseDuration(value);
+                case "warmup" -> options.warmup = parseDuration(value);
+                case "max-in-flight" -> options.maxInFlight = Integer.parseInt(value);
+                case "timeout" -> options.timeout = parseDuration(value);
+                case "transfer-url" -> options.transferUrl = value;
+                case "ledger-url" -> options.ledgerUrl = value;
+                case "accounts" -> options.accounts = Integer.parseInt(value);
+                case "account-range" -> options.accountRange = Integer.parseInt(value);
+                case "initial-balance" -> options.initialBalance = Long.parseLong(value);
+                case "zipf-exponent" -> options.zipfExponent = Double.parseDouble(value);
+                case "batch-size" -> options.batchSize = Integer.parseInt(value);
+                case "min-amount" -> options.minAmount = Long.parseLong(value);
+                case "max-amount" -> options.maxAmount = Long.parseLong(value);
+                case "seed" -> options.seed = Long.parseLong(value);
+                case "report-interval" -> options.reportInterval = parseDuration(value);
+                case "output" -> options.output = value;
+                case "baseline" -> options.baseline = value;
+                case "max-regression" -> options.maxRegression = Double.parseDouble(value);
+                default -> throw new IllegalArgumentException("Unknown option --" + name);
+            }
+        }
+        if (options.rate <= 0) {
+            throw new IllegalArgumentException("--rate must be positive");
+        }
+        if (options.batchSize < 1 || options.batchSize > 20) {
+            throw new IllegalArgumentException("--batch-size must be between 1 and 20");
+        }
+        if (options.minAmount <= 0 || options.maxAmount < options.minAmount) {
+            throw new IllegalArgumentException("--min-amount must be positive and not above --max-amount");
+        }
+        return options;
+    }
+
+    // 30s, 500ms, 2m or plain seconds
+    static Duration parseDuration(String value) {
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        if (value.endsWith("s")) {
+            return Duration.ofMillis((long) (Double.parseDouble(value.substring(0, value.length() - 1)) * 1000));
+        }
+        if (value.endsWith("m")) {
+            return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)) * 60);
+        }
+        return Duration.ofMillis((long) (Double.parseDouble(value) * 1000));
+    }
+
+    /**
+     * The options that affect results, written into the summary so two runs can be checked for
+     * comparability.
+     */
+    public Map<String, Object> describe() {
+        final var description = new LinkedHashMap<String, Object>();
+        description.put("source", file != null ? "file:" + file : "synthetic:" + endpoint.getName());
+        description.put("rate", rate);
+        description.put("durationSeconds", duration.toMillis() / 1000.0);
+        description.put("warmupSeconds", warmup.toMillis() / 1000.0);
+        description.put("maxInFlight", maxInFlight);
+        description.put("timeoutMillis", timeout.toMillis());
+        description.put("accounts", accounts > 0 ? accounts : accountRange);
+        description.put("zipfExponent", zipfExponent);
+        description.put("batchSize", batchSize);
+        description.put("seed", seed);
+        return description;
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Renders a result as text and as a JSON summary, and compares a summary against a baseline.
+ * The JSON layout is kept stable ({@code formatVersion}) so summaries from different runs and
+ * commits can be diffed or compared automatically.
+ */
+public class LoadTestReport {
+
+    static final int FORMAT_VERSION = 1;
+    static final String[] COMPARED_PERCENTILES = {"p50", "p99", "p999"};
+
+    private final ObjectMapper objectMapper;
+
+    public LoadTestReport(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public ObjectNode toJson(LoadTestOptions options, LoadTestResult result, Instant startedAt) {
+        final var summary = objectMapper.createObjectNode();
+        summary.put("formatVersion", FORMAT_VERSION);
+        summary.put("startedAt", startedAt.toString());
+        summary.set("options", objectMapper.valueToTree(options.describe()));
+
+        final var requests = summary.putObject("requests");
+        requests.put("scheduled", result.getScheduled());
+        requests.put("completed", result.getCompleted());
+        requests.put("ok", result.getOk());
+        requests.put("abandoned", result.getAbandoned());
+        requests.put("errorRate", round(result.errorRate()));
+        final var errors = requests.putObject("errors");
+        result.getErrors().forEach(errors::put);
+
+        final var throughput = summary.putObject("throughput");
+        throughput.put("offeredPerSecond", round(result.getOfferedRate()));
+        throughput.put("achievedPerSecond", round(result.achievedRate()));
+
+        summary.set("latencyMillis", percentiles(result.getLatency()));
+        summary.set("serviceTimeMillis", percentiles(result.getServiceTime()));
+        summary.set("timeline", objectMapper.valueToTree(result.getTimeline()));
+        return summary;
+    }
+
+    private ObjectNode percentiles(Histogram histogram) {
+        final var node = objectMapper.createObjectNode();
+        node.put("p50", millis(histogram.getValueAtPercentile(50)));
+        node.put("p90", millis(histogram.getValueAtPercentile(90)));
+        node.put("p99", millis(histogram.getValueAtPercentile(99)));
+        node.put("p999", millis(histogram.getValueAtPercentile(99.9)));
+        node.put("max", millis(histogram.getMaxValue()));
+        node.put("mean", round(histogram.getMean() / 1000.0));
+        return node;
+    }
+
+    public void print(LoadTestResult result, PrintStream out) {
+        out.println();
+        out.printf("requests    scheduled %d, completed %d, ok %d, abandoned %d%n",
+                result.getScheduled(), result.getCompleted(), result.getOk(), result.getAbandoned());
+        out.printf("throughput  offered %.1f/s, achieved %.1f/s%n", result.getOfferedRate(), result.achievedRate());
+        out.printf("errors      %d (%.2f%%)%n", result.errorCount(), result.errorRate() * 100);
+        result.getErrors().forEach((type, count) -> out.printf("            %-20s %d%n", type, count));
+        printPercentiles("latency", result.getLatency(), out);
+        printPercentiles("service", result.getServiceTime(), out);
+    }
+
+    private static void printPercentiles(String label, Histogram histogram, PrintStream out) {
+        out.printf("%-11s p50 %.2f ms, p90 %.2f ms, p99 %.2f ms, p99.9 %.2f ms, max %.2f ms%n", label,
+                millis(histogram.getValueAtPercentile(50)),
+                millis(histogram.getValueAtPercentile(90)),
+                millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue()));
+    }
+
+    public void write(ObjectNode summary, LoadTestResult result, Path output) throws IOException {
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(output.toFile(), summary);
+        // full percentile distribution in HdrHistogram's plottable format, in milliseconds
+        final var hgrm = output.resolveSibling(output.getFileName().toString().replaceAll("\\.json$", "") + ".hgrm");
+        try (var stream = new PrintStream(Files.newOutputStream(hgrm))) {
+            result.getLatency().outputPercentileDistribution(stream, 1000.0);
+        }
+    }
+
+    /**
+     * Returns one message per regression: a compared percentile or the error rate got worse by more
+     * than {@code maxRegression}, or achieved throughput dropped by more than that.
+     */
+    public List<String> compare(JsonNode baseline, JsonNode current, double maxRegression, PrintStream out) {
+        final var regressions = new ArrayList<String>();
+        if (!baseline.path("options").equals(current.path("options"))) {
+            out.println("warning: baseline was run with different options, results may not be comparable");
+        }
+
+        out.println();
+        out.printf("%-22s %12s %12s %9s%n", "vs baseline", "baseline", "current", "change");
+        for (final var percentile : COMPARED_PERCENTILES) {
+            final var before = baseline.path("latencyMillis").path(percentile).asDouble();
+            final var after = current.path("latencyMillis").path(percentile).asDouble();
+            final var change = before == 0 ? 0 : (after - before) / before;
+            out.printf("%-22s %12.2f %12.2f %+8.1f%%%n", "latency " + percentile + " (ms)", before, after, change * 100);
+            if (change > maxRegression) {
+                regressions.add(String.format("latency %s went from %.2f ms to %.2f ms", percentile, before, after));
+            }
+        }
+
+        final var throughputBefore = baseline.path("throughput").path("achievedPerSecond").asDouble();
+        final var throughputAfter = current.path("throughput").path("achievedPerSecond").asDouble();
+        final var throughputChange = throughputBefore == 0 ? 0 : (throughputAfter - throughputBefore) / throughputBefore;
+        out.printf("%-22s %12.1f %12.1f %+8.1f%%%n", "throughput (/s)", throughputBefore, throughputAfter,
+                throughputChange * 100);
+        if (throughputChange < -maxRegression) {
+            regressions.add(String.format("throughput went from %.1f/s to %.1f/s", throughputBefore, throughputAfter));
+        }
+
+        final var errorsBefore = baseline.path("requests").path("errorRate").asDouble();
+        final var errorsAfter = current.path("requests").path("errorRate").asDouble();
+        out.printf("%-22s %11.2f%% %11.2f%%%n", "error rate", errorsBefore * 100, errorsAfter * 100);
+        // plus 0.1 percentage points of slack, relative changes on a near-zero error rate are noise
+        if (errorsAfter > errorsBefore * (1 + maxRegression) + 0.001) {
+            regressions.add(String.format("error rate went from %.2f%% to %.2f%%", errorsBefore * 100, errorsAfter * 100));
+        }
+        return regressions;
+    }
+
+    private static double millis(long micros) {
+        return round(micros / 1000.0);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+}
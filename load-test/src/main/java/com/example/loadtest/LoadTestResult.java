@@ -0,0 +1,54 @@
+package com.example.loadtest;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Value;
+import org.HdrHistogram.Histogram;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measured-phase results. Histogram values are in microseconds; {@code latency} is measured from
+ * the scheduled send time, {@code serviceTime} from the actual send time.
+ */
+@Getter
+@AllArgsConstructor
+public class LoadTestResult {
+    private final Histogram latency;
+    private final Histogram serviceTime;
+    private final long scheduled;
+    private final long completed;
+    private final long ok;
+    private final Map<String, Long> errors;
+    private final double durationSeconds;
+    private final double offeredRate;
+    // still outstanding after the drain timeout
+    private final int abandoned;
+    // one point per report interval of the measured phase
+    private final List<Interval> timeline;
+
+    public long errorCount() {
+        return errors.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    public double errorRate() {
+        return scheduled == 0 ? 0 : (double) errorCount() / scheduled;
+    }
+
+    public double achievedRate() {
+        return ok / durationSeconds;
+    }
+
+    @Value
+    public static class Interval {
+        // since the end of the warmup
+        double elapsedSeconds;
+        double requestsPerSecond;
+        double p50Millis;
+        double p99Millis;
+        double maxMillis;
+        long errors;
+        int inFlight;
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replays an NDJSON file, cycling through it when the schedule needs more requests than it holds.
+ * Each line is either {@code {"endpoint": "batch", "body": {...}}} or a bare request body for the
+ * default endpoint. Idempotency keys and ledger transferIds are prefixed with the run id and pass
+ * number, so repeated lines within one pass still exercise the idempotent path but separate runs
+ * and passes don't collide.
+ */
+public class NdjsonRequestSource implements RequestSource {
+
+    private final String runId;
+    private final List<Line> lines;
+
+    public NdjsonRequestSource(ObjectMapper objectMapper, Path file, Endpoint defaultEndpoint, String runId)
+            throws IOException {
+        this.runId = runId;
+        this.lines = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            String text;
+            int lineNumber = 0;
+            while ((text = reader.readLine()) != null) {
+                lineNumber++;
+                if (text.isBlank()) {
+                    continue;
+                }
+                final var node = objectMapper.readTree(text);
+                if (!node.isObject()) {
+                    throw new IOException(file + ":" + lineNumber + " is not a JSON object");
+                }
+                if (node.has("body")) {
+                    final var endpoint = node.has("endpoint")
+                            ? Endpoint.fromName(node.get("endpoint").asText())
+                            : defaultEndpoint;
+                    lines.add(new Line(endpoint, (ObjectNode) node.get("body"), lineNumber));
+                } else {
+                    lines.add(new Line(defaultEndpoint, (ObjectNode) node, lineNumber));
+                }
+            }
+        }
+        if (lines.isEmpty()) {
+            throw new IOException(file + " contains no requests");
+        }
+    }
+
+    public int size() {
+        return lines.size();
+    }
+
+    @Override
+    public LoadRequest next(long sequence) {
+        final var line = lines.get((int) (sequence % lines.size()));
+        final var prefix = runId + "-" + (sequence / lines.size()) + "-";
+        final var body = line.body.deepCopy();
+        return switch (line.endpoint) {
+            case TRANSFERS -> {
+                final var key = body.has("idempotencyKey") ? body.remove("idempotencyKey").asText() : "l" + line.number;
+                yield new LoadRequest(line.endpoint, body.toString(), prefix + key);
+            }
+            case LEDGER -> {
+                body.put("transferId", prefix + text(body.get("transferId"), "l" + line.number));
+                yield new LoadRequest(line.endpoint, body.toString(), null);
+            }
+            case BATCH -> {
+                final var transfers = body.get("transfers");
+                if (transfers != null) {
+                    for (int i = 0; i < transfers.size(); i++) {
+                        final var transfer = (ObjectNode) transfers.get(i);
+                        transfer.put("idempotencyKey",
+                                prefix + text(transfer.get("idempotencyKey"), "l" + line.number + "-" + i));
+                    }
+                }
+                yield new LoadRequest(line.endpoint, body.toString(), null);
+            }
+        };
+    }
+
+    private static String text(JsonNode node, String fallback) {
+        return node != null && !node.isNull() ? node.asText() : fallback;
+    }
+
+    private record Line(Endpoint endpoint, ObjectNode body, int number) {
+    }
+}
@@ -0,0 +1,232 @@
+package com.example.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.PrintStream;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends requests on a fixed schedule regardless of how fast responses come back (open loop).
+ * Latency is measured from the time a request was scheduled to be sent, not when it actually
+ * went out, so a stalled service or a saturated client shows up in the percentiles instead of
+ * silently lowering the request rate (coordinated omission).
+ *
+ * <p>Each report interval is also kept as a point of the result's timeline, so a long run shows
+ * how throughput and latency moved, not just where they ended up.
+ */
+public class OpenLoopRunner {
+
+    // 1 hour in microseconds, 3 significant digits
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.HOURS.toMicros(1);
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final HttpClient httpClient;
+    private final LoadTestOptions options;
+    private final PrintStream out;
+    private final ResponseListener listener;
+
+    private final Recorder latencyRecorder = new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+    private final Recorder serviceTimeRecorder = new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+    private final Histogram latency = new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+    private final Histogram serviceTime = new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder scheduled = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder ok = new LongAdder();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+    private final List<LoadTestResult.Interval> timeline = Collections.synchronizedList(new ArrayList<>());
+
+    public OpenLoopRunner(HttpClient httpClient, LoadTestOptions options, PrintStream out) {
+        this(httpClient, options, out, null);
+    }
+
+    /**
+     * {@code listener}, when not null, sees every response body, warmup included.
+     */
+    public OpenLoopRunner(HttpClient httpClient, LoadTestOptions options, PrintStream out, ResponseListener listener) {
+        this.httpClient = httpClient;
+        this.options = options;
+        this.out = out;
+        this.listener = listener;
+    }
+
+    public LoadTestResult run(RequestSource source) throws InterruptedException {
+        final var nanosPerRequest = TimeUnit.SECONDS.toNanos(1) / options.getRate();
+        final var start = System.nanoTime();
+        final var measureFrom = start + options.getWarmup().toNanos();
+        final var end = measureFrom + options.getDuration().toNanos();
+
+        final var reporter = startReporter(measureFrom);
+        try {
+            for (long sequence = 0; ; sequence++) {
+                final var intended = start + (long) (sequence * nanosPerRequest);
+                if (intended >= end) {
+                    break;
+                }
+                long wait;
+                while ((wait = intended - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                send(source.next(sequence), intended, intended >= measureFrom);
+            }
+
+            // let outstanding requests finish or time out
+            final var drainDeadline = System.nanoTime() + options.getTimeout().toNanos() + TimeUnit.SECONDS.toNanos(1);
+            while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+                Thread.sleep(10);
+            }
+        } finally {
+            if (reporter != null) {
+                reporter.shutdownNow();
+                reporter.awaitTermination(1, TimeUnit.SECONDS);
+            }
+        }
+        collectInterval();
+
+        final var errorCounts = new TreeMap<String, Long>();
+        errors.forEach((type, count) -> errorCounts.put(type, count.sum()));
+        return new LoadTestResult(latency, serviceTime, scheduled.sum(), completed.sum(), ok.sum(), errorCounts,
+                options.getDuration().toNanos() / 1e9, options.getRate(), inFlight.get(), List.copyOf(timeline));
+    }
+
+    private void send(LoadRequest request, long intended, boolean measured) {
+        if (measured) {
+            scheduled.increment();
+        }
+        if (inFlight.get() >= options.getMaxInFlight()) {
+            // the service is so far behind that keeping more requests open would only measure the client
+            if (measured) {
+                error("client_overload");
+            }
+            return;
+        }
+
+        final var builder = HttpRequest.newBuilder(URI.create(request.getEndpoint().url(options)))
+                .timeout(options.getTimeout())
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(request.getBody()));
+        if (request.getIdempotencyKey() != null) {
+            builder.header("Idempotency-Key", request.getIdempotencyKey());
+        }
+
+        inFlight.incrementAndGet();
+        final var sentAt = System.nanoTime();
+        // bodies are only read when someone looks at them
+        final HttpResponse.BodyHandler<String> bodyHandler = listener != null
+                ? HttpResponse.BodyHandlers.ofString()
+                : HttpResponse.BodyHandlers.replacing(null);
+        httpClient.sendAsync(builder.build(), bodyHandler)
+                .whenComplete((response, failure) -> {
+                    final var now = System.nanoTime();
+                    inFlight.decrementAndGet();
+                    if (listener != null) {
+                        listener.onResponse(request, response, failure);
+                    }
+                    if (!measured) {
+                        return;
+                    }
+                    completed.increment();
+                    latencyRecorder.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(now - intended), HIGHEST_TRACKABLE_MICROS));
+                    serviceTimeRecorder.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(now - sentAt), HIGHEST_TRACKABLE_MICROS));
+                    if (failure != null) {
+                        error(classify(failure));
+                    } else if (response.statusCode() / 100 == 2) {
+                        ok.increment();
+                    } else {
+                        error("http_" + response.statusCode());
+                    }
+                });
+    }
+
+    private void error(String type) {
+        errors.computeIfAbsent(type, t -> new LongAdder()).increment();
+    }
+
+    static String classify(Throwable failure) {
+        final var cause = failure instanceof CompletionException && failure.getCause() != null
+                ? failure.getCause()
+                : failure;
+        if (cause instanceof HttpTimeoutException) {
+            return "timeout";
+        }
+        if (cause instanceof ConnectException) {
+            return "connect_error";
+        }
+        return cause.getClass().getSimpleName();
+    }
+
+    private ScheduledExecutorService startReporter(long measureFrom) {
+        if (options.getReportInterval().isZero()) {
+            return null;
+        }
+        final var reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final var thread = new Thread(runnable, "load-test-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final var intervalMillis = options.getReportInterval().toMillis();
+        final var errorsBefore = new long[1];
+        reporter.scheduleAtFixedRate(() -> {
+            if (System.nanoTime() < measureFrom) {
+                out.printf("warming up, in flight %d%n", inFlight.get());
+                return;
+            }
+            final var interval = collectInterval();
+            final var totalErrors = errors.values().stream().mapToLong(LongAdder::sum).sum();
+            final var point = new LoadTestResult.Interval(
+                    Math.round((System.nanoTime() - measureFrom) / 1e6) / 1000.0,
+                    interval.getTotalCount() / (intervalMillis / 1000.0),
+                    interval.getValueAtPercentile(50) / 1000.0,
+                    interval.getValueAtPercentile(99) / 1000.0,
+                    interval.getMaxValue() / 1000.0,
+                    totalErrors - errorsBefore[0],
+                    inFlight.get());
+            errorsBefore[0] = totalErrors;
+            timeline.add(point);
+            out.printf("%7.1f req/s  p50 %8.2f ms  p99 %8.2f ms  max %8.2f ms  in flight %d  errors %d%n",
+                    point.getRequestsPerSecond(),
+                    point.getP50Millis(),
+                    point.getP99Millis(),
+                    point.getMaxMillis(),
+                    point.getInFlight(),
+                    totalErrors);
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        return reporter;
+    }
+
+    // moves what was recorded since the last call into the totals, returns the latency interval
+    private synchronized Histogram collectInterval() {
+        final var interval = latencyRecorder.getIntervalHistogram();
+        latency.add(interval);
+        serviceTime.add(serviceTimeRecorder.getIntervalHistogram());
+        return interval;
+    }
+
+    /**
+     * Sees each completed request: {@code response} is null when the request failed with
+     * {@code failure}. Called on the HTTP client's threads, concurrently.
+     */
+    public interface ResponseListener {
+
+        void onResponse(LoadRequest request, HttpResponse<String> response, Throwable failure);
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.loadtest;
+
+/**
+ * Supplies the request for each slot of the schedule. Only called from the dispatcher thread.
+ */
+public interface RequestSource {
+
+    LoadRequest next(long sequence);
+}
@@ -0,0 +1,95 @@
+package com.example.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One service started from its jar as a child process, output appended to a log file. A restart
+ * kills it without warning (SIGKILL), so nothing gets to finish in-flight work or flush.
+ */
+public class ServiceProcess {
+
+    private static final Duration START_TIMEOUT = Duration.ofMinutes(3);
+
+    private final String name;
+    private final List<String> command;
+    private final Path log;
+    private final URI health;
+    private final HttpClient httpClient;
+    private Process process;
+
+    public ServiceProcess(String name, Path jar, List<String> args, Path log, URI health, HttpClient httpClient) {
+        this.name = name;
+        this.command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-jar");
+        command.add(jar.toString());
+        command.addAll(args);
+        this.log = log;
+        this.health = health;
+        this.httpClient = httpClient;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // returns once the health endpoint answers 200
+    public synchronized void start() throws IOException, InterruptedException {
+        process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.appendTo(log.toFile()))
+                .start();
+        final var deadline = System.nanoTime() + START_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IOException(name + " exited with " + process.exitValue() + ", see " + log);
+            }
+            try {
+                final var request = HttpRequest.newBuilder(health).timeout(Duration.ofSeconds(2)).GET().build();
+                if (httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // not listening yet
+            }
+            Thread.sleep(500);
+        }
+        kill();
+        throw new IOException(name + " did not become healthy within " + START_TIMEOUT.toSeconds() + "s, see " + log);
+    }
+
+    /**
+     * Kills the process and starts it again, returns how long it was down.
+     */
+    public synchronized Duration restart() throws IOException, InterruptedException {
+        final var started = System.nanoTime();
+        kill();
+        start();
+        return Duration.ofNanos(System.nanoTime() - started);
+    }
+
+    public synchronized void kill() throws InterruptedException {
+        if (process != null && process.isAlive()) {
+            process.destroyForcibly().waitFor();
+        }
+    }
+
+    // graceful shutdown, forced after 30 seconds
+    public synchronized void stop() throws InterruptedException {
+        if (process != null && process.isAlive()) {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.loadtest;
+
+import lombok.Data;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Options of {@code load-test.jar soak}. Everything not listed here is a {@link LoadTestOptions}
+ * option and goes to the load generator; the soak defaults are a longer, slower run than a plain
+ * load test.
+ */
+@Data
+public class SoakOptions {
+
+    static final String USAGE = """
+            usage: java -jar load-test.jar soak [--option=value ...] [load test options]
+
+              --start-services=true                start both services from their jars (false = use running ones)
+              --ledger-jar=../ledger-service/target/ledger-service-0.0.1-SNAPSHOT.jar
+              --transfer-jar=../transfer-service/target/transfer-service-0.0.1-SNAPSHOT.jar
+              --work-dir=soak-work                 service logs and H2 database files, wiped at start
+              --ledger-db-url=                     JDBC URL, default a file-based H2 database in --work-dir
+              --transfer-db-url=                   e.g. jdbc:postgresql://localhost:5432/transfers
+              --db-user=sa --db-password=
+              --ledger-port=18081 --transfer-port=18080
+              --proxy-port=18091                   fault-injecting proxy between transfer-service and ledger
+              --latency=200ms --latency-rate=0.1   delay this share of ledger calls by --latency
+              --error-rate=0.02                    answer this share of ledger calls 503 without forwarding
+              --lost-response-rate=0.01            forward, then answer 502 instead of the ledger's response
+              --restart-interval=60s               kill -9 and restart a service this often, 0 = never
+              --restart=ledger,transfer            services restarted, in turn
+              --duplicate-rate=0.05                share of requests that resend a recent idempotency key
+              --drain-timeout=3m                   how long PENDING and ambiguous transfers may take to settle
+
+            load test defaults: --rate=20 --duration=5m --warmup=0s --output=soak-summary.json
+            exit codes: 0 consistent, 1 run failed, 3 a consistency check failed, 64 bad usage
+            """;
+
+    // applied before the user's arguments, which override them
+    private static final List<String> LOAD_DEFAULTS = List.of(
+            "--rate=20", "--duration=5m", "--warmup=0s", "--output=soak-summary.json");
+
+    private boolean startServices = true;
+    private String ledgerJar = "../ledger-service/target/ledger-service-0.0.1-SNAPSHOT.jar";
+    private String transferJar = "../transfer-service/target/transfer-service-0.0.1-SNAPSHOT.jar";
+    private String workDir = "soak-work";
+    private String ledgerDbUrl;
+    private String transferDbUrl;
+    private String dbUser = "sa";
+    private String dbPassword = "";
+    private int ledgerPort = 18081;
+    private int transferPort = 18080;
+    private int proxyPort = 18091;
+    private Duration latency = Duration.ofMillis(200);
+    private double latencyRate = 0.1;
+    private double errorRate = 0.02;
+    private double lostResponseRate = 0.01;
+    private Duration restartInterval = Duration.ofSeconds(60);
+    private List<String> restart = List.of("ledger", "transfer");
+    private double duplicateRate = 0.05;
+    private Duration drainTimeout = Duration.ofMinutes(3);
+    private LoadTestOptions load;
+
+    public static SoakOptions parse(String[] args) {
+        final var options = new SoakOptions();
+        final var loadArgs = new ArrayList<>(LOAD_DEFAULTS);
+        for (final var arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            final var name = arg.substring(2, arg.indexOf('='));
+            final var value = arg.substring(arg.indexOf('=') + 1);
+            switch (name) {
+                case "start-services" -> options.startServices = Boolean.parseBoolean(value);
+                case "ledger-jar" -> options.ledgerJar = value;
+                case "transfer-jar" -> options.transferJar = value;
+                case "work-dir" -> options.workDir = value;
+                case "ledger-db-url" -> options.ledgerDbUrl = value.isBlank() ? null : value;
+                case "transfer-db-url" -> options.transferDbUrl = value.isBlank() ? null : value;
+                case "db-user" -> options.dbUser = value;
+                case "db-password" -> options.dbPassword = value;
+                case "ledger-port" -> options.ledgerPort = Integer.parseInt(value);
+                case "transfer-port" -> options.transferPort = Integer.parseInt(value);
+                case "proxy-port" -> options.proxyPort = Integer.parseInt(value);
+                case "latency" -> options.latency = LoadTestOptions.parseDuration(value);
+                case "latency-rate" -> options.latencyRate = probability(name, value);
+                case "error-rate" -> options.errorRate = probability(name, value);
+                case "lost-response-rate" -> options.lostResponseRate = probability(name, value);
+                case "restart-interval" -> options.restartInterval = LoadTestOptions.parseDuration(value);
+                case "restart" -> options.restart = value.isBlank() ? List.of() : Arrays.asList(value.split(","));
+                case "duplicate-rate" -> options.duplicateRate = probability(name, value);
+                case "drain-timeout" -> options.drainTimeout = LoadTestOptions.parseDuration(value);
+                default -> loadArgs.add(arg);
+            }
+        }
+        for (final var service : options.restart) {
+            if (!service.equals("ledger") && !service.equals("transfer")) {
+                throw new IllegalArgumentException("Unknown service " + service + " in --restart, expected ledger or transfer");
+            }
+        }
+
+        options.load = LoadTestOptions.parse(loadArgs.toArray(String[]::new));
+        if (options.load.getEndpoint() != Endpoint.TRANSFERS || options.load.getFile() != null) {
+            throw new IllegalArgumentException("A soak run drives synthetic POST /transfers requests only");
+        }
+        if (options.load.getAccounts() < 2) {
+            throw new IllegalArgumentException("A soak run creates its own accounts, --accounts must be at least 2");
+        }
+        if (options.startServices) {
+            options.load.setTransferUrl("http://localhost:" + options.transferPort);
+            options.load.setLedgerUrl("http://localhost:" + options.ledgerPort);
+        }
+        return options;
+    }
+
+    private static double probability(String name, String value) {
+        final var probability = Double.parseDouble(value);
+        if (probability < 0 || probability > 1) {
+            throw new IllegalArgumentException("--" + name + " must be between 0 and 1");
+        }
+        return probability;
+    }
+
+    // the faults and restarts, written into the summary next to the load options
+    public Map<String, Object> describe() {
+        final var description = new LinkedHashMap<String, Object>();
+        description.put("latencyMillis", latency.toMillis());
+        description.put("latencyRate", latencyRate);
+        description.put("errorRate", errorRate);
+        description.put("lostResponseRate", lostResponseRate);
+        description.put("restartIntervalSeconds", restartInterval.toMillis() / 1000.0);
+        description.put("restart", startServices ? restart : List.of());
+        description.put("duplicateRate", duplicateRate);
+        description.put("database", ledgerDbUrl != null ? ledgerDbUrl.replaceAll("^jdbc:([^:]+):.*", "$1") : "h2");
+        return description;
+    }
+}
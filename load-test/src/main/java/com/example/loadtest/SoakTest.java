@@ -0,0 +1,197 @@
+package com.example.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Long-running load with faults: starts both services (file-based H2 unless database URLs are
+ * given, so data survives restarts), puts a {@link ChaosProxy} between transfer-service and the
+ * ledger, and drives open-loop transfers, some of them resent with a used idempotency key, while
+ * killing and restarting the services in turn. When the load stops the faults stop too, and
+ * {@link ConsistencyChecker} waits for recovery to settle every transfer before checking the
+ * books. Throughput and latency are reported per interval as usual and kept as a timeline in the
+ * summary.
+ */
+public class SoakTest {
+
+    private final SoakOptions options;
+    private final LoadTestOptions load;
+    private final PrintStream out;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient;
+    private final List<ServiceProcess> services = new ArrayList<>();
+    private final List<String> restarts = new ArrayList<>();
+
+    public SoakTest(SoakOptions options, PrintStream out) {
+        this.options = options;
+        this.load = options.getLoad();
+        this.out = out;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(load.getTimeout())
+                .build();
+    }
+
+    /**
+     * Returns 0 when every check passed, 3 when one failed.
+     */
+    public int run() throws IOException, InterruptedException {
+        final var proxyTarget = URI.create(load.getLedgerUrl());
+        try (var proxy = new ChaosProxy(options, proxyTarget, httpClient)) {
+            proxy.start();
+            out.printf("chaos proxy on :%d -> %s%n", options.getProxyPort(), proxyTarget);
+            if (options.isStartServices()) {
+                startServices();
+            } else {
+                out.printf("using running services, point transfer-service's ledger.service.url at http://localhost:%d%n",
+                        options.getProxyPort());
+            }
+
+            out.printf("creating %d accounts%n", load.getAccounts());
+            final var accountIds = new AccountSetup(httpClient, objectMapper, load).createAccounts(load.getAccounts());
+            final var runId = Long.toString(System.currentTimeMillis(), 36);
+            final var source = new DuplicatingRequestSource(
+                    new SyntheticRequestSource(objectMapper, load, accountIds, runId), options.getDuplicateRate(), load.getSeed());
+            final var checker = new ConsistencyChecker(httpClient, objectMapper, load, accountIds, out);
+
+            out.printf("%.1f req/s for %ds, faults %s%n", load.getRate(), load.getDuration().toSeconds(), options.describe());
+            final var startedAt = Instant.now();
+            final var restarter = startRestarts();
+            final LoadTestResult result;
+            try {
+                result = new OpenLoopRunner(httpClient, load, out, checker).run(source);
+            } finally {
+                if (restarter != null) {
+                    // lets a restart in progress finish, the checks need both services up
+                    restarter.shutdown();
+                    restarter.awaitTermination(5, TimeUnit.MINUTES);
+                }
+            }
+            proxy.setFaultsEnabled(false);
+
+            out.printf("%nload stopped, %d duplicates sent, waiting up to %ds for transfers to settle%n",
+                    source.getDuplicates(), options.getDrainTimeout().toSeconds());
+            final var consistency = checker.verify(options.getDrainTimeout());
+
+            final var report = new LoadTestReport(objectMapper);
+            report.print(result, out);
+            out.printf("proxy       %s%n", proxy.getCounts());
+            out.printf("restarts    %d%n", restarts.size());
+            out.printf("checks      %s%n", consistency.getCounts());
+            consistency.getViolations().forEach(violation -> out.println("VIOLATION: " + violation));
+            out.println(consistency.passed() ? "consistent" : "INCONSISTENT");
+
+            final var summary = report.toJson(load, result, startedAt);
+            final var soak = summary.putObject("soak");
+            soak.set("options", objectMapper.valueToTree(options.describe()));
+            soak.put("duplicatesSent", source.getDuplicates());
+            soak.set("proxy", objectMapper.valueToTree(proxy.getCounts()));
+            soak.set("restarts", objectMapper.valueToTree(restarts));
+            soak.set("checks", objectMapper.valueToTree(consistency.getCounts()));
+            soak.set("violations", objectMapper.valueToTree(consistency.getViolations()));
+            if (load.getOutput() != null && !load.getOutput().isBlank()) {
+                report.write(summary, result, Path.of(load.getOutput()));
+                out.println("summary written to " + load.getOutput());
+            }
+            return consistency.passed() ? 0 : 3;
+        } finally {
+            for (final var service : services) {
+                service.stop();
+            }
+        }
+    }
+
+    private void startServices() throws IOException, InterruptedException {
+        final var workDir = Path.of(options.getWorkDir()).toAbsolutePath();
+        Files.createDirectories(workDir);
+        for (final var name : List.of("ledger", "transfer")) {
+            Files.deleteIfExists(workDir.resolve(name + ".mv.db"));
+            Files.deleteIfExists(workDir.resolve(name + ".trace.db"));
+            Files.deleteIfExists(workDir.resolve(name + "-service.log"));
+        }
+
+        final var ledgerArgs = new ArrayList<String>();
+        ledgerArgs.add("--server.port=" + options.getLedgerPort());
+        ledgerArgs.addAll(datasource(options.getLedgerDbUrl(), workDir.resolve("ledger")));
+        services.add(new ServiceProcess("ledger-service", Path.of(options.getLedgerJar()), ledgerArgs,
+                workDir.resolve("ledger-service.log"),
+                URI.create("http://localhost:" + options.getLedgerPort() + "/actuator/health"), httpClient));
+
+        final var transferArgs = new ArrayList<String>();
+        transferArgs.add("--server.port=" + options.getTransferPort());
+        transferArgs.add("--ledger.service.url=http://localhost:" + options.getProxyPort());
+        transferArgs.addAll(datasource(options.getTransferDbUrl(), workDir.resolve("transfer")));
+        // settle what a kill or a lost response left behind while the run is still going
+        transferArgs.add("--transfer.recovery.interval=PT5S");
+        transferArgs.add("--transfer.recovery.stale-after=15s");
+        services.add(new ServiceProcess("transfer-service", Path.of(options.getTransferJar()), transferArgs,
+                workDir.resolve("transfer-service.log"),
+                URI.create("http://localhost:" + options.getTransferPort() + "/actuator/health"), httpClient));
+
+        for (final var service : services) {
+            out.printf("starting %s%n", service.getName());
+            service.start();
+        }
+    }
+
+    private List<String> datasource(String url, Path h2File) {
+        final var args = new ArrayList<String>();
+        if (url == null) {
+            // WRITE_DELAY=0: a commit reaches the file before it returns, or a kill would lose it
+            args.add("--spring.datasource.url=jdbc:h2:file:" + h2File + ";WRITE_DELAY=0");
+        } else {
+            args.add("--spring.datasource.url=" + url);
+            if (url.startsWith("jdbc:postgresql:")) {
+                args.add("--spring.datasource.driver-class-name=org.postgresql.Driver");
+            }
+        }
+        args.add("--spring.datasource.username=" + options.getDbUser());
+        args.add("--spring.datasource.password=" + options.getDbPassword());
+        return args;
+    }
+
+    private ScheduledExecutorService startRestarts() {
+        if (services.isEmpty() || options.getRestart().isEmpty() || options.getRestartInterval().isZero()) {
+            return null;
+        }
+        final var restarter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final var thread = new Thread(runnable, "soak-restarter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final var next = new AtomicInteger();
+        final var intervalMillis = options.getRestartInterval().toMillis();
+        // fixed delay, a slow restart does not eat into the time the service stays up
+        restarter.scheduleWithFixedDelay(() -> {
+            final var target = options.getRestart().get(next.getAndIncrement() % options.getRestart().size());
+            final var service = services.get(target.equals("ledger") ? 0 : 1);
+            try {
+                out.printf("killing %s%n", service.getName());
+                final Duration downtime = service.restart();
+                out.printf("%s back after %.1fs%n", service.getName(), downtime.toMillis() / 1000.0);
+                synchronized (restarts) {
+                    restarts.add(service.getName());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                out.printf("restarting %s failed: %s%n", service.getName(), e.getMessage());
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        return restarter;
+    }
+}
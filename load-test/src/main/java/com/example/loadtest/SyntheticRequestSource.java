@@ -0,0 +1,71 @@
+package com.example.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.SplittableRandom;
+
+/**
+ * Generates transfers between the given accounts. Source accounts follow a Zipfian distribution
+ * over {@code accountIds} (the first id is the hottest), destinations are uniform.
+ */
+public class SyntheticRequestSource implements RequestSource {
+
+    private final ObjectMapper objectMapper;
+    private final Endpoint endpoint;
+    private final long[] accountIds;
+    private final ZipfianGenerator zipf;
+    private final SplittableRandom random;
+    private final long minAmount;
+    private final long maxAmount;
+    private final int batchSize;
+    private final String runId;
+
+    public SyntheticRequestSource(ObjectMapper objectMapper, LoadTestOptions options, long[] accountIds, String runId) {
+        if (accountIds.length < 2) {
+            throw new IllegalArgumentException("Need at least two accounts");
+        }
+        this.objectMapper = objectMapper;
+        this.endpoint = options.getEndpoint();
+        this.accountIds = accountIds;
+        this.zipf = new ZipfianGenerator(accountIds.length, options.getZipfExponent());
+        this.random = new SplittableRandom(options.getSeed());
+        this.minAmount = options.getMinAmount();
+        this.maxAmount = options.getMaxAmount();
+        this.batchSize = options.getBatchSize();
+        this.runId = runId;
+    }
+
+    public double hotShare(int topAccounts) {
+        return zipf.topShare(topAccounts);
+    }
+
+    @Override
+    public LoadRequest next(long sequence) {
+        final var key = runId + "-" + sequence;
+        return switch (endpoint) {
+            case TRANSFERS -> new LoadRequest(endpoint, transfer().toString(), key);
+            case LEDGER -> new LoadRequest(endpoint, transfer().put("transferId", key).toString(), null);
+            case BATCH -> {
+                final var body = objectMapper.createObjectNode();
+                final var transfers = body.putArray("transfers");
+                for (int i = 0; i < batchSize; i++) {
+                    transfers.add(transfer().put("idempotencyKey", key + "-" + i));
+                }
+                yield new LoadRequest(endpoint, body.toString(), null);
+            }
+        };
+    }
+
+    private ObjectNode transfer() {
+        final var from = zipf.next(random);
+        var to = random.nextInt(accountIds.length - 1);
+        if (to >= from) {
+            to++;
+        }
+        return objectMapper.createObjectNode()
+                .put("fromAccountId", accountIds[from])
+                .put("toAccountId", accountIds[to])
+                .put("amount", minAmount == maxAmount ? minAmount : random.nextLong(minAmount, maxAmount + 1));
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.loadtest;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Draws ranks 0..n-1 where rank k has probability proportional to 1 / (k + 1)^exponent, so rank 0
+ * is the hottest. An exponent of 0 is uniform. Sampling is a binary search over the precomputed
+ * cumulative distribution.
+ */
+public class ZipfianGenerator {
+
+    private final double[] cumulative;
+
+    public ZipfianGenerator(int n, double exponent) {
+        if (n < 1) {
+            throw new IllegalArgumentException("n must be positive");
+        }
+        cumulative = new double[n];
+        double sum = 0;
+        for (int k = 0; k < n; k++) {
+            sum += 1.0 / Math.pow(k + 1, exponent);
+            cumulative[k] = sum;
+        }
+        for (int k = 0; k < n; k++) {
+            cumulative[k] /= sum;
+        }
+    }
+
+    public int next(SplittableRandom random) {
+        final var index = Arrays.binarySearch(cumulative, random.nextDouble());
+        // insertion point for values between two entries
+        return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+    }
+
+    /**
+     * Share of draws that land on the hottest {@code k} ranks.
+     */
+    public double topShare(int k) {
+        return cumulative[Math.min(k, cumulative.length) - 1];
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsistencyCheckerTest {
+
+    @Test
+    void expectedBalancesCountEachAppliedTransferOnce() throws Exception {
+        // Given
+        final var options = new LoadTestOptions();
+        options.setInitialBalance(1000);
+        final var checker = new ConsistencyChecker(null, new ObjectMapper(), options, new long[]{1, 2, 3},
+                new PrintStream(OutputStream.nullOutputStream()));
+        final var first = transfer("a", 1, 2, 10);
+        checker.record(first, "t1", false);
+        // a resend of the same key answered with the same transfer
+        checker.record(first, "t1", false);
+        checker.record(transfer("b", 2, 3, 5), null, true);
+        checker.record(transfer("b", 2, 3, 5), "t2", false);
+        // one key that created two transfers, both applied
+        checker.record(transfer("c", 3, 1, 7), "t3", false);
+        checker.record(transfer("c", 3, 1, 7), "t4", false);
+
+        // When
+        final var balances = checker.expectedBalances(Set.of("t1", "t3", "t4"));
+
+        // Then
+        assertEquals(0, new BigDecimal("1004").compareTo(balances.get(1L)));
+        assertEquals(0, new BigDecimal("1010").compareTo(balances.get(2L)));
+        assertEquals(0, new BigDecimal("986").compareTo(balances.get(3L)));
+    }
+
+    private static LoadRequest transfer(String key, long from, long to, long amount) {
+        return new LoadRequest(Endpoint.TRANSFERS,
+                "{\"fromAccountId\":" + from + ",\"toAccountId\":" + to + ",\"amount\":" + amount + "}", key);
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NdjsonRequestSourceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void replaysLinesWithRunScopedKeys(@TempDir Path dir) throws Exception {
+        // Given
+        final var file = dir.resolve("requests.ndjson");
+        Files.writeString(file, """
+                {"fromAccountId": 1, "toAccountId": 2, "amount": 10, "idempotencyKey": "k1"}
+
+                {"endpoint": "ledger", "body": {"fromAccountId": 2, "toAccountId": 1, "amount": 5}}
+                """);
+        final var source = new NdjsonRequestSource(objectMapper, file, Endpoint.TRANSFERS, "run");
+
+        // When
+        final var first = source.next(0);
+        final var ledger = source.next(1);
+        final var secondPass = source.next(2);
+
+        // Then
+        assertEquals(2, source.size());
+        assertEquals(Endpoint.TRANSFERS, first.getEndpoint());
+        assertEquals("run-0-k1", first.getIdempotencyKey());
+        assertFalse(first.getBody().contains("idempotencyKey"));
+        assertEquals(Endpoint.LEDGER, ledger.getEndpoint());
+        assertEquals("run-0-l3", objectMapper.readTree(ledger.getBody()).get("transferId").asText());
+        assertEquals("run-1-k1", secondPass.getIdempotencyKey());
+    }
+}
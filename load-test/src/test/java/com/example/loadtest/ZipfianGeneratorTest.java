@@ -0,0 +1,46 @@
+package com.example.loadtest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ZipfianGeneratorTest {
+
+    @Test
+    void hottestRanksGetTheirZipfianShare() {
+        // Given
+        final var zipf = new ZipfianGenerator(100, 1.0);
+        final var random = new SplittableRandom(42);
+        final var counts = new int[100];
+
+        // When
+        for (int i = 0; i < 100_000; i++) {
+            counts[zipf.next(random)]++;
+        }
+
+        // Then - rank 0 gets 1/H(100) ~ 19.3%, rank 1 half of that
+        assertEquals(0.193, counts[0] / 100_000.0, 0.01);
+        assertEquals(0.0965, counts[1] / 100_000.0, 0.01);
+        assertEquals(0.193, zipf.topShare(1), 0.001);
+    }
+
+    @Test
+    void exponentZeroIsUniform() {
+        // Given
+        final var zipf = new ZipfianGenerator(10, 0.0);
+        final var random = new SplittableRandom(7);
+        final var counts = new int[10];
+
+        // When
+        for (int i = 0; i < 100_000; i++) {
+            counts[zipf.next(random)]++;
+        }
+
+        // Then
+        for (final var count : counts) {
+            assertEquals(0.1, count / 100_000.0, 0.01);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+#!/bin/bash
+
+# Servlet vs reactive benchmark: runs the same open-loop load against transfer-service and
+# transfer-service-reactive, each with a fresh ledger-service, and compares latency, threads
+# and memory.
+#
+#   ./reactive-benchmark.sh [rate] [duration] [endpoint]
+#
+# rate       requests per second (default 500)
+# duration   measured duration, load-test format (default 60s)
+# endpoint   transfers or batch (default transfers)
+#
+# Needs the three service jars and the load-test jar (mvn package -DskipTests in each module).
+# Ports 8080 and 8081 must be free. Uses the default (in-memory H2) configuration. Peak thread
+# count and RSS are sampled from /proc once a second, so this runs on Linux only.
+
+set -e
+
+RATE=${1:-500}
+DURATION=${2:-60s}
+ENDPOINT=${3:-transfers}
+ROOT=$(cd "$(dirname "$0")" && pwd)
+LOG_DIR=${LOG_DIR:-${TMPDIR:-/tmp}/reactive-benchmark}
+mkdir -p "$LOG_DIR"
+
+LOAD_TEST_JAR="$ROOT/load-test/target/load-test-0.0.1-SNAPSHOT.jar"
+for jar in "$ROOT/ledger-service/target/ledger-service-0.0.1-SNAPSHOT.jar" \
+           "$ROOT/transfer-service/target/transfer-service-0.0.1-SNAPSHOT.jar" \
+           "$ROOT/transfer-service-reactive/target/transfer-service-reactive-0.0.1-SNAPSHOT.jar" \
+           "$LOAD_TEST_JAR"; do
+    if [ ! -f "$jar" ]; then
+        echo "Missing $jar, run mvn package -DskipTests in its module"
+        exit 1
+    fi
+done
+
+LEDGER_PID=""
+TRANSFER_PID=""
+SAMPLER_PID=""
+
+stop_services() {
+    kill $SAMPLER_PID $TRANSFER_PID $LEDGER_PID 2>/dev/null || true
+    wait $SAMPLER_PID $TRANSFER_PID $LEDGER_PID 2>/dev/null || true
+    LEDGER_PID=""
+    TRANSFER_PID=""
+    SAMPLER_PID=""
+}
+trap stop_services EXIT
+
+wait_healthy() {
+    local port=$1
+    for _ in $(seq 1 120); do
+        curl -sf "localhost:$port/actuator/health" > /dev/null 2>&1 && return 0
+        sleep 0.5
+    done
+    echo "Service on port $port did not start within 60s, see $LOG_DIR"
+    exit 1
+}
+
+# "threads rss_kb" of a process
+proc_stats() {
+    awk '/^Threads:/ {threads = $2} /^VmRSS:/ {rss = $2} END {print threads, rss}' "/proc/$1/status"
+}
+
+# one proc_stats line per second until the process exits
+sample() {
+    while [ -r "/proc/$1/status" ]; do
+        proc_stats "$1" || true
+        sleep 1
+    done
+}
+
+run() {
+    local name=$1
+    local module=$2
+    shift 2
+
+    java -jar "$ROOT/ledger-service/target/ledger-service-0.0.1-SNAPSHOT.jar" > "$LOG_DIR/ledger-$name.log" 2>&1 &
+    LEDGER_PID=$!
+    wait_healthy 8081
+    java -jar "$ROOT/$module/target/$module-0.0.1-SNAPSHOT.jar" > "$LOG_DIR/$name.log" 2>&1 &
+    TRANSFER_PID=$!
+    wait_healthy 8080
+
+    local idle
+    idle=$(proc_stats "$TRANSFER_PID")
+    sample "$TRANSFER_PID" > "$LOG_DIR/$name.proc" &
+    SAMPLER_PID=$!
+
+    echo "=== $name ($module) ==="
+    java -jar "$LOAD_TEST_JAR" --endpoint="$ENDPOINT" --rate="$RATE" --duration="$DURATION" \
+        --report-interval=0 --output="$LOG_DIR/$name.json" "$@" || true
+
+    PEAK_THREADS=$(sort -n -k1 "$LOG_DIR/$name.proc" | tail -1 | cut -d' ' -f1)
+    PEAK_RSS=$(sort -n -k2 "$LOG_DIR/$name.proc" | tail -1 | cut -d' ' -f2)
+    echo "$name: idle ${idle% *} threads / $(( ${idle#* } / 1024 )) MB RSS," \
+        "peak $PEAK_THREADS threads / $(( PEAK_RSS / 1024 )) MB RSS"
+    echo "$name ${idle% *} $(( ${idle#* } / 1024 )) $PEAK_THREADS $(( PEAK_RSS / 1024 ))" >> "$LOG_DIR/resources.txt"
+    stop_services
+}
+
+rm -f "$LOG_DIR/resources.txt"
+run servlet transfer-service
+# the reactive run is reported against the servlet run, a "regression" is higher latency
+run reactive transfer-service-reactive --baseline="$LOG_DIR/servlet.json"
+
+echo "=== $ENDPOINT at $RATE req/s for $DURATION ==="
+printf "%-10s %14s %14s %14s %14s\n" stack "idle threads" "idle RSS MB" "peak threads" "peak RSS MB"
+while read -r name idle_threads idle_rss peak_threads peak_rss; do
+    printf "%-10s %14s %14s %14s %14s\n" "$name" "$idle_threads" "$idle_rss" "$peak_threads" "$peak_rss"
+done < "$LOG_DIR/resources.txt"
+echo "Summaries: $LOG_DIR/servlet.json $LOG_DIR/reactive.json"
@@ -0,0 +1,112 @@
+#!/bin/bash
+
+# Startup benchmark: time from launching both services to the first COMPLETED transfer.
+#
+#   ./startup-benchmark.sh [standard|fast-start] [runs]
+#
+# standard   uses target/<service>-0.0.1-SNAPSHOT.jar       (mvn package)
+# fast-start uses target/fast-start/ with AOT + CDS archive  (mvn -Pfast-start package)
+#
+# Ports 8080 and 8081 must be free. Uses the default (in-memory H2) configuration.
+
+set -e
+
+MODE=${1:-standard}
+RUNS=${2:-5}
+ROOT=$(cd "$(dirname "$0")" && pwd)
+LOG_DIR=${LOG_DIR:-${TMPDIR:-/tmp}/startup-benchmark}
+mkdir -p "$LOG_DIR"
+
+now_ms() {
+    echo $(( $(date +%s%N) / 1000000 ))
+}
+
+start_service() {
+    local service=$1
+    if [ "$MODE" = "fast-start" ]; then
+        local dir="$ROOT/$service/target/fast-start"
+        (cd "$dir" && exec java -XX:SharedArchiveFile=app.jsa -Dspring.aot.enabled=true \
+            -Dspring.profiles.active=fast-start -jar "$service-0.0.1-SNAPSHOT-fast-start.jar") \
+            > "$LOG_DIR/$service.log" 2>&1 &
+    else
+        java -jar "$ROOT/$service/target/$service-0.0.1-SNAPSHOT.jar" > "$LOG_DIR/$service.log" 2>&1 &
+    fi
+    echo $!
+}
+
+stop_services() {
+    kill "$LEDGER_PID" "$TRANSFER_PID" 2>/dev/null || true
+    wait "$LEDGER_PID" "$TRANSFER_PID" 2>/dev/null || true
+}
+trap stop_services EXIT
+
+for service in ledger-service transfer-service; do
+    if [ "$MODE" = "fast-start" ] && [ ! -f "$ROOT/$service/target/fast-start/app.jsa" ]; then
+        echo "Missing $service/target/fast-start, run: (cd $service && ./mvnw -Pfast-start package -DskipTests)"
+        exit 1
+    fi
+    if [ "$MODE" = "standard" ] && [ ! -f "$ROOT/$service/target/$service-0.0.1-SNAPSHOT.jar" ]; then
+        echo "Missing $service jar, run: (cd $service && ./mvnw package -DskipTests)"
+        exit 1
+    fi
+done
+
+echo "=== Startup benchmark: $MODE, $RUNS runs ==="
+RESULTS=()
+
+for run in $(seq 1 "$RUNS"); do
+    START=$(now_ms)
+    LEDGER_PID=$(start_service ledger-service)
+    TRANSFER_PID=$(start_service transfer-service)
+
+    # accounts can only be created once the ledger is up
+    ACCOUNTS=0
+    until [ "$ACCOUNTS" -eq 2 ]; do
+        if curl -sf -X POST localhost:8081/accounts -H 'Content-Type: application/json' \
+                -d '{"initialBalance":1000}' > /dev/null 2>&1; then
+            ACCOUNTS=$((ACCOUNTS + 1))
+        else
+            sleep 0.05
+        fi
+        if [ $(( $(now_ms) - START )) -gt 120000 ]; then
+            echo "Ledger service did not start within 120s, see $LOG_DIR"
+            exit 1
+        fi
+    done
+
+    STATUS=""
+    ATTEMPT=0
+    until [ "$STATUS" = "COMPLETED" ]; do
+        ATTEMPT=$((ATTEMPT + 1))
+        RESPONSE=$(curl -s -X POST localhost:8080/transfers -H 'Content-Type: application/json' \
+            -H "Idempotency-Key: startup-$run-$ATTEMPT" \
+            -d '{"fromAccountId":1,"toAccountId":2,"amount":1}' 2>/dev/null || true)
+        TRANSFER_ID=$(echo "$RESPONSE" | sed -n 's/.*"transferId":"\([^"]*\)".*/\1/p')
+        if [ -n "$TRANSFER_ID" ]; then
+            # transfers are applied to the ledger asynchronously
+            for _ in $(seq 1 100); do
+                STATUS=$(curl -s "localhost:8080/transfers/$TRANSFER_ID" | sed -n 's/.*"status":"\([A-Z]*\)".*/\1/p')
+                [ "$STATUS" = "PENDING" ] || break
+                sleep 0.02
+            done
+        else
+            sleep 0.05
+        fi
+        if [ $(( $(now_ms) - START )) -gt 120000 ]; then
+            echo "No successful transfer within 120s, see $LOG_DIR"
+            exit 1
+        fi
+    done
+
+    ELAPSED=$(( $(now_ms) - START ))
+    RESULTS+=("$ELAPSED")
+    LEDGER_STARTED=$(grep -ao "Started LedgerApplication in [0-9.]* seconds" "$LOG_DIR/ledger-service.log" | grep -o "[0-9.]*" || echo "?")
+    TRANSFER_STARTED=$(grep -ao "Started TransferApplication in [0-9.]* seconds" "$LOG_DIR/transfer-service.log" | grep -o "[0-9.]*" || echo "?")
+    echo "run $run: first successful transfer after ${ELAPSED} ms (ledger started in ${LEDGER_STARTED}s, transfer in ${TRANSFER_STARTED}s)"
+
+    stop_services
+done
+
+SORTED=($(printf '%s\n' "${RESULTS[@]}" | sort -n))
+echo "=== $MODE: time to first successful transfer ==="
+echo "min ${SORTED[0]} ms, median ${SORTED[$(( ${#SORTED[@]} / 2 ))]} ms, max ${SORTED[$(( ${#SORTED[@]} - 1 ))]} ms"
@@ -0,0 +1,12 @@
+package com.example.transfer.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+@SpringBootApplication
+public class TransferReactiveApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(TransferReactiveApplication.class, args);
+    }
+}
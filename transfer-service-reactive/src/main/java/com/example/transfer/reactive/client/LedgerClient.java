@@ -0,0 +1,31 @@
+package com.example.transfer.reactive.client;
+
+import com.example.transfer.reactive.dto.LedgerTransferRequest;
+import com.example.transfer.reactive.dto.LedgerTransferResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking client for {@code POST /ledger/transfer}. A business rejection (400 with a
+ * {@link LedgerTransferResponse} body) is returned as an unsuccessful response like a ledger
+ * batch result; any other non-2xx status fails with a {@code WebClientResponseException}.
+ */
+public class LedgerClient {
+
+    private final WebClient webClient;
+
+    public LedgerClient(WebClient webClient) {
+        this.webClient = webClient;
+    }
+
+    public Mono<LedgerTransferResponse> transfer(LedgerTransferRequest request) {
+        return webClient.post()
+                .uri("/ledger/transfer")
+                .bodyValue(request)
+                .exchangeToMono(response -> response.statusCode().is2xxSuccessful()
+                        || response.statusCode().value() == HttpStatus.BAD_REQUEST.value()
+                        ? response.bodyToMono(LedgerTransferResponse.class)
+                        : response.createError());
+    }
+}
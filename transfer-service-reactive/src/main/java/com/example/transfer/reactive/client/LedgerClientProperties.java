@@ -0,0 +1,15 @@
+package com.example.transfer.reactive.client;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+@Data
+public class LedgerClientProperties {
+    private Duration connectTimeout = Duration.ofSeconds(2);
+    // a call without a response by then fails as ambiguous, the ledger may still have applied it
+    private Duration responseTimeout = Duration.ofSeconds(10);
+    // open connections to the ledger; waiting calls don't hold a thread
+    private int maxConnections = 500;
+    private int maxPendingAcquires = 10_000;
+}
@@ -0,0 +1,39 @@
+package com.example.transfer.reactive.config;
+
+import com.example.transfer.reactive.client.LedgerClient;
+import com.example.transfer.reactive.client.LedgerClientProperties;
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+@Configuration
+public class LedgerClientConfig {
+
+    @Bean
+    @ConfigurationProperties("transfer.ledger")
+    public LedgerClientProperties ledgerClientProperties() {
+        return new LedgerClientProperties();
+    }
+
+    @Bean
+    public LedgerClient ledgerClient(WebClient.Builder builder, LedgerClientProperties properties,
+                                     @Value("${ledger.service.url}") String ledgerUrl) {
+        final var connections = ConnectionProvider.builder("ledger")
+                .maxConnections(properties.getMaxConnections())
+                .pendingAcquireMaxCount(properties.getMaxPendingAcquires())
+                .build();
+        final var httpClient = HttpClient.create(connections)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) properties.getConnectTimeout().toMillis())
+                .responseTimeout(properties.getResponseTimeout());
+        return new LedgerClient(builder
+                .baseUrl(ledgerUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build());
+    }
+}
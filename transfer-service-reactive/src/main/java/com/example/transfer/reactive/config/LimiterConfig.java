@@ -0,0 +1,23 @@
+package com.example.transfer.reactive.config;
+
+import com.example.transfer.reactive.limiter.ConcurrencyLimitProperties;
+import com.example.transfer.reactive.limiter.InFlightLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class LimiterConfig {
+
+    @Bean
+    @ConfigurationProperties("transfer.concurrency-limit")
+    public ConcurrencyLimitProperties concurrencyLimitProperties() {
+        return new ConcurrencyLimitProperties();
+    }
+
+    @Bean
+    public InFlightLimiter inFlightLimiter(ConcurrencyLimitProperties properties, MeterRegistry meterRegistry) {
+        return new InFlightLimiter("transfers", properties, meterRegistry);
+    }
+}
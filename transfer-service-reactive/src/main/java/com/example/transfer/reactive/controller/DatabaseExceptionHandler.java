@@ -0,0 +1,28 @@
+package com.example.transfer.reactive.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+@RestControllerAdvice
+@Slf4j
+public class DatabaseExceptionHandler {
+
+    @ExceptionHandler(DataAccessException.class)
+    public ResponseEntity<String> handleDatabaseError(DataAccessException e) {
+        // no connection within spring.r2dbc.pool.max-acquire-time, or the database is down
+        if (e instanceof DataAccessResourceFailureException) {
+            log.warn("Rejecting request, no database connection available: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body("Service busy, retry later");
+        }
+        log.error("Database error", e);
+        return ResponseEntity.internalServerError().body("Internal server error");
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.transfer.reactive.controller;
+
+import com.example.transfer.reactive.limiter.TooManyRequestsException;
+import com.example.transfer.reactive.model.TransferRecord;
+import com.example.transfer.reactive.service.TransferService;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Same paths, bodies and status codes as transfer-service's {@code TransferController} for
+ * {@code POST /transfers}, {@code GET /transfers/{id}} and {@code POST /transfers/batch}.
+ */
+@RestController
+@RequestMapping("/transfers")
+@Validated
+@Slf4j
+@AllArgsConstructor
+public class TransferController {
+
+    private final TransferService transferService;
+
+    @PostMapping
+    public Mono<ResponseEntity<TransferResponse>> createTransfer(
+            @Valid @RequestBody CreateTransferRequest request,
+            @RequestHeader("Idempotency-Key") @NotBlank String idempotencyKey,
+            @RequestHeader(value = "X-Request-ID", required = false) String requestId) {
+        log.info("[{}] Creating transfer with idempotency key: {}", requestId(requestId), idempotencyKey);
+
+        return transferService.createTransfer(
+                        idempotencyKey,
+                        request.getFromAccountId(),
+                        request.getToAccountId(),
+                        request.getAmount())
+                .map(transferRecord -> ResponseEntity.ok(toResponse(transferRecord)))
+                .onErrorResume(TooManyRequestsException.class, e -> {
+                    log.warn("Rejecting transfer: {}", e.getMessage());
+                    return Mono.just(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                            .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                            .body(new TransferResponse(null, "FAILED", e.getMessage())));
+                })
+                .onErrorResume(IllegalArgumentException.class, e -> Mono.just(ResponseEntity.badRequest()
+                        .body(new TransferResponse(null, "FAILED", e.getMessage()))))
+                // no database connection within spring.r2dbc.pool.max-acquire-time
+                .onErrorResume(DataAccessResourceFailureException.class, e -> {
+                    log.warn("Rejecting transfer, no database connection available");
+                    return Mono.just(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                            .header(HttpHeaders.RETRY_AFTER, "1")
+                            .body(new TransferResponse(null, "FAILED", "Service busy, retry later")));
+                })
+                .onErrorResume(e -> {
+                    log.error("Unexpected error creating transfer", e);
+                    return Mono.just(ResponseEntity.internalServerError()
+                            .body(new TransferResponse(null, "FAILED", "Internal server error")));
+                });
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<TransferResponse>> getTransfer(@PathVariable String id) {
+        return transferService.getTransfer(id)
+                .map(transferRecord -> ResponseEntity.ok(toResponse(transferRecord)))
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/batch")
+    public Mono<ResponseEntity<BatchTransferResponse>> processBatchTransfers(
+            @Valid @RequestBody BatchTransferRequest request,
+            @RequestHeader(value = "X-Request-ID", required = false) String requestId) {
+        log.info("[{}] Processing batch of {} transfers", requestId(requestId), request.getTransfers().size());
+
+        return transferService.processBatchTransfers(request.getTransfers())
+                .map(transferRecords -> ResponseEntity.ok(new BatchTransferResponse(
+                        transferRecords.stream().map(TransferController::toResponse).toList())))
+                .onErrorResume(IllegalArgumentException.class, e -> {
+                    log.warn("Invalid batch transfer request: {}", e.getMessage());
+                    return Mono.just(ResponseEntity.badRequest().body(new BatchTransferResponse(List.of())));
+                })
+                .onErrorResume(e -> {
+                    log.error("Unexpected error processing batch transfers", e);
+                    return Mono.just(ResponseEntity.internalServerError().body(new BatchTransferResponse(List.of())));
+                });
+    }
+
+    // there is no thread-bound MDC here, the correlation id goes into the log line instead
+    private static String requestId(String requestId) {
+        return requestId != null ? requestId : UUID.randomUUID().toString();
+    }
+
+    private static TransferResponse toResponse(TransferRecord transferRecord) {
+        return new TransferResponse(
+                transferRecord.getTransferId(),
+                transferRecord.getStatus().toString(),
+                transferRecord.getErrorMessage()
+        );
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CreateTransferRequest {
+        @NotNull
+        private Long fromAccountId;
+
+        @NotNull
+        private Long toAccountId;
+
+        @NotNull
+        @Positive
+        private BigDecimal amount;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class TransferResponse {
+        private String transferId;
+        private String status;
+        private String errorMessage;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BatchTransferRequest {
+        @NotNull
+        @Size(min = 1, max = 20, message = "Batch size must be between 1 and 20")
+        private List<TransferService.BatchTransferRequest> transfers;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BatchTransferResponse {
+        private List<TransferResponse> transfers;
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.transfer.reactive.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerTransferResponse {
+    private boolean success;
+    private String message;
+}
+
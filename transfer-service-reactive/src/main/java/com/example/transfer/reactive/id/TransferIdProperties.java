@@ -0,0 +1,9 @@
+package com.example.transfer.reactive.id;
+
+import lombok.Data;
+
+@Data
+public class TransferIdProperties {
+    // 0-1023, must differ between instances sharing a database; -1 derives one from host and pid
+    private int nodeId = -1;
+}
@@ -0,0 +1,10 @@
+package com.example.transfer.reactive.limiter;
+
+import lombok.Data;
+
+@Data
+public class ConcurrencyLimitProperties {
+    private boolean enabled = true;
+    // transfers created but not yet settled with the ledger, excess requests get 429 + Retry-After
+    private int maxInFlight = 1000;
+}
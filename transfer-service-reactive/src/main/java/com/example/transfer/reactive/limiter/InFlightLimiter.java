@@ -0,0 +1,57 @@
+package com.example.transfer.reactive.limiter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fixed bound on transfers waiting for the ledger. The servlet service adapts its limit to ledger
+ * latency because every in-flight transfer holds a thread; here a waiting transfer costs a few
+ * objects, so a fixed bound only keeps the PENDING backlog in check.
+ */
+public class InFlightLimiter {
+
+    private final ConcurrencyLimitProperties properties;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter rejected;
+
+    public InFlightLimiter(String name, ConcurrencyLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        Gauge.builder("concurrency.limit", properties, ConcurrencyLimitProperties::getMaxInFlight)
+                .tag("name", name)
+                .register(meterRegistry);
+        Gauge.builder("concurrency.inflight", inFlight, AtomicInteger::get)
+                .tag("name", name)
+                .register(meterRegistry);
+        this.rejected = Counter.builder("concurrency.rejected")
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    public boolean tryAcquire() {
+        if (!properties.isEnabled()) {
+            inFlight.incrementAndGet();
+            return true;
+        }
+        while (true) {
+            final var current = inFlight.get();
+            if (current >= properties.getMaxInFlight()) {
+                rejected.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.transfer.reactive.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+/**
+ * A row of transfer_records, the same table transfer-service maps with JPA. Split transfers
+ * (transfer_record_legs) are not created by this service.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TransferRecord {
+    private Long id;
+    private String transferId;
+    private String idempotencyKey;
+    private Long fromAccountId;
+    private Long toAccountId;
+    private BigDecimal amount;
+    private TransferStatus status;
+    private String errorMessage;
+    // FAILED because the ledger call broke off, the ledger may still have applied it
+    private boolean ambiguous;
+    @Builder.Default
+    private OffsetDateTime createdAt = OffsetDateTime.now();
+
+    public enum TransferStatus {
+        PENDING, COMPLETED, FAILED
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.transfer.reactive.repository;
+
+import com.example.transfer.reactive.model.TransferRecord;
+import io.r2dbc.spi.Readable;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * transfer_records over R2DBC with plain SQL. Transfer ids are stored as 16 big-endian bytes,
+ * the same column format transfer-service writes through its JPA converter.
+ */
+@Repository
+public class TransferRecordRepository {
+
+    private static final String COLUMNS = "id, transfer_id, idempotency_key, from_account_id, to_account_id, "
+            + "amount, status, error_message, ambiguous, created_at";
+
+    private final DatabaseClient databaseClient;
+
+    public TransferRecordRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Mono<TransferRecord> insert(TransferRecord transferRecord) {
+        return databaseClient.sql("INSERT INTO transfer_records (transfer_id, idempotency_key, from_account_id, "
+                        + "to_account_id, amount, status, ambiguous, created_at) "
+                        + "VALUES (:transferId, :idempotencyKey, :fromAccountId, :toAccountId, :amount, :status, "
+                        + ":ambiguous, :createdAt)")
+                .bind("transferId", toBytes(transferRecord.getTransferId()))
+                .bind("idempotencyKey", transferRecord.getIdempotencyKey())
+                .bind("fromAccountId", transferRecord.getFromAccountId())
+                .bind("toAccountId", transferRecord.getToAccountId())
+                .bind("amount", transferRecord.getAmount())
+                .bind("status", transferRecord.getStatus().name())
+                .bind("ambiguous", transferRecord.isAmbiguous())
+                .bind("createdAt", transferRecord.getCreatedAt())
+                .filter(statement -> statement.returnGeneratedValues("id"))
+                .map(row -> row.get("id", Long.class))
+                .one()
+                .map(id -> {
+                    transferRecord.setId(id);
+                    return transferRecord;
+                });
+    }
+
+    public Mono<TransferRecord> findByIdempotencyKey(String idempotencyKey) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM transfer_records WHERE idempotency_key = :key")
+                .bind("key", idempotencyKey)
+                .map(TransferRecordRepository::toRecord)
+                .one();
+    }
+
+    public Mono<TransferRecord> findByTransferId(String transferId) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM transfer_records WHERE transfer_id = :transferId")
+                .bind("transferId", toBytes(transferId))
+                .map(TransferRecordRepository::toRecord)
+                .one();
+    }
+
+    // records the ledger outcome, the rest of the row never changes after insert
+    public Mono<Void> updateOutcome(TransferRecord transferRecord) {
+        var spec = databaseClient.sql("UPDATE transfer_records SET status = :status, error_message = :errorMessage, "
+                        + "ambiguous = :ambiguous WHERE id = :id")
+                .bind("status", transferRecord.getStatus().name())
+                .bind("ambiguous", transferRecord.isAmbiguous())
+                .bind("id", transferRecord.getId());
+        spec = transferRecord.getErrorMessage() == null
+                ? spec.bindNull("errorMessage", String.class)
+                : spec.bind("errorMessage", transferRecord.getErrorMessage());
+        return spec.then();
+    }
+
+    private static TransferRecord toRecord(Readable row) {
+        return TransferRecord.builder()
+                .id(row.get("id", Long.class))
+                .transferId(fromBytes(row.get("transfer_id", byte[].class)))
+                .idempotencyKey(row.get("idempotency_key", String.class))
+                .fromAccountId(row.get("from_account_id", Long.class))
+                .toAccountId(row.get("to_account_id", Long.class))
+                .amount(row.get("amount", BigDecimal.class))
+                .status(TransferRecord.TransferStatus.valueOf(row.get("status", String.class)))
+                .errorMessage(row.get("error_message", String.class))
+                .ambiguous(Boolean.TRUE.equals(row.get("ambiguous", Boolean.class)))
+                .createdAt(row.get("created_at", OffsetDateTime.class))
+                .build();
+    }
+
+    // byte[], a ByteBuffer is bound as a BLOB by r2dbc-h2 and read through a blocking stream
+    static byte[] toBytes(String transferId) {
+        final var uuid = UUID.fromString(transferId);
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+    static String fromBytes(byte[] bytes) {
+        final var buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong()).toString();
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.transfer.reactive.service;
+
+import com.example.transfer.reactive.client.LedgerClient;
+import com.example.transfer.reactive.dto.LedgerTransferRequest;
+import com.example.transfer.reactive.dto.LedgerTransferResponse;
+import com.example.transfer.reactive.id.TransferIdGenerator;
+import com.example.transfer.reactive.limiter.InFlightLimiter;
+import com.example.transfer.reactive.limiter.TooManyRequestsException;
+import com.example.transfer.reactive.model.TransferRecord;
+import com.example.transfer.reactive.repository.TransferRecordRepository;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.net.ConnectException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Same flow as transfer-service's {@code TransferService} without blocking a thread: the record
+ * is inserted as PENDING and returned, and the ledger call and outcome update run in the
+ * background. Idempotency keys, validation order and failure classification are unchanged.
+ */
+@Service
+@Slf4j
+@AllArgsConstructor
+public class TransferService {
+
+    private final TransferRecordRepository transferRecordRepository;
+    private final LedgerClient ledgerClient;
+    private final InFlightLimiter inFlightLimiter;
+    private final TransferIdGenerator transferIdGenerator;
+
+    public Mono<TransferRecord> createTransfer(String idempotencyKey, Long fromAccountId, Long toAccountId,
+                                               BigDecimal amount) {
+        // Check for existing transfer with same idempotency key
+        return transferRecordRepository.findByIdempotencyKey(idempotencyKey)
+                .switchIfEmpty(Mono.defer(() -> submitTransfer(idempotencyKey, fromAccountId, toAccountId, amount)));
+    }
+
+    private Mono<TransferRecord> submitTransfer(String idempotencyKey, Long fromAccountId, Long toAccountId,
+                                                BigDecimal amount) {
+        // Validate amount
+        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+            return Mono.error(new IllegalArgumentException("Transfer amount must be positive"));
+        }
+
+        // Bound the PENDING backlog; the slot is held until the ledger outcome is recorded
+        if (!inFlightLimiter.tryAcquire()) {
+            return Mono.error(new TooManyRequestsException("Too many transfers in flight, retry later", 1));
+        }
+
+        final var transferRecord = TransferRecord.builder()
+                .transferId(transferIdGenerator.nextString())
+                .idempotencyKey(idempotencyKey)
+                .fromAccountId(fromAccountId)
+                .toAccountId(toAccountId)
+                .amount(amount)
+                .status(TransferRecord.TransferStatus.PENDING)
+                .build();
+
+        final var handedOff = new AtomicBoolean();
+        return transferRecordRepository.insert(transferRecord)
+                .doOnNext(saved -> {
+                    handedOff.set(true);
+                    // not part of the response, runs on after the request completes or is cancelled
+                    processTransfer(saved)
+                            .doFinally(signal -> inFlightLimiter.release())
+                            .subscribe();
+                })
+                .doFinally(signal -> {
+                    if (!handedOff.get()) {
+                        inFlightLimiter.release();
+                    }
+                })
+                // a concurrent request with the same key inserted first, answer with its record
+                .onErrorResume(DataIntegrityViolationException.class, e -> transferRecordRepository
+                        .findByIdempotencyKey(idempotencyKey)
+                        .switchIfEmpty(Mono.error(e)));
+    }
+
+    Mono<Void> processTransfer(TransferRecord transferRecord) {
+        return ledgerClient.transfer(toLedgerRequest(transferRecord))
+                .doOnNext(response -> completeTransfer(transferRecord, response, null))
+                .then()
+                .onErrorResume(e -> {
+                    completeTransfer(transferRecord, null, e);
+                    return Mono.empty();
+                })
+                .then(Mono.defer(() -> transferRecordRepository.updateOutcome(transferRecord)))
+                .doOnError(e -> log.error("Error recording outcome of transfer {}", transferRecord.getTransferId(), e))
+                .onErrorComplete();
+    }
+
+    private void completeTransfer(TransferRecord transferRecord, LedgerTransferResponse response, Throwable failure) {
+        if (failure != null) {
+            transferRecord.setStatus(TransferRecord.TransferStatus.FAILED);
+            transferRecord.setErrorMessage(failure.getMessage());
+            transferRecord.setAmbiguous(mayHaveBeenApplied(failure));
+            log.error("Transfer {} failed with exception", transferRecord.getTransferId(), failure);
+        } else if (response.isSuccess()) {
+            transferRecord.setStatus(TransferRecord.TransferStatus.COMPLETED);
+            log.info("Transfer {} completed successfully", transferRecord.getTransferId());
+        } else {
+            transferRecord.setStatus(TransferRecord.TransferStatus.FAILED);
+            transferRecord.setErrorMessage(response.getMessage());
+            log.warn("Transfer {} failed: {}", transferRecord.getTransferId(), response.getMessage());
+        }
+    }
+
+    /**
+     * False when the ledger definitely did not apply the transfer: the connection was refused, or
+     * the ledger answered 4xx (rejected before applying) or 503 (rolled back, busy). Response
+     * timeouts, broken connections and 5xx can hide a committed transfer.
+     */
+    static boolean mayHaveBeenApplied(Throwable failure) {
+        if (failure instanceof WebClientRequestException && failure.getCause() instanceof ConnectException) {
+            return false;
+        }
+        if (failure instanceof WebClientResponseException responseException) {
+            final var status = responseException.getStatusCode().value();
+            return !(status >= 400 && status < 500 || status == 503);
+        }
+        return true;
+    }
+
+    private static LedgerTransferRequest toLedgerRequest(TransferRecord transferRecord) {
+        return new LedgerTransferRequest(
+                transferRecord.getTransferId(),
+                transferRecord.getFromAccountId(),
+                transferRecord.getToAccountId(),
+                transferRecord.getAmount()
+        );
+    }
+
+    public Mono<TransferRecord> getTransfer(String transferId) {
+        log.info("Fetching transfer: {}", transferId);
+        // transfer ids are stored as binary UUIDs, anything else cannot match
+        if (!TransferIdGenerator.isUuid(transferId)) {
+            return Mono.empty();
+        }
+        return transferRecordRepository.findByTransferId(transferId);
+    }
+
+    public Mono<List<TransferRecord>> processBatchTransfers(List<BatchTransferRequest> requests) {
+        log.info("Processing batch of {} transfers", requests.size());
+
+        if (requests.size() > 20) {
+            return Mono.error(new IllegalArgumentException("Batch size cannot exceed 20 transfers"));
+        }
+
+        // concurrently, results in request order, failed items left out
+        return Flux.fromIterable(requests)
+                .flatMapSequential(request -> Mono.defer(() -> createTransfer(
+                                request.getIdempotencyKey(),
+                                request.getFromAccountId(),
+                                request.getToAccountId(),
+                                request.getAmount()))
+                        .onErrorResume(e -> {
+                            log.error("Error creating transfer in batch", e);
+                            return Mono.empty();
+                        }))
+                .collectList();
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BatchTransferRequest {
+        private String idempotencyKey;
+        private Long fromAccountId;
+        private Long toAccountId;
+        private BigDecimal amount;
+    }
+}
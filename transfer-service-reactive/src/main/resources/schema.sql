@@ -0,0 +1,17 @@
+-- Embedded H2 only (spring.sql.init.mode=embedded). Matches the table transfer-service's JPA
+-- mapping creates, so both deployments can share one PostgreSQL schema.
+CREATE TABLE IF NOT EXISTS transfer_records (
+    id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    transfer_id varbinary(16) NOT NULL UNIQUE,
+    idempotency_key varchar(255) NOT NULL UNIQUE,
+    from_account_id bigint NOT NULL,
+    to_account_id bigint NOT NULL,
+    amount numeric(38, 2) NOT NULL,
+    status varchar(255) NOT NULL CHECK (status IN ('PENDING', 'COMPLETED', 'FAILED')),
+    error_message varchar(255),
+    ambiguous boolean NOT NULL,
+    created_at timestamp(6) with time zone NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_transfer_records_status_created
+    ON transfer_records (status, ambiguous, created_at, id);
@@ -0,0 +1,108 @@
+package com.example.transfer.reactive.controller;
+
+import com.example.transfer.reactive.limiter.TooManyRequestsException;
+import com.example.transfer.reactive.model.TransferRecord;
+import com.example.transfer.reactive.service.TransferService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TransferControllerTest {
+
+    @Mock
+    private TransferService transferService;
+
+    private WebTestClient webTestClient;
+
+    @BeforeEach
+    void setUp() {
+        webTestClient = WebTestClient.bindToController(new TransferController(transferService)).build();
+    }
+
+    @Test
+    void createTransfer() {
+        // Given
+        final var transferRecord = TransferRecord.builder()
+                .transferId("transfer-123")
+                .status(TransferRecord.TransferStatus.PENDING)
+                .build();
+        when(transferService.createTransfer(anyString(), any(), any(), any(BigDecimal.class)))
+                .thenReturn(Mono.just(transferRecord));
+
+        // When / Then
+        post("idempotency-key-123")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.transferId").isEqualTo("transfer-123")
+                .jsonPath("$.status").isEqualTo("PENDING");
+    }
+
+    @Test
+    void createTransferRejectedWithRetryAfter() {
+        // Given
+        when(transferService.createTransfer(anyString(), any(), any(), any(BigDecimal.class)))
+                .thenReturn(Mono.error(new TooManyRequestsException("Too many transfers in flight, retry later", 1)));
+
+        // When / Then
+        post("idempotency-key-123")
+                .exchange()
+                .expectStatus().isEqualTo(429)
+                .expectHeader().valueEquals("Retry-After", "1")
+                .expectBody()
+                .jsonPath("$.status").isEqualTo("FAILED");
+    }
+
+    @Test
+    void createTransferUnavailableWithoutDatabaseConnection() {
+        // Given
+        when(transferService.createTransfer(anyString(), any(), any(), any(BigDecimal.class)))
+                .thenReturn(Mono.error(new DataAccessResourceFailureException("Failed to obtain R2DBC Connection")));
+
+        // When / Then
+        post("idempotency-key-123")
+                .exchange()
+                .expectStatus().isEqualTo(503)
+                .expectHeader().valueEquals("Retry-After", "1");
+    }
+
+    @Test
+    void getTransfer() {
+        // Given
+        final var transferRecord = TransferRecord.builder()
+                .transferId("transfer-456")
+                .status(TransferRecord.TransferStatus.COMPLETED)
+                .build();
+        when(transferService.getTransfer("transfer-456")).thenReturn(Mono.just(transferRecord));
+        when(transferService.getTransfer("missing")).thenReturn(Mono.empty());
+
+        // When / Then
+        webTestClient.get().uri("/transfers/transfer-456")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.transferId").isEqualTo("transfer-456")
+                .jsonPath("$.status").isEqualTo("COMPLETED");
+        webTestClient.get().uri("/transfers/missing")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    private WebTestClient.RequestHeadersSpec<?> post(String idempotencyKey) {
+        return webTestClient.post().uri("/transfers")
+                .header("Idempotency-Key", idempotencyKey)
+                .bodyValue(new TransferController.CreateTransferRequest(1L, 2L, new BigDecimal("100.00")));
+    }
+}
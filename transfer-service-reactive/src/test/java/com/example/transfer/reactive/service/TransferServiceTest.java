@@ -0,0 +1,178 @@
+package com.example.transfer.reactive.service;
+
+import com.example.transfer.reactive.client.LedgerClient;
+import com.example.transfer.reactive.dto.LedgerTransferResponse;
+import com.example.transfer.reactive.id.TransferIdGenerator;
+import com.example.transfer.reactive.limiter.ConcurrencyLimitProperties;
+import com.example.transfer.reactive.limiter.InFlightLimiter;
+import com.example.transfer.reactive.limiter.TooManyRequestsException;
+import com.example.transfer.reactive.model.TransferRecord;
+import com.example.transfer.reactive.repository.TransferRecordRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.net.ConnectException;
+import java.net.URI;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TransferServiceTest {
+
+    @Mock
+    private TransferRecordRepository transferRecordRepository;
+
+    @Mock
+    private LedgerClient ledgerClient;
+
+    private InFlightLimiter inFlightLimiter;
+
+    private TransferService transferService;
+
+    @BeforeEach
+    void setUp() {
+        final var properties = new ConcurrencyLimitProperties();
+        properties.setMaxInFlight(1);
+        inFlightLimiter = new InFlightLimiter("transfers", properties, new SimpleMeterRegistry());
+        transferService = new TransferService(
+                transferRecordRepository, ledgerClient, inFlightLimiter, new TransferIdGenerator(1));
+    }
+
+    @Test
+    void createTransferReturnsPendingAndRecordsLedgerOutcome() {
+        // Given
+        when(transferRecordRepository.findByIdempotencyKey("key-1")).thenReturn(Mono.empty());
+        when(transferRecordRepository.insert(any())).thenAnswer(invocation -> {
+            final TransferRecord transferRecord = invocation.getArgument(0);
+            transferRecord.setId(1L);
+            return Mono.just(transferRecord);
+        });
+        when(ledgerClient.transfer(any())).thenReturn(Mono.just(new LedgerTransferResponse(true, "OK")));
+        when(transferRecordRepository.updateOutcome(any())).thenReturn(Mono.empty());
+
+        // When / Then
+        StepVerifier.create(transferService.createTransfer("key-1", 1L, 2L, new BigDecimal("10.00")))
+                .assertNext(transferRecord -> assertTrue(TransferIdGenerator.isUuid(transferRecord.getTransferId())))
+                .verifyComplete();
+
+        final var captor = ArgumentCaptor.forClass(TransferRecord.class);
+        verify(transferRecordRepository, timeout(1000)).updateOutcome(captor.capture());
+        assertEquals(TransferRecord.TransferStatus.COMPLETED, captor.getValue().getStatus());
+        // the slot is released once the outcome is recorded
+        assertTrue(inFlightLimiter.tryAcquire());
+    }
+
+    @Test
+    void createTransferReturnsExistingRecordForSameIdempotencyKey() {
+        // Given
+        final var existing = TransferRecord.builder()
+                .transferId("018f0000-0000-7000-8000-000000000001")
+                .status(TransferRecord.TransferStatus.COMPLETED)
+                .build();
+        when(transferRecordRepository.findByIdempotencyKey("key-1")).thenReturn(Mono.just(existing));
+
+        // When / Then
+        StepVerifier.create(transferService.createTransfer("key-1", 1L, 2L, new BigDecimal("10.00")))
+                .expectNext(existing)
+                .verifyComplete();
+        verify(transferRecordRepository, never()).insert(any());
+        verify(ledgerClient, never()).transfer(any());
+    }
+
+    @Test
+    void createTransferAnswersWithWinnerOfConcurrentInsert() {
+        // Given
+        final var winner = TransferRecord.builder()
+                .transferId("018f0000-0000-7000-8000-000000000002")
+                .status(TransferRecord.TransferStatus.PENDING)
+                .build();
+        when(transferRecordRepository.findByIdempotencyKey("key-1"))
+                .thenReturn(Mono.empty())
+                .thenReturn(Mono.just(winner));
+        when(transferRecordRepository.insert(any()))
+                .thenReturn(Mono.error(new DataIntegrityViolationException("duplicate key")));
+
+        // When / Then
+        StepVerifier.create(transferService.createTransfer("key-1", 1L, 2L, new BigDecimal("10.00")))
+                .expectNext(winner)
+                .verifyComplete();
+        verify(ledgerClient, never()).transfer(any());
+        assertTrue(inFlightLimiter.tryAcquire());
+    }
+
+    @Test
+    void createTransferRejectsWhenTooManyInFlight() {
+        // Given
+        assertTrue(inFlightLimiter.tryAcquire());
+        when(transferRecordRepository.findByIdempotencyKey("key-1")).thenReturn(Mono.empty());
+
+        // When / Then
+        StepVerifier.create(transferService.createTransfer("key-1", 1L, 2L, new BigDecimal("10.00")))
+                .expectError(TooManyRequestsException.class)
+                .verify();
+        verify(transferRecordRepository, never()).insert(any());
+    }
+
+    @Test
+    void createTransferRejectsNonPositiveAmount() {
+        // Given
+        when(transferRecordRepository.findByIdempotencyKey("key-1")).thenReturn(Mono.empty());
+
+        // When / Then
+        StepVerifier.create(transferService.createTransfer("key-1", 1L, 2L, BigDecimal.ZERO))
+                .expectErrorMessage("Transfer amount must be positive")
+                .verify();
+    }
+
+    @Test
+    void processTransferMarksBrokenOffCallsAmbiguous() {
+        // Given
+        final var transferRecord = TransferRecord.builder()
+                .id(1L)
+                .transferId("018f0000-0000-7000-8000-000000000003")
+                .status(TransferRecord.TransferStatus.PENDING)
+                .build();
+        when(ledgerClient.transfer(any())).thenReturn(Mono.error(new TimeoutException("response timeout")));
+        when(transferRecordRepository.updateOutcome(transferRecord)).thenReturn(Mono.empty());
+
+        // When
+        StepVerifier.create(transferService.processTransfer(transferRecord)).verifyComplete();
+
+        // Then
+        assertEquals(TransferRecord.TransferStatus.FAILED, transferRecord.getStatus());
+        assertTrue(transferRecord.isAmbiguous());
+    }
+
+    @Test
+    void mayHaveBeenAppliedOnlyWhenLedgerCouldHaveCommitted() {
+        final var refused = new WebClientRequestException(new ConnectException("Connection refused"),
+                HttpMethod.POST, URI.create("http://ledger/ledger/transfer"), new HttpHeaders());
+        assertFalse(TransferService.mayHaveBeenApplied(refused));
+        assertFalse(TransferService.mayHaveBeenApplied(WebClientResponseException.create(
+                409, "Conflict", new HttpHeaders(), new byte[0], null)));
+        assertFalse(TransferService.mayHaveBeenApplied(WebClientResponseException.create(
+                503, "Service Unavailable", new HttpHeaders(), new byte[0], null)));
+        assertTrue(TransferService.mayHaveBeenApplied(WebClientResponseException.create(
+                500, "Internal Server Error", new HttpHeaders(), new byte[0], null)));
+        assertTrue(TransferService.mayHaveBeenApplied(new TimeoutException("response timeout")));
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.transfer.client;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * The point in time by which a transfer has to be settled with the ledger, counted from when
+ * the transfer request arrived. Ledger calls made inside {@link #apply} send what is left of it
+ * as {@value #TIMEOUT_HEADER} and time out when it runs out, see {@link DeadlineClient}.
+ */
+public final class Deadline {
+
+    // remaining budget in milliseconds, accepted on POST /transfers and sent on to the ledger
+    public static final String TIMEOUT_HEADER = "X-Request-Timeout";
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    private final long expiresAt;
+
+    private Deadline(long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public static Deadline after(Duration timeout) {
+        return new Deadline(System.nanoTime() + timeout.toNanos());
+    }
+
+    public long remainingNanos() {
+        return expiresAt - System.nanoTime();
+    }
+
+    public boolean isExpired() {
+        return remainingNanos() <= 0;
+    }
+
+    public boolean isBefore(Deadline other) {
+        return expiresAt - other.expiresAt < 0;
+    }
+
+    // runs the call with this deadline applied to the ledger calls it makes on this thread
+    <T> T apply(Supplier<T> call) {
+        final var previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return call.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    static Deadline current() {
+        return CURRENT.get();
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.transfer.client;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Feign client that applies the current {@link Deadline}: connect and read timeouts are cut to
+ * the time left, and the ledger is told how much that is in {@value Deadline#TIMEOUT_HEADER} so
+ * it doesn't start work nobody will wait for. Calls outside a deadline are sent unchanged.
+ */
+public class DeadlineClient implements Client {
+
+    private final Client delegate;
+
+    public DeadlineClient(Client delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        final var deadline = Deadline.current();
+        if (deadline == null) {
+            return delegate.execute(request, options);
+        }
+        final var remainingMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline.remainingNanos()));
+        final var headers = new LinkedHashMap<String, Collection<String>>(request.headers());
+        headers.put(Deadline.TIMEOUT_HEADER, List.of(String.valueOf(remainingMillis)));
+        final var withDeadline = Request.create(request.httpMethod(), request.url(), headers, request.body(),
+                request.charset(), request.requestTemplate());
+        return delegate.execute(withDeadline, new Request.Options(
+                Math.min(options.connectTimeoutMillis(), remainingMillis), TimeUnit.MILLISECONDS,
+                Math.min(options.readTimeoutMillis(), remainingMillis), TimeUnit.MILLISECONDS,
+                options.isFollowRedirects()));
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.transfer.client;
+
+/**
+ * The transfer's {@link Deadline} ran out. {@link #isSent()} tells whether a request had gone
+ * out to the ledger by then, in which case it may still have been applied.
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+    private final boolean sent;
+
+    public DeadlineExceededException(String message, boolean sent) {
+        super(message);
+        this.sent = sent;
+    }
+
+    public boolean isSent() {
+        return sent;
+    }
+}
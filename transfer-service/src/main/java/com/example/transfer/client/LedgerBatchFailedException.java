@@ -0,0 +1,13 @@
+package com.example.transfer.client;
+
+/**
+ * A batch call failed after it reached the ledger. The ledger commits each transfer of a batch
+ * on its own, so any of them may have been applied before the failure, even when the answer
+ * was a 503.
+ */
+public class LedgerBatchFailedException extends RuntimeException {
+
+    public LedgerBatchFailedException(Throwable cause) {
+        super(cause.getMessage(), cause);
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.transfer.client;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+@Data
+public class LedgerBatchProperties {
+    private boolean enabled = true;
+    // how long to wait for more transfers after the first one arrives
+    private Duration window = Duration.ofMillis(2);
+    private int maxBatchSize = 100;
+    // transfers not sent within this time are failed without reaching the ledger
+    private Duration maxLatency = Duration.ofMillis(500);
+    private int maxConcurrentBatches = 4;
+    private int queueCapacity = 10_000;
+}
@@ -0,0 +1,20 @@
+package com.example.transfer.client;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+@Data
+public class LedgerCallProperties {
+    // budget of a transfer whose request has no X-Request-Timeout
+    private Duration defaultTimeout = Duration.ofSeconds(5);
+    // longer budgets asked for by clients are cut to this
+    private Duration maxTimeout = Duration.ofSeconds(30);
+    // including the first one
+    private int maxAttempts = 3;
+    // before the second attempt, doubled for each one after, or the ledger's Retry-After if longer
+    private Duration backoff = Duration.ofMillis(50);
+    // an identical second request goes out when the first hasn't answered within this, 0 turns hedging off
+    private Duration hedgeDelay = Duration.ofMillis(300);
+    private int maxHedgesInFlight = 8;
+}
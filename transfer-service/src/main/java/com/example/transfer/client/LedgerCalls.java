@@ -0,0 +1,254 @@
+package com.example.transfer.client;
+
+import com.example.transfer.logging.MdcExecutors;
+import feign.FeignException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Runs ledger calls within a transfer's {@link Deadline}.
+ * <ul>
+ * <li>Retries only failures where the ledger certainly applied nothing and another try can
+ * succeed: connection refused, 503 and 429. It waits the backoff or the ledger's
+ * {@code Retry-After}, and gives up once that wait would not fit in the remaining budget.</li>
+ * <li>Hedged calls send an identical second request after {@code hedgeDelay} and take whichever
+ * answers first. The ledger applies a transfer id once, so the slower one is a no-op.</li>
+ * <li>Every attempt reports its outcome to the circuit breaker. Transport errors, 5xx and 429
+ * count as failures. Any other answer counts as a success, including a rejected transfer.
+ * While the breaker is open calls fail at once with a {@link CallNotPermittedException}, and
+ * nothing is sent.</li>
+ * </ul>
+ */
+public class LedgerCalls implements AutoCloseable {
+
+    private final LedgerCallProperties properties;
+    private final CircuitBreaker circuitBreaker;
+    private final Semaphore hedgeSlots;
+    private final ExecutorService threads;
+    private final Executor executor;
+    private final Counter retries;
+    private final Counter hedges;
+
+    public LedgerCalls(LedgerCallProperties properties, CircuitBreaker circuitBreaker, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.circuitBreaker = circuitBreaker;
+        this.hedgeSlots = new Semaphore(properties.getMaxHedgesInFlight());
+        final var threadCount = new AtomicInteger();
+        this.threads = Executors.newCachedThreadPool(runnable -> {
+            final var thread = new Thread(runnable, "ledger-call-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor = MdcExecutors.propagating(threads);
+        this.retries = Counter.builder("transfer.ledger.retries").register(meterRegistry);
+        this.hedges = Counter.builder("transfer.ledger.hedges").register(meterRegistry);
+    }
+
+    /**
+     * The deadline for a transfer submitted now with the given budget, {@code defaultTimeout}
+     * when the request named none.
+     */
+    public Deadline deadline(Duration timeout) {
+        if (timeout == null) {
+            return Deadline.after(properties.getDefaultTimeout());
+        }
+        if (timeout.isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException(Deadline.TIMEOUT_HEADER + " must be positive");
+        }
+        return Deadline.after(timeout.compareTo(properties.getMaxTimeout()) > 0 ? properties.getMaxTimeout() : timeout);
+    }
+
+    public <T> T call(Deadline deadline, boolean hedged, Supplier<T> call) {
+        var backoffNanos = properties.getBackoff().toNanos();
+        for (int attempt = 1; ; attempt++) {
+            if (deadline.isExpired()) {
+                throw new DeadlineExceededException("Deadline passed before the ledger call was sent", false);
+            }
+            final RuntimeException failure;
+            try {
+                return hedged && properties.getHedgeDelay().toNanos() > 0
+                        ? hedged(deadline, call)
+                        : attempt(deadline, call);
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+            if (attempt >= properties.getMaxAttempts() || !isRetriable(failure)) {
+                throw failure;
+            }
+            final var pauseNanos = Math.max(ThreadLocalRandom.current().nextLong(backoffNanos / 2, backoffNanos + 1),
+                    retryAfterNanos(failure));
+            // a try that could only start after the deadline is not worth waiting for
+            if (pauseNanos >= deadline.remainingNanos()) {
+                throw failure;
+            }
+            retries.increment();
+            try {
+                TimeUnit.NANOSECONDS.sleep(pauseNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw failure;
+            }
+            backoffNanos *= 2;
+        }
+    }
+
+    private <T> T attempt(Deadline deadline, Supplier<T> call) {
+        if (!circuitBreaker.tryAcquirePermission()) {
+            throw CallNotPermittedException.createCallNotPermittedException(circuitBreaker);
+        }
+        final var started = System.nanoTime();
+        try {
+            final var result = deadline.apply(call);
+            circuitBreaker.onSuccess(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (RuntimeException e) {
+            if (isTransportFailure(e)) {
+                circuitBreaker.onError(System.nanoTime() - started, TimeUnit.NANOSECONDS, e);
+            } else {
+                // the ledger is up, it just said no
+                circuitBreaker.onSuccess(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            }
+            throw e;
+        }
+    }
+
+    private <T> T hedged(Deadline deadline, Supplier<T> call) {
+        final var first = CompletableFuture.supplyAsync(() -> attempt(deadline, call), executor);
+        try {
+            return await(first, Math.min(properties.getHedgeDelay().toNanos(), deadline.remainingNanos()));
+        } catch (TimeoutException e) {
+            // slow, send a second one if there is time and the ledger isn't already being hedged too much
+        }
+        var result = first;
+        if (!deadline.isExpired() && hedgeSlots.tryAcquire()) {
+            hedges.increment();
+            final var second = CompletableFuture.supplyAsync(() -> attempt(deadline, call), executor);
+            second.whenComplete((value, error) -> hedgeSlots.release());
+            result = firstSuccess(first, second);
+        }
+        try {
+            return await(result, deadline.remainingNanos());
+        } catch (TimeoutException e) {
+            throw new DeadlineExceededException("No answer from the ledger before the deadline", true);
+        }
+    }
+
+    // the first result, or when both fail the failure that leaves the most doubt about the transfer
+    private static <T> CompletableFuture<T> firstSuccess(CompletableFuture<T> first, CompletableFuture<T> second) {
+        final var result = new CompletableFuture<T>();
+        final var failure = new AtomicReference<Throwable>();
+        final BiConsumer<T, Throwable> onComplete = (value, error) -> {
+            if (error == null) {
+                result.complete(value);
+                return;
+            }
+            final var cause = error.getCause() != null ? error.getCause() : error;
+            if (!failure.compareAndSet(null, cause)) {
+                final var other = failure.get();
+                result.completeExceptionally(mayHaveBeenApplied(other) ? other : cause);
+            }
+        };
+        first.whenComplete(onComplete);
+        second.whenComplete(onComplete);
+        return result;
+    }
+
+    private static <T> T await(CompletableFuture<T> future, long nanos) throws TimeoutException {
+        try {
+            return future.get(Math.max(0, nanos), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Ledger call failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DeadlineExceededException("Interrupted while waiting for the ledger", true);
+        }
+    }
+
+    /**
+     * False when the ledger certainly did not apply the transfer: it was never sent (deadline,
+     * open breaker, full batch queue), the connection was refused, or the ledger answered 4xx
+     * (rejected before applying) or 503 (rolled back, busy). Timeouts, broken connections and
+     * 5xx can hide a committed transfer, and so can any failed batch call that reached the
+     * ledger.
+     */
+    public static boolean mayHaveBeenApplied(Throwable failure) {
+        if (failure instanceof LedgerBatchFailedException) {
+            return true;
+        }
+        if (failure instanceof DeadlineExceededException deadlineExceeded) {
+            return deadlineExceeded.isSent();
+        }
+        if (failure instanceof TimeoutException || failure instanceof RejectedExecutionException
+                || failure instanceof CallNotPermittedException || failure.getCause() instanceof ConnectException) {
+            return false;
+        }
+        if (failure instanceof FeignException feignException) {
+            final var status = feignException.status();
+            return !(status >= 400 && status < 500 || status == 503);
+        }
+        return true;
+    }
+
+    // nothing was applied and the same request can succeed a little later
+    static boolean isRetriable(Throwable failure) {
+        if (failure.getCause() instanceof ConnectException) {
+            return true;
+        }
+        return failure instanceof FeignException feignException
+                && (feignException.status() == 503 || feignException.status() == 429);
+    }
+
+    // whether the failure says something about the ledger's health, not about the transfer
+    static boolean isTransportFailure(Throwable failure) {
+        if (failure instanceof FeignException feignException) {
+            return feignException.status() < 0 || feignException.status() >= 500 || feignException.status() == 429;
+        }
+        return failure instanceof IOException || failure.getCause() instanceof IOException;
+    }
+
+    private static long retryAfterNanos(Throwable failure) {
+        if (!(failure instanceof FeignException feignException) || feignException.responseHeaders() == null) {
+            return 0;
+        }
+        for (final var header : feignException.responseHeaders().entrySet()) {
+            if ("retry-after".equalsIgnoreCase(header.getKey())) {
+                for (final var value : header.getValue()) {
+                    try {
+                        return TimeUnit.SECONDS.toNanos(Long.parseLong(value.trim()));
+                    } catch (NumberFormatException e) {
+                        // an HTTP date, the ledger doesn't send those
+                    }
+                }
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public void close() {
+        threads.shutdownNow();
+    }
+}
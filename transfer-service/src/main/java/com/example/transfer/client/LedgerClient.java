@@ -1,16 +1,34 @@
 package com.example.transfer.client;
 
+import com.example.transfer.dto.LedgerBatchTransferRequest;
+import com.example.transfer.dto.LedgerBatchTransferResponse;
+import com.example.transfer.dto.LedgerMultiLegTransferRequest;
 import com.example.transfer.dto.LedgerTransferRequest;
 import com.example.transfer.dto.LedgerTransferResponse;
+import com.example.transfer.dto.LedgerTransferStatusRequest;
+import com.example.transfer.dto.LedgerTransferStatusResponse;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 
-@FeignClient(name = "ledger-service", url = "${ledger.service.url}")
+// url comes from spring.cloud.openfeign.client.config.ledger-service.url, which is read at runtime
+// (an annotation placeholder would be frozen by AOT processing in the fast-start build)
+@FeignClient(name = "ledger-service")
 public interface LedgerClient {
     
     @PostMapping("/ledger/transfer")
     LedgerTransferResponse transfer(@RequestBody LedgerTransferRequest request);
+
+    // one result per transfer, each applied in its own ledger transaction
+    @PostMapping("/ledger/transfers/batch")
+    LedgerBatchTransferResponse transferBatch(@RequestBody LedgerBatchTransferRequest request);
+
+    @PostMapping("/ledger/transfer/multi-leg")
+    LedgerTransferResponse multiLegTransfer(@RequestBody LedgerMultiLegTransferRequest request);
+
+    // whether the ledger applied each transfer, in request order, at most 500 ids
+    @PostMapping("/ledger/transfers/status")
+    LedgerTransferStatusResponse transferStatuses(@RequestBody LedgerTransferStatusRequest request);
 }
 
 
@@ -0,0 +1,252 @@
+package com.example.transfer.client;
+
+import com.example.transfer.dto.LedgerBatchTransferRequest;
+import com.example.transfer.dto.LedgerBatchTransferResponse;
+import com.example.transfer.dto.LedgerTransferRequest;
+import com.example.transfer.dto.LedgerTransferResponse;
+import feign.FeignException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Coalesces concurrent single-transfer ledger calls into {@code POST /ledger/transfers/batch}.
+ * A dispatcher thread collects transfers until {@code maxBatchSize} is reached or {@code window}
+ * has passed since the first one arrived, then hands the batch to one of
+ * {@code maxConcurrentBatches} senders. While all senders are busy transfers keep queueing, so
+ * batches grow with load instead of adding requests. Each caller's future completes with its
+ * own result from the batch response.
+ *
+ * <p>A transfer still waiting after {@code maxLatency} (all senders stuck on a slow ledger) or
+ * past its {@link Deadline} is failed without being sent, so a failure never hides a transfer
+ * the ledger applied later. A batch call that fails once it reached the ledger fails every
+ * transfer in it with a {@link LedgerBatchFailedException}, which leaves them ambiguous: the
+ * ledger may have committed some of them first. A batch is sent through {@link LedgerCalls} under the earliest
+ * deadline in it, without hedging: a second copy of a whole batch costs the ledger too much.
+ *
+ * <p>A transfer the ledger answers as retriable (rolled back because an account lock was not
+ * granted in time) is sent again on its own, the way an unbatched transfer is, so it gets the
+ * same retries on a busy account within its deadline instead of failing outright.
+ */
+@Slf4j
+public class LedgerTransferBatcher implements AutoCloseable {
+
+    private final LedgerClient ledgerClient;
+    private final LedgerCalls ledgerCalls;
+    private final LedgerBatchProperties properties;
+    private final BlockingQueue<Pending> queue;
+    private final Semaphore senderSlots;
+    private final ExecutorService senders;
+    private final ExecutorService resenders;
+    private final Thread dispatcher;
+    private final DistributionSummary batchSize;
+    private final Counter expired;
+    private final Counter rejected;
+    private final Counter resent;
+    private volatile boolean running;
+
+    public LedgerTransferBatcher(LedgerClient ledgerClient, LedgerCalls ledgerCalls, LedgerBatchProperties properties,
+                                 MeterRegistry meterRegistry) {
+        this.ledgerClient = ledgerClient;
+        this.ledgerCalls = ledgerCalls;
+        this.properties = properties;
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        this.senderSlots = new Semaphore(properties.getMaxConcurrentBatches());
+        final var senderCount = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(properties.getMaxConcurrentBatches(), runnable -> {
+            final var thread = new Thread(runnable, "ledger-batch-sender-" + senderCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        final var resenderCount = new AtomicInteger();
+        this.resenders = Executors.newCachedThreadPool(runnable -> {
+            final var thread = new Thread(runnable, "ledger-batch-resender-" + resenderCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.batchSize = DistributionSummary.builder("transfer.ledger.batch.size")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.expired = Counter.builder("transfer.ledger.batch.expired").register(meterRegistry);
+        this.rejected = Counter.builder("transfer.ledger.batch.rejected").register(meterRegistry);
+        this.resent = Counter.builder("transfer.ledger.batch.resent").register(meterRegistry);
+        Gauge.builder("transfer.ledger.batch.queued", queue, BlockingQueue::size).register(meterRegistry);
+
+        this.running = properties.isEnabled();
+        this.dispatcher = new Thread(this::dispatch, "ledger-batch-dispatcher");
+        this.dispatcher.setDaemon(true);
+        if (running) {
+            dispatcher.start();
+        }
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public CompletableFuture<LedgerTransferResponse> submit(LedgerTransferRequest request, Deadline deadline) {
+        final var pending = new Pending(request, deadline, System.nanoTime(), new CompletableFuture<>());
+        if (!running || !queue.offer(pending)) {
+            rejected.increment();
+            pending.result.completeExceptionally(new RejectedExecutionException("Ledger batch queue is full"));
+        }
+        return pending.result;
+    }
+
+    private void dispatch() {
+        final var windowNanos = properties.getWindow().toNanos();
+        while (running) {
+            final var batch = new ArrayList<Pending>(properties.getMaxBatchSize());
+            try {
+                final var first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // the window counts from when the first transfer was queued, so a backlog is sent at once
+                final var deadline = first.queuedAt + windowNanos;
+                while (batch.size() < properties.getMaxBatchSize()) {
+                    final var remaining = deadline - System.nanoTime();
+                    final var next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                senderSlots.acquire();
+                final var live = expireStale(batch);
+                if (live.isEmpty()) {
+                    senderSlots.release();
+                    continue;
+                }
+                senders.execute(() -> {
+                    try {
+                        send(live);
+                    } finally {
+                        senderSlots.release();
+                    }
+                });
+            } catch (InterruptedException e) {
+                // shutting down, nothing in this batch has been sent
+                batch.forEach(pending -> pending.result.completeExceptionally(
+                        new RejectedExecutionException("Ledger batcher is shutting down")));
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                log.error("Ledger batch dispatcher error", e);
+            }
+        }
+    }
+
+    private List<Pending> expireStale(List<Pending> batch) {
+        final var cutoff = System.nanoTime() - properties.getMaxLatency().toNanos();
+        final var live = new ArrayList<Pending>(batch.size());
+        for (final var pending : batch) {
+            if (pending.queuedAt - cutoff < 0) {
+                expired.increment();
+                pending.result.completeExceptionally(new TimeoutException(
+                        "Ledger call not sent within " + properties.getMaxLatency().toMillis() + " ms"));
+            } else if (pending.deadline.isExpired()) {
+                expired.increment();
+                pending.result.completeExceptionally(
+                        new DeadlineExceededException("Deadline passed before the ledger call was sent", false));
+            } else {
+                live.add(pending);
+            }
+        }
+        return live;
+    }
+
+    private void send(List<Pending> batch) {
+        batchSize.record(batch.size());
+        try {
+            final var requests = batch.stream().map(Pending::request).toList();
+            var deadline = batch.get(0).deadline;
+            for (final var pending : batch) {
+                if (pending.deadline.isBefore(deadline)) {
+                    deadline = pending.deadline;
+                }
+            }
+            final var response = ledgerCalls.call(deadline, false,
+                    () -> ledgerClient.transferBatch(new LedgerBatchTransferRequest(requests)));
+            final var results = response.getResults().stream()
+                    .collect(Collectors.toMap(LedgerBatchTransferResponse.Result::getTransferId,
+                            Function.identity(), (a, b) -> a));
+            for (final var pending : batch) {
+                final var result = results.get(pending.request.getTransferId());
+                if (result == null) {
+                    pending.result.completeExceptionally(new IllegalStateException(
+                            "Ledger batch response has no result for transfer " + pending.request.getTransferId()));
+                } else if (result.isRetriable()) {
+                    resend(pending);
+                } else {
+                    pending.result.complete(new LedgerTransferResponse(result.isSuccess(), result.getMessage()));
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Ledger batch of {} transfers failed: {}", batch.size(), e.getMessage());
+            // a 503 or 500 can come after some of the batch was committed
+            final var failure = LedgerCalls.mayHaveBeenApplied(e) || isServerError(e)
+                    ? new LedgerBatchFailedException(e)
+                    : e;
+            batch.forEach(pending -> pending.result.completeExceptionally(failure));
+        }
+    }
+
+    private static boolean isServerError(Throwable failure) {
+        return failure instanceof FeignException feignException && feignException.status() >= 500;
+    }
+
+    // a single call is hedged and retried by LedgerCalls like any unbatched transfer
+    private void resend(Pending pending) {
+        resent.increment();
+        CompletableFuture.supplyAsync(() -> ledgerCalls.call(pending.deadline, true,
+                        () -> ledgerClient.transfer(pending.request)), resenders)
+                .whenComplete((response, failure) -> {
+                    if (failure == null) {
+                        pending.result.complete(response);
+                    } else {
+                        pending.result.completeExceptionally(failure instanceof CompletionException
+                                && failure.getCause() != null ? failure.getCause() : failure);
+                    }
+                });
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        dispatcher.interrupt();
+        dispatcher.join(TimeUnit.SECONDS.toMillis(5));
+        senders.shutdown();
+        senders.awaitTermination(10, TimeUnit.SECONDS);
+        resenders.shutdown();
+        resenders.awaitTermination(10, TimeUnit.SECONDS);
+        Pending pending;
+        while ((pending = queue.poll()) != null) {
+            pending.result.completeExceptionally(new RejectedExecutionException("Ledger batcher is shutting down"));
+        }
+    }
+
+    private record Pending(LedgerTransferRequest request, Deadline deadline, long queuedAt,
+                           CompletableFuture<LedgerTransferResponse> result) {
+    }
+}
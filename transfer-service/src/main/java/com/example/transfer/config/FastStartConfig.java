@@ -0,0 +1,51 @@
+package com.example.transfer.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.util.List;
+
+/**
+ * Startup tuning for the {@code fast-start} profile. Beans that are not on the request path are
+ * created on first use instead of during context refresh. With AOT processing this runs at build
+ * time and the lazy flags are baked into the generated bean definitions.
+ */
+@Configuration
+@Profile("fast-start")
+@Slf4j
+public class FastStartConfig {
+
+    // springdoc scans every controller to build the OpenAPI model, only needed when the docs are opened
+    private static final List<String> LAZY_PACKAGES = List.of("org.springdoc.");
+
+    @Bean
+    public static BeanFactoryPostProcessor lazyInitNonHotBeans() {
+        return beanFactory -> {
+            int lazy = 0;
+            for (final var name : beanFactory.getBeanDefinitionNames()) {
+                final var definition = beanFactory.getBeanDefinition(name);
+                if (!definition.isLazyInit() && isLazyCandidate(definition)) {
+                    definition.setLazyInit(true);
+                    lazy++;
+                }
+            }
+            log.debug("Marked {} beans for lazy initialization", lazy);
+        };
+    }
+
+    private static boolean isLazyCandidate(BeanDefinition definition) {
+        var className = definition.getBeanClassName();
+        // @Bean methods have no bean class, use the declaring configuration class instead
+        if (className == null && definition instanceof AnnotatedBeanDefinition annotated
+                && annotated.getFactoryMethodMetadata() != null) {
+            className = annotated.getFactoryMethodMetadata().getDeclaringClassName();
+        }
+        final var candidate = className;
+        return candidate != null && LAZY_PACKAGES.stream().anyMatch(candidate::startsWith);
+    }
+}
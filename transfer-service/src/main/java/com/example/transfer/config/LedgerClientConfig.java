@@ -0,0 +1,62 @@
+package com.example.transfer.config;
+
+import com.example.transfer.client.DeadlineClient;
+import com.example.transfer.client.LedgerBatchProperties;
+import com.example.transfer.client.LedgerCallProperties;
+import com.example.transfer.client.LedgerCalls;
+import com.example.transfer.client.LedgerClient;
+import com.example.transfer.client.LedgerTransferBatcher;
+import feign.Client;
+import feign.RequestInterceptor;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.MDC;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class LedgerClientConfig {
+
+    @Bean
+    @ConfigurationProperties("transfer.ledger-batch")
+    public LedgerBatchProperties ledgerBatchProperties() {
+        return new LedgerBatchProperties();
+    }
+
+    @Bean
+    @ConfigurationProperties("transfer.ledger-call")
+    public LedgerCallProperties ledgerCallProperties() {
+        return new LedgerCallProperties();
+    }
+
+    // breaker settings are resilience4j.circuitbreaker.instances.ledger-service
+    @Bean(destroyMethod = "close")
+    public LedgerCalls ledgerCalls(LedgerCallProperties properties, CircuitBreakerRegistry circuitBreakerRegistry,
+                                   MeterRegistry meterRegistry) {
+        return new LedgerCalls(properties, circuitBreakerRegistry.circuitBreaker("ledger-service"), meterRegistry);
+    }
+
+    @Bean(destroyMethod = "close")
+    public LedgerTransferBatcher ledgerTransferBatcher(LedgerClient ledgerClient, LedgerCalls ledgerCalls,
+                                                       LedgerBatchProperties properties, MeterRegistry meterRegistry) {
+        return new LedgerTransferBatcher(ledgerClient, ledgerCalls, properties, meterRegistry);
+    }
+
+    // cuts timeouts to the transfer's deadline and tells the ledger about it
+    @Bean
+    public Client feignClient() {
+        return new DeadlineClient(new Client.Default(null, null));
+    }
+
+    // the ledger logs under the same requestId; batched calls carry many requests and send none
+    @Bean
+    public RequestInterceptor requestIdInterceptor() {
+        return template -> {
+            final var requestId = MDC.get("requestId");
+            if (requestId != null) {
+                template.header("X-Request-ID", requestId);
+            }
+        };
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.transfer.config;
+
+import com.example.transfer.limiter.AccountRateLimiter;
+import com.example.transfer.limiter.AdaptiveConcurrencyLimiter;
+import com.example.transfer.limiter.ConcurrencyLimitProperties;
+import com.example.transfer.limiter.RateLimitProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class LimiterConfig {
+
+    @Bean
+    @ConfigurationProperties("transfer.concurrency-limit")
+    public ConcurrencyLimitProperties concurrencyLimitProperties() {
+        return new ConcurrencyLimitProperties();
+    }
+
+    @Bean
+    public AdaptiveConcurrencyLimiter transferConcurrencyLimiter(ConcurrencyLimitProperties properties,
+                                                                 MeterRegistry meterRegistry) {
+        return new AdaptiveConcurrencyLimiter("transfers", properties, meterRegistry);
+    }
+
+    @Bean
+    @ConfigurationProperties("transfer.rate-limit")
+    public RateLimitProperties rateLimitProperties() {
+        return new RateLimitProperties();
+    }
+
+    @Bean
+    public AccountRateLimiter accountRateLimiter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        return new AccountRateLimiter(properties, meterRegistry);
+    }
+}
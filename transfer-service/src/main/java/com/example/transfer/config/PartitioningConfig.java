@@ -0,0 +1,16 @@
+package com.example.transfer.config;
+
+import com.example.transfer.partition.PartitioningProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class PartitioningConfig {
+
+    @Bean
+    @ConfigurationProperties("transfer.partitioning")
+    public PartitioningProperties partitioningProperties() {
+        return new PartitioningProperties();
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.transfer.config;
+
+import com.example.transfer.recovery.RecoveryProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class RecoveryConfig {
+
+    @Bean
+    @ConfigurationProperties("transfer.recovery")
+    public RecoveryProperties recoveryProperties() {
+        return new RecoveryProperties();
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.transfer.config;
+
+import com.example.transfer.repository.TransferRecordRepository;
+import com.example.transfer.scheduled.ScheduledTransferDispatcher;
+import com.example.transfer.scheduled.ScheduledTransferProperties;
+import com.example.transfer.scheduled.ScheduledTransferQueue;
+import com.example.transfer.service.TransferService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ScheduledTransferConfig {
+
+    @Bean
+    @ConfigurationProperties("transfer.scheduled")
+    public ScheduledTransferProperties scheduledTransferProperties() {
+        return new ScheduledTransferProperties();
+    }
+
+    @Bean
+    public ScheduledTransferQueue scheduledTransferQueue(ScheduledTransferProperties properties,
+                                                         MeterRegistry meterRegistry) {
+        return new ScheduledTransferQueue(properties, meterRegistry);
+    }
+
+    @Bean(destroyMethod = "close")
+    public ScheduledTransferDispatcher scheduledTransferDispatcher(ScheduledTransferQueue queue,
+                                                                   TransferService transferService,
+                                                                   TransferRecordRepository transferRecordRepository,
+                                                                   ScheduledTransferProperties properties,
+                                                                   MeterRegistry meterRegistry) {
+        return new ScheduledTransferDispatcher(queue, transferService, transferRecordRepository, properties,
+                meterRegistry);
+    }
+}
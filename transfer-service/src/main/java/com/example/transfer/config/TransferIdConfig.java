@@ -0,0 +1,43 @@
+package com.example.transfer.config;
+
+import com.example.transfer.id.TransferIdGenerator;
+import com.example.transfer.id.TransferIdProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+@Configuration
+@Slf4j
+public class TransferIdConfig {
+
+    @Bean
+    @ConfigurationProperties("transfer.id")
+    public TransferIdProperties transferIdProperties() {
+        return new TransferIdProperties();
+    }
+
+    @Bean
+    public TransferIdGenerator transferIdGenerator(TransferIdProperties properties) {
+        var nodeId = properties.getNodeId();
+        if (nodeId < 0) {
+            nodeId = derivedNodeId();
+            log.info("transfer.id.node-id not set, using {} derived from host name and pid", nodeId);
+        }
+        return new TransferIdGenerator(nodeId);
+    }
+
+    private static int derivedNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "localhost";
+        }
+        final var hash = host.hashCode() * 31 + Long.hashCode(ProcessHandle.current().pid());
+        return (hash ^ hash >>> 16) & TransferIdGenerator.MAX_NODE_ID;
+    }
+}
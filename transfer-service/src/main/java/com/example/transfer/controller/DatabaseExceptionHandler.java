@@ -0,0 +1,28 @@
+package com.example.transfer.controller;
+
+import com.example.transfer.config.PoolAdmissionDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.TransactionException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+@RestControllerAdvice
+@Slf4j
+public class DatabaseExceptionHandler {
+
+    @ExceptionHandler({DataAccessException.class, TransactionException.class})
+    public ResponseEntity<String> handleDatabaseError(RuntimeException e) {
+        if (PoolAdmissionDataSource.isSaturated(e)) {
+            log.warn("Rejecting request, connection pool saturated: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body("Service busy, retry later");
+        }
+        log.error("Database error", e);
+        return ResponseEntity.internalServerError().body("Internal server error");
+    }
+}
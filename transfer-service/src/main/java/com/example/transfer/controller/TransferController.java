@@ -1,7 +1,13 @@
 package com.example.transfer.controller;
 
+import com.example.transfer.client.Deadline;
+import com.example.transfer.config.PoolAdmissionDataSource;
+import com.example.transfer.limiter.TooManyRequestsException;
+import com.example.transfer.logging.SamplingTurboFilter;
+import com.example.transfer.model.TransferLeg;
 import com.example.transfer.model.TransferRecord;
 import com.example.transfer.service.TransferService;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.servlet.http.HttpServletRequest;
@@ -17,15 +23,21 @@ import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.function.Function;
 
 @RestController
 @RequestMapping("/transfers")
@@ -43,7 +55,39 @@ public class TransferController {
             @Valid @RequestBody CreateTransferRequest request,
             @RequestHeader("Idempotency-Key") @NotBlank String idempotencyKey,
             HttpServletRequest httpRequest) {
-        
+        if (request.getExecuteAt() != null) {
+            return submit(idempotencyKey, httpRequest, timeout -> transferService.scheduleTransfer(
+                    idempotencyKey,
+                    request.getFromAccountId(),
+                    request.getToAccountId(),
+                    request.getAmount(),
+                    request.getExecuteAt()
+            ));
+        }
+        return submit(idempotencyKey, httpRequest, timeout -> transferService.createTransfer(
+                idempotencyKey,
+                request.getFromAccountId(),
+                request.getToAccountId(),
+                request.getAmount(),
+                timeout
+        ));
+    }
+
+    @PostMapping("/split")
+    @Operation(summary = "Split transfer", description = "Debit one account and credit several, atomically in the ledger")
+    public ResponseEntity<TransferResponse> createSplitTransfer(
+            @Valid @RequestBody CreateSplitTransferRequest request,
+            @RequestHeader("Idempotency-Key") @NotBlank String idempotencyKey,
+            HttpServletRequest httpRequest) {
+        final var legs = request.getLegs().stream()
+                .map(leg -> new TransferLeg(leg.getAccountId(), leg.getAmount()))
+                .toList();
+        return submit(idempotencyKey, httpRequest,
+                timeout -> transferService.createSplitTransfer(idempotencyKey, request.getFromAccountId(), legs, timeout));
+    }
+
+    private ResponseEntity<TransferResponse> submit(String idempotencyKey, HttpServletRequest httpRequest,
+                                                    Function<Duration, TransferRecord> transfer) {
         // Set request correlation ID
         var requestId = httpRequest.getHeader("X-Request-ID");
         if (requestId == null) {
@@ -51,25 +95,34 @@ public class TransferController {
         }
         MDC.put("requestId", requestId);
         
-        log.info("Creating transfer with idempotency key: {}", idempotencyKey);
+        log.info(SamplingTurboFilter.SAMPLED, "Creating transfer with idempotency key: {}", idempotencyKey);
         
         try {
-            TransferRecord transferRecord = transferService.createTransfer(
-                    idempotencyKey,
-                    request.getFromAccountId(),
-                    request.getToAccountId(),
-                    request.getAmount()
-            );
+            TransferRecord transferRecord = transfer.apply(timeout(httpRequest));
             
-            return ResponseEntity.ok(new TransferResponse(
-                    transferRecord.getTransferId(),
-                    transferRecord.getStatus().toString(),
-                    transferRecord.getErrorMessage()
-            ));
+            return ResponseEntity.ok(toResponse(transferRecord));
+        } catch (DataIntegrityViolationException e) {
+            // a concurrent request with the same key claimed it first: answer like a retry would be
+            log.info("Idempotency key {} claimed by a concurrent request, replaying its transfer", idempotencyKey);
+            return transferService.findByIdempotencyKey(idempotencyKey)
+                    .map(existing -> ResponseEntity.ok(toResponse(existing)))
+                    .orElseGet(() -> ResponseEntity.status(HttpStatus.CONFLICT)
+                            .body(new TransferResponse(null, "FAILED", TransferService.IDEMPOTENCY_KEY_IN_USE)));
+        } catch (TooManyRequestsException e) {
+            log.warn("Rejecting transfer: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(new TransferResponse(null, "FAILED", e.getMessage()));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest()
                     .body(new TransferResponse(null, "FAILED", e.getMessage()));
         } catch (Exception e) {
+            if (PoolAdmissionDataSource.isSaturated(e)) {
+                log.warn("Rejecting transfer, connection pool saturated");
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "1")
+                        .body(new TransferResponse(null, "FAILED", "Service busy, retry later"));
+            }
             return ResponseEntity.internalServerError()
                     .body(new TransferResponse(null, "FAILED", "Internal server error"));
         } finally {
@@ -77,14 +130,22 @@ public class TransferController {
         }
     }
 
+    private static TransferResponse toResponse(TransferRecord transferRecord) {
+        return new TransferResponse(
+                transferRecord.getTransferId(),
+                transferRecord.getStatus().toString(),
+                transferRecord.getErrorMessage()
+        );
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<TransferResponse> getTransfer(@PathVariable String id) {
 
-        final var transferRecord = transferService.getTransfer(id);
-        return transferRecord.map(record -> ResponseEntity.ok(new TransferResponse(
-                record.getTransferId(),
-                record.getStatus().toString(),
-                record.getErrorMessage()
+        final var transferStatus = transferService.getTransfer(id);
+        return transferStatus.map(status -> ResponseEntity.ok(new TransferResponse(
+                status.getTransferId(),
+                status.getStatus().toString(),
+                status.getErrorMessage()
         ))).orElse(ResponseEntity.notFound().build());
     }
 
@@ -104,17 +165,27 @@ public class TransferController {
         log.info("Processing batch of {} transfers", request.getTransfers().size());
         
         try {
-            List<TransferRecord> transferRecords = transferService.processBatchTransfers(request.getTransfers());
-            
-            List<TransferResponse> responses = transferRecords.stream()
-                    .map(record -> new TransferResponse(
-                            record.getTransferId(),
-                            record.getStatus().toString(),
-                            record.getErrorMessage()
-                    ))
-                    .collect(Collectors.toList());
-            
-            return ResponseEntity.ok(new BatchTransferResponse(responses));
+            final var results = transferService.processBatchTransfers(request.getTransfers(), timeout(httpRequest));
+
+            final var responses = results.stream()
+                    .map(result -> result.getTransfer() != null
+                            ? new TransferResponse(
+                                    result.getTransfer().getTransferId(),
+                                    result.getTransfer().getStatus().toString(),
+                                    result.getTransfer().getErrorMessage(),
+                                    null)
+                            : new TransferResponse(null, result.isRejected() ? "REJECTED" : "FAILED",
+                                    result.getErrorMessage(), result.getRetryAfterSeconds()))
+                    .toList();
+
+            // the latest retry-after of any rejected item, so one wait covers all of them
+            final var retryAfter = results.stream()
+                    .map(TransferService.BatchTransferResult::getRetryAfterSeconds)
+                    .filter(Objects::nonNull)
+                    .max(Long::compare);
+            final var response = ResponseEntity.ok();
+            retryAfter.ifPresent(seconds -> response.header(HttpHeaders.RETRY_AFTER, String.valueOf(seconds)));
+            return response.body(new BatchTransferResponse(responses));
         } catch (IllegalArgumentException e) {
             log.warn("Invalid batch transfer request: {}", e.getMessage());
             return ResponseEntity.badRequest()
@@ -128,6 +199,19 @@ public class TransferController {
         }
     }
 
+    // the client's budget for settling the transfer with the ledger, null when it sent none
+    private static Duration timeout(HttpServletRequest httpRequest) {
+        final var value = httpRequest.getHeader(Deadline.TIMEOUT_HEADER);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Duration.ofMillis(Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(Deadline.TIMEOUT_HEADER + " must be a number of milliseconds");
+        }
+    }
+
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
@@ -141,6 +225,33 @@ public class TransferController {
         @NotNull
         @Positive
         private BigDecimal amount;
+
+        // when set the transfer is stored as SCHEDULED and sent to the ledger at this time
+        private OffsetDateTime executeAt;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CreateSplitTransferRequest {
+        @NotNull
+        private Long fromAccountId;
+
+        @NotNull
+        @Size(min = 1, max = 49, message = "A split transfer needs between 1 and 49 legs")
+        private List<@Valid SplitLeg> legs;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SplitLeg {
+        @NotNull
+        private Long accountId;
+
+        @NotNull
+        @Positive
+        private BigDecimal amount;
     }
 
     @Data
@@ -150,6 +261,13 @@ public class TransferController {
         private String transferId;
         private String status;
         private String errorMessage;
+        // batch items rejected by a limiter only
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        private Long retryAfterSeconds;
+
+        public TransferResponse(String transferId, String status, String errorMessage) {
+            this(transferId, status, errorMessage, null);
+        }
     }
 
     @Data
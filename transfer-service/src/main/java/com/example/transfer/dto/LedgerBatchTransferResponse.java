@@ -0,0 +1,25 @@
+package com.example.transfer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerBatchTransferResponse {
+    private List<Result> results;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Result {
+        private String transferId;
+        private boolean success;
+        private String message;
+        // not applied, and the same transfer may succeed if sent again
+        private boolean retriable;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.transfer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerMultiLegTransferRequest {
+    private String transferId;
+    private List<Leg> legs;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Leg {
+        private Long accountId;
+        // DEBIT or CREDIT
+        private String type;
+        private BigDecimal amount;
+    }
+}
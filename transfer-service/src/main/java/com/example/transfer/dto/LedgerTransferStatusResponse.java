@@ -0,0 +1,24 @@
+package com.example.transfer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerTransferStatusResponse {
+    private List<Status> statuses;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Status {
+        private String transferId;
+        private boolean applied;
+        private OffsetDateTime appliedAt;
+    }
+}
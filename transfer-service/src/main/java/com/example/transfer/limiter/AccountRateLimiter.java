@@ -0,0 +1,146 @@
+package com.example.transfer.limiter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Per-account token buckets, implemented with GCRA so each bucket is a single
+ * "theoretical arrival time" (TAT) that is updated with one CAS.
+ *
+ * Buckets live in a fixed-size open-addressing table (two parallel long arrays), so memory
+ * is bounded and no per-account objects are allocated. A bucket whose TAT is in the past is
+ * full again and indistinguishable from a new one, which means idle slots can be handed to
+ * another account without losing state. When an account's probe window has no free or idle
+ * slot the request is let through untracked rather than rejected.
+ */
+public class AccountRateLimiter {
+
+    private static final long EMPTY = 0L;
+    private static final int MAX_PROBE = 16;
+
+    private final boolean enabled;
+    private final int mask;
+    private final AtomicLongArray keys;
+    private final AtomicLongArray tats;
+    private final long origin = System.nanoTime() - 1;
+
+    private final TierLimits defaultTier;
+    private final Map<Long, TierLimits> accountTiers = new HashMap<>();
+    private final Counter untracked;
+
+    public AccountRateLimiter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.isEnabled();
+        final int capacity = Integer.highestOneBit(Math.max(MAX_PROBE, properties.getCapacity() - 1)) << 1;
+        this.mask = capacity - 1;
+        this.keys = new AtomicLongArray(enabled ? capacity : 0);
+        this.tats = new AtomicLongArray(enabled ? capacity : 0);
+
+        final Map<String, TierLimits> tiers = new HashMap<>();
+        properties.getTiers().forEach((name, tier) -> tiers.put(name, new TierLimits(name, tier, meterRegistry)));
+        this.defaultTier = tiers.get(properties.getDefaultTier());
+        if (defaultTier == null) {
+            throw new IllegalArgumentException("Unknown default rate limit tier " + properties.getDefaultTier());
+        }
+        properties.getAccountTiers().forEach((accountId, tierName) -> {
+            final var tier = tiers.get(tierName);
+            if (tier == null) {
+                throw new IllegalArgumentException("Unknown rate limit tier " + tierName + " for account " + accountId);
+            }
+            accountTiers.put(accountId, tier);
+        });
+
+        this.untracked = Counter.builder("transfer.ratelimit.untracked").register(meterRegistry);
+    }
+
+    /**
+     * Takes one token from the account's bucket.
+     *
+     * @return 0 if allowed, otherwise the number of nanoseconds until a token is available
+     */
+    public long tryAcquire(long accountId) {
+        if (!enabled) {
+            return 0;
+        }
+        final var tier = accountTiers.getOrDefault(accountId, defaultTier);
+        final long now = System.nanoTime() - origin;
+
+        final int slot = findOrClaimSlot(toKey(accountId), now);
+        if (slot < 0) {
+            untracked.increment();
+            return 0;
+        }
+
+        while (true) {
+            final long tat = tats.get(slot);
+            final long newTat = Math.max(tat, now) + tier.emissionIntervalNanos;
+            final long excess = newTat - now - tier.burstToleranceNanos;
+            if (excess > 0) {
+                tier.rejected.increment();
+                return excess;
+            }
+            if (tats.compareAndSet(slot, tat, newTat)) {
+                return 0;
+            }
+        }
+    }
+
+    private int findOrClaimSlot(long key, long now) {
+        final int start = (int) mix(key) & mask;
+        int idleSlot = -1;
+        for (int i = 0; i < MAX_PROBE; i++) {
+            final int slot = (start + i) & mask;
+            final long current = keys.get(slot);
+            if (current == key) {
+                return slot;
+            }
+            if (current == EMPTY) {
+                // keys are never cleared back to EMPTY, so the account cannot be further along the chain
+                if (keys.compareAndSet(slot, EMPTY, key) || keys.get(slot) == key) {
+                    return slot;
+                }
+                continue;
+            }
+            if (idleSlot < 0 && tats.get(slot) <= now) {
+                idleSlot = slot;
+            }
+        }
+        if (idleSlot >= 0) {
+            final long previous = keys.get(idleSlot);
+            if (tats.get(idleSlot) <= now && keys.compareAndSet(idleSlot, previous, key)) {
+                return idleSlot;
+            }
+        }
+        return -1;
+    }
+
+    private static long toKey(long accountId) {
+        return accountId == EMPTY ? Long.MIN_VALUE : accountId;
+    }
+
+    private static long mix(long key) {
+        key = (key ^ (key >>> 33)) * 0xff51afd7ed558ccdL;
+        key = (key ^ (key >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return key ^ (key >>> 33);
+    }
+
+    private static class TierLimits {
+        private final long emissionIntervalNanos;
+        private final long burstToleranceNanos;
+        private final Counter rejected;
+
+        private TierLimits(String name, RateLimitProperties.Tier tier, MeterRegistry meterRegistry) {
+            if (tier.getRatePerSecond() <= 0 || tier.getBurst() < 1) {
+                throw new IllegalArgumentException("Invalid rate limit tier " + name);
+            }
+            this.emissionIntervalNanos = (long) (1_000_000_000L / tier.getRatePerSecond());
+            this.burstToleranceNanos = emissionIntervalNanos * tier.getBurst();
+            this.rejected = Counter.builder("transfer.ratelimit.rejected")
+                    .tag("tier", name)
+                    .register(meterRegistry);
+        }
+    }
+}
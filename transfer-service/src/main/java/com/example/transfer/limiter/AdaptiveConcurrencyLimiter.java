@@ -0,0 +1,166 @@
+package com.example.transfer.limiter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Latency-driven AIMD concurrency limiter.
+ *
+ * Tracks a slow moving average of latency as the baseline and a fast one as the current
+ * sample. While current latency stays within {@code tolerance} x baseline and the limit is
+ * actually being used, the limit grows additively; when latency rises above that (or a
+ * call is dropped) it is cut multiplicatively. Requests above the limit are rejected
+ * instead of queued.
+ *
+ * Mirrored in ledger-service ({@code com.example.ledger.limiter}): each service is built on its own
+ * from its module directory (see the Dockerfiles), so there is no shared artifact to put it in.
+ * Changes here need to be made in both copies, and each module has its own test for it.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double LONG_WINDOW_ALPHA = 0.01;
+    private static final double SHORT_WINDOW_ALPHA = 0.2;
+
+    private final ConcurrencyLimitProperties properties;
+    private final LongSupplier nanoTime;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter rejected;
+
+    private volatile double limit;
+    private double longLatencyNanos;
+    private double shortLatencyNanos;
+
+    public AdaptiveConcurrencyLimiter(String name, ConcurrencyLimitProperties properties, MeterRegistry meterRegistry) {
+        this(name, properties, meterRegistry, System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimiter(String name, ConcurrencyLimitProperties properties, MeterRegistry meterRegistry,
+                               LongSupplier nanoTime) {
+        this.properties = properties;
+        this.nanoTime = nanoTime;
+        this.limit = properties.getInitialLimit();
+
+        Gauge.builder("concurrency.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+                .tag("name", name)
+                .register(meterRegistry);
+        Gauge.builder("concurrency.inflight", inFlight, AtomicInteger::get)
+                .tag("name", name)
+                .register(meterRegistry);
+        this.rejected = Counter.builder("concurrency.rejected")
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return a permit that must be released exactly once, or null if the limit is reached
+     */
+    public Permit tryAcquire() {
+        if (!properties.isEnabled()) {
+            inFlight.incrementAndGet();
+            return new Permit(nanoTime.getAsLong());
+        }
+        while (true) {
+            final int current = inFlight.get();
+            if (current >= (int) limit) {
+                rejected.increment();
+                return null;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return new Permit(nanoTime.getAsLong());
+            }
+        }
+    }
+
+    public double getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Suggested Retry-After in whole seconds, based on the current latency.
+     */
+    public long retryAfterSeconds() {
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds((long) shortLatencyNanos) + 1);
+    }
+
+    private synchronized void onComplete(long latencyNanos, int inFlightAtStart, boolean dropped) {
+        if (longLatencyNanos == 0) {
+            longLatencyNanos = latencyNanos;
+            shortLatencyNanos = latencyNanos;
+        } else {
+            longLatencyNanos += LONG_WINDOW_ALPHA * (latencyNanos - longLatencyNanos);
+            shortLatencyNanos += SHORT_WINDOW_ALPHA * (latencyNanos - shortLatencyNanos);
+        }
+
+        final boolean overloaded = dropped
+                || shortLatencyNanos > longLatencyNanos * properties.getTolerance()
+                || latencyNanos > properties.getMaxLatency().toNanos();
+
+        double newLimit = limit;
+        if (overloaded) {
+            newLimit = limit * properties.getBackoffRatio();
+            // pull the baseline down with the limit so it does not drift up under sustained load
+            longLatencyNanos = Math.min(longLatencyNanos, shortLatencyNanos);
+        } else if (inFlightAtStart * 2 >= limit) {
+            // only grow when the limit is actually being used
+            newLimit = limit + 1.0 / limit;
+        }
+        limit = Math.max(properties.getMinLimit(), Math.min(properties.getMaxLimit(), newLimit));
+    }
+
+    public class Permit {
+        private final long startNanos;
+        private final int inFlightAtStart;
+        private boolean released;
+
+        private Permit(long startNanos) {
+            this.startNanos = startNanos;
+            this.inFlightAtStart = inFlight.get();
+        }
+
+        public void success() {
+            release(false);
+        }
+
+        /**
+         * The call failed in a way that signals overload (timeout, 5xx, connection error).
+         */
+        public void dropped() {
+            release(true);
+        }
+
+        /**
+         * Release without feeding the latency into the limit, e.g. for fast business rejections.
+         */
+        public void ignore() {
+            if (markReleased()) {
+                inFlight.decrementAndGet();
+            }
+        }
+
+        private void release(boolean dropped) {
+            if (markReleased()) {
+                inFlight.decrementAndGet();
+                if (properties.isEnabled()) {
+                    onComplete(nanoTime.getAsLong() - startNanos, inFlightAtStart, dropped);
+                }
+            }
+        }
+
+        private synchronized boolean markReleased() {
+            if (released) {
+                return false;
+            }
+            released = true;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.transfer.limiter;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+@Data
+public class ConcurrencyLimitProperties {
+    private boolean enabled = true;
+    private int initialLimit = 20;
+    private int minLimit = 2;
+    private int maxLimit = 200;
+    private double backoffRatio = 0.9;
+    // current latency above tolerance x baseline counts as overload
+    private double tolerance = 2.0;
+    // any single call slower than this counts as overload regardless of the baseline
+    private Duration maxLatency = Duration.ofSeconds(5);
+}
@@ -0,0 +1,23 @@
+package com.example.transfer.limiter;
+
+import lombok.Data;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+public class RateLimitProperties {
+    private boolean enabled = true;
+    // number of bucket slots, rounded up to a power of two (16 bytes each)
+    private int capacity = 1 << 20;
+    private String defaultTier = "standard";
+    private Map<String, Tier> tiers = new HashMap<>(Map.of("standard", new Tier()));
+    // accountId -> tier name, accounts not listed use the default tier
+    private Map<Long, String> accountTiers = new HashMap<>();
+
+    @Data
+    public static class Tier {
+        private double ratePerSecond = 10;
+        private int burst = 20;
+    }
+}
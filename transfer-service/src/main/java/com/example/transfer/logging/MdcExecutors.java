@@ -0,0 +1,53 @@
+package com.example.transfer.logging;
+
+import org.slf4j.MDC;
+
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Carries the MDC (the {@code requestId} set by the controller) onto pool threads, which
+ * otherwise log without it.
+ */
+public final class MdcExecutors {
+
+    private MdcExecutors() {
+    }
+
+    /**
+     * Runs each task with the MDC of the thread that hands it over, for {@code runAsync} and
+     * {@code supplyAsync} called from the request thread.
+     */
+    public static Executor propagating(Executor delegate) {
+        return task -> delegate.execute(wrap(task, MDC.getCopyOfContextMap()));
+    }
+
+    /**
+     * Runs tasks with the MDC as it is now. For {@code *Async} continuations, which are handed
+     * over by whichever thread completes the future, not by the one that registered them.
+     */
+    public static Executor withCurrentContext(Executor delegate) {
+        final var context = MDC.getCopyOfContextMap();
+        return task -> delegate.execute(wrap(task, context));
+    }
+
+    static Runnable wrap(Runnable task, Map<String, String> context) {
+        return () -> {
+            final var previous = MDC.getCopyOfContextMap();
+            setContext(context);
+            try {
+                task.run();
+            } finally {
+                setContext(previous);
+            }
+        };
+    }
+
+    private static void setContext(Map<String, String> context) {
+        if (context == null || context.isEmpty()) {
+            MDC.clear();
+        } else {
+            MDC.setContextMap(context);
+        }
+    }
+}
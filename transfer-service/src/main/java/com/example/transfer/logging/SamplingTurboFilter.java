@@ -0,0 +1,44 @@
+package com.example.transfer.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Keeps one in {@code rate} of the INFO and lower events logged with the {@link #SAMPLED}
+ * marker, for the lines written once per transfer:
+ * <pre>
+ * log.info(SamplingTurboFilter.SAMPLED, "Transfer {} completed successfully", transferId);
+ * </pre>
+ * Runs before logback builds the event, so a dropped line costs a random number. WARN and ERROR
+ * are always kept.
+ */
+public class SamplingTurboFilter extends TurboFilter {
+
+    public static final Marker SAMPLED = MarkerFactory.getMarker("SAMPLED");
+
+    private int rate = 100;
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params,
+                              Throwable t) {
+        if (marker == null || rate <= 1 || level == null || level.isGreaterOrEqual(Level.WARN)
+                || !marker.contains(SAMPLED)) {
+            return FilterReply.NEUTRAL;
+        }
+        return ThreadLocalRandom.current().nextInt(rate) == 0 ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    public int getRate() {
+        return rate;
+    }
+
+    public void setRate(int rate) {
+        this.rate = rate;
+    }
+}
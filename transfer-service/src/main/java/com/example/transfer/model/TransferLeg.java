@@ -0,0 +1,22 @@
+package com.example.transfer.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+// credit leg of a split transfer, the matching debit is fromAccountId/amount on the record
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransferLeg {
+    @Column(nullable = false)
+    private Long accountId;
+
+    @Column(nullable = false)
+    private BigDecimal amount;
+}
@@ -1,12 +1,20 @@
 package com.example.transfer.model;
 
+import com.example.transfer.id.BinaryUuidConverter;
 import jakarta.persistence.*;
 import lombok.*;
 import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 @Entity
 @Table(name = "transfer_records", 
-       uniqueConstraints = @UniqueConstraint(columnNames = "idempotencyKey"))
+       uniqueConstraints = @UniqueConstraint(columnNames = "idempotencyKey"),
+       indexes = {
+               @Index(name = "idx_transfer_records_status_created", columnList = "status, ambiguous, createdAt, id"),
+               @Index(name = "idx_transfer_records_due", columnList = "status, executeAt, id")
+       })
 @Getter
 @Setter
 @NoArgsConstructor
@@ -17,7 +25,9 @@ public class TransferRecord {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(nullable = false, unique = true)
+    // UUID generated by TransferIdGenerator, stored as 16 bytes
+    @Column(nullable = false, unique = true, length = 16)
+    @Convert(converter = BinaryUuidConverter.class)
     private String transferId;
 
     @Column(nullable = false, unique = true)
@@ -39,7 +49,39 @@ public class TransferRecord {
     @Column
     private String errorMessage;
 
+    // FAILED because the ledger call broke off, the ledger may still have applied it;
+    // TransferRecoverySweeper asks the ledger and settles the status
+    @Column(nullable = false)
+    @Builder.Default
+    private boolean ambiguous = false;
+
+    // partition key when transfer_records is partitioned by month
+    @Column(nullable = false, updatable = false)
+    @Builder.Default
+    private OffsetDateTime createdAt = OffsetDateTime.now();
+
+    // SCHEDULED: when the transfer is due. Set to the actual start when it leaves SCHEDULED, so
+    // TransferRecoverySweeper counts staleness from then rather than from createdAt
+    @Column
+    private OffsetDateTime executeAt;
+
+    // credit legs of a split transfer, empty for a plain fromAccountId -> toAccountId transfer;
+    // no foreign key so transfer_records can be partitioned
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "transfer_record_legs",
+            joinColumns = @JoinColumn(name = "transfer_record_id"),
+            foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+    @OrderColumn(name = "leg_index")
+    @Builder.Default
+    private List<TransferLeg> legs = new ArrayList<>();
+
+    public boolean isSplit() {
+        return legs != null && !legs.isEmpty();
+    }
+
     public enum TransferStatus {
-        PENDING, COMPLETED, FAILED
+        PENDING, COMPLETED, FAILED,
+        // waiting for executeAt, see ScheduledTransferDispatcher
+        SCHEDULED
     }
 }
@@ -0,0 +1,41 @@
+package com.example.transfer.model;
+
+import com.example.transfer.id.BinaryUuidConverter;
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.OffsetDateTime;
+
+/**
+ * One row per transfer record, written in the same transaction. The table is never partitioned
+ * or archived, so its keys keep idempotency keys and transfer ids unique for good once
+ * transfer_records can only enforce uniqueness within a month.
+ */
+@Entity
+@Table(name = "transfer_record_claims")
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransferRecordClaim implements Persistable<String> {
+    @Id
+    private String idempotencyKey;
+
+    @Column(nullable = false, unique = true, length = 16)
+    @Convert(converter = BinaryUuidConverter.class)
+    private String transferId;
+
+    @Column(nullable = false)
+    private OffsetDateTime createdAt;
+
+    @Override
+    public String getId() {
+        return idempotencyKey;
+    }
+
+    // always inserted, never merged, so a second claim fails on the primary key
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.transfer.partition;
+
+import java.sql.Types;
+
+enum ColumnType {
+    LONG, STRING, DECIMAL, TIMESTAMP, BOOLEAN, BYTES;
+
+    static ColumnType fromJdbcType(int jdbcType) {
+        return switch (jdbcType) {
+            case Types.BIGINT, Types.INTEGER, Types.SMALLINT, Types.TINYINT -> LONG;
+            case Types.NUMERIC, Types.DECIMAL -> DECIMAL;
+            case Types.TIMESTAMP, Types.TIMESTAMP_WITH_TIMEZONE -> TIMESTAMP;
+            case Types.BOOLEAN, Types.BIT -> BOOLEAN;
+            case Types.BINARY, Types.VARBINARY, Types.LONGVARBINARY -> BYTES;
+            default -> STRING;
+        };
+    }
+}
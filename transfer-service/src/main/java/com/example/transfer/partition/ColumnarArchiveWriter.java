@@ -0,0 +1,151 @@
+package com.example.transfer.partition;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes rows to a compressed columnar archive file.
+ *
+ * Layout: a header with the column names and types, followed by row groups. Each group is
+ * stored column by column and gzip-compressed on its own, prefixed with its row count, the
+ * min/max of the cluster key column and its compressed length, so readers can skip whole
+ * groups without inflating them. Only one group is buffered in memory at a time.
+ *
+ * <pre>
+ * int MAGIC, int columnCount, (UTF name, byte type) x columnCount
+ * (byte 1, int rows, long minKey, long maxKey, int length, byte[length] gzip(columns)) x groups
+ * byte 0, long totalRows
+ * </pre>
+ */
+public class ColumnarArchiveWriter implements Closeable {
+
+    static final int MAGIC = 0x4C434131; // "LCA1"
+    static final int DEFAULT_GROUP_SIZE = 65_536;
+
+    private final DataOutputStream out;
+    private final List<String> columns;
+    private final ColumnType[] types;
+    private final int clusterKeyIndex;
+    private final int groupSize;
+    private final List<Object[]> group;
+    private long totalRows;
+
+    public ColumnarArchiveWriter(Path file, List<String> columns, List<Integer> jdbcTypes,
+                                 String clusterKeyColumn, int groupSize) throws IOException {
+        this.columns = columns;
+        this.types = jdbcTypes.stream().map(ColumnType::fromJdbcType).toArray(ColumnType[]::new);
+        this.clusterKeyIndex = columns.indexOf(clusterKeyColumn);
+        if (clusterKeyIndex < 0 || types[clusterKeyIndex] != ColumnType.LONG) {
+            throw new IllegalArgumentException("Cluster key " + clusterKeyColumn + " must be a numeric column");
+        }
+        this.groupSize = groupSize;
+        this.group = new ArrayList<>(Math.min(groupSize, 4096));
+
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+        out.writeInt(MAGIC);
+        out.writeInt(columns.size());
+        for (int i = 0; i < columns.size(); i++) {
+            out.writeUTF(columns.get(i));
+            out.writeByte(types[i].ordinal());
+        }
+    }
+
+    public void write(Object[] row) throws IOException {
+        group.add(row);
+        totalRows++;
+        if (group.size() >= groupSize) {
+            flushGroup();
+        }
+    }
+
+    public long getTotalRows() {
+        return totalRows;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flushGroup();
+            out.writeByte(0);
+            out.writeLong(totalRows);
+        } finally {
+            out.close();
+        }
+    }
+
+    private void flushGroup() throws IOException {
+        if (group.isEmpty()) {
+            return;
+        }
+        long minKey = Long.MAX_VALUE;
+        long maxKey = Long.MIN_VALUE;
+        for (final var row : group) {
+            final var key = row[clusterKeyIndex];
+            if (key != null) {
+                minKey = Math.min(minKey, ((Number) key).longValue());
+                maxKey = Math.max(maxKey, ((Number) key).longValue());
+            }
+        }
+
+        final var buffer = new ByteArrayOutputStream();
+        try (var columnsOut = new DataOutputStream(new GZIPOutputStream(buffer, 1 << 16))) {
+            for (int column = 0; column < columns.size(); column++) {
+                writeColumn(columnsOut, column);
+            }
+        }
+
+        out.writeByte(1);
+        out.writeInt(group.size());
+        out.writeLong(minKey);
+        out.writeLong(maxKey);
+        out.writeInt(buffer.size());
+        buffer.writeTo(out);
+        group.clear();
+    }
+
+    private void writeColumn(DataOutputStream columnOut, int column) throws IOException {
+        // null bitmap first, then the non-null values back to back
+        final var nulls = new byte[(group.size() + 7) / 8];
+        for (int row = 0; row < group.size(); row++) {
+            if (group.get(row)[column] == null) {
+                nulls[row >> 3] |= (byte) (1 << (row & 7));
+            }
+        }
+        columnOut.write(nulls);
+        for (final var row : group) {
+            final var value = row[column];
+            if (value != null) {
+                writeValue(columnOut, types[column], value);
+            }
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, ColumnType type, Object value) throws IOException {
+        switch (type) {
+            case LONG -> out.writeLong(((Number) value).longValue());
+            case DECIMAL -> out.writeUTF(((BigDecimal) value).toPlainString());
+            case TIMESTAMP -> {
+                // epoch microseconds, UTC
+                final var instant = ((OffsetDateTime) value).toInstant();
+                out.writeLong(instant.getEpochSecond() * 1_000_000L + instant.getNano() / 1_000);
+            }
+            case BOOLEAN -> out.writeBoolean((Boolean) value);
+            case BYTES -> {
+                final var bytes = (byte[]) value;
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            default -> out.writeUTF(value.toString());
+        }
+    }
+}
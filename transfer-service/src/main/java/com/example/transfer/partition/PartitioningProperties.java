@@ -0,0 +1,14 @@
+package com.example.transfer.partition;
+
+import lombok.Data;
+
+@Data
+public class PartitioningProperties {
+    // only has an effect on PostgreSQL with tables migrated by db/partitioning/*.sql
+    private boolean enabled = false;
+    private int monthsAhead = 3;
+    // partitions older than this many months are exported to the archive and dropped
+    private int retentionMonths = 12;
+    private String archiveDir = "archive";
+    private int archiveGroupSize = ColumnarArchiveWriter.DEFAULT_GROUP_SIZE;
+}
@@ -0,0 +1,16 @@
+package com.example.transfer.recovery;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+@Data
+public class RecoveryProperties {
+    private boolean enabled = true;
+    // must be longer than any ledger call can take, so nothing older is still in flight
+    private Duration staleAfter = Duration.ofMinutes(5);
+    // transfer ids per ledger status query, the ledger accepts up to 500
+    private int pageSize = 200;
+    // bounds one run, the rest is picked up by the next one
+    private int maxPerRun = 10_000;
+}
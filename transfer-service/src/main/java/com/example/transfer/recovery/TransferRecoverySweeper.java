@@ -0,0 +1,142 @@
+package com.example.transfer.recovery;
+
+import com.example.transfer.client.LedgerClient;
+import com.example.transfer.dto.LedgerTransferStatusRequest;
+import com.example.transfer.dto.LedgerTransferStatusResponse;
+import com.example.transfer.model.TransferRecord.TransferStatus;
+import com.example.transfer.repository.TransferRecordRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Settles transfers whose outcome transfer-service never learned: PENDING records whose
+ * processing was lost (restart, dropped async task) and FAILED records whose ledger call broke
+ * off after it may have been applied ({@code ambiguous}). Records older than
+ * {@code staleAfter} are read in keyset pages by (createdAt, id), each page is checked with one
+ * ledger status query, and applied transfers become COMPLETED while the rest become FAILED.
+ *
+ * Updates only match records still in the state they were read in, so a transfer completed
+ * meanwhile is left alone and several instances can sweep at the same time.
+ */
+@Component
+@Slf4j
+public class TransferRecoverySweeper {
+
+    static final String NOT_APPLIED = "Not applied by the ledger";
+
+    private static final OffsetDateTime BEGINNING = OffsetDateTime.of(1970, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    private static final List<Candidates> CANDIDATES = List.of(
+            new Candidates(TransferStatus.PENDING, false),
+            new Candidates(TransferStatus.FAILED, true));
+
+    private final TransferRecordRepository transferRecordRepository;
+    private final LedgerClient ledgerClient;
+    private final TransactionTemplate writeTransaction;
+    private final RecoveryProperties properties;
+    private final Counter completed;
+    private final Counter failed;
+    private final Counter errors;
+
+    public TransferRecoverySweeper(TransferRecordRepository transferRecordRepository, LedgerClient ledgerClient,
+                                   PlatformTransactionManager transactionManager, RecoveryProperties properties,
+                                   MeterRegistry meterRegistry) {
+        this.transferRecordRepository = transferRecordRepository;
+        this.ledgerClient = ledgerClient;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        this.completed = Counter.builder("transfer.recovery.settled").tag("outcome", "completed").register(meterRegistry);
+        this.failed = Counter.builder("transfer.recovery.settled").tag("outcome", "failed").register(meterRegistry);
+        this.errors = Counter.builder("transfer.recovery.errors").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${transfer.recovery.interval:PT1M}",
+               initialDelayString = "${transfer.recovery.interval:PT1M}")
+    public void sweep() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        final var createdBefore = OffsetDateTime.now().minus(properties.getStaleAfter());
+        var remaining = properties.getMaxPerRun();
+        for (final var candidates : CANDIDATES) {
+            try {
+                remaining -= sweep(candidates, createdBefore, remaining);
+            } catch (Exception e) {
+                // ledger unreachable or database trouble, the next run starts over
+                errors.increment();
+                log.warn("Recovery sweep of {} transfers stopped: {}", candidates.describe(), e.getMessage());
+                return;
+            }
+        }
+    }
+
+    private int sweep(Candidates candidates, OffsetDateTime createdBefore, int limit) {
+        var afterCreatedAt = BEGINNING;
+        var afterId = 0L;
+        var swept = 0;
+        while (swept < limit) {
+            final var pageSize = Math.min(properties.getPageSize(), limit - swept);
+            final var page = transferRecordRepository.findStale(candidates.status(), candidates.ambiguous(),
+                    createdBefore, afterCreatedAt, afterId, PageRequest.of(0, pageSize));
+            if (page.isEmpty()) {
+                break;
+            }
+            settle(candidates, page);
+            swept += page.size();
+
+            final var last = page.get(page.size() - 1);
+            afterCreatedAt = last.getCreatedAt();
+            afterId = last.getId();
+            if (page.size() < pageSize) {
+                break;
+            }
+        }
+        return swept;
+    }
+
+    private void settle(Candidates candidates, List<TransferRecordRepository.StaleTransfer> page) {
+        final var transferIds = page.stream().map(TransferRecordRepository.StaleTransfer::getTransferId).toList();
+        final var applied = ledgerClient.transferStatuses(new LedgerTransferStatusRequest(transferIds))
+                .getStatuses().stream()
+                .collect(Collectors.toMap(LedgerTransferStatusResponse.Status::getTransferId,
+                        LedgerTransferStatusResponse.Status::isApplied, (a, b) -> a));
+
+        final var completedIds = new ArrayList<Long>();
+        final var failedIds = new ArrayList<Long>();
+        for (final var transfer : page) {
+            // a transfer missing from the answer is left for the next run
+            final var isApplied = applied.get(transfer.getTransferId());
+            if (isApplied != null) {
+                (isApplied ? completedIds : failedIds).add(transfer.getId());
+            }
+        }
+
+        final var settled = writeTransaction.execute(status -> new int[]{
+                completedIds.isEmpty() ? 0 : transferRecordRepository.settle(completedIds, candidates.status(),
+                        candidates.ambiguous(), TransferStatus.COMPLETED, null),
+                failedIds.isEmpty() ? 0 : transferRecordRepository.settle(failedIds, candidates.status(),
+                        candidates.ambiguous(), TransferStatus.FAILED, NOT_APPLIED)
+        });
+        completed.increment(settled[0]);
+        failed.increment(settled[1]);
+        log.info("Recovered {} {} transfers: {} completed, {} failed",
+                page.size(), candidates.describe(), settled[0], settled[1]);
+    }
+
+    private record Candidates(TransferStatus status, boolean ambiguous) {
+        String describe() {
+            return ambiguous ? "ambiguous " + status : status.name();
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.transfer.repository;
+
+import com.example.transfer.model.TransferRecordClaim;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface TransferRecordClaimRepository extends JpaRepository<TransferRecordClaim, String> {
+}
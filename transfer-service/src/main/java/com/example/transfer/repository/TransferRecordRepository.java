@@ -1,11 +1,88 @@
 package com.example.transfer.repository;
 
 import com.example.transfer.model.TransferRecord;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface TransferRecordRepository extends JpaRepository<TransferRecord, Long> {
     Optional<TransferRecord> findByIdempotencyKey(String idempotencyKey);
     Optional<TransferRecord> findByTransferId(String transferId);
+
+    // status polling: three columns, no managed entity and no legs query
+    @Query("SELECT r.transferId AS transferId, r.status AS status, r.errorMessage AS errorMessage " +
+           "FROM TransferRecord r WHERE r.transferId = :transferId")
+    Optional<TransferStatusView> findStatusByTransferId(@Param("transferId") String transferId);
+
+    // keyset page over idx_transfer_records_status_created, resumes after (afterCreatedAt, afterId);
+    // a started scheduled transfer is stale by when it started, not when it was created
+    @Query("SELECT r.id AS id, r.transferId AS transferId, r.createdAt AS createdAt FROM TransferRecord r " +
+           "WHERE r.status = :status AND r.ambiguous = :ambiguous AND r.createdAt < :createdBefore " +
+           "AND (r.executeAt IS NULL OR r.executeAt < :createdBefore) " +
+           "AND (r.createdAt > :afterCreatedAt OR (r.createdAt = :afterCreatedAt AND r.id > :afterId)) " +
+           "ORDER BY r.createdAt, r.id")
+    List<StaleTransfer> findStale(@Param("status") TransferRecord.TransferStatus status,
+                                  @Param("ambiguous") boolean ambiguous,
+                                  @Param("createdBefore") OffsetDateTime createdBefore,
+                                  @Param("afterCreatedAt") OffsetDateTime afterCreatedAt,
+                                  @Param("afterId") Long afterId,
+                                  Pageable pageable);
+
+    // only touches records still in the state they were read in, so a concurrent update wins
+    @Modifying
+    @Query("UPDATE TransferRecord r SET r.status = :to, r.errorMessage = :errorMessage, r.ambiguous = false " +
+           "WHERE r.id IN :ids AND r.status = :from AND r.ambiguous = :ambiguous")
+    int settle(@Param("ids") Collection<Long> ids,
+               @Param("from") TransferRecord.TransferStatus from,
+               @Param("ambiguous") boolean ambiguous,
+               @Param("to") TransferRecord.TransferStatus to,
+               @Param("errorMessage") String errorMessage);
+
+    // keyset page over idx_transfer_records_due, resumes after (afterExecuteAt, afterId)
+    @Query("SELECT r.id AS id, r.executeAt AS executeAt FROM TransferRecord r " +
+           "WHERE r.status = :status AND r.executeAt < :dueBefore " +
+           "AND (r.executeAt > :afterExecuteAt OR (r.executeAt = :afterExecuteAt AND r.id > :afterId)) " +
+           "ORDER BY r.executeAt, r.id")
+    List<DueTransfer> findDue(@Param("status") TransferRecord.TransferStatus status,
+                              @Param("dueBefore") OffsetDateTime dueBefore,
+                              @Param("afterExecuteAt") OffsetDateTime afterExecuteAt,
+                              @Param("afterId") Long afterId,
+                              Pageable pageable);
+
+    // SCHEDULED -> PENDING, 0 when another instance (or a duplicate queue entry) started it first
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE TransferRecord r SET r.status = :to, r.executeAt = :startedAt WHERE r.id = :id AND r.status = :from")
+    int startScheduled(@Param("id") Long id,
+                       @Param("from") TransferRecord.TransferStatus from,
+                       @Param("to") TransferRecord.TransferStatus to,
+                       @Param("startedAt") OffsetDateTime startedAt);
+
+    interface TransferStatusView {
+        String getTransferId();
+
+        TransferRecord.TransferStatus getStatus();
+
+        String getErrorMessage();
+    }
+
+    interface DueTransfer {
+        Long getId();
+
+        OffsetDateTime getExecuteAt();
+    }
+
+    interface StaleTransfer {
+        Long getId();
+
+        String getTransferId();
+
+        OffsetDateTime getCreatedAt();
+    }
 }
@@ -0,0 +1,163 @@
+package com.example.transfer.scheduled;
+
+import com.example.transfer.model.TransferRecord.TransferStatus;
+import com.example.transfer.repository.TransferRecordRepository;
+import com.example.transfer.service.TransferService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts SCHEDULED transfers when they are due. On startup every transfer due within
+ * {@code horizon} (overdue ones included, e.g. after downtime) is loaded into the
+ * {@link ScheduledTransferQueue} with a keyset scan of idx_transfer_records_due, and every
+ * {@code refillInterval} the horizon moves on and the next stretch is loaded the same way.
+ *
+ * <p>Each tick moves the timer wheel on and starts ready transfers through a token bucket of
+ * {@code maxPerSecond}, so thousands of transfers due at midnight reach the ledger as a steady
+ * stream. A transfer the concurrency limiter has no room for waits for the next tick, first in
+ * line.
+ */
+@Slf4j
+public class ScheduledTransferDispatcher implements AutoCloseable {
+
+    private static final OffsetDateTime BEGINNING = OffsetDateTime.of(1970, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    private final ScheduledTransferQueue queue;
+    private final TransferService transferService;
+    private final TransferRecordRepository transferRecordRepository;
+    private final ScheduledTransferProperties properties;
+    private final ScheduledExecutorService ticker;
+    private final Counter started;
+    private final Counter errors;
+    private volatile boolean running;
+    // token bucket, only touched by the ticker thread
+    private double tokens;
+    private long refilledAt;
+
+    public ScheduledTransferDispatcher(ScheduledTransferQueue queue, TransferService transferService,
+                                       TransferRecordRepository transferRecordRepository,
+                                       ScheduledTransferProperties properties, MeterRegistry meterRegistry) {
+        this.queue = queue;
+        this.transferService = transferService;
+        this.transferRecordRepository = transferRecordRepository;
+        this.properties = properties;
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final var thread = new Thread(runnable, "scheduled-transfer-dispatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.started = Counter.builder("transfer.scheduled.started").register(meterRegistry);
+        this.errors = Counter.builder("transfer.scheduled.errors").register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        refill();
+        running = true;
+        refilledAt = System.nanoTime();
+        final var tickMillis = properties.getTick().toMillis();
+        ticker.scheduleWithFixedDelay(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Loads the transfers that came within {@code horizon} since the last refill.
+     */
+    @Scheduled(fixedDelayString = "${transfer.scheduled.refill-interval:PT5M}",
+               initialDelayString = "${transfer.scheduled.refill-interval:PT5M}")
+    public synchronized void refill() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        final var until = System.currentTimeMillis() + properties.getHorizon().toMillis();
+        final var from = queue.extendTo(until);
+        final var dueBefore = OffsetDateTime.ofInstant(Instant.ofEpochMilli(until), ZoneOffset.UTC);
+        // the first load takes everything due so far, later ones resume at the previous horizon
+        var afterExecuteAt = from == Long.MIN_VALUE
+                ? BEGINNING
+                : OffsetDateTime.ofInstant(Instant.ofEpochMilli(from), ZoneOffset.UTC);
+        var afterId = 0L;
+        var loaded = 0;
+        try {
+            while (true) {
+                final var page = transferRecordRepository.findDue(TransferStatus.SCHEDULED, dueBefore,
+                        afterExecuteAt, afterId, PageRequest.of(0, properties.getPageSize()));
+                for (final var transfer : page) {
+                    queue.load(transfer.getId(), transfer.getExecuteAt().toInstant().toEpochMilli());
+                }
+                loaded += page.size();
+                if (page.size() < properties.getPageSize()) {
+                    break;
+                }
+                final var last = page.get(page.size() - 1);
+                afterExecuteAt = last.getExecuteAt();
+                afterId = last.getId();
+            }
+        } catch (RuntimeException e) {
+            // the next refill loads the same stretch again, what was loaded twice is skipped when started
+            queue.rewindTo(from);
+            errors.increment();
+            log.warn("Loading scheduled transfers due before {} stopped after {}: {}", dueBefore, loaded, e.getMessage());
+            return;
+        }
+        if (loaded > 0) {
+            log.info("Loaded {} scheduled transfers due before {}", loaded, dueBefore);
+        }
+    }
+
+    void tick() {
+        try {
+            queue.advance(System.currentTimeMillis());
+            final var now = System.nanoTime();
+            tokens = Math.min(properties.getBurst(),
+                    tokens + (now - refilledAt) / 1e9 * properties.getMaxPerSecond());
+            refilledAt = now;
+            while (running && tokens >= 1) {
+                final var id = queue.poll();
+                if (id == null) {
+                    return;
+                }
+                final boolean admitted;
+                try {
+                    admitted = transferService.startScheduled(id);
+                } catch (RuntimeException e) {
+                    queue.retry(id);
+                    errors.increment();
+                    log.warn("Starting scheduled transfer {} failed, retrying: {}", id, e.getMessage());
+                    return;
+                }
+                if (!admitted) {
+                    // too many transfers in flight, leave the rest for the next tick
+                    queue.retry(id);
+                    return;
+                }
+                tokens--;
+                started.increment();
+            }
+        } catch (RuntimeException e) {
+            // keep the ticker alive, a thrown exception would cancel it for good
+            errors.increment();
+            log.error("Scheduled transfer tick failed", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        ticker.shutdownNow();
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.transfer.scheduled;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+@Data
+public class ScheduledTransferProperties {
+    private boolean enabled = true;
+    // timer wheel resolution, a due transfer is picked up at most one tick late
+    private Duration tick = Duration.ofMillis(100);
+    // wheelSize^levels ticks must cover the horizon: 64^4 ticks of 100ms are about 19 days
+    private int wheelSize = 64;
+    private int levels = 4;
+    // transfers due within this window are held in memory, later ones are loaded by a refill
+    private Duration horizon = Duration.ofHours(1);
+    private Duration refillInterval = Duration.ofMinutes(5);
+    // rows per page of the due-time query
+    private int pageSize = 1000;
+    // due transfers are started at this pace, a midnight burst is spread out instead of hitting the ledger at once
+    private double maxPerSecond = 50;
+    private int burst = 10;
+    // how far ahead executeAt may be
+    private Duration maxDelay = Duration.ofDays(400);
+}
@@ -0,0 +1,109 @@
+package com.example.transfer.scheduled;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayDeque;
+
+/**
+ * The SCHEDULED transfers due before {@code loadedUntil}, by record id: waiting in a
+ * {@link TimerWheel} until they are due, then in a ready queue until
+ * {@link ScheduledTransferDispatcher} starts them. Later ones stay in the database only and are
+ * loaded as the horizon moves, so memory is bounded by what is due within
+ * {@code horizon}, not by how far ahead customers schedule.
+ *
+ * <p>An id may be added twice (a refill racing a new transfer); starting a transfer only
+ * succeeds once, so the second copy is skipped.
+ */
+public class ScheduledTransferQueue {
+
+    private final ScheduledTransferProperties properties;
+    private final TimerWheel wheel;
+    private final ArrayDeque<Long> ready = new ArrayDeque<>();
+    // epoch millis; transfers due before this were loaded or are added as they are created
+    private volatile long loadedUntil = Long.MIN_VALUE;
+
+    public ScheduledTransferQueue(ScheduledTransferProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.wheel = new TimerWheel(properties.getTick().toMillis(), properties.getWheelSize(), properties.getLevels(),
+                System.currentTimeMillis());
+        if (properties.getHorizon().toMillis() >= wheel.spanMillis()) {
+            throw new IllegalArgumentException("transfer.scheduled.horizon must be shorter than the timer wheel span of "
+                    + wheel.spanMillis() + "ms, add levels or slots");
+        }
+        Gauge.builder("transfer.scheduled.waiting", this, queue -> queue.waiting()).register(meterRegistry);
+        Gauge.builder("transfer.scheduled.ready", this, queue -> queue.ready()).register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Rejects an {@code executeAt} further ahead than {@code maxDelay}.
+     */
+    public void validate(OffsetDateTime executeAt) {
+        if (!properties.isEnabled()) {
+            throw new IllegalArgumentException("Scheduled transfers are disabled");
+        }
+        if (executeAt.isAfter(OffsetDateTime.now().plus(properties.getMaxDelay()))) {
+            throw new IllegalArgumentException("executeAt may be at most " + properties.getMaxDelay().toDays()
+                    + " days ahead");
+        }
+    }
+
+    /**
+     * A newly committed SCHEDULED transfer. Held in memory only when it is due before the
+     * loaded horizon, otherwise a later refill finds it.
+     */
+    public void schedule(long id, OffsetDateTime executeAt) {
+        final var dueMillis = executeAt.toInstant().toEpochMilli();
+        if (dueMillis < loadedUntil) {
+            load(id, dueMillis);
+        }
+    }
+
+    /**
+     * Moves the horizon to {@code untilMillis} and returns the previous one. Transfers created
+     * from now on are added by {@link #schedule} up to the new horizon, the caller loads the
+     * ones already stored between the two.
+     */
+    synchronized long extendTo(long untilMillis) {
+        final var previous = loadedUntil;
+        loadedUntil = Math.max(previous, untilMillis);
+        return previous;
+    }
+
+    // undoes extendTo after a failed load
+    synchronized void rewindTo(long untilMillis) {
+        loadedUntil = untilMillis;
+    }
+
+    synchronized void load(long id, long dueMillis) {
+        // the horizon is shorter than the span, so this always fits
+        wheel.add(id, dueMillis);
+    }
+
+    // moves what is due by nowMillis to the ready queue
+    synchronized void advance(long nowMillis) {
+        wheel.advance(nowMillis, ready::addLast);
+    }
+
+    synchronized Long poll() {
+        return ready.pollFirst();
+    }
+
+    // could not be started yet, first in line next time
+    synchronized void retry(Long id) {
+        ready.addFirst(id);
+    }
+
+    public synchronized int waiting() {
+        return wheel.size();
+    }
+
+    public synchronized int ready() {
+        return ready.size();
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.transfer.scheduled;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Hierarchical timing wheel of ids keyed by due time. Level 0 has one slot per tick, each
+ * level above covers {@code wheelSize} slots of the one below, so {@code levels} wheels of
+ * {@code wheelSize} slots reach {@code tick * wheelSize^levels} ahead. Adding is O(1); an entry
+ * is moved down a level when its slot comes round (at most {@code levels - 1} times) and
+ * fires in the tick it is due, never before.
+ *
+ * <p>Ids and due ticks are kept in primitive arrays per slot, so millions of entries cost two
+ * longs each rather than an object. Not thread-safe.
+ */
+public class TimerWheel {
+
+    private final long origin;
+    private final long tickMillis;
+    private final int wheelSize;
+    private final int levels;
+    // ticks covered by one slot of each level: wheelSize^level
+    private final long[] slotTicks;
+    private final Slot[][] slots;
+    // added when already due, fired by the next advance
+    private final Slot due = new Slot();
+    private long currentTick;
+    private int size;
+
+    public TimerWheel(long tickMillis, int wheelSize, int levels, long startMillis) {
+        if (tickMillis <= 0 || wheelSize < 2 || levels < 1) {
+            throw new IllegalArgumentException("Timer wheel needs a positive tick, at least 2 slots and 1 level");
+        }
+        this.origin = startMillis;
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.levels = levels;
+        this.slotTicks = new long[levels + 1];
+        slotTicks[0] = 1;
+        for (int level = 1; level <= levels; level++) {
+            slotTicks[level] = Math.multiplyExact(slotTicks[level - 1], wheelSize);
+        }
+        this.slots = new Slot[levels][wheelSize];
+    }
+
+    // how far ahead of the current time an entry can be added
+    public long spanMillis() {
+        return slotTicks[levels] * tickMillis;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns false, without adding it, when {@code dueMillis} is beyond the span of the wheel.
+     */
+    public boolean add(long id, long dueMillis) {
+        // rounded up, an entry never fires early
+        final var dueTick = -Math.floorDiv(origin - dueMillis, tickMillis);
+        if (dueTick - currentTick >= slotTicks[levels]) {
+            return false;
+        }
+        place(id, dueTick);
+        size++;
+        return true;
+    }
+
+    private void place(long id, long dueTick) {
+        final var delta = dueTick - currentTick;
+        if (delta <= 0) {
+            due.add(id, dueTick);
+            return;
+        }
+        var level = 0;
+        while (delta >= slotTicks[level + 1]) {
+            level++;
+        }
+        final var index = (int) ((dueTick / slotTicks[level]) % wheelSize);
+        var slot = slots[level][index];
+        if (slot == null) {
+            slot = slots[level][index] = new Slot();
+        }
+        slot.add(id, dueTick);
+    }
+
+    /**
+     * Moves the wheel to {@code nowMillis} and hands every id due by then to {@code expired}.
+     */
+    public void advance(long nowMillis, LongConsumer expired) {
+        final var targetTick = Math.floorDiv(nowMillis - origin, tickMillis);
+        fire(due, expired);
+        while (currentTick < targetTick) {
+            if (size == 0) {
+                // nothing to cascade or fire, skip straight there
+                currentTick = targetTick;
+                break;
+            }
+            currentTick++;
+            for (int level = levels - 1; level > 0; level--) {
+                if (currentTick % slotTicks[level] == 0) {
+                    final var slot = slots[level][(int) ((currentTick / slotTicks[level]) % wheelSize)];
+                    if (slot != null && slot.size > 0) {
+                        final var ids = Arrays.copyOf(slot.ids, slot.size);
+                        final var dueTicks = Arrays.copyOf(slot.dueTicks, slot.size);
+                        slot.clear();
+                        for (int i = 0; i < ids.length; i++) {
+                            place(ids[i], dueTicks[i]);
+                        }
+                    }
+                }
+            }
+            final var slot = slots[0][(int) (currentTick % wheelSize)];
+            if (slot != null) {
+                fire(slot, expired);
+            }
+            fire(due, expired);
+        }
+    }
+
+    private void fire(Slot slot, LongConsumer expired) {
+        final var count = slot.size;
+        for (int i = 0; i < count; i++) {
+            expired.accept(slot.ids[i]);
+        }
+        size -= count;
+        slot.clear();
+    }
+
+    private static final class Slot {
+        private long[] ids = new long[4];
+        private long[] dueTicks = new long[4];
+        private int size;
+
+        void add(long id, long dueTick) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                dueTicks = Arrays.copyOf(dueTicks, size * 2);
+            }
+            ids[size] = id;
+            dueTicks[size] = dueTick;
+            size++;
+        }
+
+        void clear() {
+            size = 0;
+            // a slot that held a burst gives the memory back
+            if (ids.length > 64) {
+                ids = new long[4];
+                dueTicks = new long[4];
+            }
+        }
+    }
+}
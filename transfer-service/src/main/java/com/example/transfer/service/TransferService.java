@@ -1,150 +1,454 @@
 package com.example.transfer.service;
 
+import com.example.transfer.client.Deadline;
+import com.example.transfer.client.LedgerCalls;
 import com.example.transfer.client.LedgerClient;
+import com.example.transfer.client.LedgerTransferBatcher;
+import com.example.transfer.config.PoolAdmissionDataSource;
+import com.example.transfer.dto.LedgerMultiLegTransferRequest;
 import com.example.transfer.dto.LedgerTransferRequest;
 import com.example.transfer.dto.LedgerTransferResponse;
+import com.example.transfer.id.TransferIdGenerator;
+import com.example.transfer.limiter.AccountRateLimiter;
+import com.example.transfer.limiter.AdaptiveConcurrencyLimiter;
+import com.example.transfer.limiter.TooManyRequestsException;
+import com.example.transfer.logging.MdcExecutors;
+import com.example.transfer.logging.SamplingTurboFilter;
+import com.example.transfer.model.TransferLeg;
 import com.example.transfer.model.TransferRecord;
+import com.example.transfer.model.TransferRecordClaim;
+import com.example.transfer.repository.TransferRecordClaimRepository;
 import com.example.transfer.repository.TransferRecordRepository;
-import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
-import io.github.resilience4j.retry.annotation.Retry;
+import com.example.transfer.scheduled.ScheduledTransferQueue;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
-import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 @Service
 @Slf4j
 @AllArgsConstructor
 public class TransferService {
 
+    public static final String IDEMPOTENCY_KEY_IN_USE = "Idempotency key is in use by a concurrent request";
+
     private final TransferRecordRepository transferRecordRepository;
+    private final TransferRecordClaimRepository transferRecordClaimRepository;
     private final LedgerClient ledgerClient;
-    private final Executor executor = Executors.newFixedThreadPool(10);
+    private final LedgerCalls ledgerCalls;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final AccountRateLimiter accountRateLimiter;
+    private final LedgerTransferBatcher ledgerTransferBatcher;
+    private final TransferIdGenerator transferIdGenerator;
+    private final ScheduledTransferQueue scheduledTransferQueue;
+    private final PlatformTransactionManager transactionManager;
+    private final Executor executor = MdcExecutors.propagating(Executors.newFixedThreadPool(10));
+
+    /**
+     * {@code timeout} is how long the ledger call may take, retries included, counted from now;
+     * null for the default.
+     */
+    @Transactional
+    public TransferRecord createTransfer(String idempotencyKey, Long fromAccountId, Long toAccountId, BigDecimal amount,
+                                         Duration timeout) {
+        return submitTransfer(idempotencyKey, fromAccountId, amount, timeout, record -> record.toAccountId(toAccountId));
+    }
 
+    /**
+     * Debits {@code fromAccountId} once and credits every leg, applied by the ledger in a single
+     * transaction. The first leg is recorded as {@code toAccountId}.
+     */
     @Transactional
-    public TransferRecord createTransfer(String idempotencyKey, Long fromAccountId, Long toAccountId, BigDecimal amount) {
-        // Check for existing transfer with same idempotency key
+    public TransferRecord createSplitTransfer(String idempotencyKey, Long fromAccountId, List<TransferLeg> legs,
+                                              Duration timeout) {
+        if (legs == null || legs.isEmpty()) {
+            throw new IllegalArgumentException("A split transfer needs at least one leg");
+        }
+
+        final var accountIds = new HashSet<Long>();
+        accountIds.add(fromAccountId);
+        var total = BigDecimal.ZERO;
+        for (final var leg : legs) {
+            if (leg.getAmount() == null || leg.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+                throw new IllegalArgumentException("Leg amounts must be positive");
+            }
+            if (!accountIds.add(leg.getAccountId())) {
+                throw new IllegalArgumentException("Account " + leg.getAccountId() + " appears more than once");
+            }
+            total = total.add(leg.getAmount());
+        }
+
+        return submitTransfer(idempotencyKey, fromAccountId, total, timeout, record -> record
+                .toAccountId(legs.get(0).getAccountId())
+                .legs(new ArrayList<>(legs)));
+    }
+
+    /**
+     * Stores the transfer as SCHEDULED, to be sent to the ledger at {@code executeAt} (at once
+     * if that has passed) by {@link com.example.transfer.scheduled.ScheduledTransferDispatcher}.
+     */
+    @Transactional
+    public TransferRecord scheduleTransfer(String idempotencyKey, Long fromAccountId, Long toAccountId,
+                                           BigDecimal amount, OffsetDateTime executeAt) {
         final var existingTransfer = transferRecordRepository.findByIdempotencyKey(idempotencyKey);
         if (existingTransfer.isPresent()) {
             return existingTransfer.get();
         }
 
-        // Validate amount
+        var transferRecord = TransferRecord.builder()
+                .transferId(transferIdGenerator.nextString())
+                .idempotencyKey(idempotencyKey)
+                .fromAccountId(fromAccountId)
+                .toAccountId(toAccountId)
+                .amount(amount)
+                .status(TransferRecord.TransferStatus.SCHEDULED)
+                .executeAt(executeAt)
+                .build();
+        claim(transferRecord);
+
+        checkRateLimit(fromAccountId);
         if (amount.compareTo(BigDecimal.ZERO) <= 0) {
             throw new IllegalArgumentException("Transfer amount must be positive");
         }
+        scheduledTransferQueue.validate(executeAt);
+
+        transferRecord = transferRecordRepository.save(transferRecord);
+        final var id = transferRecord.getId();
+        afterCommit(() -> scheduledTransferQueue.schedule(id, executeAt), () -> { });
+        return transferRecord;
+    }
+
+    /**
+     * Starts a due SCHEDULED transfer: moves it to PENDING and, once that commits, sends it to the
+     * ledger like a new one. Returns false when there is no room under the concurrency limit, the
+     * caller tries again later; a transfer that was started already is skipped.
+     */
+    @Transactional
+    public boolean startScheduled(Long id) {
+        final var permit = concurrencyLimiter.tryAcquire();
+        if (permit == null) {
+            return false;
+        }
+        try {
+            if (transferRecordRepository.startScheduled(id, TransferRecord.TransferStatus.SCHEDULED,
+                    TransferRecord.TransferStatus.PENDING, OffsetDateTime.now()) == 0) {
+                permit.ignore();
+                return true;
+            }
+            final var transferRecord = transferRecordRepository.findById(id).orElseThrow();
+            final var deadline = ledgerCalls.deadline(null);
+            afterCommit(() -> processTransferAsync(transferRecord, deadline, permit), permit::ignore);
+            return true;
+        } catch (RuntimeException e) {
+            permit.ignore();
+            throw e;
+        }
+    }
 
-        // Generate transfer ID
-        final var transferId = UUID.randomUUID().toString();
+    private TransferRecord submitTransfer(String idempotencyKey, Long fromAccountId, BigDecimal amount, Duration timeout,
+                                          Consumer<TransferRecord.TransferRecordBuilder> details) {
+        // the budget starts now, time spent queueing for the ledger counts against it
+        final var deadline = ledgerCalls.deadline(timeout);
 
-        // Create transfer record
-        var transferRecord = TransferRecord.builder()
-                .transferId(transferId)
+        // Check for existing transfer with same idempotency key; a retry gets the stored result
+        // without being charged against the account's rate limit
+        final var existingTransfer = transferRecordRepository.findByIdempotencyKey(idempotencyKey);
+        if (existingTransfer.isPresent()) {
+            return existingTransfer.get();
+        }
+
+        // Generate transfer ID, time-ordered so new records append to the transfer_id index
+        final var builder = TransferRecord.builder()
+                .transferId(transferIdGenerator.nextString())
                 .idempotencyKey(idempotencyKey)
                 .fromAccountId(fromAccountId)
-                .toAccountId(toAccountId)
                 .amount(amount)
-                .status(TransferRecord.TransferStatus.PENDING)
-                .build();
+                .status(TransferRecord.TransferStatus.PENDING);
+        details.accept(builder);
+        var transferRecord = builder.build();
+        claim(transferRecord);
 
-        transferRecord = transferRecordRepository.save(transferRecord);
+        // Per-account rate limit, checked before creating anything
+        checkRateLimit(fromAccountId);
+
+        // Validate amount
+        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("Transfer amount must be positive");
+        }
 
-        // Process transfer asynchronously
-        processTransferAsync(transferRecord);
+        // Shed load before creating more PENDING work; the permit is held until the ledger call completes
+        final var permit = concurrencyLimiter.tryAcquire();
+        if (permit == null) {
+            throw new TooManyRequestsException("Too many transfers in flight, retry later",
+                    concurrencyLimiter.retryAfterSeconds());
+        }
+
+        try {
+            transferRecord = transferRecordRepository.save(transferRecord);
+        } catch (RuntimeException e) {
+            permit.ignore();
+            throw e;
+        }
+
+        // Process transfer asynchronously, once the PENDING row is committed. A ledger call that fails
+        // fast would otherwise save its outcome before the row exists and insert it a second time
+        final var submitted = transferRecord;
+        afterCommit(() -> processTransferAsync(submitted, deadline, permit), permit::ignore);
 
         return transferRecord;
     }
 
-    private void processTransferAsync(TransferRecord transferRecord) {
+    // Flushed at once, so a concurrent request that claimed the key first fails this one here, as
+    // soon as it commits, with a DataIntegrityViolationException: before this one is charged to the
+    // rate limit or takes a permit. The caller answers it with the stored transfer, see
+    // findByIdempotencyKey
+    private void claim(TransferRecord transferRecord) {
+        transferRecordClaimRepository.saveAndFlush(new TransferRecordClaim(transferRecord.getIdempotencyKey(),
+                transferRecord.getTransferId(), transferRecord.getCreatedAt()));
+    }
+
+    private void checkRateLimit(Long fromAccountId) {
+        final var waitNanos = accountRateLimiter.tryAcquire(fromAccountId);
+        if (waitNanos > 0) {
+            throw new TooManyRequestsException("Rate limit exceeded for account " + fromAccountId,
+                    TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1);
+        }
+    }
+
+    // runs onCommit once the surrounding transaction committed (at once without one), onRollback otherwise
+    private static void afterCommit(Runnable onCommit, Runnable onRollback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            onCommit.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    onCommit.run();
+                } else {
+                    onRollback.run();
+                }
+            }
+        });
+    }
+
+    private void processTransferAsync(TransferRecord transferRecord, Deadline deadline,
+                                      AdaptiveConcurrencyLimiter.Permit permit) {
+        if (ledgerTransferBatcher.isEnabled() && !transferRecord.isSplit()) {
+            // coalesced with other in-flight transfers into one ledger call, see LedgerTransferBatcher
+            ledgerTransferBatcher.submit(toLedgerRequest(transferRecord), deadline)
+                    .handleAsync((response, failure) -> {
+                        completeTransfer(transferRecord, response, unwrap(failure));
+                        transferRecordRepository.save(transferRecord);
+                        return failure == null;
+                    }, MdcExecutors.withCurrentContext(executor))
+                    .whenComplete((sent, e) -> {
+                        if (e == null && sent) {
+                            permit.success();
+                        } else {
+                            permit.dropped();
+                            if (e != null) {
+                                log.error("Error processing transfer {} asynchronously", transferRecord.getTransferId(), e);
+                            }
+                        }
+                    });
+            return;
+        }
+
         CompletableFuture.runAsync(() -> {
             try {
-                processTransfer(transferRecord);
+                processTransfer(transferRecord, deadline);
+                permit.success();
             } catch (Exception e) {
+                permit.dropped();
                 log.error("Error processing transfer {} asynchronously", transferRecord.getTransferId(), e);
             }
         }, executor);
     }
 
-    @CircuitBreaker(name = "ledger-service", fallbackMethod = "fallbackTransfer")
-    @Retry(name = "ledger-service")
+    /**
+     * Sends the transfer to the ledger, with retries and hedging within {@code deadline} (see
+     * {@link LedgerCalls}), and records the outcome. Failures end as FAILED, flagged ambiguous when
+     * the ledger may have applied the transfer anyway.
+     */
     @Transactional
-    public void processTransfer(TransferRecord transferRecord) {
+    public void processTransfer(TransferRecord transferRecord, Deadline deadline) {
 
         try {
-            LedgerTransferRequest request = new LedgerTransferRequest(
-                    transferRecord.getTransferId(),
-                    transferRecord.getFromAccountId(),
-                    transferRecord.getToAccountId(),
-                    transferRecord.getAmount()
-            );
-
-            final var response = ledgerClient.transfer(request);
-
-            if (response.isSuccess()) {
-                transferRecord.setStatus(TransferRecord.TransferStatus.COMPLETED);
-                log.info("Transfer {} completed successfully", transferRecord.getTransferId());
-            } else {
-                transferRecord.setStatus(TransferRecord.TransferStatus.FAILED);
-                transferRecord.setErrorMessage(response.getMessage());
-                log.warn("Transfer {} failed: {}", transferRecord.getTransferId(), response.getMessage());
-            }
+            final var response = ledgerCalls.call(deadline, true, () -> transferRecord.isSplit()
+                    ? ledgerClient.multiLegTransfer(toMultiLegRequest(transferRecord))
+                    : ledgerClient.transfer(toLedgerRequest(transferRecord)));
+            completeTransfer(transferRecord, response, null);
         } catch (Exception e) {
-            transferRecord.setStatus(TransferRecord.TransferStatus.FAILED);
-            transferRecord.setErrorMessage(e.getMessage());
-            log.error("Transfer {} failed with exception", transferRecord.getTransferId(), e);
+            completeTransfer(transferRecord, null, e);
         }
 
         transferRecordRepository.save(transferRecord);
     }
 
-    public Optional<TransferRecord> getTransfer(String transferId) {
-        log.info("Fetching transfer: {}", transferId);
-        return transferRecordRepository.findByTransferId(transferId);
+    private void completeTransfer(TransferRecord transferRecord, LedgerTransferResponse response, Throwable failure) {
+        if (failure != null) {
+            transferRecord.setStatus(TransferRecord.TransferStatus.FAILED);
+            transferRecord.setErrorMessage(failure.getMessage());
+            transferRecord.setAmbiguous(LedgerCalls.mayHaveBeenApplied(failure));
+            log.error("Transfer {} failed with exception", transferRecord.getTransferId(), failure);
+        } else if (response.isSuccess()) {
+            transferRecord.setStatus(TransferRecord.TransferStatus.COMPLETED);
+            log.info(SamplingTurboFilter.SAMPLED, "Transfer {} completed successfully", transferRecord.getTransferId());
+        } else {
+            transferRecord.setStatus(TransferRecord.TransferStatus.FAILED);
+            transferRecord.setErrorMessage(response.getMessage());
+            log.warn("Transfer {} failed: {}", transferRecord.getTransferId(), response.getMessage());
+        }
     }
 
-    @Transactional
-    public List<TransferRecord> processBatchTransfers(List<BatchTransferRequest> requests) {
+    private static Throwable unwrap(Throwable failure) {
+        return failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+    }
+
+    private static LedgerTransferRequest toLedgerRequest(TransferRecord transferRecord) {
+        return new LedgerTransferRequest(
+                transferRecord.getTransferId(),
+                transferRecord.getFromAccountId(),
+                transferRecord.getToAccountId(),
+                transferRecord.getAmount()
+        );
+    }
+
+    private static LedgerMultiLegTransferRequest toMultiLegRequest(TransferRecord transferRecord) {
+        final var legs = new ArrayList<LedgerMultiLegTransferRequest.Leg>();
+        legs.add(new LedgerMultiLegTransferRequest.Leg(
+                transferRecord.getFromAccountId(), "DEBIT", transferRecord.getAmount()));
+        for (final var leg : transferRecord.getLegs()) {
+            legs.add(new LedgerMultiLegTransferRequest.Leg(leg.getAccountId(), "CREDIT", leg.getAmount()));
+        }
+        return new LedgerMultiLegTransferRequest(transferRecord.getTransferId(), legs);
+    }
+
+    /**
+     * The transfer stored under {@code idempotencyKey}. A request that lost the race for its key
+     * to a concurrent one is answered with it, the same as a retry after the first one committed.
+     */
+    @Transactional(readOnly = true)
+    public Optional<TransferRecord> findByIdempotencyKey(String idempotencyKey) {
+        return transferRecordRepository.findByIdempotencyKey(idempotencyKey);
+    }
+
+    /**
+     * Empty for unknown ids and for transfers whose month PartitionManager has archived; the
+     * archive files are not read back here.
+     */
+    @Transactional(readOnly = true)
+    public Optional<TransferRecordRepository.TransferStatusView> getTransfer(String transferId) {
+        log.debug("Fetching transfer: {}", transferId);
+        // transfer ids are stored as binary UUIDs, anything else cannot match
+        if (!TransferIdGenerator.isUuid(transferId)) {
+            return Optional.empty();
+        }
+        return transferRecordRepository.findStatusByTransferId(transferId);
+    }
+
+    /**
+     * Creates every transfer of the batch, concurrently. Returns one result per request in
+     * request order: the stored transfer, or why none was created. A transfer throttled by the
+     * account rate limit or the concurrency limit is rejected with the limiter's retry-after,
+     * like a single transfer answered 429, and the rest of the batch still goes through.
+     */
+    public List<BatchTransferResult> processBatchTransfers(List<BatchTransferRequest> requests, Duration timeout) {
         log.info("Processing batch of {} transfers", requests.size());
         
         if (requests.size() > 20) {
             throw new IllegalArgumentException("Batch size cannot exceed 20 transfers");
         }
 
+        // one transaction per item, like a single POST /transfers: a rejected item leaves no claim behind
+        final var writeTransaction = new TransactionTemplate(transactionManager);
         final var futures = requests.stream()
                 .map(request -> CompletableFuture.supplyAsync(() -> {
                     try {
-                        return createTransfer(
+                        return BatchTransferResult.created(writeTransaction.execute(status -> createTransfer(
                                 request.getIdempotencyKey(),
                                 request.getFromAccountId(),
                                 request.getToAccountId(),
-                                request.getAmount()
-                        );
+                                request.getAmount(),
+                                timeout
+                        )));
+                    } catch (DataIntegrityViolationException e) {
+                        // a concurrent request claimed the key first; its transfer, or a retry once it is stored
+                        return findByIdempotencyKey(request.getIdempotencyKey())
+                                .map(BatchTransferResult::created)
+                                .orElseGet(() -> BatchTransferResult.rejected(IDEMPOTENCY_KEY_IN_USE, 1));
+                    } catch (TooManyRequestsException e) {
+                        log.warn("Rejecting transfer {} in batch: {}", request.getIdempotencyKey(), e.getMessage());
+                        return BatchTransferResult.rejected(e.getMessage(), e.getRetryAfterSeconds());
+                    } catch (IllegalArgumentException e) {
+                        return BatchTransferResult.failed(e.getMessage());
                     } catch (Exception e) {
+                        if (PoolAdmissionDataSource.isSaturated(e)) {
+                            log.warn("Rejecting transfer {} in batch, connection pool saturated", request.getIdempotencyKey());
+                            return BatchTransferResult.rejected("Service busy, retry later", 1);
+                        }
                         log.error("Error creating transfer in batch", e);
-                        return null;
+                        return BatchTransferResult.failed("Internal server error");
                     }
                 }, executor))
-                .collect(Collectors.toList());
+                .toList();
 
         return futures.stream()
                 .map(CompletableFuture::join)
-                .filter(transferRecord -> transferRecord != null)
-                .map(transferRecord -> (TransferRecord) transferRecord)
-                .collect(Collectors.toList());
+                .toList();
+    }
+
+    /**
+     * Outcome of one batch item. {@code transfer} is null when none was created; a rejected item
+     * has {@code retryAfterSeconds} and may be sent again then with the same idempotency key.
+     */
+    @Data
+    @AllArgsConstructor
+    public static class BatchTransferResult {
+        private TransferRecord transfer;
+        private String errorMessage;
+        private Long retryAfterSeconds;
+
+        static BatchTransferResult created(TransferRecord transfer) {
+            return new BatchTransferResult(transfer, null, null);
+        }
+
+        static BatchTransferResult rejected(String errorMessage, long retryAfterSeconds) {
+            return new BatchTransferResult(null, errorMessage, retryAfterSeconds);
+        }
+
+        static BatchTransferResult failed(String errorMessage) {
+            return new BatchTransferResult(null, errorMessage, null);
+        }
+
+        public boolean isRejected() {
+            return retryAfterSeconds != null;
+        }
     }
 
     @Data
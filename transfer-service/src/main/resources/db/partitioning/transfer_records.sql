@@ -0,0 +1,70 @@
+-- One-time conversion of transfer_records into a table range-partitioned by month on created_at
+-- (PostgreSQL 13+). Run with the service stopped; afterwards PartitionManager creates the
+-- upcoming months and archives old ones when transfer.partitioning.enabled=true.
+--
+-- Partitioned tables can only enforce uniqueness on keys that include the partition key, so
+-- the transfer_id and idempotency_key constraints have to include created_at. With microsecond
+-- timestamps that stops almost nothing, so both are kept unique by transfer_record_claims
+-- instead: a plain table, never partitioned or archived, keyed by idempotency_key with a unique
+-- transfer_id. TransferService inserts the claim in the same transaction as the record.
+--
+-- transfer_record_legs stays a plain table. PartitionManager archives the legs of a month's
+-- records to their own file and deletes them in the transaction that drops the partition.
+
+BEGIN;
+
+-- rows written before created_at existed are placed in the current month
+ALTER TABLE transfer_records ADD COLUMN IF NOT EXISTS created_at timestamp(6) with time zone;
+UPDATE transfer_records SET created_at = now() WHERE created_at IS NULL;
+ALTER TABLE transfer_records ALTER COLUMN created_at SET NOT NULL;
+
+ALTER TABLE transfer_records RENAME TO transfer_records_legacy;
+
+CREATE SEQUENCE transfer_records_id_seq;
+SELECT setval('transfer_records_id_seq', COALESCE((SELECT max(id) FROM transfer_records_legacy), 0) + 1, false);
+
+CREATE TABLE transfer_records (LIKE transfer_records_legacy INCLUDING DEFAULTS INCLUDING CONSTRAINTS)
+    PARTITION BY RANGE (created_at);
+ALTER TABLE transfer_records ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE transfer_records ALTER COLUMN id SET DEFAULT nextval('transfer_records_id_seq');
+ALTER SEQUENCE transfer_records_id_seq OWNED BY transfer_records.id;
+ALTER TABLE transfer_records ADD PRIMARY KEY (id, created_at);
+ALTER TABLE transfer_records ADD CONSTRAINT uk_transfer_records_transfer_id UNIQUE (transfer_id, created_at);
+ALTER TABLE transfer_records ADD CONSTRAINT uk_transfer_records_idempotency_key UNIQUE (idempotency_key, created_at);
+CREATE INDEX idx_transfer_records_status_created ON transfer_records (status, ambiguous, created_at, id);
+CREATE INDEX idx_transfer_records_due ON transfer_records (status, execute_at, id);
+
+-- one partition per month that has data, plus the current month
+DO $$
+DECLARE
+    month_start date;
+    last_month date;
+BEGIN
+    SELECT date_trunc('month', COALESCE(min(created_at), now()) AT TIME ZONE 'UTC')::date,
+           date_trunc('month', GREATEST(COALESCE(max(created_at), now()), now()) AT TIME ZONE 'UTC')::date
+      INTO month_start, last_month
+      FROM transfer_records_legacy;
+    WHILE month_start <= last_month LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF transfer_records FOR VALUES FROM (%L) TO (%L)',
+                       'transfer_records_p' || to_char(month_start, 'YYYYMM'),
+                       month_start::timestamp AT TIME ZONE 'UTC',
+                       (month_start + interval '1 month')::timestamp AT TIME ZONE 'UTC');
+        month_start := month_start + interval '1 month';
+    END LOOP;
+END $$;
+
+INSERT INTO transfer_records SELECT * FROM transfer_records_legacy;
+
+CREATE TABLE IF NOT EXISTS transfer_record_claims (
+    idempotency_key varchar(255) PRIMARY KEY,
+    transfer_id bytea NOT NULL UNIQUE,
+    created_at timestamp(6) with time zone NOT NULL
+);
+INSERT INTO transfer_record_claims (idempotency_key, transfer_id, created_at)
+SELECT idempotency_key, transfer_id, created_at FROM transfer_records_legacy
+ON CONFLICT (idempotency_key) DO NOTHING;
+
+COMMIT;
+
+-- After verifying the row counts match:
+-- DROP TABLE transfer_records_legacy;
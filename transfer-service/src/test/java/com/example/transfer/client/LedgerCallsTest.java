@@ -0,0 +1,169 @@
+package com.example.transfer.client;
+
+import feign.FeignException;
+import feign.Request;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LedgerCallsTest {
+
+    private static final Request REQUEST = Request.create(Request.HttpMethod.POST, "/ledger/transfer", Map.of(), null,
+            StandardCharsets.UTF_8, null);
+
+    private final LedgerCallProperties properties = new LedgerCallProperties();
+
+    private final CircuitBreaker circuitBreaker = CircuitBreaker.of("ledger-service", CircuitBreakerConfig.custom()
+            .slidingWindowSize(4)
+            .minimumNumberOfCalls(4)
+            .failureRateThreshold(50)
+            .build());
+
+    private LedgerCalls ledgerCalls;
+
+    @AfterEach
+    void tearDown() {
+        if (ledgerCalls != null) {
+            ledgerCalls.close();
+        }
+    }
+
+    @Test
+    void retriesServiceUnavailableButNotRejections() {
+        // Given
+        properties.setHedgeDelay(Duration.ZERO);
+        ledgerCalls = new LedgerCalls(properties, circuitBreaker, new SimpleMeterRegistry());
+        final var busyOnce = new Calls<>(() -> {
+            throw unavailable(Map.of());
+        }, () -> "applied");
+        final var rejected = new Calls<String>(() -> {
+            throw new FeignException.BadRequest("Insufficient funds", REQUEST, null, null);
+        });
+
+        // When
+        final var result = ledgerCalls.call(deadline(5000), true, busyOnce);
+        final var e = assertThrows(FeignException.BadRequest.class, () -> ledgerCalls.call(deadline(5000), true, rejected));
+
+        // Then
+        assertEquals("applied", result);
+        assertEquals(2, busyOnce.count.get());
+        assertEquals(1, rejected.count.get());
+        assertFalse(LedgerCalls.mayHaveBeenApplied(e));
+    }
+
+    @Test
+    void givesUpWhenRetryAfterDoesNotFitInTheBudget() {
+        // Given
+        ledgerCalls = new LedgerCalls(properties, circuitBreaker, new SimpleMeterRegistry());
+        final var busy = new Calls<String>(() -> {
+            throw unavailable(Map.of("Retry-After", List.of("1")));
+        });
+
+        // When
+        final var started = System.nanoTime();
+        assertThrows(FeignException.ServiceUnavailable.class, () -> ledgerCalls.call(deadline(200), false, busy));
+
+        // Then
+        assertEquals(1, busy.count.get());
+        assertTrue(System.nanoTime() - started < TimeUnit.MILLISECONDS.toNanos(200));
+    }
+
+    @Test
+    void hedgedCallTakesTheFirstAnswer() {
+        // Given - the first request hangs, the second one answers at once
+        properties.setHedgeDelay(Duration.ofMillis(50));
+        final var meterRegistry = new SimpleMeterRegistry();
+        ledgerCalls = new LedgerCalls(properties, circuitBreaker, meterRegistry);
+        final var release = new CountDownLatch(1);
+        final var slowThenFast = new Calls<>(() -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "slow";
+        }, () -> "fast");
+
+        // When
+        final var started = System.nanoTime();
+        final var result = ledgerCalls.call(deadline(5000), true, slowThenFast);
+        release.countDown();
+
+        // Then
+        assertEquals("fast", result);
+        assertTrue(System.nanoTime() - started < TimeUnit.SECONDS.toNanos(2));
+        assertEquals(1.0, meterRegistry.counter("transfer.ledger.hedges").count());
+    }
+
+    @Test
+    void breakerOpensOnTransportFailuresOnly() {
+        // Given
+        properties.setMaxAttempts(1);
+        ledgerCalls = new LedgerCalls(properties, circuitBreaker, new SimpleMeterRegistry());
+        final var rejected = new Calls<String>(() -> {
+            throw new FeignException.BadRequest("Insufficient funds", REQUEST, null, null);
+        });
+        final var broken = new Calls<String>(() -> {
+            throw new FeignException.InternalServerError("Commit failed", REQUEST, null, null);
+        });
+
+        // When
+        for (int i = 0; i < 4; i++) {
+            assertThrows(FeignException.class, () -> ledgerCalls.call(deadline(5000), false, rejected));
+        }
+        final var afterRejections = circuitBreaker.getState();
+        // two failures among the last four calls reach the 50% threshold
+        for (int i = 0; i < 2; i++) {
+            assertThrows(FeignException.class, () -> ledgerCalls.call(deadline(5000), false, broken));
+        }
+        final var e = assertThrows(CallNotPermittedException.class,
+                () -> ledgerCalls.call(deadline(5000), false, broken));
+
+        // Then
+        assertEquals(CircuitBreaker.State.CLOSED, afterRejections);
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertEquals(2, broken.count.get());
+        assertFalse(LedgerCalls.mayHaveBeenApplied(e));
+    }
+
+    private static Deadline deadline(long millis) {
+        return Deadline.after(Duration.ofMillis(millis));
+    }
+
+    private static FeignException unavailable(Map<String, Collection<String>> headers) {
+        return new FeignException.ServiceUnavailable("Account busy", REQUEST, null, headers);
+    }
+
+    // answers each call with the next supplier, the last one repeats
+    private static class Calls<T> implements Supplier<T> {
+
+        private final List<Supplier<T>> answers;
+        private final AtomicInteger count = new AtomicInteger();
+
+        @SafeVarargs
+        Calls(Supplier<T>... answers) {
+            this.answers = List.of(answers);
+        }
+
+        @Override
+        public T get() {
+            final var call = count.getAndIncrement();
+            return answers.get(Math.min(call, answers.size() - 1)).get();
+        }
+    }
+}
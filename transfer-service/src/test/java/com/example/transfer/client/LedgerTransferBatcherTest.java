@@ -0,0 +1,190 @@
+package com.example.transfer.client;
+
+import com.example.transfer.dto.LedgerBatchTransferRequest;
+import com.example.transfer.dto.LedgerBatchTransferResponse;
+import com.example.transfer.dto.LedgerTransferRequest;
+import com.example.transfer.dto.LedgerTransferResponse;
+import feign.FeignException;
+import feign.Request;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LedgerTransferBatcherTest {
+
+    @Mock
+    private LedgerClient ledgerClient;
+
+    private final LedgerCalls ledgerCalls = new LedgerCalls(new LedgerCallProperties(),
+            CircuitBreaker.ofDefaults("ledger-service"), new SimpleMeterRegistry());
+
+    @Test
+    void coalescesTransfersAndCompletesEachWithItsOwnResult() throws Exception {
+        // Given
+        final var properties = new LedgerBatchProperties();
+        properties.setWindow(Duration.ofMillis(200));
+        when(ledgerClient.transferBatch(any(LedgerBatchTransferRequest.class)))
+                .thenReturn(new LedgerBatchTransferResponse(List.of(
+                        new LedgerBatchTransferResponse.Result("t-2", false, "Insufficient balance", false),
+                        new LedgerBatchTransferResponse.Result("t-1", true, "Transfer completed successfully", false))));
+
+        try (var batcher = new LedgerTransferBatcher(ledgerClient, ledgerCalls, properties, new SimpleMeterRegistry())) {
+            // When
+            final var first = batcher.submit(request("t-1"), Deadline.after(Duration.ofSeconds(5)));
+            final var second = batcher.submit(request("t-2"), Deadline.after(Duration.ofSeconds(5)));
+
+            // Then
+            assertTrue(first.get(5, TimeUnit.SECONDS).isSuccess());
+            final var rejected = second.get(5, TimeUnit.SECONDS);
+            assertFalse(rejected.isSuccess());
+            assertEquals("Insufficient balance", rejected.getMessage());
+            verify(ledgerClient, times(1)).transferBatch(any(LedgerBatchTransferRequest.class));
+        }
+    }
+
+    @Test
+    void sendsTransfersAnsweredAsRetriableAgainOnTheirOwn() throws Exception {
+        // Given - t-1's account lock was not granted in time, the single call gets it
+        final var properties = new LedgerBatchProperties();
+        properties.setWindow(Duration.ofMillis(200));
+        when(ledgerClient.transferBatch(any(LedgerBatchTransferRequest.class)))
+                .thenReturn(new LedgerBatchTransferResponse(List.of(
+                        new LedgerBatchTransferResponse.Result("t-1", false, "Account busy, retry later", true),
+                        new LedgerBatchTransferResponse.Result("t-2", true, "Transfer completed successfully", false))));
+        when(ledgerClient.transfer(any(LedgerTransferRequest.class)))
+                .thenReturn(new LedgerTransferResponse(true, "Transfer completed successfully"));
+
+        try (var batcher = new LedgerTransferBatcher(ledgerClient, ledgerCalls, properties, new SimpleMeterRegistry())) {
+            // When
+            final var first = batcher.submit(request("t-1"), Deadline.after(Duration.ofSeconds(5)));
+            final var second = batcher.submit(request("t-2"), Deadline.after(Duration.ofSeconds(5)));
+
+            // Then
+            assertTrue(first.get(5, TimeUnit.SECONDS).isSuccess());
+            assertTrue(second.get(5, TimeUnit.SECONDS).isSuccess());
+            verify(ledgerClient, times(1)).transfer(argThat(request -> "t-1".equals(request.getTransferId())));
+        }
+    }
+
+    @Test
+    void failsEveryTransferWhenTheBatchCallFails() throws Exception {
+        // Given
+        final var properties = new LedgerBatchProperties();
+        properties.setWindow(Duration.ofMillis(200));
+        when(ledgerClient.transferBatch(any(LedgerBatchTransferRequest.class)))
+                .thenThrow(new RuntimeException("ledger unavailable"));
+
+        try (var batcher = new LedgerTransferBatcher(ledgerClient, ledgerCalls, properties, new SimpleMeterRegistry())) {
+            // When
+            final var first = batcher.submit(request("t-1"), Deadline.after(Duration.ofSeconds(5)));
+            final var second = batcher.submit(request("t-2"), Deadline.after(Duration.ofSeconds(5)));
+
+            // Then
+            for (final var future : List.of(first, second)) {
+                final var e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+                assertEquals("ledger unavailable", e.getCause().getMessage());
+            }
+        }
+    }
+
+    @Test
+    void leavesEveryTransferAmbiguousWhenTheBatchFailsAfterReachingTheLedger() throws Exception {
+        // Given - the connection pool saturated part way through, some items may be committed
+        final var properties = new LedgerBatchProperties();
+        properties.setWindow(Duration.ofMillis(200));
+        final var batchRequest = Request.create(Request.HttpMethod.POST, "/ledger/transfers/batch", Map.of(), null,
+                StandardCharsets.UTF_8, null);
+        when(ledgerClient.transferBatch(any(LedgerBatchTransferRequest.class)))
+                .thenThrow(new FeignException.ServiceUnavailable("Service busy", batchRequest, null, null));
+
+        try (var batcher = new LedgerTransferBatcher(ledgerClient, ledgerCalls, properties, new SimpleMeterRegistry())) {
+            // When
+            final var first = batcher.submit(request("t-1"), Deadline.after(Duration.ofSeconds(5)));
+            final var second = batcher.submit(request("t-2"), Deadline.after(Duration.ofSeconds(5)));
+
+            // Then
+            for (final var future : List.of(first, second)) {
+                final var e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+                assertInstanceOf(LedgerBatchFailedException.class, e.getCause());
+                assertTrue(LedgerCalls.mayHaveBeenApplied(e.getCause()));
+            }
+        }
+    }
+
+    @Test
+    void expiresTransfersThatWaitLongerThanMaxLatency() throws Exception {
+        // Given a single sender stuck on a slow ledger call
+        final var properties = new LedgerBatchProperties();
+        properties.setWindow(Duration.ZERO);
+        properties.setMaxConcurrentBatches(1);
+        properties.setMaxLatency(Duration.ofMillis(50));
+        final var inLedger = new CountDownLatch(1);
+        final var release = new CountDownLatch(1);
+        when(ledgerClient.transferBatch(any(LedgerBatchTransferRequest.class))).thenAnswer(invocation -> {
+            inLedger.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return new LedgerBatchTransferResponse(List.of(
+                    new LedgerBatchTransferResponse.Result("t-1", true, "Transfer completed successfully", false)));
+        });
+
+        try (var batcher = new LedgerTransferBatcher(ledgerClient, ledgerCalls, properties, new SimpleMeterRegistry())) {
+            final var first = batcher.submit(request("t-1"), Deadline.after(Duration.ofSeconds(5)));
+            assertTrue(inLedger.await(5, TimeUnit.SECONDS));
+
+            // When
+            final var second = batcher.submit(request("t-2"), Deadline.after(Duration.ofSeconds(5)));
+            Thread.sleep(100);
+            release.countDown();
+
+            // Then
+            assertTrue(first.get(5, TimeUnit.SECONDS).isSuccess());
+            final var e = assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(TimeoutException.class, e.getCause());
+            verify(ledgerClient, times(1)).transferBatch(any(LedgerBatchTransferRequest.class));
+        }
+    }
+
+    @Test
+    void failsTransfersPastTheirDeadlineWithoutSendingThem() throws Exception {
+        // Given
+        final var properties = new LedgerBatchProperties();
+        properties.setWindow(Duration.ofMillis(50));
+
+        try (var batcher = new LedgerTransferBatcher(ledgerClient, ledgerCalls, properties, new SimpleMeterRegistry())) {
+            // When
+            final var late = batcher.submit(request("t-1"), Deadline.after(Duration.ofMillis(1)));
+
+            // Then
+            final var e = assertThrows(ExecutionException.class, () -> late.get(5, TimeUnit.SECONDS));
+            final var deadlineExceeded = assertInstanceOf(DeadlineExceededException.class, e.getCause());
+            assertFalse(deadlineExceeded.isSent());
+            verify(ledgerClient, never()).transferBatch(any(LedgerBatchTransferRequest.class));
+        }
+    }
+
+    private static LedgerTransferRequest request(String transferId) {
+        return new LedgerTransferRequest(transferId, 1L, 2L, new BigDecimal("10.00"));
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.transfer.config;
+
+import com.example.transfer.controller.DatabaseExceptionHandler;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DataSourceConfigTest {
+
+    private HikariDataSource transferPool;
+    private HikariDataSource readPool;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        transferPool = pool("transfer");
+        readPool = pool("read");
+        // start both pools, their MXBeans only exist from then on
+        transferPool.getConnection().close();
+        readPool.getConnection().close();
+    }
+
+    @AfterEach
+    void tearDown() {
+        transferPool.close();
+        readPool.close();
+    }
+
+    @Test
+    void readOnlyTransactionsUseTheReadPool() {
+        // Given
+        final var dataSource = new DataSourceConfig().dataSource(transferPool, readPool, 20, 20);
+        final var jdbcTemplate = new JdbcTemplate(dataSource);
+
+        // When
+        final var readOnly = transaction(dataSource, true).execute(status -> activeConnections(jdbcTemplate));
+        final var readWrite = transaction(dataSource, false).execute(status -> activeConnections(jdbcTemplate));
+
+        // Then - {transfer, read} pool connections in use inside each transaction
+        assertArrayEquals(new int[]{0, 1}, readOnly);
+        assertArrayEquals(new int[]{1, 0}, readWrite);
+    }
+
+    @Test
+    void saturatedPoolIsRejectedAndAnswered503() {
+        // Given - no thread may queue on the transfer pool
+        final var dataSource = new DataSourceConfig().dataSource(transferPool, readPool, 0, 20);
+
+        // When
+        final var e = assertThrows(RuntimeException.class, () -> transaction(dataSource, false)
+                .execute(status -> new JdbcTemplate(dataSource).queryForObject("SELECT 1", Integer.class)));
+
+        // Then
+        assertTrue(PoolAdmissionDataSource.isSaturated(e));
+        final var response = new DatabaseExceptionHandler().handleDatabaseError(e);
+        assertEquals(503, response.getStatusCode().value());
+        assertEquals("1", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    void defaultTargetGoesThroughAdmission() {
+        // When
+        final var dataSource = (LazyConnectionDataSourceProxy) new DataSourceConfig()
+                .dataSource(transferPool, readPool, 20, 20);
+
+        // Then
+        final var routing = (AbstractRoutingDataSource) dataSource.getTargetDataSource();
+        assertInstanceOf(PoolAdmissionDataSource.class, routing.getResolvedDefaultDataSource());
+    }
+
+    // the connection is only taken from a pool once a statement runs on it
+    private int[] activeConnections(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.queryForObject("SELECT 1", Integer.class);
+        return new int[]{
+                transferPool.getHikariPoolMXBean().getActiveConnections(),
+                readPool.getHikariPoolMXBean().getActiveConnections()};
+    }
+
+    private static TransactionTemplate transaction(DataSource dataSource, boolean readOnly) {
+        final var template = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        template.setReadOnly(readOnly);
+        return template;
+    }
+
+    private static HikariDataSource pool(String name) {
+        final var pool = new HikariDataSource();
+        pool.setPoolName(name);
+        pool.setJdbcUrl("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        pool.setMinimumIdle(0);
+        pool.setMaximumPoolSize(2);
+        pool.setConnectionTimeout(250);
+        return pool;
+    }
+}
@@ -1,14 +1,20 @@
 package com.example.transfer.controller;
 
 import com.example.transfer.model.TransferRecord;
+import com.example.transfer.repository.TransferRecordRepository;
 import com.example.transfer.service.TransferService;
 import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -31,7 +37,7 @@ class TransferControllerTest {
         transferRecord.setTransferId("transfer-123");
         transferRecord.setStatus(TransferRecord.TransferStatus.COMPLETED);
         
-        when(transferService.createTransfer(anyString(), any(), any(), any(BigDecimal.class)))
+        when(transferService.createTransfer(anyString(), any(), any(), any(BigDecimal.class), eq(Duration.ofMillis(2000))))
                 .thenReturn(transferRecord);
 
         // When
@@ -42,6 +48,7 @@ class TransferControllerTest {
 
         final var httpRequest = mock(jakarta.servlet.http.HttpServletRequest.class);
         when(httpRequest.getHeader("X-Request-ID")).thenReturn("test-request-123");
+        when(httpRequest.getHeader("X-Request-Timeout")).thenReturn("2000");
         
         var response = transferController.createTransfer(request, "idempotency-key-123", httpRequest);
 
@@ -54,14 +61,89 @@ class TransferControllerTest {
     }
 
     @Test
-    void getTransfer() {
+    void createTransferReplaysTheTransferOfAConcurrentRequestWithTheSameKey() {
+        // Given - the other request committed first, this one's claim on the key failed
+        final var transferRecord = new TransferRecord();
+        transferRecord.setTransferId("transfer-123");
+        transferRecord.setStatus(TransferRecord.TransferStatus.PENDING);
+        when(transferService.createTransfer(eq("idempotency-key-123"), any(), any(), any(BigDecimal.class), any()))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"));
+        when(transferService.findByIdempotencyKey("idempotency-key-123")).thenReturn(Optional.of(transferRecord));
+
+        // When
+        final var response = transferController.createTransfer(transferRequest(), "idempotency-key-123",
+                mock(jakarta.servlet.http.HttpServletRequest.class));
+
+        // Then
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals("transfer-123", response.getBody().getTransferId());
+        assertEquals("PENDING", response.getBody().getStatus());
+    }
+
+    @Test
+    void createTransferConflictsWhenTheKeyIsClaimedButNoTransferIsStored() {
+        // Given
+        when(transferService.createTransfer(eq("idempotency-key-123"), any(), any(), any(BigDecimal.class), any()))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"));
+        when(transferService.findByIdempotencyKey("idempotency-key-123")).thenReturn(Optional.empty());
+
+        // When
+        final var response = transferController.createTransfer(transferRequest(), "idempotency-key-123",
+                mock(jakarta.servlet.http.HttpServletRequest.class));
+
+        // Then
+        assertEquals(409, response.getStatusCode().value());
+        assertEquals(TransferService.IDEMPOTENCY_KEY_IN_USE, response.getBody().getErrorMessage());
+    }
+
+    @Test
+    void batchReportsRejectedItemsWithRetryAfter() {
         // Given
         final var transferRecord = new TransferRecord();
-        transferRecord.setTransferId("transfer-456");
+        transferRecord.setTransferId("transfer-123");
         transferRecord.setStatus(TransferRecord.TransferStatus.PENDING);
-        
+        when(transferService.processBatchTransfers(anyList(), isNull())).thenReturn(List.of(
+                new TransferService.BatchTransferResult(transferRecord, null, null),
+                new TransferService.BatchTransferResult(null, "Rate limit exceeded for account 1", 3L)));
+        final var httpRequest = mock(jakarta.servlet.http.HttpServletRequest.class);
+
+        // When
+        final var response = transferController.processBatchTransfers(new TransferController.BatchTransferRequest(List.of(
+                new TransferService.BatchTransferRequest("key-1", 1L, 2L, new BigDecimal("10.00")),
+                new TransferService.BatchTransferRequest("key-2", 1L, 2L, new BigDecimal("10.00")))), httpRequest);
+
+        // Then
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals("3", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        final var items = response.getBody().getTransfers();
+        assertEquals("PENDING", items.get(0).getStatus());
+        assertNull(items.get(0).getRetryAfterSeconds());
+        assertEquals("REJECTED", items.get(1).getStatus());
+        assertEquals(3L, items.get(1).getRetryAfterSeconds());
+    }
+
+    @Test
+    void getTransfer() {
+        // Given
+        final var transferStatus = new TransferRecordRepository.TransferStatusView() {
+            @Override
+            public String getTransferId() {
+                return "transfer-456";
+            }
+
+            @Override
+            public TransferRecord.TransferStatus getStatus() {
+                return TransferRecord.TransferStatus.PENDING;
+            }
+
+            @Override
+            public String getErrorMessage() {
+                return null;
+            }
+        };
+
         when(transferService.getTransfer("transfer-456"))
-                .thenReturn(java.util.Optional.of(transferRecord));
+                .thenReturn(java.util.Optional.of(transferStatus));
 
         // When
         final var response = transferController.getTransfer("transfer-456");
@@ -73,4 +155,12 @@ class TransferControllerTest {
         assertEquals("transfer-456", response.getBody().getTransferId());
         assertEquals("PENDING", response.getBody().getStatus());
     }
+
+    private static TransferController.CreateTransferRequest transferRequest() {
+        final var request = new TransferController.CreateTransferRequest();
+        request.setFromAccountId(1L);
+        request.setToAccountId(2L);
+        request.setAmount(new BigDecimal("100.00"));
+        return request;
+    }
 }
@@ -0,0 +1,31 @@
+package com.example.transfer.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryUuidConverterTest {
+
+    private final BinaryUuidConverter converter = new BinaryUuidConverter();
+
+    @Test
+    void roundTripsThroughSixteenBytesAndKeepsIdOrder() {
+        // Given
+        final var generator = new TransferIdGenerator(3);
+        final var first = generator.nextString();
+        final var second = generator.nextString();
+
+        // When
+        final var firstBytes = converter.convertToDatabaseColumn(first);
+        final var secondBytes = converter.convertToDatabaseColumn(second);
+
+        // Then
+        assertEquals(16, firstBytes.length);
+        assertEquals(first, converter.convertToEntityAttribute(firstBytes));
+        // databases compare binary columns as unsigned bytes
+        assertTrue(Arrays.compareUnsigned(firstBytes, secondBytes) < 0);
+        assertNull(converter.convertToDatabaseColumn(null));
+    }
+}
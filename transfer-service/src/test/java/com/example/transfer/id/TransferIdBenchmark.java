@@ -0,0 +1,153 @@
+package com.example.transfer.id;
+
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Supplier;
+
+/**
+ * Compares {@code UUID.randomUUID()} with {@link TransferIdGenerator}: id generation throughput
+ * under concurrency, then single-connection batched insert throughput and on-disk size of a
+ * uniquely indexed id column for
+ * <ul>
+ *   <li>random ids as varchar(36), what transfer_records stored before,</li>
+ *   <li>time-ordered ids as varchar(36), what ledger_entries stores,</li>
+ *   <li>time-ordered ids as 16 bytes, what transfer_records stores now.</li>
+ * </ul>
+ * Runs against a file-based H2 database in a temp directory unless {@code --url} points
+ * elsewhere (PostgreSQL reports the index size on its own):
+ * <pre>
+ * mvn -o -q test-compile org.codehaus.mojo:exec-maven-plugin:3.6.4:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.example.transfer.id.TransferIdBenchmark \
+ *     -Dexec.args="--rows=500000 --threads=8"
+ * </pre>
+ */
+public class TransferIdBenchmark {
+
+    private static final int BATCH_SIZE = 500;
+
+    public static void main(String[] args) throws Exception {
+        final var options = new HashMap<String, String>();
+        for (final var arg : args) {
+            final var separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        final var rows = Integer.parseInt(options.getOrDefault("rows", "200000"));
+        final var threads = Integer.parseInt(options.getOrDefault("threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors() * 2)));
+        var url = options.get("url");
+        if (url == null) {
+            final var dir = Files.createTempDirectory("transfer-id-benchmark");
+            url = "jdbc:h2:file:" + dir.resolve("bench") + ";DB_CLOSE_ON_EXIT=FALSE";
+        }
+
+        final var generator = new TransferIdGenerator(1);
+        System.out.printf("id generation, %d threads x %d ids%n", threads, rows);
+        generation("UUID.randomUUID", threads, rows, () -> UUID.randomUUID().toString());
+        generation("TransferIdGenerator", threads, rows, generator::nextString);
+
+        System.out.printf("%ninserts into a unique id column, %d rows in batches of %d, %s%n", rows, BATCH_SIZE, url);
+        try (var connection = DriverManager.getConnection(url,
+                options.getOrDefault("user", "sa"), options.getOrDefault("password", ""))) {
+            final var postgres = connection.getMetaData().getDatabaseProductName().equals("PostgreSQL");
+            final var binary = postgres ? "bytea" : "binary(16)";
+            // untimed, so the first measured table doesn't pay for JIT compilation of the driver
+            inserts(connection, postgres, "warmup", "varchar(36)", Math.min(rows, 50_000),
+                    () -> UUID.randomUUID().toString());
+            System.out.println(inserts(connection, postgres, "random_varchar", "varchar(36)", rows,
+                    () -> UUID.randomUUID().toString()));
+            System.out.println(inserts(connection, postgres, "ordered_varchar", "varchar(36)", rows,
+                    generator::nextString));
+            final var converter = new BinaryUuidConverter();
+            System.out.println(inserts(connection, postgres, "ordered_binary", binary, rows,
+                    () -> converter.convertToDatabaseColumn(generator.nextString())));
+        }
+    }
+
+    private static void generation(String name, int threads, int perThread, Supplier<String> ids)
+            throws InterruptedException {
+        // one untimed round so both run JIT-compiled
+        run(threads, perThread, ids);
+        final var nanos = run(threads, perThread, ids);
+        System.out.printf("  %-22s %,14.0f ids/s%n", name, (double) threads * perThread / nanos * 1e9);
+    }
+
+    private static long run(int threads, int perThread, Supplier<String> ids) throws InterruptedException {
+        final var start = new CountDownLatch(1);
+        final var done = new CountDownLatch(threads);
+        final var sink = new long[threads];
+        for (int t = 0; t < threads; t++) {
+            final var index = t;
+            new Thread(() -> {
+                try {
+                    start.await();
+                    long hash = 0;
+                    for (int i = 0; i < perThread; i++) {
+                        hash += ids.get().hashCode();
+                    }
+                    sink[index] = hash;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        final var begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        return System.nanoTime() - begin;
+    }
+
+    private static String inserts(Connection connection, boolean postgres, String name, String columnType,
+                                int rows, Supplier<Object> ids) throws SQLException {
+        final var table = "bench_" + name;
+        try (var statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + table);
+            statement.execute("CREATE TABLE " + table + " (id bigint PRIMARY KEY, transfer_id " + columnType
+                    + " NOT NULL, CONSTRAINT uk_" + table + " UNIQUE (transfer_id))");
+        }
+
+        connection.setAutoCommit(false);
+        final var begin = System.nanoTime();
+        try (var insert = connection.prepareStatement("INSERT INTO " + table + " (id, transfer_id) VALUES (?, ?)")) {
+            for (int row = 1; row <= rows; row++) {
+                insert.setLong(1, row);
+                insert.setObject(2, ids.get());
+                insert.addBatch();
+                if (row % BATCH_SIZE == 0 || row == rows) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+            }
+        }
+        final var nanos = System.nanoTime() - begin;
+        connection.setAutoCommit(true);
+
+        final String size;
+        try (var statement = connection.createStatement()) {
+            if (postgres) {
+                statement.execute("VACUUM ANALYZE " + table);
+                try (var result = statement.executeQuery("SELECT pg_relation_size('uk_" + table + "')")) {
+                    result.next();
+                    size = String.format("index %,d KB", result.getLong(1) / 1024);
+                }
+            } else {
+                // H2 only reports a table together with its indexes
+                statement.execute("CHECKPOINT SYNC");
+                try (var result = statement.executeQuery("CALL DISK_SPACE_USED('" + table.toUpperCase() + "')")) {
+                    result.next();
+                    size = String.format("table + indexes %,d KB", result.getLong(1) / 1024);
+                }
+            }
+        }
+        return String.format("  %-28s %,10.0f rows/s  %s", name + " " + columnType, rows / (nanos / 1e9), size);
+    }
+}
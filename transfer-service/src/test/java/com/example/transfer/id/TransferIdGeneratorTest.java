@@ -0,0 +1,102 @@
+package com.example.transfer.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransferIdGeneratorTest {
+
+    @Test
+    void idsAreVersion7WithTimestampAndNodeId() {
+        // Given
+        final var millis = 1_700_000_000_123L;
+        final var generator = new TransferIdGenerator(513, () -> millis);
+
+        // When
+        final var id = generator.next();
+
+        // Then
+        assertEquals(7, id.version());
+        assertEquals(2, id.variant());
+        assertEquals(millis, id.getMostSignificantBits() >>> 16);
+        assertEquals(513, (id.getLeastSignificantBits() >>> 52) & TransferIdGenerator.MAX_NODE_ID);
+    }
+
+    @Test
+    void sequenceOverflowBorrowsTheNextMillisecondAndKeepsIdsIncreasing() {
+        // Given
+        final var millis = 1_700_000_000_000L;
+        final var clock = new AtomicLong(millis);
+        final var generator = new TransferIdGenerator(1, clock::get);
+
+        // When
+        final var ids = new ArrayList<UUID>();
+        for (int i = 0; i < 5000; i++) {
+            ids.add(generator.next());
+        }
+        // clock steps back
+        clock.set(millis - 10);
+        ids.add(generator.next());
+
+        // Then
+        assertIncreasing(ids);
+        assertEquals(millis, ids.get(4095).getMostSignificantBits() >>> 16);
+        assertEquals(millis + 1, ids.get(4096).getMostSignificantBits() >>> 16);
+    }
+
+    @Test
+    void concurrentCallersGetUniqueIdsIncreasingPerThread() throws Exception {
+        // Given
+        final var generator = new TransferIdGenerator(7);
+        final var threads = 8;
+        final var perThread = 20_000;
+        final Set<UUID> seen = ConcurrentHashMap.newKeySet();
+        final var failures = new ConcurrentHashMap<String, Throwable>();
+        final var done = new CountDownLatch(threads);
+
+        // When
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                try {
+                    final var ids = new ArrayList<UUID>(perThread);
+                    for (int i = 0; i < perThread; i++) {
+                        ids.add(generator.next());
+                    }
+                    assertIncreasing(ids);
+                    seen.addAll(ids);
+                } catch (Throwable e) {
+                    failures.put(Thread.currentThread().getName(), e);
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+
+        // Then
+        assertTrue(failures.isEmpty(), () -> failures.toString());
+        assertEquals(threads * perThread, seen.size());
+    }
+
+    @Test
+    void rejectsNodeIdOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> new TransferIdGenerator(1024));
+        assertThrows(IllegalArgumentException.class, () -> new TransferIdGenerator(-1));
+    }
+
+    private static void assertIncreasing(List<UUID> ids) {
+        for (int i = 1; i < ids.size(); i++) {
+            // the timestamp is in the high bits, compared unsigned like the binary column
+            assertTrue(Long.compareUnsigned(ids.get(i - 1).getMostSignificantBits(),
+                    ids.get(i).getMostSignificantBits()) < 0, "id " + i + " is not increasing");
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.transfer.limiter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountRateLimiterTest {
+
+    @Test
+    void allowsBurstThenRejects() {
+        // Given
+        final var properties = new RateLimitProperties();
+        properties.getTiers().get("standard").setRatePerSecond(1);
+        properties.getTiers().get("standard").setBurst(3);
+        final var limiter = new AccountRateLimiter(properties, new SimpleMeterRegistry());
+
+        // When & Then
+        assertEquals(0, limiter.tryAcquire(1L));
+        assertEquals(0, limiter.tryAcquire(1L));
+        assertEquals(0, limiter.tryAcquire(1L));
+        assertTrue(limiter.tryAcquire(1L) > 0);
+
+        // other accounts have their own bucket
+        assertEquals(0, limiter.tryAcquire(2L));
+    }
+
+    @Test
+    void appliesConfiguredTier() {
+        // Given
+        final var premium = new RateLimitProperties.Tier();
+        premium.setRatePerSecond(1);
+        premium.setBurst(5);
+        final var properties = new RateLimitProperties();
+        properties.getTiers().get("standard").setBurst(1);
+        properties.getTiers().put("premium", premium);
+        properties.getAccountTiers().put(7L, "premium");
+        final var limiter = new AccountRateLimiter(properties, new SimpleMeterRegistry());
+
+        // When & Then
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limiter.tryAcquire(7L));
+        }
+        assertTrue(limiter.tryAcquire(7L) > 0);
+
+        assertEquals(0, limiter.tryAcquire(8L));
+        assertTrue(limiter.tryAcquire(8L) > 0);
+    }
+
+    @Test
+    void reusesIdleSlotsWhenTableIsFull() {
+        // Given - a table with 16 slots and a bucket that refills almost immediately
+        final var properties = new RateLimitProperties();
+        properties.setCapacity(16);
+        properties.getTiers().get("standard").setRatePerSecond(1_000_000_000);
+        properties.getTiers().get("standard").setBurst(1);
+        final var limiter = new AccountRateLimiter(properties, new SimpleMeterRegistry());
+
+        // When & Then - far more accounts than slots are still tracked
+        for (long accountId = 1; accountId <= 1_000; accountId++) {
+            assertEquals(0, limiter.tryAcquire(accountId));
+        }
+    }
+}
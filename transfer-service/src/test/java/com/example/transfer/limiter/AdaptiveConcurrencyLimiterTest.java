@@ -0,0 +1,152 @@
+package com.example.transfer.limiter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long MILLIS_10 = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void growsByOneOverLimitWhenLimitIsUsed() {
+        // Given
+        final var limiter = limiter(new ConcurrencyLimitProperties());
+        final var held = acquire(limiter, 9);
+        final var permit = limiter.tryAcquire();
+
+        // When
+        now.addAndGet(MILLIS_10);
+        permit.success();
+
+        // Then
+        assertEquals(20 + 1.0 / 20, limiter.getLimit(), 1e-9);
+        held.forEach(AdaptiveConcurrencyLimiter.Permit::ignore);
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void doesNotGrowWhenLimitIsIdle() {
+        // Given
+        final var limiter = limiter(new ConcurrencyLimitProperties());
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            final var permit = limiter.tryAcquire();
+            now.addAndGet(MILLIS_10);
+            permit.success();
+        }
+
+        // Then
+        assertEquals(20, limiter.getLimit(), 1e-9);
+    }
+
+    @Test
+    void shrinksByBackoffRatioOnDrop() {
+        // Given
+        final var limiter = limiter(new ConcurrencyLimitProperties());
+        final var permit = limiter.tryAcquire();
+
+        // When
+        now.addAndGet(MILLIS_10);
+        permit.dropped();
+
+        // Then
+        assertEquals(20 * 0.9, limiter.getLimit(), 1e-9);
+    }
+
+    @Test
+    void shrinksWhenCallExceedsMaxLatency() {
+        // Given
+        final var properties = new ConcurrencyLimitProperties();
+        properties.setMaxLatency(Duration.ofMillis(100));
+        final var limiter = limiter(properties);
+        final var permit = limiter.tryAcquire();
+
+        // When
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(2_500));
+        permit.success();
+
+        // Then
+        assertEquals(20 * 0.9, limiter.getLimit(), 1e-9);
+        assertEquals(3, limiter.retryAfterSeconds());
+    }
+
+    @Test
+    void shrinksWhenLatencyRisesAboveBaseline() {
+        // Given a 10ms baseline
+        final var limiter = limiter(new ConcurrencyLimitProperties());
+        for (int i = 0; i < 5; i++) {
+            final var permit = limiter.tryAcquire();
+            now.addAndGet(MILLIS_10);
+            permit.success();
+        }
+
+        // When a call takes 10x the baseline, still well under maxLatency
+        final var slow = limiter.tryAcquire();
+        now.addAndGet(10 * MILLIS_10);
+        slow.success();
+
+        // Then
+        assertEquals(20 * 0.9, limiter.getLimit(), 1e-9);
+    }
+
+    @Test
+    void neverShrinksBelowMinLimit() {
+        // Given
+        final var limiter = limiter(new ConcurrencyLimitProperties());
+
+        // When
+        for (int i = 0; i < 50; i++) {
+            final var permit = limiter.tryAcquire();
+            now.addAndGet(MILLIS_10);
+            permit.dropped();
+        }
+
+        // Then
+        assertEquals(2, limiter.getLimit(), 1e-9);
+        assertNotNull(limiter.tryAcquire());
+        assertNotNull(limiter.tryAcquire());
+        assertNull(limiter.tryAcquire());
+    }
+
+    @Test
+    void neverGrowsAboveMaxLimit() {
+        // Given
+        final var properties = new ConcurrencyLimitProperties();
+        properties.setMaxLimit(21);
+        final var limiter = limiter(properties);
+        acquire(limiter, 15);
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            final var permit = limiter.tryAcquire();
+            now.addAndGet(MILLIS_10);
+            permit.success();
+        }
+
+        // Then
+        assertEquals(21, limiter.getLimit(), 1e-9);
+    }
+
+    private AdaptiveConcurrencyLimiter limiter(ConcurrencyLimitProperties properties) {
+        return new AdaptiveConcurrencyLimiter("test", properties, new SimpleMeterRegistry(), now::get);
+    }
+
+    private static List<AdaptiveConcurrencyLimiter.Permit> acquire(AdaptiveConcurrencyLimiter limiter, int count) {
+        final var permits = new ArrayList<AdaptiveConcurrencyLimiter.Permit>();
+        for (int i = 0; i < count; i++) {
+            permits.add(limiter.tryAcquire());
+        }
+        return permits;
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.transfer.logging;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MdcExecutorsTest {
+
+    private final ExecutorService pool = Executors.newSingleThreadExecutor();
+
+    @AfterEach
+    void tearDown() {
+        MDC.clear();
+        pool.shutdownNow();
+    }
+
+    @Test
+    void propagatesTheSubmittersContextAndClearsItAfterwards() {
+        // Given
+        final var executor = MdcExecutors.propagating(pool);
+        MDC.put("requestId", "r-1");
+
+        // When
+        final var during = CompletableFuture.supplyAsync(() -> MDC.get("requestId"), executor).join();
+        MDC.clear();
+        final var after = CompletableFuture.supplyAsync(() -> MDC.get("requestId"), pool).join();
+
+        // Then
+        assertEquals("r-1", during);
+        assertNull(after);
+    }
+
+    @Test
+    void continuationKeepsTheContextOfTheThreadThatRegisteredIt() {
+        // Given - completed later by a thread without the request's MDC
+        final var response = new CompletableFuture<String>();
+        MDC.put("requestId", "r-2");
+        final var continuation = response.thenApplyAsync(value -> MDC.get("requestId"),
+                MdcExecutors.withCurrentContext(pool));
+        MDC.clear();
+
+        // When
+        new Thread(() -> response.complete("ok")).start();
+
+        // Then
+        assertEquals("r-2", continuation.join());
+    }
+}
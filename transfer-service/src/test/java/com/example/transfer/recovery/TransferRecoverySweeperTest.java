@@ -0,0 +1,117 @@
+package com.example.transfer.recovery;
+
+import com.example.transfer.client.LedgerClient;
+import com.example.transfer.dto.LedgerTransferStatusRequest;
+import com.example.transfer.dto.LedgerTransferStatusResponse;
+import com.example.transfer.model.TransferRecord.TransferStatus;
+import com.example.transfer.repository.TransferRecordRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TransferRecoverySweeperTest {
+
+    @Mock
+    private TransferRecordRepository transferRecordRepository;
+
+    @Mock
+    private LedgerClient ledgerClient;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private TransferRecoverySweeper sweeper;
+
+    @BeforeEach
+    void setUp() {
+        final var properties = new RecoveryProperties();
+        properties.setPageSize(2);
+        meterRegistry = new SimpleMeterRegistry();
+        sweeper = new TransferRecoverySweeper(
+                transferRecordRepository, ledgerClient, transactionManager, properties, meterRegistry);
+    }
+
+    @Test
+    void settlesStalePendingTransfersByWhatTheLedgerApplied() {
+        // Given
+        final var createdAt = OffsetDateTime.now().minusHours(1);
+        when(transferRecordRepository.findStale(eq(TransferStatus.PENDING), eq(false), any(), any(), anyLong(), any()))
+                .thenReturn(List.of(stale(1L, "t-1", createdAt), stale(2L, "t-2", createdAt)))
+                .thenReturn(List.of());
+        when(ledgerClient.transferStatuses(new LedgerTransferStatusRequest(List.of("t-1", "t-2"))))
+                .thenReturn(new LedgerTransferStatusResponse(List.of(
+                        new LedgerTransferStatusResponse.Status("t-1", true, createdAt.plusSeconds(1)),
+                        new LedgerTransferStatusResponse.Status("t-2", false, null))));
+        when(transferRecordRepository.settle(List.of(1L), TransferStatus.PENDING, false, TransferStatus.COMPLETED, null))
+                .thenReturn(1);
+        when(transferRecordRepository.settle(List.of(2L), TransferStatus.PENDING, false, TransferStatus.FAILED,
+                TransferRecoverySweeper.NOT_APPLIED))
+                .thenReturn(1);
+
+        // When
+        sweeper.sweep();
+
+        // Then
+        // the second page resumes after the last record of the first
+        verify(transferRecordRepository).findStale(eq(TransferStatus.PENDING), eq(false), any(),
+                eq(createdAt), eq(2L), any());
+        verify(transferRecordRepository).findStale(eq(TransferStatus.FAILED), eq(true), any(), any(), anyLong(), any());
+        assertEquals(1.0, meterRegistry.counter("transfer.recovery.settled", "outcome", "completed").count());
+        assertEquals(1.0, meterRegistry.counter("transfer.recovery.settled", "outcome", "failed").count());
+    }
+
+    @Test
+    void leavesTransfersUntouchedWhenLedgerIsUnreachable() {
+        // Given
+        when(transferRecordRepository.findStale(eq(TransferStatus.PENDING), eq(false), any(), any(), anyLong(), any()))
+                .thenReturn(List.of(stale(1L, "t-1", OffsetDateTime.now().minusHours(1))));
+        when(ledgerClient.transferStatuses(any())).thenThrow(new IllegalStateException("Connection refused"));
+
+        // When
+        sweeper.sweep();
+
+        // Then
+        verify(transferRecordRepository, never()).settle(any(), any(), anyBoolean(), any(), isNull());
+        verify(transferRecordRepository, never()).findStale(eq(TransferStatus.FAILED), eq(true), any(), any(), anyLong(), any());
+        assertEquals(1.0, meterRegistry.counter("transfer.recovery.errors").count());
+    }
+
+    private static TransferRecordRepository.StaleTransfer stale(Long id, String transferId, OffsetDateTime createdAt) {
+        return new TransferRecordRepository.StaleTransfer() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getTransferId() {
+                return transferId;
+            }
+
+            @Override
+            public OffsetDateTime getCreatedAt() {
+                return createdAt;
+            }
+        };
+    }
+}
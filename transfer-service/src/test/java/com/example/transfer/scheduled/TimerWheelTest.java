@@ -0,0 +1,63 @@
+package com.example.transfer.scheduled;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimerWheelTest {
+
+    @Test
+    void firesEveryEntryInTheTickItIsDueAcrossLevels() {
+        // Given - 10ms ticks, 8 slots, 3 levels: 5.12s ahead
+        final var start = 1_000_000L;
+        final var wheel = new TimerWheel(10, 8, 3, start);
+        final var random = new SplittableRandom(42);
+        final var due = new HashMap<Long, Long>();
+        for (long id = 1; id <= 2000; id++) {
+            final var dueMillis = start + random.nextLong(wheel.spanMillis() - 10);
+            assertTrue(wheel.add(id, dueMillis));
+            due.put(id, dueMillis);
+        }
+
+        // When - advanced in uneven steps
+        final var fired = new HashMap<Long, Long>();
+        var now = start;
+        while (now < start + wheel.spanMillis() + 20) {
+            now += random.nextLong(1, 40);
+            final var at = now;
+            wheel.advance(at, id -> assertNull(fired.put(id, at), "fired twice: " + id));
+        }
+
+        // Then - never early, at most one step plus one tick late
+        assertEquals(due.keySet(), fired.keySet());
+        assertEquals(0, wheel.size());
+        due.forEach((id, dueMillis) -> {
+            assertTrue(fired.get(id) >= dueMillis, "early: " + id);
+            assertTrue(fired.get(id) < dueMillis + 40 + 10, "late: " + id);
+        });
+    }
+
+    @Test
+    void overdueEntriesFireOnTheNextAdvanceAndFarOnesAreRefused() {
+        // Given
+        final var wheel = new TimerWheel(100, 4, 2, 0);
+        wheel.advance(5_000, id -> fail("nothing added yet"));
+
+        // When
+        assertTrue(wheel.add(1, 1_000));
+        assertTrue(wheel.add(2, 5_000));
+        final var refused = wheel.add(3, 5_000 + wheel.spanMillis());
+        final List<Long> fired = new ArrayList<>();
+        wheel.advance(5_000, fired::add);
+
+        // Then
+        assertFalse(refused);
+        assertEquals(List.of(1L, 2L), fired);
+        assertEquals(0, wheel.size());
+    }
+}
@@ -1,21 +1,60 @@
 package com.example.transfer.service;
 
+import com.example.transfer.client.Deadline;
+import com.example.transfer.client.LedgerBatchProperties;
+import com.example.transfer.client.LedgerCallProperties;
+import com.example.transfer.client.LedgerCalls;
 import com.example.transfer.client.LedgerClient;
+import com.example.transfer.client.LedgerTransferBatcher;
+import com.example.transfer.dto.LedgerMultiLegTransferRequest;
 import com.example.transfer.dto.LedgerTransferRequest;
 import com.example.transfer.dto.LedgerTransferResponse;
+import com.example.transfer.id.TransferIdGenerator;
+import com.example.transfer.limiter.AccountRateLimiter;
+import com.example.transfer.limiter.AdaptiveConcurrencyLimiter;
+import com.example.transfer.limiter.ConcurrencyLimitProperties;
+import com.example.transfer.limiter.RateLimitProperties;
+import com.example.transfer.limiter.TooManyRequestsException;
+import com.example.transfer.model.TransferLeg;
 import com.example.transfer.model.TransferRecord;
+import com.example.transfer.model.TransferRecordClaim;
+import com.example.transfer.repository.TransferRecordClaimRepository;
 import com.example.transfer.repository.TransferRecordRepository;
+import com.example.transfer.scheduled.ScheduledTransferProperties;
+import com.example.transfer.scheduled.ScheduledTransferQueue;
+import feign.FeignException;
+import feign.Request;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -24,14 +63,44 @@ class TransferServiceTest {
     @Mock
     private TransferRecordRepository transferRecordRepository;
 
+    @Mock
+    private TransferRecordClaimRepository transferRecordClaimRepository;
+
     @Mock
     private LedgerClient ledgerClient;
 
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    private AccountRateLimiter accountRateLimiter;
+
+    private LedgerTransferBatcher ledgerTransferBatcher;
+
+    private final TransferIdGenerator transferIdGenerator = new TransferIdGenerator(1);
+
+    private final LedgerCalls ledgerCalls = new LedgerCalls(new LedgerCallProperties(),
+            CircuitBreaker.ofDefaults("ledger-service"), new SimpleMeterRegistry());
+
+    private final ScheduledTransferQueue scheduledTransferQueue = new ScheduledTransferQueue(
+            new ScheduledTransferProperties(), new SimpleMeterRegistry());
+
     private TransferService transferService;
 
     @BeforeEach
     void setUp() {
-        transferService = new TransferService(transferRecordRepository, ledgerClient);
+        concurrencyLimiter = new AdaptiveConcurrencyLimiter(
+                "test", new ConcurrencyLimitProperties(), new SimpleMeterRegistry());
+        accountRateLimiter = new AccountRateLimiter(new RateLimitProperties(), new SimpleMeterRegistry());
+        // direct ledger calls, batching is covered by LedgerTransferBatcherTest
+        final var batchProperties = new LedgerBatchProperties();
+        batchProperties.setEnabled(false);
+        ledgerTransferBatcher = new LedgerTransferBatcher(ledgerClient, ledgerCalls, batchProperties,
+                new SimpleMeterRegistry());
+        transferService = new TransferService(
+                transferRecordRepository, transferRecordClaimRepository, ledgerClient, ledgerCalls, concurrencyLimiter, accountRateLimiter,
+                ledgerTransferBatcher, transferIdGenerator, scheduledTransferQueue, transactionManager);
     }
 
     @Test
@@ -57,13 +126,15 @@ class TransferServiceTest {
                 .thenReturn(response);
 
         // When
-        final var result = transferService.createTransfer(idempotencyKey, fromAccountId, toAccountId, amount);
+        final var result = transferService.createTransfer(idempotencyKey, fromAccountId, toAccountId, amount, null);
 
         // Then
         assertNotNull(result);
         assertEquals(fromAccountId, result.getFromAccountId());
         assertEquals(toAccountId, result.getToAccountId());
         assertEquals(amount, result.getAmount());
+        verify(transferRecordClaimRepository).saveAndFlush(argThat((TransferRecordClaim claim) ->
+                idempotencyKey.equals(claim.getIdempotencyKey()) && result.getTransferId().equals(claim.getTransferId())));
         
         // The status should be PENDING initially, but may change to COMPLETED due to async processing
         // We'll check that it's either PENDING or COMPLETED (both are valid)
@@ -98,9 +169,283 @@ class TransferServiceTest {
                 .thenReturn(transferRecord);
 
         // When
-        transferService.processTransfer(transferRecord);
+        transferService.processTransfer(transferRecord, deadline());
+
+        // Then
+        assertEquals(TransferRecord.TransferStatus.COMPLETED, transferRecord.getStatus());
+    }
+
+    @Test
+    void processTransferFailureIsAmbiguousUnlessLedgerRejectedIt() {
+        // Given
+        final var request = Request.create(Request.HttpMethod.POST, "/ledger/transfer", Map.of(), null,
+                StandardCharsets.UTF_8, null);
+        final var rejected = TransferRecord.builder()
+                .transferId("rejected").fromAccountId(1L).toAccountId(2L).amount(new BigDecimal("10.00")).build();
+        final var brokenOff = TransferRecord.builder()
+                .transferId("broken-off").fromAccountId(1L).toAccountId(2L).amount(new BigDecimal("10.00")).build();
+        when(ledgerClient.transfer(any(LedgerTransferRequest.class)))
+                .thenThrow(new FeignException.BadRequest("Insufficient funds", request, null, null))
+                .thenThrow(new FeignException.InternalServerError("Commit failed", request, null, null));
+
+        // When
+        transferService.processTransfer(rejected, deadline());
+        transferService.processTransfer(brokenOff, deadline());
+
+        // Then
+        assertEquals(TransferRecord.TransferStatus.FAILED, rejected.getStatus());
+        assertFalse(rejected.isAmbiguous());
+        assertEquals(TransferRecord.TransferStatus.FAILED, brokenOff.getStatus());
+        assertTrue(brokenOff.isAmbiguous());
+    }
+
+    @Test
+    void processSplitTransferSendsAllLegsInOneLedgerCall() {
+        // Given
+        final var transferRecord = TransferRecord.builder()
+                .transferId("split-transfer")
+                .fromAccountId(1L)
+                .toAccountId(2L)
+                .amount(new BigDecimal("100.00"))
+                .legs(List.of(new TransferLeg(2L, new BigDecimal("90.00")),
+                        new TransferLeg(3L, new BigDecimal("10.00"))))
+                .build();
+
+        when(ledgerClient.multiLegTransfer(any(LedgerMultiLegTransferRequest.class)))
+                .thenReturn(new LedgerTransferResponse(true, "Success"));
+
+        // When
+        transferService.processTransfer(transferRecord, deadline());
 
         // Then
+        final var captor = ArgumentCaptor.forClass(LedgerMultiLegTransferRequest.class);
+        verify(ledgerClient).multiLegTransfer(captor.capture());
+        verify(ledgerClient, never()).transfer(any(LedgerTransferRequest.class));
+        final var legs = captor.getValue().getLegs();
+        assertEquals(3, legs.size());
+        assertEquals("DEBIT", legs.get(0).getType());
+        assertEquals(new BigDecimal("100.00"), legs.get(0).getAmount());
         assertEquals(TransferRecord.TransferStatus.COMPLETED, transferRecord.getStatus());
     }
+
+    @Test
+    void createSplitTransferRejectsDuplicateAccounts() {
+        // Given
+        final var legs = List.of(new TransferLeg(2L, new BigDecimal("50.00")),
+                new TransferLeg(2L, new BigDecimal("50.00")));
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () ->
+                transferService.createSplitTransfer("split-key", 1L, legs, null));
+    }
+
+    @Test
+    void createTransferRejectedWhenConcurrencyLimitReached() {
+        // Given
+        final var properties = new ConcurrencyLimitProperties();
+        properties.setInitialLimit(1);
+        properties.setMinLimit(1);
+        final var limiter = new AdaptiveConcurrencyLimiter("test", properties, new SimpleMeterRegistry());
+        final var service = new TransferService(transferRecordRepository, transferRecordClaimRepository, ledgerClient, ledgerCalls, limiter,
+                accountRateLimiter, ledgerTransferBatcher, transferIdGenerator, scheduledTransferQueue, transactionManager);
+        limiter.tryAcquire();
+
+        when(transferRecordRepository.findByIdempotencyKey("test-key"))
+                .thenReturn(Optional.empty());
+
+        // When & Then
+        assertThrows(TooManyRequestsException.class, () ->
+                service.createTransfer("test-key", 1L, 2L, new BigDecimal("100.00"), null));
+    }
+
+    @Test
+    void createTransferRejectedWhenAccountRateLimited() {
+        // Given
+        final var properties = new RateLimitProperties();
+        properties.getTiers().get("standard").setRatePerSecond(0.001);
+        properties.getTiers().get("standard").setBurst(1);
+        final var service = new TransferService(transferRecordRepository, transferRecordClaimRepository, ledgerClient, ledgerCalls,
+                concurrencyLimiter, new AccountRateLimiter(properties, new SimpleMeterRegistry()), ledgerTransferBatcher,
+                transferIdGenerator, scheduledTransferQueue, transactionManager);
+
+        when(transferRecordRepository.findByIdempotencyKey(any())).thenReturn(Optional.empty());
+        when(transferRecordRepository.save(any(TransferRecord.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        service.createTransfer("key-1", 1L, 2L, new BigDecimal("10.00"), null);
+
+        // Then
+        assertThrows(TooManyRequestsException.class, () ->
+                service.createTransfer("key-2", 1L, 2L, new BigDecimal("10.00"), null));
+        verify(transferRecordRepository, times(2)).findByIdempotencyKey(any());
+    }
+
+    @Test
+    void batchReportsRateLimitedItemsAsRejected() {
+        // Given - a bucket with room for one transfer from account 1
+        final var properties = new RateLimitProperties();
+        properties.getTiers().get("standard").setRatePerSecond(0.001);
+        properties.getTiers().get("standard").setBurst(1);
+        final var service = new TransferService(transferRecordRepository, transferRecordClaimRepository, ledgerClient, ledgerCalls,
+                concurrencyLimiter, new AccountRateLimiter(properties, new SimpleMeterRegistry()), ledgerTransferBatcher,
+                transferIdGenerator, scheduledTransferQueue, transactionManager);
+
+        when(transferRecordRepository.findByIdempotencyKey(any())).thenReturn(Optional.empty());
+        when(transferRecordRepository.save(any(TransferRecord.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        final var results = service.processBatchTransfers(List.of(
+                new TransferService.BatchTransferRequest("key-1", 1L, 2L, new BigDecimal("10.00")),
+                new TransferService.BatchTransferRequest("key-2", 1L, 2L, new BigDecimal("10.00")),
+                new TransferService.BatchTransferRequest("key-3", 3L, 2L, new BigDecimal("-1.00"))), null);
+
+        // Then - one result per item, in request order
+        assertEquals(3, results.size());
+        final var created = results.stream().filter(result -> result.getTransfer() != null).toList();
+        final var rejected = results.stream().filter(TransferService.BatchTransferResult::isRejected).toList();
+        assertEquals(1, created.size());
+        assertEquals(1, rejected.size());
+        assertTrue(rejected.get(0).getRetryAfterSeconds() > 0);
+        assertNotNull(rejected.get(0).getErrorMessage());
+        assertNull(results.get(2).getTransfer());
+        assertFalse(results.get(2).isRejected());
+        assertEquals("Transfer amount must be positive", results.get(2).getErrorMessage());
+    }
+
+    @Test
+    void concurrentDuplicateKeyIsAnsweredWithTheStoredTransferWithoutBeingCharged() throws Exception {
+        // Given - a bucket with room for two transfers from account 1
+        final var properties = new RateLimitProperties();
+        properties.getTiers().get("standard").setRatePerSecond(0.001);
+        properties.getTiers().get("standard").setBurst(2);
+        final var service = new TransferService(transferRecordRepository, transferRecordClaimRepository, ledgerClient, ledgerCalls,
+                concurrencyLimiter, new AccountRateLimiter(properties, new SimpleMeterRegistry()), ledgerTransferBatcher,
+                transferIdGenerator, scheduledTransferQueue, transactionManager);
+
+        // both requests look the key up before either claims it; like the database, the second
+        // claim waits for the first to commit and then fails on the primary key
+        final var bothLookedUp = new CyclicBarrier(2);
+        final var lookups = new AtomicInteger();
+        final var stored = new ConcurrentHashMap<String, TransferRecord>();
+        final var claims = ConcurrentHashMap.<String>newKeySet();
+        final var firstStored = new CountDownLatch(1);
+        when(transferRecordRepository.findByIdempotencyKey(any())).thenAnswer(invocation -> {
+            if (lookups.incrementAndGet() <= 2) {
+                bothLookedUp.await(5, TimeUnit.SECONDS);
+                return Optional.empty();
+            }
+            return Optional.ofNullable(stored.get(invocation.<String>getArgument(0)));
+        });
+        when(transferRecordClaimRepository.saveAndFlush(any(TransferRecordClaim.class))).thenAnswer(invocation -> {
+            final TransferRecordClaim claim = invocation.getArgument(0);
+            if (!claims.add(claim.getIdempotencyKey())) {
+                firstStored.await(5, TimeUnit.SECONDS);
+                throw new DataIntegrityViolationException("duplicate key " + claim.getIdempotencyKey());
+            }
+            return claim;
+        });
+        when(transferRecordRepository.save(any(TransferRecord.class))).thenAnswer(invocation -> {
+            final TransferRecord record = invocation.getArgument(0);
+            stored.putIfAbsent(record.getIdempotencyKey(), record);
+            firstStored.countDown();
+            return record;
+        });
+
+        // When - the same transfer twice in one batch, whose items are created concurrently
+        final var results = service.processBatchTransfers(List.of(
+                new TransferService.BatchTransferRequest("dup-key", 1L, 2L, new BigDecimal("10.00")),
+                new TransferService.BatchTransferRequest("dup-key", 1L, 2L, new BigDecimal("10.00"))), null);
+
+        // Then - one transfer, reported for both items
+        assertEquals(1, stored.size());
+        final var transferId = stored.get("dup-key").getTransferId();
+        assertEquals(transferId, results.get(0).getTransfer().getTransferId());
+        assertEquals(transferId, results.get(1).getTransfer().getTransferId());
+
+        // and the duplicate used no rate limit token: there is room for one more transfer
+        assertNotNull(service.createTransfer("other-key", 1L, 2L, new BigDecimal("10.00"), null));
+        assertThrows(TooManyRequestsException.class, () ->
+                service.createTransfer("third-key", 1L, 2L, new BigDecimal("10.00"), null));
+    }
+
+    @Test
+    void idempotentReplayIsNotChargedAgainstTheRateLimit() {
+        // Given - a bucket with room for one transfer, which the original request took
+        final var properties = new RateLimitProperties();
+        properties.getTiers().get("standard").setRatePerSecond(0.001);
+        properties.getTiers().get("standard").setBurst(1);
+        final var service = new TransferService(transferRecordRepository, transferRecordClaimRepository, ledgerClient, ledgerCalls,
+                concurrencyLimiter, new AccountRateLimiter(properties, new SimpleMeterRegistry()), ledgerTransferBatcher,
+                transferIdGenerator, scheduledTransferQueue, transactionManager);
+        final var stored = TransferRecord.builder()
+                .transferId("transfer-1")
+                .idempotencyKey("key-1")
+                .status(TransferRecord.TransferStatus.COMPLETED)
+                .build();
+
+        when(transferRecordRepository.findByIdempotencyKey("key-1")).thenReturn(Optional.empty(), Optional.of(stored));
+        when(transferRecordRepository.save(any(TransferRecord.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        service.createTransfer("key-1", 1L, 2L, new BigDecimal("10.00"), null);
+
+        // When - the client retries twice
+        final var first = service.createTransfer("key-1", 1L, 2L, new BigDecimal("10.00"), null);
+        final var second = service.createTransfer("key-1", 1L, 2L, new BigDecimal("10.00"), null);
+
+        // Then
+        assertSame(stored, first);
+        assertSame(stored, second);
+    }
+
+    @Test
+    void scheduleTransferIsStoredWithoutCallingTheLedger() {
+        // Given
+        final var executeAt = OffsetDateTime.now().plusHours(6);
+        when(transferRecordRepository.findByIdempotencyKey("standing-order")).thenReturn(Optional.empty());
+        when(transferRecordRepository.save(any(TransferRecord.class))).thenAnswer(invocation -> {
+            TransferRecord record = invocation.getArgument(0);
+            record.setId(7L);
+            return record;
+        });
+
+        // When
+        final var result = transferService.scheduleTransfer("standing-order", 1L, 2L, new BigDecimal("25.00"), executeAt);
+
+        // Then
+        assertEquals(TransferRecord.TransferStatus.SCHEDULED, result.getStatus());
+        assertEquals(executeAt, result.getExecuteAt());
+        verify(ledgerClient, never()).transfer(any());
+        assertThrows(IllegalArgumentException.class, () -> transferService.scheduleTransfer(
+                "too-far", 1L, 2L, BigDecimal.TEN, OffsetDateTime.now().plusYears(5)));
+    }
+
+    @Test
+    void startScheduledSendsTheTransferOnlyOnce() {
+        // Given - the second start finds it no longer SCHEDULED
+        final var record = TransferRecord.builder()
+                .id(7L)
+                .transferId(transferIdGenerator.nextString())
+                .idempotencyKey("standing-order")
+                .fromAccountId(1L)
+                .toAccountId(2L)
+                .amount(new BigDecimal("25.00"))
+                .status(TransferRecord.TransferStatus.PENDING)
+                .build();
+        when(transferRecordRepository.startScheduled(any(), any(), any(), any())).thenReturn(1, 0);
+        when(transferRecordRepository.findById(7L)).thenReturn(Optional.of(record));
+        when(ledgerClient.transfer(any(LedgerTransferRequest.class))).thenReturn(new LedgerTransferResponse(true, "Success"));
+
+        // When
+        final var first = transferService.startScheduled(7L);
+        final var second = transferService.startScheduled(7L);
+
+        // Then
+        assertTrue(first);
+        assertTrue(second);
+        verify(ledgerClient, timeout(1000).times(1)).transfer(any(LedgerTransferRequest.class));
+        verify(transferRecordRepository, times(1)).findById(7L);
+    }
+
+    private static Deadline deadline() {
+        return Deadline.after(Duration.ofSeconds(5));
+    }
 }